@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the base64url conversions the JWS and JWT components used to do,
+ * through padded strings and a regular expression, with the padding-free
+ * byte range codec of the example platform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64Benchmark {
+
+  @Param({ "64", "1024" })
+  public int payloadSize;
+
+  private String json;
+  private byte[] utf8;
+  private String encoded;
+
+  /**
+   * Builds the JSON document and its encoding.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    json = BenchmarkFixture.payload(payloadSize);
+    utf8 = json.getBytes(StandardCharsets.UTF_8);
+    encoded = encodeLegacy();
+  }
+
+  @Benchmark
+  public String encodeLegacy() {
+    String padded = Base64.getUrlEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    byte[] stripped = padded.replaceAll("=", "").getBytes(StandardCharsets.UTF_8);
+    return new String(stripped, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String encodeBytes() {
+    return new String(Utils.base64UrlEncode(utf8, 0, utf8.length), StandardCharsets.US_ASCII);
+  }
+
+  @Benchmark
+  public String decodeLegacy() {
+    byte[] message = encoded.getBytes(StandardCharsets.UTF_8);
+    int pad = message.length % 4;
+    byte[] padded = message;
+    if (pad > 0) {
+      padded = new byte[message.length + 4 - pad];
+      System.arraycopy(message, 0, padded, 0, message.length);
+      for (int i = message.length; i < padded.length; i++) {
+        padded[i] = '=';
+      }
+    }
+    return new String(Base64.getUrlDecoder().decode(padded), StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] decodeBytes() {
+    byte[] ascii = encoded.getBytes(StandardCharsets.US_ASCII);
+    return Utils.base64UrlDecode(ascii, 0, ascii.length);
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+import biz.neustar.tdi.fw.keystructure.TdiKeyFlagsEnum;
+import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
+import biz.neustar.tdi.fw.platform.facet.keys.TdiPlatformKeysShape;
+import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.fw.wrapper.TdiSdkWrapperShape;
+import biz.neustar.tdi.platform.Platform;
+import biz.neustar.tdi.platform.facet.keystore.Key;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import biz.neustar.tdi.sdk.Constants.Api;
+import biz.neustar.tdi.sdk.Constants.NonceConfig;
+import biz.neustar.tdi.sdk.TdiSdk;
+import biz.neustar.tdi.sdk.TdiSdkOptions;
+import biz.neustar.tdi.sdk.component.jws.TdiJws;
+import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Sets up a pair of SDK instances backed by the example {@link Platform}, each
+ * with its own keystore and datastore in a temporary directory.
+ *
+ * <p>
+ * The signer owns the fleet signer (F_S) key and the cosigner owns the fleet
+ * cosigner (F_C) key. Both know the public half of the other key, so messages
+ * signed by the signer and cosigned by the cosigner pass the Verify flow on
+ * either side.
+ */
+public class BenchmarkFixture {
+  public static final String FLEET_ID = "bench-fleet";
+  public static final String SIGNER_KID = "bench-fleet-signer";
+  public static final String COSIGNER_KID = "bench-fleet-cosigner";
+
+  /**
+   * Nonce lifetime in seconds. Long enough for a freshly signed message to be
+   * verified within a measurement iteration.
+   */
+  public static final int NONCE_EXP_DURATION = 60;
+
+  private final Path workDir;
+  private final Map<String, Object> extraConfig;
+  private TdiSdkWrapperShape signer;
+  private TdiSdkWrapperShape cosigner;
+
+  /**
+   * Constructor.
+   *
+   * @param extraConfig
+   *          : Additional top level configuration entries merged into the
+   *          configuration of both SDK instances. May be null.
+   *
+   * @throws IOException
+   *           if the temporary directory cannot be created.
+   */
+  public BenchmarkFixture(Map<String, Object> extraConfig) throws IOException {
+    this.workDir = Files.createTempDirectory("ntdi-bench");
+    this.extraConfig = extraConfig != null ? extraConfig : new HashMap<>();
+  }
+
+  /**
+   * Initializes both SDK instances and provisions their keys.
+   *
+   * @return this fixture.
+   *
+   * @throws Exception
+   *           if the SDK fails to initialize or a key cannot be stored.
+   */
+  public BenchmarkFixture start() throws Exception {
+    signer = newSdk("signer");
+    cosigner = newSdk("cosigner");
+
+    TdiPlatformKeysShape signerKeys = signer.getImpl().getPlatform().getKeystore();
+    TdiPlatformKeysShape cosignerKeys = cosigner.getImpl().getPlatform().getKeystore();
+
+    TdiKeyStructureShape signerKey = signerKeys.generateKey(
+        TdiKeyFlagsEnum.OUR_OWN.getNumber() | TdiKeyFlagsEnum.ROLE_F_S.getNumber(), SIGNER_KID,
+        FLEET_ID).get();
+    TdiKeyStructureShape cosignerKey = cosignerKeys.generateKey(
+        TdiKeyFlagsEnum.OUR_OWN.getNumber() | TdiKeyFlagsEnum.ROLE_F_C.getNumber(), COSIGNER_KID,
+        FLEET_ID).get();
+
+    signerKeys.setKey(publicKey(cosignerKey, TdiKeyFlagsEnum.ROLE_F_C.getNumber()), null, null)
+        .get();
+    cosignerKeys.setKey(publicKey(signerKey, TdiKeyFlagsEnum.ROLE_F_S.getNumber()), null, null)
+        .get();
+    return this;
+  }
+
+  /**
+   * Returns the SDK instance owning the F_S key.
+   *
+   * @return {@link TdiSdkWrapperShape} instance.
+   */
+  public TdiSdkWrapperShape getSigner() {
+    return signer;
+  }
+
+  /**
+   * Returns the SDK instance owning the F_C key.
+   *
+   * @return {@link TdiSdkWrapperShape} instance.
+   */
+  public TdiSdkWrapperShape getCosigner() {
+    return cosigner;
+  }
+
+  /**
+   * Runs the SignFlow of the signer over the given payload.
+   *
+   * @param payload
+   *          : Payload to sign.
+   *
+   * @return JSON serialized JWS with a single signature.
+   *
+   * @throws Exception
+   *           if the flow fails.
+   */
+  public String sign(String payload) throws Exception {
+    return signer.<String, TdiCanonicalMessageShape>api(Api.SignFlow).apply(payload).get()
+        .getBuiltMessage();
+  }
+
+  /**
+   * Signs the given payload with the signer and cosigns it with the cosigner.
+   *
+   * @param payload
+   *          : Payload to sign.
+   *
+   * @return JSON serialized JWS with F_S and F_C signatures.
+   *
+   * @throws Exception
+   *           if either flow fails.
+   */
+  public String signAndCosign(String payload) throws Exception {
+    return cosigner.<String, TdiCanonicalMessageShape>api(Api.CosignFlow).apply(sign(payload))
+        .get().getBuiltMessage();
+  }
+
+  /**
+   * Shuts both SDK instances down and deletes the temporary directory holding
+   * the keystores and datastores.
+   *
+   * @throws Exception
+   *           if an SDK fails to shut down or a file cannot be deleted.
+   */
+  public void stop() throws Exception {
+    if (signer != null) {
+      signer.shutdown().get();
+    }
+    if (cosigner != null) {
+      cosigner.shutdown().get();
+    }
+    try (Stream<Path> paths = Files.walk(workDir)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  /**
+   * Converts a single signature JSON JWS into its compact serialization.
+   *
+   * @param jsonJws
+   *          : JSON serialized JWS.
+   *
+   * @return Compact serialized JWS of the first signature.
+   *
+   * @throws InvalidFormatException
+   *           if the message is not a JSON JWS.
+   */
+  public static String toCompact(String jsonJws) throws InvalidFormatException {
+    TdiJws jws = Utils.jsonToObject(jsonJws, TdiJws.class);
+    TdiJwsSignature signature = jws.signatures.get(0);
+    return signature.protectedHeader + "." + jws.payload + "." + signature.signature;
+  }
+
+  /**
+   * Builds a payload of roughly the given size in bytes.
+   *
+   * @param size
+   *          : Approximate payload size.
+   *
+   * @return Payload string.
+   */
+  public static String payload(int size) {
+    StringBuilder builder = new StringBuilder(size);
+    builder.append("{\"reading\":\"");
+    while (builder.length() < size - 2) {
+      builder.append((char) ('a' + builder.length() % 26));
+    }
+    return builder.append("\"}").toString();
+  }
+
+  private TdiSdkWrapperShape newSdk(String name) throws Exception {
+    Path dir = Files.createDirectories(workDir.resolve(name));
+    Files.write(dir.resolve("keystore.json"), "{\"keys\":[]}".getBytes(StandardCharsets.UTF_8));
+
+    Map<String, Object> basePath = new HashMap<>();
+    basePath.put("basepath", dir.toString() + File.separator);
+
+    Map<String, Object> platform = new HashMap<>();
+    platform.put("data", basePath);
+    platform.put("keys", basePath);
+
+    Map<String, Object> nonce = new HashMap<>();
+    nonce.put(NonceConfig.EXP_DURATION, NONCE_EXP_DURATION);
+
+    Map<String, Object> config = new HashMap<>();
+    config.put("platform", platform);
+    config.put(NonceConfig.STORE, nonce);
+    mergeConfig(config, extraConfig);
+
+    TdiSdkOptions options = new TdiSdkOptions();
+    options.platform = Platform::new;
+    options.config = config;
+    options.exposeImpl = true;
+
+    CompletableFuture<TdiSdkWrapperShape> sdk = new TdiSdk(options).init();
+    return sdk.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void mergeConfig(Map<String, Object> target, Map<String, Object> source) {
+    for (Map.Entry<String, Object> entry : source.entrySet()) {
+      Object existing = target.get(entry.getKey());
+      if (existing instanceof Map && entry.getValue() instanceof Map) {
+        mergeConfig((Map<String, Object>) existing, (Map<String, Object>) entry.getValue());
+      } else {
+        target.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private static Key publicKey(TdiKeyStructureShape keyStruct, Integer flags) {
+    KeyRef source = (KeyRef) keyStruct.getKeyData();
+    KeyRef ref = new KeyRef();
+    ref.use = source.use;
+    ref.alg = source.alg;
+    ref.kty = source.kty;
+    ref.kid = source.kid;
+    ref.crv = source.crv;
+    ref.cordX = source.cordX;
+    ref.cordY = source.cordY;
+
+    Key key = new Key();
+    key.kid = keyStruct.getKeyId();
+    key.fleet = keyStruct.getFleetId();
+    key.flags = flags;
+    key.ref = ref;
+    return key;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks twice with the GC profiler attached: once for
+ * throughput in ops/s and once for sampled latency (p50/p99) in us/op.
+ *
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar
+ * biz.neustar.tdi.benchmarks.BenchmarkRunner [include regex]</code>
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Entry point.
+   *
+   * @param args
+   *          : Optional regular expression selecting the benchmarks to run.
+   *
+   * @throws RunnerException
+   *           if JMH fails to run the benchmarks.
+   */
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : FlowBenchmark.class.getSimpleName();
+
+    new Runner(options(include)
+        .mode(Mode.Throughput)
+        .timeUnit(TimeUnit.SECONDS)
+        .build()).run();
+
+    new Runner(options(include)
+        .mode(Mode.SampleTime)
+        .timeUnit(TimeUnit.MICROSECONDS)
+        .build()).run();
+  }
+
+  private static ChainedOptionsBuilder options(String include) {
+    return new OptionsBuilder()
+        .include(include)
+        .addProfiler(GCProfiler.class);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.sdk.component.jws.BinaryClaimsCodec;
+import biz.neustar.tdi.sdk.component.jws.JwsJsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON claims with the binary claims encoding, from claims to the
+ * base64url encoded JWS payload and back.
+ *
+ * <p>
+ * The setup prints the encoded size of both, before and after base64url.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimsEncodingBenchmark {
+
+  @Param({ "16", "256" })
+  public int payloadSize;
+
+  private TdiClaims claims;
+  private byte[] jsonPayload;
+  private byte[] binaryPayload;
+
+  /**
+   * Builds a claims set the way the SignFlow fills it and encodes it both
+   * ways.
+   *
+   * @throws Exception
+   *           if the claims cannot be encoded.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    claims = new TdiClaims();
+    claims.iss = BenchmarkFixture.SIGNER_KID;
+    claims.exp = 1504258110000L;
+    claims.nbf = 1504254510000L;
+    claims.jti = "0022017-09-01T08:28:30.000ZAbCdEfGh";
+    claims.setPayload(BenchmarkFixture.payload(payloadSize));
+
+    jsonPayload = packJson();
+    binaryPayload = packBinary();
+    System.out.printf("%nclaims: json %d B (%d B base64url), binary %d B (%d B base64url)%n",
+        JwsJsonCodec.writeClaimsUtf8(claims).length, jsonPayload.length,
+        BinaryClaimsCodec.writeClaims(claims).length, binaryPayload.length);
+  }
+
+  @Benchmark
+  public byte[] packJson() throws Exception {
+    byte[] json = JwsJsonCodec.writeClaimsUtf8(claims);
+    return Utils.base64UrlEncode(json, 0, json.length);
+  }
+
+  @Benchmark
+  public byte[] packBinary() throws Exception {
+    byte[] binary = BinaryClaimsCodec.writeClaims(claims);
+    return Utils.base64UrlEncode(binary, 0, binary.length);
+  }
+
+  @Benchmark
+  public Object unpackJson() throws Exception {
+    byte[] json = Utils.base64UrlDecode(jsonPayload, 0, jsonPayload.length);
+    return JwsJsonCodec.readLazyClaims(json).getPayload();
+  }
+
+  @Benchmark
+  public Object unpackBinary() throws Exception {
+    byte[] binary = Utils.base64UrlDecode(binaryPayload, 0, binaryPayload.length);
+    return BinaryClaimsCodec.readLazyClaims(binary).getPayload();
+  }
+
+}
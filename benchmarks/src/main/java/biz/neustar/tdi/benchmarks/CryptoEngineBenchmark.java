@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.UtilKeyGeneration;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.facet.crypto.SignatureEngine;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.BigIntegers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPrivateKeySpec;
+import java.security.spec.ECPublicKeySpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-call JCA lookups the crypto facet used to do for every
+ * sign/verify with the shared curve parameters and per-thread engines.
+ *
+ * <p>
+ * Both variants rebuild the key from its JWK on every call so that only the
+ * provider lookups differ. The key cache of the crypto facet is not involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoEngineBenchmark {
+  private KeyRef keyRef;
+  private byte[] signingInput;
+  private byte[] signature;
+  private SignatureEngine engine;
+
+  /**
+   * Builds the key reference and a reference signature.
+   *
+   * @throws Exception
+   *           if signing fails.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Utils.addBouncyCastleProvider();
+    keyRef = new KeyRef();
+    keyRef.kid = "bench";
+    keyRef.cordX = "ykbxmdBGk_G2LrHJ2R2YQTUX5eBOm4zSsJF8blpE_Bw";
+    keyRef.cordY = "IwwJLBglVpBEOELjnQ0XXWrt5WPs5RO4BP-2NXN3w2M";
+    keyRef.privateD = "TxEyAp7JrLA3xyw17Qw-O-L9zM_nurjgqJG5BvLTxjY";
+
+    signingInput = Utils.toBytes(BenchmarkFixture.payload(256));
+    engine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    signature = signLegacy();
+  }
+
+  @Benchmark
+  public byte[] signLegacy() throws Exception {
+    KeyFactory keyFactory = KeyFactory.getInstance(Constants.PKI_KEY_ALG_ECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    BigInteger privateD = BigIntegers.fromUnsignedByteArray(
+        Utils.base64UrlDecode(keyRef.privateD));
+    ECPrivateKey privateKey = (ECPrivateKey) keyFactory
+        .generatePrivate(new ECPrivateKeySpec(privateD, legacyParameterSpec()));
+
+    Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    ecdsa.initSign(privateKey);
+    ecdsa.update(signingInput);
+    return ecdsa.sign();
+  }
+
+  @Benchmark
+  public byte[] signShared() throws Exception {
+    ECPrivateKey privateKey = UtilKeyGeneration.generateEcPrivateKey(keyRef);
+
+    Signature ecdsa = engine.get();
+    ecdsa.initSign(privateKey);
+    ecdsa.update(signingInput);
+    return ecdsa.sign();
+  }
+
+  @Benchmark
+  public boolean verifyLegacy() throws Exception {
+    KeyFactory keyFactory = KeyFactory.getInstance(Constants.PKI_KEY_ALG_ECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    ECPoint point = new ECPoint(
+        BigIntegers.fromUnsignedByteArray(Utils.base64UrlDecode(keyRef.cordX)),
+        BigIntegers.fromUnsignedByteArray(Utils.base64UrlDecode(keyRef.cordY)));
+    ECPublicKey publicKey = (ECPublicKey) keyFactory
+        .generatePublic(new ECPublicKeySpec(point, legacyParameterSpec()));
+
+    Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    ecdsa.initVerify(publicKey);
+    ecdsa.update(signingInput);
+    return ecdsa.verify(signature);
+  }
+
+  @Benchmark
+  public boolean verifyShared() throws Exception {
+    ECPublicKey publicKey = UtilKeyGeneration.generateEcpublicKey(keyRef);
+
+    Signature ecdsa = engine.get();
+    ecdsa.initVerify(publicKey);
+    ecdsa.update(signingInput);
+    return ecdsa.verify(signature);
+  }
+
+  private static ECParameterSpec legacyParameterSpec() throws Exception {
+    AlgorithmParameters parameters = AlgorithmParameters.getInstance(Constants.PKI_ALG_EC,
+        BouncyCastleProvider.PROVIDER_NAME);
+    parameters.init(new ECGenParameterSpec(Constants.EC_CURVE_SECP256R1));
+    return parameters.getParameterSpec(ECParameterSpec.class);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.sdk.component.jws.JwsEnvelopeScanner;
+import biz.neustar.tdi.sdk.component.jws.TdiJws;
+import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares how the JWS handler used to classify a received message, a regular
+ * expression match followed by a split, with the single pass
+ * {@link JwsEnvelopeScanner}, on compact and JSON serialized messages carrying
+ * sensor payloads of typical sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeScanBenchmark {
+  private static final String COMPACT_EXPR =
+      "^[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+$";
+
+  @Param({ "64", "512", "4096" })
+  public int payloadSize;
+
+  private String compact;
+  private String json;
+
+  /**
+   * Builds a compact and a JSON serialized message around the same payload.
+   *
+   * @throws Exception
+   *           if the JSON message cannot be serialized.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String header = "eyJ0eXAiOiJKT1NFK0pTT04iLCJhbGciOiJFUzI1NiJ9";
+    String payload = encoder.encodeToString(
+        BenchmarkFixture.payload(payloadSize).getBytes(StandardCharsets.UTF_8));
+    String signature = "MEUCIQDx8lJcG4v0pDq2n9k3w1zXcR5bH7yT0uVnA2sLmE4oPgIgV6";
+    compact = header + "." + payload + "." + signature;
+
+    TdiJws jws = new TdiJws();
+    jws.payload = payload;
+    TdiJwsSignature jwsSignature = new TdiJwsSignature();
+    jwsSignature.protectedHeader = header;
+    jwsSignature.signature = signature;
+    jws.signatures.add(jwsSignature);
+    json = Utils.objectToJson(jws);
+  }
+
+  @Benchmark
+  public String[] compactLegacy() {
+    return legacy(compact);
+  }
+
+  @Benchmark
+  public String[] compactScanner() {
+    return JwsEnvelopeScanner.splitCompact(compact);
+  }
+
+  @Benchmark
+  public String[] jsonLegacy() {
+    return legacy(json);
+  }
+
+  @Benchmark
+  public String[] jsonScanner() {
+    return JwsEnvelopeScanner.splitCompact(json);
+  }
+
+  private static String[] legacy(String message) {
+    return Pattern.matches(COMPACT_EXPR, message) ? message.split("\\.") : null;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.facet.crypto.EcKeyCache;
+import biz.neustar.tdi.platform.facet.crypto.EcdsaSignatureCodec;
+import biz.neustar.tdi.platform.facet.crypto.FixedBaseSigningEngine;
+import biz.neustar.tdi.platform.facet.crypto.SignatureEngine;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two signing engines of the crypto facet on a warm key: the JCA
+ * {@link Signature} path with a cached private key, and the
+ * {@link FixedBaseSigningEngine} with a prepared key.
+ *
+ * <p>
+ * Both variants produce the raw R||S signature the facet encodes, so the JCA
+ * variant includes the DER transcoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedBaseSigningBenchmark {
+  private KeyRef keyRef;
+  private ByteBuffer signingInput;
+  private EcKeyCache keyCache;
+  private SignatureEngine engine;
+  private FixedBaseSigningEngine fixedBaseEngine;
+
+  /**
+   * Builds the key reference and warms both engines.
+   *
+   * @throws Exception
+   *           if signing fails.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Utils.addBouncyCastleProvider();
+    keyRef = new KeyRef();
+    keyRef.kid = "bench";
+    keyRef.cordX = "ykbxmdBGk_G2LrHJ2R2YQTUX5eBOm4zSsJF8blpE_Bw";
+    keyRef.cordY = "IwwJLBglVpBEOELjnQ0XXWrt5WPs5RO4BP-2NXN3w2M";
+    keyRef.privateD = "TxEyAp7JrLA3xyw17Qw-O-L9zM_nurjgqJG5BvLTxjY";
+
+    signingInput = ByteBuffer.wrap(Utils.toBytes(BenchmarkFixture.payload(256)));
+    keyCache = new EcKeyCache(EcKeyCache.DEFAULT_MAX_ENTRIES);
+    engine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    fixedBaseEngine = new FixedBaseSigningEngine();
+    fixedBaseEngine.register(keyRef.kid, keyRef);
+  }
+
+  @Benchmark
+  public byte[] signJca() throws Exception {
+    Signature ecdsa = engine.get();
+    ecdsa.initSign(keyCache.getPrivateKey(keyRef.kid, keyRef));
+    ecdsa.update(signingInput.duplicate());
+    return EcdsaSignatureCodec.derToRaw(ecdsa.sign(), 32);
+  }
+
+  @Benchmark
+  public byte[] signFixedBase() {
+    return fixedBaseEngine.sign(keyRef.kid, keyRef, signingInput);
+  }
+}
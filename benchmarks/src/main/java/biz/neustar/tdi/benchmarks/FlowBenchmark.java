@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
+import biz.neustar.tdi.sdk.Constants.Api;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmarks of the default SDK flows running on the example
+ * platform.
+ *
+ * <p>
+ * Verification consumes the nonce of the message, so every verify invocation
+ * gets a freshly signed message from a per-invocation setup. Signing cost of
+ * that setup is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowBenchmark {
+
+  @Param({ "64", "1024" })
+  public int payloadSize;
+
+  BenchmarkFixture fixture;
+  String payload;
+  String signed;
+
+  /**
+   * Starts the SDK instances and signs a reference message for cosigning.
+   *
+   * @throws Exception
+   *           if the fixture cannot be started.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = new BenchmarkFixture(null).start();
+    payload = BenchmarkFixture.payload(payloadSize);
+    signed = fixture.sign(payload);
+  }
+
+  /**
+   * Removes the temporary keystores and datastores.
+   *
+   * @throws Exception
+   *           if the files cannot be removed.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.stop();
+  }
+
+  /**
+   * Message signed by F_S only, in JSON and compact serialization.
+   */
+  @State(Scope.Thread)
+  public static class SignedMessage {
+    String json;
+    String compact;
+
+    /**
+     * Signs a fresh message.
+     *
+     * @param bench
+     *          : Benchmark state holding the fixture.
+     *
+     * @throws Exception
+     *           if signing fails.
+     */
+    @Setup(Level.Invocation)
+    public void next(FlowBenchmark bench) throws Exception {
+      json = bench.fixture.sign(bench.payload);
+      compact = BenchmarkFixture.toCompact(json);
+    }
+  }
+
+  /**
+   * Message signed by F_S and cosigned by F_C.
+   */
+  @State(Scope.Thread)
+  public static class CosignedMessage {
+    String json;
+
+    /**
+     * Signs and cosigns a fresh message.
+     *
+     * @param bench
+     *          : Benchmark state holding the fixture.
+     *
+     * @throws Exception
+     *           if signing fails.
+     */
+    @Setup(Level.Invocation)
+    public void next(FlowBenchmark bench) throws Exception {
+      json = bench.fixture.signAndCosign(bench.payload);
+    }
+  }
+
+  @Benchmark
+  public TdiCanonicalMessageShape sign() throws Exception {
+    return fixture.getSigner().<String, TdiCanonicalMessageShape>api(Api.SignFlow).apply(payload)
+        .get();
+  }
+
+  @Benchmark
+  public TdiCanonicalMessageShape cosign() throws Exception {
+    return fixture.getCosigner().<String, TdiCanonicalMessageShape>api(Api.CosignFlow)
+        .apply(signed).get();
+  }
+
+  @Benchmark
+  public String verifyMultiSigner(CosignedMessage message) throws Exception {
+    return fixture.getSigner().<String, String>api(Api.VerifyFlow).apply(message.json).get();
+  }
+
+  @Benchmark
+  public String verifyGeneralJson(SignedMessage message) throws Exception {
+    return fixture.getCosigner().<String, String>api(Api.VerifyGeneralFlow).apply(message.json)
+        .get();
+  }
+
+  @Benchmark
+  public String verifyGeneralCompact(SignedMessage message) throws Exception {
+    return fixture.getCosigner().<String, String>api(Api.VerifyGeneralFlow)
+        .apply(message.compact).get();
+  }
+
+  @Benchmark
+  public String verifyGeneralMultiSigner(CosignedMessage message) throws Exception {
+    return fixture.getCosigner().<String, String>api(Api.VerifyGeneralFlow).apply(message.json)
+        .get();
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow;
+import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares resolving the steps of an api flow on every invocation, as
+ * {@code TdiImplementation.buildApiFlow} used to, with the precompiled
+ * {@link TdiCompiledFlow}, composing every step or running completed steps
+ * inline. The {@code Stats} variants keep {@link TdiFlowStats}, timing every
+ * invocation or one in a hundred. Run with {@code -bm avgt} for
+ * the latency per flow.
+ *
+ * <p>
+ * The flow has the seven steps of the SignFlow, one overridden and one with
+ * an appended step. Every step completes immediately, so only the flow
+ * machinery is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowPipelineBenchmark {
+  private static final String[] STEPS = { "handleInit", "parseRaw", "setClaims", "packClaims",
+      "setSigners", "sign", "handleReturn" };
+
+  private TdiFlowArguments originalFlow;
+  private TdiFlowArguments otherFlow;
+  private TdiCompiledFlow<Object, Object> composed;
+  private TdiCompiledFlow<Object, Object> composedWithoutOtherFlow;
+  private TdiCompiledFlow<Object, Object> inline;
+  private TdiCompiledFlow<Object, Object> inlineWithoutOtherFlow;
+  private TdiCompiledFlow<Object, Object> inlineStats;
+  private TdiCompiledFlow<Object, Object> inlineSampledStats;
+  private TdiCompiledFlow<Object, Object> composedStats;
+
+  /**
+   * Builds the flows.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    originalFlow = new TdiFlowArguments();
+    for (String step : STEPS) {
+      originalFlow.addMethod(step, CompletableFuture::completedFuture);
+    }
+    otherFlow = new TdiFlowArguments();
+    otherFlow.addMethod("setClaims", CompletableFuture::completedFuture);
+    otherFlow.addMethod("sign", CompletableFuture::completedFuture);
+    otherFlow.addOverrideStep("sign");
+    composed = TdiCompiledFlow.compile(originalFlow, otherFlow, false);
+    composedWithoutOtherFlow = TdiCompiledFlow.compile(originalFlow, null, false);
+    inline = TdiCompiledFlow.compile(originalFlow, otherFlow, true);
+    inlineWithoutOtherFlow = TdiCompiledFlow.compile(originalFlow, null, true);
+    inlineStats = TdiCompiledFlow.compile(originalFlow, otherFlow, true, 1);
+    inlineSampledStats = TdiCompiledFlow.compile(originalFlow, otherFlow, true, 100);
+    composedStats = TdiCompiledFlow.compile(originalFlow, otherFlow, false, 1);
+  }
+
+  @Benchmark
+  public Object legacy() throws Exception {
+    return legacyFlow("data", originalFlow, otherFlow).get();
+  }
+
+  @Benchmark
+  public Object legacyWithoutOtherFlow() throws Exception {
+    return legacyFlow("data", originalFlow, null).get();
+  }
+
+  @Benchmark
+  public Object composed() throws Exception {
+    return composed.apply("data").get();
+  }
+
+  @Benchmark
+  public Object composedWithoutOtherFlow() throws Exception {
+    return composedWithoutOtherFlow.apply("data").get();
+  }
+
+  @Benchmark
+  public Object inline() throws Exception {
+    return inline.apply("data").get();
+  }
+
+  @Benchmark
+  public Object inlineWithoutOtherFlow() throws Exception {
+    return inlineWithoutOtherFlow.apply("data").get();
+  }
+
+  @Benchmark
+  public Object inlineStats() throws Exception {
+    return inlineStats.apply("data").get();
+  }
+
+  @Benchmark
+  public Object inlineSampledStats() throws Exception {
+    return inlineSampledStats.apply("data").get();
+  }
+
+  @Benchmark
+  public Object composedStats() throws Exception {
+    return composedStats.apply("data").get();
+  }
+
+  private static CompletableFuture<? extends Object> legacyFlow(Object data,
+      TdiFlowArguments originalFlow, TdiFlowArguments otherFlow) {
+    TdiFlowArguments newFlow = otherFlow == null ? new TdiFlowArguments() : otherFlow;
+    CompletableFuture<? extends Object> currentFuture = CompletableFuture.completedFuture(data);
+
+    for (Entry<String, Function<Object, CompletableFuture<? extends Object>>> entry :
+        originalFlow.getFlowMap().entrySet()) {
+      if (newFlow.getFlowMap().containsKey(entry.getKey())
+          && newFlow.getOverrideSteps().contains(entry.getKey())) {
+        currentFuture = currentFuture.thenCompose((msg) -> {
+          return newFlow.getFlowMap().get(entry.getKey()).apply(msg);
+        });
+      } else if (newFlow.getFlowMap().containsKey(entry.getKey())
+          && (!newFlow.getOverrideSteps().contains(entry.getKey()))) {
+        currentFuture = currentFuture.thenCompose((msg) -> {
+          return entry.getValue().apply(msg);
+        }).thenCompose((msg) -> {
+          return newFlow.getFlowMap().get(entry.getKey()).apply(msg);
+        });
+      } else {
+        currentFuture = currentFuture.thenCompose((msg) -> {
+          return entry.getValue().apply(msg);
+        });
+      }
+    }
+    return currentFuture;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.sdk.Constants.DefaultJws;
+import biz.neustar.tdi.sdk.component.jws.JwsJsonCodec;
+import biz.neustar.tdi.sdk.component.jws.TdiJws;
+import biz.neustar.tdi.sdk.component.jws.TdiJwsHeader;
+import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON conversions of the JWS envelope, protected header and
+ * claims done with a new {@link ObjectMapper} per call, as {@link Utils} used
+ * to, against the shared mapper and cached readers and writers of
+ * {@link Utils} and the streaming {@link JwsJsonCodec}. Run with
+ * {@code -prof gc} to see the allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+  private TdiJwsHeader header;
+  private TdiJws jws;
+  private TdiClaims claims;
+  private String jwsJson;
+  private String claimsJson;
+  private String structuredClaimsJson;
+
+  /**
+   * Builds a JSON JWS with two signatures and a claims set.
+   *
+   * @throws Exception
+   *           if the sample cannot be serialized.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    header = new TdiJwsHeader();
+    header.typ = DefaultJws.type;
+    header.alg = DefaultJws.alg;
+    header.kid = BenchmarkFixture.SIGNER_KID;
+
+    claims = new TdiClaims();
+    claims.iss = BenchmarkFixture.FLEET_ID;
+    claims.exp = 1504258110L;
+    claims.nbf = 1504254510L;
+    claims.jti = "0022017-09-01T08:28:30ZAbCdEf";
+    claims.setPayload(BenchmarkFixture.payload(256));
+    claimsJson = Utils.objectToJson(claims);
+
+    Map<String, Object> readings = new LinkedHashMap<>();
+    for (int index = 0; index < 16; index++) {
+      readings.put("sensor" + index, Arrays.asList(index, index * 0.5, "ok"));
+    }
+    TdiClaims structured = new TdiClaims();
+    structured.iss = claims.iss;
+    structured.exp = claims.exp;
+    structured.nbf = claims.nbf;
+    structured.jti = claims.jti;
+    structured.setPayload(readings);
+    structuredClaimsJson = Utils.objectToJson(structured);
+
+    jws = new TdiJws();
+    jws.payload = "eyJpc3MiOiJiZW5jaC1mbGVldCIsImV4cCI6MTUwNDI1ODExMH0";
+    for (int index = 0; index < 2; index++) {
+      TdiJwsSignature signature = new TdiJwsSignature();
+      signature.protectedHeader = "eyJ0eXAiOiJKT1NFK0pTT04iLCJhbGciOiJFUzI1NiJ9";
+      signature.signature = "MEUCIQDx8lJcG4v0pDq2n9k3w1zXcR5bH7yT0uVnA2sLmE4oPgIgV6";
+      jws.signatures.add(signature);
+    }
+    jwsJson = Utils.objectToJson(jws);
+  }
+
+  @Benchmark
+  public TdiJws readJwsLegacy() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    return mapper.readValue(jwsJson, TdiJws.class);
+  }
+
+  @Benchmark
+  public TdiJws readJwsShared() throws Exception {
+    return Utils.jsonToObject(jwsJson, TdiJws.class);
+  }
+
+  @Benchmark
+  public TdiJws readJwsCodec() throws Exception {
+    return JwsJsonCodec.readJws(jwsJson);
+  }
+
+  @Benchmark
+  public String writeJwsShared() throws Exception {
+    return Utils.objectToJson(jws);
+  }
+
+  @Benchmark
+  public String writeJwsCodec() throws Exception {
+    return JwsJsonCodec.writeJws(jws);
+  }
+
+  @Benchmark
+  public String writeHeaderLegacy() throws Exception {
+    return new ObjectMapper().writeValueAsString(header);
+  }
+
+  @Benchmark
+  public String writeHeaderShared() throws Exception {
+    return Utils.objectToJson(header);
+  }
+
+  @Benchmark
+  public String writeHeaderCodec() throws Exception {
+    return JwsJsonCodec.writeHeader(header);
+  }
+
+  @Benchmark
+  public Map<String, Object> readClaimsLegacy() throws Exception {
+    return new ObjectMapper().readValue(claimsJson, new TypeReference<Map<String, Object>>() {
+    });
+  }
+
+  @Benchmark
+  public Map<String, Object> readClaimsShared() throws Exception {
+    return Utils.jsonToMap(claimsJson);
+  }
+
+  @Benchmark
+  public TdiClaims readClaimsTyped() throws Exception {
+    return Utils.jsonToObject(claimsJson, TdiClaims.class);
+  }
+
+  @Benchmark
+  public TdiClaims readClaimsCodec() throws Exception {
+    return JwsJsonCodec.readClaims(claimsJson);
+  }
+
+  @Benchmark
+  public TdiClaims readClaimsLazy() throws Exception {
+    return JwsJsonCodec.readLazyClaims(claimsJson);
+  }
+
+  @Benchmark
+  public TdiClaims readStructuredClaimsCodec() throws Exception {
+    return JwsJsonCodec.readClaims(structuredClaimsJson);
+  }
+
+  @Benchmark
+  public TdiClaims readStructuredClaimsLazy() throws Exception {
+    return JwsJsonCodec.readLazyClaims(structuredClaimsJson);
+  }
+
+  @Benchmark
+  public String writeClaimsShared() throws Exception {
+    return Utils.objectToJson(claims);
+  }
+
+  @Benchmark
+  public String writeClaimsCodec() throws Exception {
+    return JwsJsonCodec.writeClaims(claims);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.sdk.component.NonceBurnList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares burning a nonce with the whole-map scan the nonce component used to
+ * run on every burn against the expiry-bucketed {@link NonceBurnList}.
+ *
+ * <p>
+ * The lists hold {@code liveNonces} nonces spread over a 60 second window.
+ * Every operation moves the clock forward by the window divided by the number
+ * of live nonces, expires what is due and burns one nonce expiring at the end
+ * of the window, so the number of live nonces stays steady.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonceBurnBenchmark {
+  private static final long WINDOW = 60;
+  private static final long BASE = 1_500_000_000L;
+
+  @Param({ "100000", "1000000" })
+  public int liveNonces;
+
+  private Map<String, Long> legacy;
+  private long legacyNbfMinimum;
+  private long legacyOps;
+  private NonceBurnList bucketed;
+  private long bucketedNbfMinimum;
+  private long bucketedOps;
+
+  /**
+   * Fills both lists with the live nonces.
+   */
+  @Setup(Level.Iteration)
+  public void setup() {
+    legacy = new HashMap<>();
+    bucketed = new NonceBurnList();
+    for (long op = 0; op < liveNonces; op++) {
+      legacy.put(nonce(op), expiry(op));
+      bucketed.add(expiry(op), nonce(op));
+    }
+    legacyOps = liveNonces;
+    bucketedOps = liveNonces;
+  }
+
+  @Benchmark
+  public long legacy() {
+    long op = legacyOps++;
+    long now = expiry(op) - WINDOW;
+
+    Map<String, Long> newList = new HashMap<>();
+    long newNbfMinimum = legacyNbfMinimum;
+    for (String key : legacy.keySet()) {
+      long nonce = legacy.get(key);
+      if (nonce > now) {
+        newList.put(key, nonce);
+      } else if (nonce > newNbfMinimum) {
+        newNbfMinimum = nonce;
+      }
+    }
+    legacyNbfMinimum = newNbfMinimum;
+    legacy.clear();
+    legacy.putAll(newList);
+
+    legacy.put(nonce(op), expiry(op));
+    return legacyNbfMinimum;
+  }
+
+  @Benchmark
+  public long bucketed() {
+    long op = bucketedOps++;
+    long now = expiry(op) - WINDOW;
+
+    Long expired = bucketed.expire(now);
+    if (expired != null && expired > bucketedNbfMinimum) {
+      bucketedNbfMinimum = expired;
+    }
+
+    bucketed.add(expiry(op), nonce(op));
+    return bucketedNbfMinimum;
+  }
+
+  private long expiry(long op) {
+    return BASE + WINDOW + op * WINDOW / liveNonces;
+  }
+
+  private static String nonce(long op) {
+    return "0022017-08-18T07:18:02Z" + op;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.sdk.component.NonceBurnList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the steps of a nonce check that depend on the nonce itself: the
+ * format check, matching the pattern string on every call as the nonce
+ * component used to against a precompiled {@link Pattern}, and the lookup
+ * and reservation of the nonce in the {@link NonceBurnList}.
+ *
+ * <p>
+ * The list holds {@code liveNonces} nonces spread over a 60 second window.
+ * Lookups use fresh nonces, which were never burnt, and replayed ones. Each
+ * call copies the nonce first, as a nonce parsed from a message has no cached
+ * hash yet.
+ *
+ * <p>
+ * The reserve benchmarks follow {@code checkAndReserve} of the nonce
+ * component. A fresh reservation is released again to keep the list
+ * unchanged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonceCheckBenchmark {
+  private static final long WINDOW = 60;
+  private static final long BASE = 1_500_000_000L;
+  private static final int LOOKUPS = 1024;
+  private static final String NONCE_REGEX = "^00[12][2-9][0-9]{3}-(0[1-9]|1[0-2])-"
+      + "(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3])(:[0-5][0-9]){2}Z[A-Za-z0-9]{6}$";
+  private static final Pattern NONCE_PATTERN = Pattern.compile(NONCE_REGEX);
+
+  @Param({ "100000" })
+  public int liveNonces;
+
+  private NonceBurnList list;
+  private String[] fresh;
+  private String[] replayed;
+  private long[] expiries;
+  private int next;
+
+  /**
+   * Fills the burn list.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    list = new NonceBurnList();
+    for (int op = 0; op < liveNonces; op++) {
+      list.add(expiry(op), nonce(op, "b"));
+    }
+
+    fresh = new String[LOOKUPS];
+    replayed = new String[LOOKUPS];
+    expiries = new long[LOOKUPS];
+    for (int index = 0; index < LOOKUPS; index++) {
+      int op = index * (liveNonces / LOOKUPS);
+      fresh[index] = nonce(op, "f");
+      replayed[index] = nonce(op, "b");
+      expiries[index] = expiry(op);
+    }
+  }
+
+  @Benchmark
+  public boolean regexLegacy() {
+    return Pattern.matches(NONCE_REGEX, received(fresh[next()]));
+  }
+
+  @Benchmark
+  public boolean regexCompiled() {
+    return NONCE_PATTERN.matcher(received(fresh[next()])).matches();
+  }
+
+  @Benchmark
+  public boolean lookupFresh() {
+    int index = next();
+    return list.contains(expiries[index], received(fresh[index]));
+  }
+
+  @Benchmark
+  public boolean lookupReplayed() {
+    int index = next();
+    return list.contains(expiries[index], received(replayed[index]));
+  }
+
+  @Benchmark
+  public boolean reserveFresh() {
+    int index = next();
+    String nonce = received(fresh[index]);
+    boolean reserved = list.reserve(expiries[index], nonce);
+    list.release(expiries[index], nonce);
+    return reserved;
+  }
+
+  @Benchmark
+  public boolean reserveReplayed() {
+    int index = next();
+    return list.reserve(expiries[index], received(replayed[index]));
+  }
+
+  /**
+   * Copies the nonce the way it arrives in a message, without a cached hash.
+   */
+  private static String received(String nonce) {
+    return new String(nonce.toCharArray());
+  }
+
+  private int next() {
+    next = (next + 1) & (LOOKUPS - 1);
+    return next;
+  }
+
+  private long expiry(long op) {
+    return BASE + WINDOW + op * WINDOW / liveNonces;
+  }
+
+  private static String nonce(int op, String prefix) {
+    String suffix = prefix + Integer.toString(op, 36);
+    return "0022017-08-18T07:18:02Z" + "000000".substring(suffix.length()) + suffix;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.facet.TimeFacet;
+import biz.neustar.tdi.sdk.Constants.NonceConfig;
+import biz.neustar.tdi.sdk.component.NonceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares nonce creation as the nonce component used to do it, formatting the
+ * expiry date with a new {@link SimpleDateFormat} and drawing every random
+ * character from a new {@link Random}, against the {@link NonceGenerator},
+ * which formats the date prefix once per second and draws the random suffix
+ * from a per-thread buffer of {@link java.security.SecureRandom} bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonceCreateBenchmark {
+  private static final String VALID_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+      + "abcdefghijklmnopqrstuvwxyz";
+  private static final long EXP_DURATION = 60;
+  private static final int RANDOM_LENGTH = 6;
+
+  private NonceGenerator generator;
+
+  /**
+   * Builds the generator on the time facet of the example platform.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    generator = new NonceGenerator(new TimeFacet(null), NonceConfig.VERSION, EXP_DURATION,
+        RANDOM_LENGTH);
+  }
+
+  @Benchmark
+  public String createLegacy() {
+    TimeZone tz = TimeZone.getTimeZone("UTC");
+    DateFormat df = new SimpleDateFormat(Constants.ISO_TIMESTAMP_FORMAT);
+    df.setTimeZone(tz);
+    Calendar cal = Calendar.getInstance();
+    cal.setTime(new Date());
+    cal.add(Calendar.SECOND, (int) EXP_DURATION);
+
+    StringBuilder randomString = new StringBuilder();
+    randomString.append(NonceConfig.VERSION);
+    randomString.append(df.format(cal.getTime()));
+    for (int loopIndex = 0; loopIndex < RANDOM_LENGTH; loopIndex++) {
+      randomString.append(
+          VALID_CHARACTERS.charAt(new Random().nextInt(VALID_CHARACTERS.length() - 1)));
+    }
+    return randomString.toString();
+  }
+
+  @Benchmark
+  public String createGenerator() {
+    return generator.next();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape;
+import biz.neustar.tdi.sdk.Constants.NonceConfig;
+import biz.neustar.tdi.sdk.component.TdiSdkNonceComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares persisting every burnt nonce by rewriting the nonce store of the
+ * example platform against appending it to the store journal.
+ *
+ * <p>
+ * The store starts with {@code liveNonces} burnt nonces that have not expired.
+ * Every operation burns a fresh nonce and waits until it is persisted. The
+ * journal variant includes its periodic compactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoncePersistenceBenchmark {
+  private static final String STORE = "benchNonce";
+
+  @Param({ NonceConfig.PERSISTENCE_SNAPSHOT, NonceConfig.PERSISTENCE_JOURNAL })
+  public String persistence;
+
+  @Param({ "1000", "100000" })
+  public int liveNonces;
+
+  BenchmarkFixture fixture;
+  TdiSdkNonceComponent nonces;
+
+  /**
+   * Starts an SDK instance, fills the nonce store and loads it.
+   *
+   * @throws Exception
+   *           if the fixture or the store cannot be set up.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Map<String, Object> nonceConfig = new HashMap<>();
+    nonceConfig.put(NonceConfig.PERSISTENCE, persistence);
+    Map<String, Object> config = new HashMap<>();
+    config.put(NonceConfig.STORE, nonceConfig);
+    fixture = new BenchmarkFixture(config).start();
+
+    TdiPlatformDataShape dataStore = fixture.getSigner().getImpl().getPlatform().getDataStore();
+    long now = fixture.getSigner().getImpl().getPlatform().getTime().timestamp(null);
+    Map<String, Object> burnt = new HashMap<>();
+    for (int index = 0; index < liveNonces; index++) {
+      burnt.put("0022099-01-01T00:00:00Z" + index, now + 3600);
+    }
+    Map<String, Object> store = new HashMap<>();
+    store.put(NonceConfig.BURNT, burnt);
+    store.put(NonceConfig.EXP_DURATION, (long) BenchmarkFixture.NONCE_EXP_DURATION);
+    store.put(NonceConfig.NBF_MINIMUM, now);
+    dataStore.createStore(STORE, store).get();
+
+    nonces = new TdiSdkNonceComponent(STORE, fixture.getSigner().getImpl());
+    nonces.init().get();
+  }
+
+  /**
+   * Removes the temporary keystores and datastores.
+   *
+   * @throws Exception
+   *           if the files cannot be removed.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.stop();
+  }
+
+  @Benchmark
+  public Void burn() throws Exception {
+    return nonces.burn(nonces.create()).get();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.UtilKeyGeneration;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.facet.crypto.SignatureEngine;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the crypto facet operations per JCA provider, to pick the
+ * {@code providers} setting of a deployment.
+ *
+ * <p>
+ * Keys are built once by the measured provider, as the key cache of the
+ * crypto facet does, so only the operation itself is measured. Run with
+ * {@code -p provider=...} to add providers registered on the JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderBenchmark {
+
+  @Param({ "BC", "SunEC" })
+  public String provider;
+
+  private byte[] signingInput;
+  private byte[] signature;
+  private ECPrivateKey privateKey;
+  private ECPublicKey publicKey;
+  private SignatureEngine engine;
+
+  /**
+   * Builds the keys with the measured provider and a reference signature.
+   *
+   * @throws Exception
+   *           if the provider cannot build the keys or sign.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Utils.addBouncyCastleProvider();
+    KeyRef keyRef = new KeyRef();
+    keyRef.cordX = "ykbxmdBGk_G2LrHJ2R2YQTUX5eBOm4zSsJF8blpE_Bw";
+    keyRef.cordY = "IwwJLBglVpBEOELjnQ0XXWrt5WPs5RO4BP-2NXN3w2M";
+    keyRef.privateD = "TxEyAp7JrLA3xyw17Qw-O-L9zM_nurjgqJG5BvLTxjY";
+
+    privateKey = UtilKeyGeneration.generateEcPrivateKey(keyRef, provider);
+    publicKey = UtilKeyGeneration.generateEcpublicKey(keyRef, provider);
+    signingInput = Utils.toBytes(BenchmarkFixture.payload(256));
+    engine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA, provider);
+    signature = sign();
+  }
+
+  @Benchmark
+  public KeyPair keygen() {
+    return UtilKeyGeneration.generateEcKeyPair(provider);
+  }
+
+  @Benchmark
+  public byte[] sign() throws Exception {
+    Signature ecdsa = engine.get();
+    ecdsa.initSign(privateKey);
+    ecdsa.update(signingInput);
+    return ecdsa.sign();
+  }
+
+  @Benchmark
+  public boolean verify() throws Exception {
+    Signature ecdsa = engine.get();
+    ecdsa.initVerify(publicKey);
+    ecdsa.update(signingInput);
+    return ecdsa.verify(signature);
+  }
+}
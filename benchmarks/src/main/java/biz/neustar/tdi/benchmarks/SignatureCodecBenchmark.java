@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.benchmarks;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.facet.crypto.EcdsaSignatureCodec;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1OutputStream;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.BigIntegers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ASN.1 based DER/R||S transcoding the crypto facet used to do
+ * with {@link EcdsaSignatureCodec}. Run with {@code -prof gc} to see the
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureCodecBenchmark {
+  private byte[] der;
+  private byte[] raw;
+
+  /**
+   * Produces a reference DER signature.
+   *
+   * @throws Exception
+   *           if signing fails.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Utils.addBouncyCastleProvider();
+    KeyPairGenerator generator = KeyPairGenerator.getInstance(Constants.PKI_KEY_ALG_ECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    generator.initialize(new ECGenParameterSpec(Constants.EC_CURVE_SECP256R1));
+    KeyPair keyPair = generator.generateKeyPair();
+
+    Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    ecdsa.initSign(keyPair.getPrivate());
+    ecdsa.update(Utils.toBytes(BenchmarkFixture.payload(64)));
+    der = ecdsa.sign();
+    raw = EcdsaSignatureCodec.derToRaw(der, Constants.KEYSIZE_BYTES);
+  }
+
+  @Benchmark
+  public byte[] derToRawAsn1() throws IOException {
+    ASN1InputStream sigIs = new ASN1InputStream(der);
+    ASN1Sequence sigSeq = (ASN1Sequence) sigIs.readObject();
+    sigIs.close();
+
+    ASN1Integer ansIntR = (ASN1Integer) sigSeq.getObjectAt(0);
+    ASN1Integer ansIntS = (ASN1Integer) sigSeq.getObjectAt(1);
+    byte[] rbytes = BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, ansIntR.getValue());
+    byte[] sbytes = BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, ansIntS.getValue());
+    byte[] rs = new byte[rbytes.length + sbytes.length];
+    System.arraycopy(rbytes, 0, rs, 0, rbytes.length);
+    System.arraycopy(sbytes, 0, rs, rbytes.length, sbytes.length);
+    return rs;
+  }
+
+  @Benchmark
+  public byte[] derToRawCodec() {
+    return EcdsaSignatureCodec.derToRaw(der, Constants.KEYSIZE_BYTES);
+  }
+
+  @Benchmark
+  public byte[] rawToDerAsn1() throws IOException {
+    byte[] rbytes = new byte[raw.length / 2];
+    byte[] sbytes = new byte[raw.length / 2];
+    System.arraycopy(raw, 0, rbytes, 0, rbytes.length);
+    System.arraycopy(raw, rbytes.length, sbytes, 0, sbytes.length);
+
+    BigInteger rbi = BigIntegers.fromUnsignedByteArray(rbytes);
+    BigInteger sbi = BigIntegers.fromUnsignedByteArray(sbytes);
+
+    ByteArrayOutputStream sigBaos = new ByteArrayOutputStream();
+    ASN1OutputStream sigAsn1Os = new ASN1OutputStream(sigBaos);
+    sigAsn1Os.writeObject(new DERSequence(new ASN1Integer[] { new ASN1Integer(rbi),
+        new ASN1Integer(sbi) }));
+    sigAsn1Os.close();
+    return sigBaos.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] rawToDerCodec() {
+    return EcdsaSignatureCodec.rawToDer(raw);
+  }
+}
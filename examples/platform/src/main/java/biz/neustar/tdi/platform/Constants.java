@@ -30,6 +30,28 @@ public class Constants {
   public static final String PLATFORM_CONFIG_KEY_DATASTORE = "data";
   public static final String PLATFORM_CONFIG_KEY_KEYSTORE  = "keys";
   public static final String PLATFORM_CONFIG_KEY_BASEPATH  = "basepath";
+  public static final String PLATFORM_CONFIG_KEY_CRYPTO    = "crypto";
+  public static final String PLATFORM_CONFIG_KEY_EXECUTORS = "executors";
+
+  // Crypto facet configuration related keys
+  public static final String CRYPTO_CONFIG_KEY_CACHE_SIZE = "keyCacheSize";
+  public static final String CRYPTO_CONFIG_KEY_SIGNING_ENGINE = "signingEngine";
+  public static final String CRYPTO_SIGNING_ENGINE_JCA = "jca";
+  public static final String CRYPTO_SIGNING_ENGINE_FIXED_BASE = "fixedBase";
+  public static final String CRYPTO_CONFIG_KEY_PROVIDERS = "providers";
+  public static final String CRYPTO_PROVIDER_KEY_KEYGEN = "keygen";
+  public static final String CRYPTO_PROVIDER_KEY_SIGN = "sign";
+  public static final String CRYPTO_PROVIDER_KEY_VERIFY = "verify";
+
+  // Facet executor configuration related keys
+  public static final String EXECUTORS_CONFIG_KEY_CPU          = "cpu";
+  public static final String EXECUTORS_CONFIG_KEY_IO           = "io";
+  public static final String EXECUTORS_CONFIG_KEY_SHUTDOWN     = "shutdownTimeout";
+  public static final String EXECUTOR_CONFIG_KEY_THREADS       = "threads";
+  public static final String EXECUTOR_CONFIG_KEY_QUEUE_SIZE    = "queueSize";
+  public static final int EXECUTOR_DEFAULT_IO_THREADS          = 4;
+  public static final int EXECUTOR_DEFAULT_QUEUE_SIZE          = 1024;
+  public static final long EXECUTOR_DEFAULT_SHUTDOWN_TIMEOUT   = 5000L;
   
 
   // Name of the key store json file
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pool running the asynchronous work of the platform facets.
+ *
+ * <p>
+ * The pool has a fixed number of daemon threads and a bounded queue. Threads
+ * that stay idle for {@value #KEEP_ALIVE_SECONDS} seconds are released. A task
+ * submitted while the queue is full, or after {@link #shutdown(long)}, is
+ * counted as rejected and runs on the submitting thread instead, which slows
+ * the producer down rather than failing its future.
+ */
+public class FacetExecutor implements Executor {
+  public static final long KEEP_ALIVE_SECONDS = 60L;
+
+  private final String name;
+  private final ThreadPoolExecutor pool;
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param name
+   *          : Pool name, used as prefix of the thread names.
+   * @param threads
+   *          : Maximum number of threads.
+   * @param queueSize
+   *          : Maximum number of queued tasks.
+   */
+  public FacetExecutor(String name, int threads, int queueSize) {
+    this.name = name;
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory = (runnable) -> {
+      Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    this.pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+        threadFactory, (runnable, executor) -> {
+          rejected.incrementAndGet();
+          runnable.run();
+        });
+    this.pool.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Creates a pool from a configuration map, falling back to the given
+   * defaults for missing entries.
+   *
+   * @param name
+   *          : Pool name, used as prefix of the thread names.
+   * @param config
+   *          : Configuration map of the pool. May be null.
+   * @param defaultThreads
+   *          : Number of threads if not configured.
+   * @param defaultQueueSize
+   *          : Queue size if not configured.
+   *
+   * @return {@link FacetExecutor} instance.
+   */
+  public static FacetExecutor fromConfig(String name, Map<String, Object> config,
+      int defaultThreads, int defaultQueueSize) {
+    int threads = defaultThreads;
+    int queueSize = defaultQueueSize;
+    if (config != null) {
+      if (config.get(Constants.EXECUTOR_CONFIG_KEY_THREADS) instanceof Number) {
+        threads = ((Number) config.get(Constants.EXECUTOR_CONFIG_KEY_THREADS)).intValue();
+      }
+      if (config.get(Constants.EXECUTOR_CONFIG_KEY_QUEUE_SIZE) instanceof Number) {
+        queueSize = ((Number) config.get(Constants.EXECUTOR_CONFIG_KEY_QUEUE_SIZE)).intValue();
+      }
+    }
+    return new FacetExecutor(name, threads, queueSize);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    pool.execute(command);
+  }
+
+  /**
+   * Stops accepting tasks and waits for the queued ones to finish.
+   *
+   * @param timeoutMillis
+   *          : Maximum time to wait, in milliseconds.
+   *
+   * @return true if all tasks finished within the timeout. false otherwise.
+   */
+  public boolean shutdown(long timeoutMillis) {
+    pool.shutdown();
+    try {
+      return pool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException err) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether {@link #shutdown(long)} has been called.
+   *
+   * @return true if the pool no longer accepts tasks.
+   */
+  public boolean isShutdown() {
+    return pool.isShutdown();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the maximum number of threads of the pool.
+   *
+   * @return Thread count.
+   */
+  public int getMaxThreads() {
+    return pool.getMaximumPoolSize();
+  }
+
+  /**
+   * Returns the number of tasks waiting for a thread.
+   *
+   * @return Queue depth.
+   */
+  public int getQueueDepth() {
+    return pool.getQueue().size();
+  }
+
+  /**
+   * Returns the number of threads currently running a task.
+   *
+   * @return Active thread count.
+   */
+  public int getActiveCount() {
+    return pool.getActiveCount();
+  }
+
+  /**
+   * Returns the number of tasks that ran on the submitting thread because the
+   * queue was full or the pool was shut down.
+   *
+   * @return Rejection count.
+   */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  /**
+   * Returns the number of tasks completed by the pool threads.
+   *
+   * @return Completed task count.
+   */
+  public long getCompletedCount() {
+    return pool.getCompletedTaskCount();
+  }
+}
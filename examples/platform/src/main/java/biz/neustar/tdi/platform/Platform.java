@@ -30,6 +30,7 @@ import biz.neustar.tdi.platform.facet.TimeFacet;
 import biz.neustar.tdi.platform.facet.UtilFacet;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -44,6 +45,9 @@ public class Platform extends TdiPlatformBase {
   private TdiPlatformTimeShape time;
   private TdiPlatformCryptoShape crypto;
   private TdiPlatformDataShape datastore;
+  private FacetExecutor cpuExecutor;
+  private FacetExecutor ioExecutor;
+  private long shutdownTimeout = Constants.EXECUTOR_DEFAULT_SHUTDOWN_TIMEOUT;
 
   /**
    * Constructor for Platform class.
@@ -55,6 +59,26 @@ public class Platform extends TdiPlatformBase {
   public Platform(Map<String, Object> config) {
     super((Map<String, Object>) config.get(Constants.PLATFORM_CONFIG_KEY_PLATFORM));
 
+    // Executors must exist before the facets using them
+    Map<String, Object> executorsConfig = null;
+    if (this.config != null) {
+      executorsConfig = (Map<String, Object>) this.config
+          .get(Constants.PLATFORM_CONFIG_KEY_EXECUTORS);
+    }
+    if (executorsConfig == null) {
+      executorsConfig = new HashMap<>();
+    }
+    cpuExecutor = FacetExecutor.fromConfig("ntdi-cpu",
+        (Map<String, Object>) executorsConfig.get(Constants.EXECUTORS_CONFIG_KEY_CPU),
+        Runtime.getRuntime().availableProcessors(), Constants.EXECUTOR_DEFAULT_QUEUE_SIZE);
+    ioExecutor = FacetExecutor.fromConfig("ntdi-io",
+        (Map<String, Object>) executorsConfig.get(Constants.EXECUTORS_CONFIG_KEY_IO),
+        Constants.EXECUTOR_DEFAULT_IO_THREADS, Constants.EXECUTOR_DEFAULT_QUEUE_SIZE);
+    if (executorsConfig.get(Constants.EXECUTORS_CONFIG_KEY_SHUTDOWN) instanceof Number) {
+      shutdownTimeout = ((Number) executorsConfig.get(Constants.EXECUTORS_CONFIG_KEY_SHUTDOWN))
+          .longValue();
+    }
+
     // Init member objects and store the instance
     time = new TimeFacet(this);
     util = new UtilFacet(this);
@@ -113,6 +137,26 @@ public class Platform extends TdiPlatformBase {
     return util;
   }
 
+  /**
+   * Method to get the executor running CPU bound facet work such as signing
+   * and verifying.
+   * 
+   * @return {@link FacetExecutor} object.
+   */
+  public FacetExecutor getCpuExecutor() {
+    return cpuExecutor;
+  }
+
+  /**
+   * Method to get the executor running blocking facet work such as reading
+   * and writing the keystore and datastore files.
+   * 
+   * @return {@link FacetExecutor} object.
+   */
+  public FacetExecutor getIoExecutor() {
+    return ioExecutor;
+  }
+
   /**
    * Method initialize platform class.
    * 
@@ -136,4 +180,29 @@ public class Platform extends TdiPlatformBase {
     return CompletableFuture.allOf(queue.toArray(new CompletableFuture<?>[0]));
   }
 
+  /**
+   * Method to shut down the facet executors. Queued work is allowed to finish
+   * for up to the configured shutdown timeout. Work submitted afterwards runs
+   * on the submitting thread. Must not be called from a facet task.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void after both executors stopped.
+   *         <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} if
+   *         queued work did not finish within the timeout.
+   */
+  @Override
+  public CompletableFuture<Void> shutdown() {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    long deadline = System.currentTimeMillis() + shutdownTimeout;
+    boolean cpuDone = cpuExecutor.shutdown(shutdownTimeout);
+    boolean ioDone = ioExecutor.shutdown(Math.max(0L, deadline - System.currentTimeMillis()));
+    if (cpuDone && ioDone) {
+      result.complete(null);
+    } else {
+      result.completeExceptionally(
+          new PlatformRuntimeException("Facet executors did not terminate in time"));
+    }
+    return result;
+  }
 }
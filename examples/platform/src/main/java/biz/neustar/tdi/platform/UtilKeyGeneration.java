@@ -39,13 +39,24 @@ import java.security.spec.ECPrivateKeySpec;
 import java.security.spec.ECPublicKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.InvalidParameterSpecException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for generating ECPublic and ECPrivate key.
  *
+ * <p>
+ * Every method has a variant taking the JCA provider to build the key with.
+ * The variants without one use BouncyCastle.
  */
 public class UtilKeyGeneration {
 
+  private static final ThreadLocal<Map<String, KeyFactory>> KEY_FACTORIES = ThreadLocal
+      .withInitial(HashMap::new);
+  private static final Map<String, ECParameterSpec> PROVIDER_EC_PARAMETERS =
+      new ConcurrentHashMap<>();
+
   static {
     Utils.addBouncyCastleProvider();
     generateEcKeyPair();
@@ -59,6 +70,20 @@ public class UtilKeyGeneration {
    * @return Object of ECPublicKey in case of successful else null
    */
   public static ECPublicKey generateEcpublicKey(KeyRef keyRef) {
+    return generateEcpublicKey(keyRef, BouncyCastleProvider.PROVIDER_NAME);
+  }
+
+  /**
+   * Method to generate ECPublic key based on KeyRef object with the given
+   * provider.
+   * 
+   * @param keyRef
+   *          Object of KeyRef class
+   * @param provider
+   *          JCA provider name
+   * @return Object of ECPublicKey in case of successful else null
+   */
+  public static ECPublicKey generateEcpublicKey(KeyRef keyRef, String provider) {
 
     if (keyRef == null) {
       throw new PlatformRuntimeException("getEcpublicKey: KeyRef object is NULL");
@@ -73,10 +98,10 @@ public class UtilKeyGeneration {
     ECPoint pubPoint = new ECPoint(xbi, ybi);
 
     try {
-      ECParameterSpec ecParameters = getEcParameterSpec();
+      ECParameterSpec ecParameters = getEcParameterSpec(provider);
       ECPublicKeySpec pubSpec = new ECPublicKeySpec(pubPoint, ecParameters);
 
-      return (ECPublicKey) getKeyFactoryInstance().generatePublic(pubSpec);
+      return (ECPublicKey) getKeyFactoryInstance(provider).generatePublic(pubSpec);
 
     } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidParameterSpecException
         | InvalidKeySpecException | RuntimeException err) {
@@ -94,18 +119,33 @@ public class UtilKeyGeneration {
    * 
    */
   public static ECPrivateKey generateEcPrivateKey(KeyRef keyRef) {
+    return generateEcPrivateKey(keyRef, BouncyCastleProvider.PROVIDER_NAME);
+  }
+
+  /**
+   * Method to generate ECPrivate Key from KeyRef with the given provider.
+   * 
+   * @param keyRef
+   *          KeyRef class object
+   * @param provider
+   *          JCA provider name
+   * 
+   * @return Return ECPrivateKey object if successful else null
+   * 
+   */
+  public static ECPrivateKey generateEcPrivateKey(KeyRef keyRef, String provider) {
 
     if (keyRef == null) {
       throw new PlatformRuntimeException("generateEcPrivateKey: KeyRef is NULL");
     }
 
     try {
-      ECParameterSpec ecParameters = getEcParameterSpec();
+      ECParameterSpec ecParameters = getEcParameterSpec(provider);
       if (!StringUtils.isEmpty(keyRef.privateD)) {
         BigInteger base64D = BigIntegers
             .fromUnsignedByteArray(Utils.base64UrlDecode(keyRef.privateD));
         ECPrivateKeySpec privSpec = new ECPrivateKeySpec(base64D, ecParameters);
-        return (ECPrivateKey) getKeyFactoryInstance().generatePrivate(privSpec);
+        return (ECPrivateKey) getKeyFactoryInstance(provider).generatePrivate(privSpec);
       } else {
         throw new PlatformRuntimeException("Generate Priavte Key Failed, 'keyRef.d' is NULL");
       }
@@ -121,11 +161,22 @@ public class UtilKeyGeneration {
    * @return {@link KeyPair} instance
    */
   public static KeyPair generateEcKeyPair() {
+    return generateEcKeyPair(BouncyCastleProvider.PROVIDER_NAME);
+  }
+
+  /**
+   * Returns a {@link KeyPair} for EC keys generated by the given provider.
+   * 
+   * @param provider
+   *          JCA provider name
+   * 
+   * @return {@link KeyPair} instance
+   */
+  public static KeyPair generateEcKeyPair(String provider) {
     try {
 
       ECGenParameterSpec ecsp = getEcParamSpec();
-      KeyPairGenerator kpg = KeyPairGenerator.getInstance(Constants.PKI_KEY_ALG_ECDSA,
-          BouncyCastleProvider.PROVIDER_NAME);
+      KeyPairGenerator kpg = KeyPairGenerator.getInstance(getKeyAlgorithm(provider), provider);
       kpg.initialize(ecsp);
       return kpg.generateKeyPair();
 
@@ -136,8 +187,8 @@ public class UtilKeyGeneration {
   }
 
   /**
-   * Returns {@link ECParameterSpec} instance initialized with required
-   * parameters.
+   * Returns the {@link ECParameterSpec} for secp256r1. The instance is
+   * immutable and built once per process.
    * 
    * @return {@link ECParameterSpec} instance
    * 
@@ -152,16 +203,45 @@ public class UtilKeyGeneration {
    */
   public static ECParameterSpec getEcParameterSpec()
       throws NoSuchAlgorithmException, NoSuchProviderException, InvalidParameterSpecException {
+    return CurveHolder.EC_PARAMETERS;
+  }
 
-    AlgorithmParameters parameters = AlgorithmParameters.getInstance(Constants.PKI_ALG_EC,
-        BouncyCastleProvider.PROVIDER_NAME);
-    parameters.init(getEcParamSpec());
-    ECParameterSpec ecParameters = parameters.getParameterSpec(ECParameterSpec.class);
+  /**
+   * Returns the {@link ECParameterSpec} for secp256r1 as described by the
+   * given provider. The instance is built once per provider.
+   * 
+   * @param provider
+   *          JCA provider name
+   * 
+   * @return {@link ECParameterSpec} instance
+   * 
+   * @throws NoSuchAlgorithmException
+   *           if algorithm does not exists
+   * 
+   * @throws NoSuchProviderException
+   *           if provider does not exists
+   * 
+   * @throws InvalidParameterSpecException
+   *           {@link InvalidParameterSpecException}
+   */
+  public static ECParameterSpec getEcParameterSpec(String provider)
+      throws NoSuchAlgorithmException, NoSuchProviderException, InvalidParameterSpecException {
+    if (BouncyCastleProvider.PROVIDER_NAME.equals(provider)) {
+      return CurveHolder.EC_PARAMETERS;
+    }
+
+    ECParameterSpec ecParameters = PROVIDER_EC_PARAMETERS.get(provider);
+    if (ecParameters == null) {
+      ecParameters = createEcParameterSpec(provider);
+      PROVIDER_EC_PARAMETERS.putIfAbsent(provider, ecParameters);
+    }
     return ecParameters;
   }
 
   /**
-   * Returns {@link KeyFactory} instance initialized with required parameters.
+   * Returns the {@link KeyFactory} of the calling thread. {@link KeyFactory}
+   * is not documented as thread safe, so each thread gets its own instance
+   * which is then reused for every key it builds.
    * 
    * @return {@link KeyFactory} instance.
    * 
@@ -173,7 +253,48 @@ public class UtilKeyGeneration {
    */
   public static KeyFactory getKeyFactoryInstance()
       throws NoSuchAlgorithmException, NoSuchProviderException {
-    return KeyFactory.getInstance(Constants.PKI_KEY_ALG_ECDSA, BouncyCastleProvider.PROVIDER_NAME);
+    return getKeyFactoryInstance(BouncyCastleProvider.PROVIDER_NAME);
+  }
+
+  /**
+   * Returns the {@link KeyFactory} of the given provider for the calling
+   * thread.
+   * 
+   * @param provider
+   *          JCA provider name
+   * 
+   * @return {@link KeyFactory} instance.
+   * 
+   * @throws NoSuchAlgorithmException
+   *           if algorithm does not exists
+   * 
+   * @throws NoSuchProviderException
+   *           if provider does not exists
+   */
+  public static KeyFactory getKeyFactoryInstance(String provider)
+      throws NoSuchAlgorithmException, NoSuchProviderException {
+    Map<String, KeyFactory> keyFactories = KEY_FACTORIES.get();
+    KeyFactory keyFactory = keyFactories.get(provider);
+    if (keyFactory == null) {
+      keyFactory = KeyFactory.getInstance(getKeyAlgorithm(provider), provider);
+      keyFactories.put(provider, keyFactory);
+    }
+    return keyFactory;
+  }
+
+  /**
+   * Returns the EC key algorithm name understood by the given provider.
+   * BouncyCastle keys have always been built as "ECDSA" keys, other providers
+   * only know the standard "EC" name.
+   * 
+   * @param provider
+   *          JCA provider name
+   * 
+   * @return Key algorithm name.
+   */
+  public static String getKeyAlgorithm(String provider) {
+    return BouncyCastleProvider.PROVIDER_NAME.equals(provider) ? Constants.PKI_KEY_ALG_ECDSA
+        : Constants.PKI_ALG_EC;
   }
 
   /**
@@ -186,4 +307,28 @@ public class UtilKeyGeneration {
     return new ECGenParameterSpec(Constants.EC_CURVE_SECP256R1);
   }
 
+  /**
+   * Holder of the curve domain parameters, initialized on first use.
+   */
+  private static class CurveHolder {
+    private static final ECParameterSpec EC_PARAMETERS = createBouncyCastleSpec();
+
+    private static ECParameterSpec createBouncyCastleSpec() {
+      try {
+        return createEcParameterSpec(BouncyCastleProvider.PROVIDER_NAME);
+      } catch (NoSuchAlgorithmException | NoSuchProviderException
+          | InvalidParameterSpecException err) {
+        throw new PlatformRuntimeException(err.getMessage());
+      }
+    }
+  }
+
+  private static ECParameterSpec createEcParameterSpec(String provider)
+      throws NoSuchAlgorithmException, NoSuchProviderException, InvalidParameterSpecException {
+    AlgorithmParameters parameters = AlgorithmParameters.getInstance(Constants.PKI_ALG_EC,
+        provider);
+    parameters.init(getEcParamSpec());
+    return parameters.getParameterSpec(ECParameterSpec.class);
+  }
+
 }
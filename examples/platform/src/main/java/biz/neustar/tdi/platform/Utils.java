@@ -20,15 +20,23 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Security;
-import java.util.Base64;
+import java.util.Arrays;
 
 /**
  * Utils class for common utility methods.
  *
  */
 public class Utils {
+  private static final byte[] BASE64URL_ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+          .getBytes(StandardCharsets.US_ASCII);
+  private static final int[] BASE64URL_VALUES = new int[128];
 
   static {
+    Arrays.fill(BASE64URL_VALUES, -1);
+    for (int index = 0; index < BASE64URL_ALPHABET.length; index++) {
+      BASE64URL_VALUES[BASE64URL_ALPHABET[index]] = index;
+    }
     init();
   }
   
@@ -63,7 +71,7 @@ public class Utils {
   }
 
   /**
-   * Default b64_encode adds padding, jwt spec removes padding.
+   * Base64url encodes data without padding, as the JWS and JWT specs require.
    * 
    * @param msg : 
    *          data to encode which is either a String or a byte[]
@@ -71,39 +79,120 @@ public class Utils {
    * @return base64 encoded data
    */
   public static byte[] base64UrlEncode(Object msg) {
+    byte[] data = toBytes(msg);
+    return base64UrlEncode(data, 0, data.length);
+  }
 
-    String encodedString = Base64.getUrlEncoder().encodeToString(toBytes(msg));
-    String strippedString = encodedString.replaceAll("=", "");
-    return toBytes(strippedString);
+  /**
+   * Base64url encodes a range of a byte[] without padding. The result is
+   * written straight into an array of its final size.
+   * 
+   * @param data : 
+   *          data to encode
+   * @param offset : 
+   *          index of the first byte to encode
+   * @param length : 
+   *          number of bytes to encode
+   * 
+   * @return base64url encoded ASCII bytes
+   */
+  public static byte[] base64UrlEncode(byte[] data, int offset, int length) {
+    int rest = length % 3;
+    byte[] encoded = new byte[length / 3 * 4 + (rest == 0 ? 0 : rest + 1)];
+    int in = offset;
+    int end = offset + length - rest;
+    int out = 0;
+    while (in < end) {
+      int bits = (data[in++] & 0xff) << 16 | (data[in++] & 0xff) << 8 | (data[in++] & 0xff);
+      encoded[out++] = BASE64URL_ALPHABET[bits >>> 18];
+      encoded[out++] = BASE64URL_ALPHABET[(bits >>> 12) & 0x3f];
+      encoded[out++] = BASE64URL_ALPHABET[(bits >>> 6) & 0x3f];
+      encoded[out++] = BASE64URL_ALPHABET[bits & 0x3f];
+    }
+    if (rest > 0) {
+      int bits = (data[in] & 0xff) << 16 | (rest == 2 ? (data[in + 1] & 0xff) << 8 : 0);
+      encoded[out++] = BASE64URL_ALPHABET[bits >>> 18];
+      encoded[out++] = BASE64URL_ALPHABET[(bits >>> 12) & 0x3f];
+      if (rest == 2) {
+        encoded[out] = BASE64URL_ALPHABET[(bits >>> 6) & 0x3f];
+      }
+    }
+    return encoded;
   }
 
   /**
-   * JWT spec doesn't allow padding characters. base64url_encode removes them,
-   * base64url_decode, adds them back in before trying to base64 decode the
-   * message.
+   * JWT spec doesn't allow padding characters, so base64url_decode accepts
+   * unpadded input. Padding that is present is tolerated.
    * 
    * @param amsg : 
    *          URL safe base64 message which is either a String or a byte[]
    * 
    * @return decoded data
+   * 
+   * @throws IllegalArgumentException
+   *           if the message is not valid base64url.
    */
   public static byte[] base64UrlDecode(Object amsg) {
-
     byte[] bmsg = toBytes(amsg);
-    byte[] bpaddedMsg;
-    int pad = (bmsg.length % 4);
-
-    if (pad > 0) {
+    return base64UrlDecode(bmsg, 0, bmsg.length);
+  }
 
-      bpaddedMsg = new byte[bmsg.length + (4 - pad)];
-      System.arraycopy(bmsg, 0, bpaddedMsg, 0, bmsg.length);
+  /**
+   * Decodes a base64url encoded range of a byte[]. Padding is not required;
+   * one or two trailing padding characters are tolerated where they belong.
+   * The result is written straight into an array of its final size.
+   * 
+   * @param data : 
+   *          base64url encoded ASCII bytes
+   * @param offset : 
+   *          index of the first byte to decode
+   * @param length : 
+   *          number of bytes to decode
+   * 
+   * @return decoded data
+   * 
+   * @throws IllegalArgumentException
+   *           if the range is not valid base64url.
+   */
+  public static byte[] base64UrlDecode(byte[] data, int offset, int length) {
+    int end = offset + length;
+    int padding = 0;
+    while (padding < 2 && end > offset && data[end - 1] == '=') {
+      end--;
+      padding++;
+    }
+    int rest = (end - offset) % 4;
+    if (rest == 1 || (padding > 0 && rest < 2) || (padding == 2 && rest == 3)) {
+      throw new IllegalArgumentException("Invalid base64url length");
+    }
 
-      for (int i = bmsg.length; i < bpaddedMsg.length; i++) {
-        bpaddedMsg[i] = (byte) '=';
+    byte[] decoded = new byte[(end - offset) / 4 * 3 + (rest == 0 ? 0 : rest - 1)];
+    int in = offset;
+    int out = 0;
+    while (in < end - rest) {
+      int bits = value(data[in++]) << 18 | value(data[in++]) << 12 | value(data[in++]) << 6
+          | value(data[in++]);
+      decoded[out++] = (byte) (bits >>> 16);
+      decoded[out++] = (byte) (bits >>> 8);
+      decoded[out++] = (byte) bits;
+    }
+    if (rest > 0) {
+      int bits = value(data[in]) << 18 | value(data[in + 1]) << 12
+          | (rest == 3 ? value(data[in + 2]) << 6 : 0);
+      decoded[out++] = (byte) (bits >>> 16);
+      if (rest == 3) {
+        decoded[out] = (byte) (bits >>> 8);
       }
-      bmsg = bpaddedMsg;
     }
-    return Base64.getUrlDecoder().decode(bmsg);
+    return decoded;
+  }
+
+  private static int value(byte encoded) {
+    int value = encoded >= 0 ? BASE64URL_VALUES[encoded] : -1;
+    if (value < 0) {
+      throw new IllegalArgumentException("Illegal base64url character " + (encoded & 0xff));
+    }
+    return value;
   }
   
   /**
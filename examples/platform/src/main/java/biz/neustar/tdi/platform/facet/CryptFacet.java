@@ -19,35 +19,49 @@ package biz.neustar.tdi.platform.facet;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyRequest;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyResult;
 import biz.neustar.tdi.platform.Constants;
-import biz.neustar.tdi.platform.UtilKeyGeneration;
+import biz.neustar.tdi.platform.Platform;
 import biz.neustar.tdi.platform.Utils;
 import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import biz.neustar.tdi.platform.facet.crypto.CryptoProviders;
+import biz.neustar.tdi.platform.facet.crypto.EcKeyCache;
+import biz.neustar.tdi.platform.facet.crypto.EcdsaSignatureCodec;
+import biz.neustar.tdi.platform.facet.crypto.FixedBaseSigningEngine;
+import biz.neustar.tdi.platform.facet.crypto.SignatureEngine;
 import biz.neustar.tdi.platform.facet.keystore.KeyRef;
 import org.apache.commons.lang3.StringUtils;
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.ASN1Integer;
-import org.bouncycastle.asn1.ASN1OutputStream;
-import org.bouncycastle.asn1.ASN1Sequence;
-import org.bouncycastle.asn1.DERSequence;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.util.BigIntegers;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.math.BigInteger;
+
+import java.nio.ByteBuffer;
 import java.security.Signature;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Implementation of CryptFacet class.
  * 
  */
 public class CryptFacet implements TdiPlatformCryptoShape {
+  /**
+   * Number of requests of a batch verified sequentially by one executor task.
+   */
+  public static final int BATCH_CHUNK_SIZE = 16;
 
   private TdiPlatformShape pf;
+  private Executor executor;
+  private EcKeyCache keyCache;
+  private FixedBaseSigningEngine fixedBaseEngine;
+  private CryptoProviders providers;
+  private SignatureEngine signEngine;
+  private SignatureEngine verifyEngine;
 
   /**
    * Public constructor for CryptFacet class.
@@ -58,6 +72,41 @@ public class CryptFacet implements TdiPlatformCryptoShape {
    */
   public CryptFacet(TdiPlatformShape pf) {
     this.pf = pf;
+    this.executor = pf instanceof Platform ? ((Platform) pf).getCpuExecutor()
+        : ForkJoinPool.commonPool();
+
+    int cacheSize = EcKeyCache.DEFAULT_MAX_ENTRIES;
+    String signingEngine = Constants.CRYPTO_SIGNING_ENGINE_JCA;
+    Map<String, Object> cryptoConfig = null;
+    Map<String, Object> platformConfigMap = pf.getConfig();
+    if (platformConfigMap != null) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> configMap = (Map<String, Object>) platformConfigMap
+          .get(Constants.PLATFORM_CONFIG_KEY_CRYPTO);
+      cryptoConfig = configMap;
+      if (cryptoConfig != null
+          && cryptoConfig.get(Constants.CRYPTO_CONFIG_KEY_CACHE_SIZE) instanceof Number) {
+        cacheSize = ((Number) cryptoConfig.get(Constants.CRYPTO_CONFIG_KEY_CACHE_SIZE))
+            .intValue();
+      }
+      if (cryptoConfig != null
+          && cryptoConfig.get(Constants.CRYPTO_CONFIG_KEY_SIGNING_ENGINE) instanceof String) {
+        signingEngine = (String) cryptoConfig.get(Constants.CRYPTO_CONFIG_KEY_SIGNING_ENGINE);
+      }
+    }
+    this.providers = CryptoProviders.fromConfig(cryptoConfig);
+    this.keyCache = new EcKeyCache(cacheSize, providers.getSignProvider(),
+        providers.getVerifyProvider());
+    this.signEngine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        providers.getSignProvider());
+    this.verifyEngine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        providers.getVerifyProvider());
+
+    if (Constants.CRYPTO_SIGNING_ENGINE_FIXED_BASE.equals(signingEngine)) {
+      this.fixedBaseEngine = new FixedBaseSigningEngine();
+    } else if (!Constants.CRYPTO_SIGNING_ENGINE_JCA.equals(signingEngine)) {
+      throw new PlatformRuntimeException("Unknown signing engine: " + signingEngine);
+    }
   }
 
   /**
@@ -71,6 +120,73 @@ public class CryptFacet implements TdiPlatformCryptoShape {
     return pf;
   }
 
+  /**
+   * Method to get the cache of materialized EC keys used by sign and verify.
+   * 
+   * @return {@link EcKeyCache} instance.
+   */
+  public EcKeyCache getKeyCache() {
+    return keyCache;
+  }
+
+  /**
+   * Method to get the JCA providers used for key generation, signing and
+   * verification.
+   * 
+   * @return {@link CryptoProviders} instance.
+   */
+  public CryptoProviders getProviders() {
+    return providers;
+  }
+
+  /**
+   * Drops any materialized key cached for the given kid. Called by the
+   * keystore whenever a key is replaced or forgotten.
+   * 
+   * @param kid
+   *          : Key ID String
+   */
+  public void invalidateKey(String kid) {
+    keyCache.invalidate(kid);
+    if (fixedBaseEngine != null) {
+      fixedBaseEngine.invalidate(kid);
+    }
+  }
+
+  /**
+   * Method to get the fixed base signing engine.
+   * 
+   * @return {@link FixedBaseSigningEngine} instance, or null if signing goes
+   *         through JCA.
+   */
+  public FixedBaseSigningEngine getFixedBaseEngine() {
+    return fixedBaseEngine;
+  }
+
+  /**
+   * Prepares a long-lived signing key, such as the SELF or F_S key, for the
+   * fixed base signing engine. Called by the keystore when such a key is
+   * loaded or added. Does nothing if signing goes through JCA or the key has
+   * no usable private part.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} of the signing key.
+   */
+  public void prepareSigningKey(TdiKeyStructureShape key) {
+    if (fixedBaseEngine == null || key == null || !(key.getKeyData() instanceof KeyRef)) {
+      return;
+    }
+    KeyRef keyRef = (KeyRef) key.getKeyData();
+    if (keyRef.privateD == null) {
+      return;
+    }
+    try {
+      fixedBaseEngine.register(key.getKeyId(), keyRef);
+    } catch (Exception err) {
+      // Left unregistered, sign() reports the broken key material.
+    }
+  }
+
   /**
    * Init method.
    * 
@@ -103,36 +219,71 @@ public class CryptFacet implements TdiPlatformCryptoShape {
    */
   @Override
   public CompletableFuture<String> sign(TdiKeyStructureShape key, String payload) {
+    return CompletableFuture.supplyAsync(() -> signInput(key,
+        StringUtils.isEmpty(payload) ? null : ByteBuffer.wrap(Utils.toBytes(payload))), executor);
+  }
 
-    return CompletableFuture.supplyAsync(() -> {
-      if (key == null || (StringUtils.isEmpty(payload))) {
-        throw new PlatformRuntimeException("Error: key or payload Object is NULL");
-      } else {
-        Object keyRefObject = key.getKeyData();
-
-        if (keyRefObject instanceof KeyRef) {
-          KeyRef keyRef = (KeyRef) keyRefObject;
-          try {
+  /**
+   * Method to sign the bytes of a signing input using KeyStruct. The input is
+   * fed to the signature engine as it is, without an intermediate copy.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} class object
+   * @param signingInput
+   *          : Bytes to sign, between position and limit.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Computed signature of the sign
+   *         operation. <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} in
+   *         case of errors.
+   * 
+   * @see biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape#sign
+   *      (biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape,
+   *      java.nio.ByteBuffer)
+   */
+  @Override
+  public CompletableFuture<String> sign(TdiKeyStructureShape key, ByteBuffer signingInput) {
+    return CompletableFuture.supplyAsync(() -> signInput(key, signingInput), executor);
+  }
 
-            ECPrivateKey privKey;
-            privKey = UtilKeyGeneration.generateEcPrivateKey(keyRef);
+  /**
+   * Signs the bytes of a signing input on the calling thread.
+   * 
+   * @throws PlatformRuntimeException
+   *           on invalid input or key data.
+   */
+  private String signInput(TdiKeyStructureShape key, ByteBuffer signingInput) {
+    if (key == null || signingInput == null || !signingInput.hasRemaining()) {
+      throw new PlatformRuntimeException("Error: key or payload Object is NULL");
+    } else {
+      Object keyRefObject = key.getKeyData();
 
-            Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
-                BouncyCastleProvider.PROVIDER_NAME);
-            ecdsa.initSign(privKey);
-            ecdsa.update(Utils.toBytes(payload));
-            byte[] signedBytes = ecdsa.sign();
-            String encodedVal = encodeRs(signedBytes);
+      if (keyRefObject instanceof KeyRef) {
+        KeyRef keyRef = (KeyRef) keyRefObject;
+        try {
 
-            return encodedVal;
-          } catch (Exception err) {
-            throw new PlatformRuntimeException(err.getMessage());
+          if (fixedBaseEngine != null) {
+            byte[] rs = fixedBaseEngine.sign(key.getKeyId(), keyRef, signingInput);
+            return Utils.toStringData(Utils.base64UrlEncode(rs));
           }
-        } else {
-          throw new PlatformRuntimeException("Error: instance is not of KeyRef Type");
+
+          ECPrivateKey privKey = keyCache.getPrivateKey(key.getKeyId(), keyRef);
+
+          Signature ecdsa = signEngine.get();
+          ecdsa.initSign(privKey);
+          ecdsa.update(signingInput.duplicate());
+          byte[] signedBytes = ecdsa.sign();
+          String encodedVal = encodeRs(signedBytes);
+
+          return encodedVal;
+        } catch (Exception err) {
+          throw new PlatformRuntimeException(err.getMessage());
         }
+      } else {
+        throw new PlatformRuntimeException("Error: instance is not of KeyRef Type");
       }
-    });
+    }
   }
 
   /**
@@ -143,28 +294,10 @@ public class CryptFacet implements TdiPlatformCryptoShape {
    * 
    * @return encoded signature String
    * 
-   * @throws IOException
-   * 
    */
-  private static String encodeRs(byte[] signedBytes) throws IOException {
-    ASN1InputStream sigIs = new ASN1InputStream(signedBytes);
-    ASN1Sequence sigSeq = (ASN1Sequence) sigIs.readObject();
-    sigIs.close();
-
-    if (sigSeq.size() != 2) {
-      throw new IllegalArgumentException("Expected ASN1 Sequence size is 2 !");
-    }
-
-    ASN1Integer ansIntR = (ASN1Integer) sigSeq.getObjectAt(0);
-    ASN1Integer ansIntS = (ASN1Integer) sigSeq.getObjectAt(1);
-
-    byte[] rbytes = BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, ansIntR.getValue());
-    byte[] sbytes = BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, ansIntS.getValue());
-    byte[] rs = new byte[rbytes.length + sbytes.length];
-    System.arraycopy(rbytes, 0, rs, 0, rbytes.length);
-    System.arraycopy(sbytes, 0, rs, rbytes.length, sbytes.length);
-    String b64Sig = Utils.toStringData(Utils.base64UrlEncode(rs));
-    return b64Sig;
+  private static String encodeRs(byte[] signedBytes) {
+    byte[] rs = EcdsaSignatureCodec.derToRaw(signedBytes, Constants.KEYSIZE_BYTES);
+    return Utils.toStringData(Utils.base64UrlEncode(rs));
   }
 
   /**
@@ -191,66 +324,146 @@ public class CryptFacet implements TdiPlatformCryptoShape {
   public CompletableFuture<Boolean> verify(TdiKeyStructureShape key, String payload,
       String signature) {
 
-    return CompletableFuture.supplyAsync(() -> {
-      if (key == null || (StringUtils.isEmpty(payload)) || (StringUtils.isEmpty(signature))) {
-        throw new PlatformRuntimeException("Error: Invalid Input");
-      } else {
-        try {
-          Object keyRefObject = key.getKeyData();
+    return CompletableFuture.supplyAsync(() -> verifySignature(key, payload, signature),
+        executor);
+  }
 
-          if (keyRefObject instanceof KeyRef) {
-            KeyRef keyRef = (KeyRef) keyRefObject;
+  /**
+   * Method to verify the bytes of a signing input. The input is fed to the
+   * signature engine as it is, without an intermediate copy.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape}
+   * @param signingInput
+   *          : Bytes to verify, between position and limit.
+   * @param signature
+   *          : base64url encoded signature as ASCII bytes
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: boolean state with true if
+   *         successfully verified. false otherwise. <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} if
+   *         error in verification such as verification with invalid keys.
+   * 
+   * @see biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape#verify
+   *      (biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape,
+   *      java.nio.ByteBuffer, byte[])
+   */
+  @Override
+  public CompletableFuture<Boolean> verify(TdiKeyStructureShape key, ByteBuffer signingInput,
+      byte[] signature) {
+    return CompletableFuture.supplyAsync(() -> verifyInput(key, signingInput, signature),
+        executor);
+  }
 
-            ECPublicKey pubKey = UtilKeyGeneration.generateEcpublicKey(keyRef);
+  /**
+   * Method to verify a batch of signatures. The batch is split into chunks of
+   * {@value #BATCH_CHUNK_SIZE} requests that are verified in parallel on the
+   * CPU executor of the platform. Invalid input or key data fails only the
+   * request it belongs to.
+   * 
+   * @param requests
+   *          : List of {@link VerifyRequest} to verify.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: List of {@link VerifyResult} in the
+   *         order of the requests. <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} in
+   *         case of errors.
+   * 
+   * @see biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape#verifyBatch
+   *      (java.util.List)
+   */
+  @Override
+  public CompletableFuture<List<VerifyResult>> verifyBatch(List<VerifyRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return CompletableFuture.completedFuture(new ArrayList<>());
+    }
 
-            byte[] signedBytes = decodeRs(signature);
-            Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
-                BouncyCastleProvider.PROVIDER_NAME);
-            ecdsa.initVerify(pubKey);
-            ecdsa.update(Utils.toBytes(payload));
-            return ecdsa.verify(signedBytes);
-          } else {
-            throw new PlatformRuntimeException("Error: instance is not of KeyRef Type");
+    VerifyResult[] results = new VerifyResult[requests.size()];
+    List<CompletableFuture<Void>> chunks = new ArrayList<>();
+    for (int from = 0; from < results.length; from += BATCH_CHUNK_SIZE) {
+      int start = from;
+      int end = Math.min(from + BATCH_CHUNK_SIZE, results.length);
+      chunks.add(CompletableFuture.runAsync(() -> {
+        for (int index = start; index < end; index++) {
+          VerifyRequest request = requests.get(index);
+          try {
+            results[index] = VerifyResult.of(request, request.isBinary()
+                ? verifyInput(request.getKey(), request.getSigningInput(),
+                    request.getSignatureBytes())
+                : verifySignature(request.getKey(), request.getPayload(),
+                    request.getSignature()));
+          } catch (Exception err) {
+            results[index] = VerifyResult.failed(request, err);
           }
-        } catch (Exception err) {
-          throw new PlatformRuntimeException(err.getMessage());
         }
-      }
-    });
+      }, executor));
+    }
+
+    return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+        .thenApply((arg) -> Arrays.asList(results));
   }
 
   /**
-   * Decodes the signature.
-   * 
-   * @param encodedData
-   *          : String encoded signature
-   * 
-   * @return Decoded signature byte array
+   * Verifies a signature on the calling thread.
    * 
-   * @throws IOException
+   * @throws PlatformRuntimeException
+   *           on invalid input or key data.
+   */
+  private boolean verifySignature(TdiKeyStructureShape key, String payload, String signature) {
+    if (StringUtils.isEmpty(payload) || (StringUtils.isEmpty(signature))) {
+      throw new PlatformRuntimeException("Error: Invalid Input");
+    }
+    return verifyInput(key, ByteBuffer.wrap(Utils.toBytes(payload)), Utils.toBytes(signature));
+  }
+
+  /**
+   * Verifies the bytes of a signing input on the calling thread.
    * 
+   * @throws PlatformRuntimeException
+   *           on invalid input or key data.
    */
-  private static byte[] decodeRs(String encodedData) throws IOException {
+  private boolean verifyInput(TdiKeyStructureShape key, ByteBuffer signingInput,
+      byte[] signature) {
+    if (key == null || signingInput == null || !signingInput.hasRemaining()
+        || signature == null || signature.length == 0) {
+      throw new PlatformRuntimeException("Error: Invalid Input");
+    } else {
+      try {
+        Object keyRefObject = key.getKeyData();
 
-    byte[] b64SigDecoded = Utils.base64UrlDecode(encodedData);
-    byte[] rbytes = new byte[b64SigDecoded.length / 2];
-    byte[] sbytes = new byte[b64SigDecoded.length / 2];
-    System.arraycopy(b64SigDecoded, 0, rbytes, 0, rbytes.length);
-    System.arraycopy(b64SigDecoded, rbytes.length, sbytes, 0, sbytes.length);
+        if (keyRefObject instanceof KeyRef) {
+          KeyRef keyRef = (KeyRef) keyRefObject;
 
-    BigInteger rbi = BigIntegers.fromUnsignedByteArray(rbytes);
-    BigInteger sbi = BigIntegers.fromUnsignedByteArray(sbytes);
+          ECPublicKey pubKey = keyCache.getPublicKey(key.getKeyId(), keyRef);
 
-    ASN1Integer ansIntR = new ASN1Integer(rbi);
-    ASN1Integer ansIntS = new ASN1Integer(sbi);
+          byte[] signedBytes = decodeRs(signature);
+          Signature ecdsa = verifyEngine.get();
+          ecdsa.initVerify(pubKey);
+          ecdsa.update(signingInput.duplicate());
+          return ecdsa.verify(signedBytes);
+        } else {
+          throw new PlatformRuntimeException("Error: instance is not of KeyRef Type");
+        }
+      } catch (Exception err) {
+        throw new PlatformRuntimeException(err.getMessage());
+      }
+    }
+  }
 
-    ByteArrayOutputStream sigBaos = new ByteArrayOutputStream();
-    ASN1OutputStream sigAsn1Os = new ASN1OutputStream(sigBaos);
-    DERSequence derSeq = new DERSequence(new ASN1Integer[] { ansIntR, ansIntS });
-    sigAsn1Os.writeObject(derSeq);
-    sigAsn1Os.close();
 
-    return sigBaos.toByteArray();
+  /**
+   * Decodes the signature.
+   * 
+   * @param encodedData
+   *          : base64url encoded signature as ASCII bytes
+   * 
+   * @return Decoded signature byte array
+   * 
+   */
+  private static byte[] decodeRs(byte[] encodedData) {
+    return EcdsaSignatureCodec.rawToDer(Utils.base64UrlDecode(encodedData));
   }
 
   /**
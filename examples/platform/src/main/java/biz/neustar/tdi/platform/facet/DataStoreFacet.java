@@ -21,21 +21,37 @@ import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape;
 import biz.neustar.tdi.fw.utils.Utils;
 import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Platform;
 import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Implementation of DataStoreFacet class.
  *
+ * <p>
+ * Each store is saved as JSON in a {@code .dat} file. Its journal is a
+ * {@code .journal} file next to it, holding one record per line. Compacting
+ * writes the store to a temporary file, moves it over the {@code .dat} file
+ * and only then deletes the journal, so a crash at any point leaves either
+ * the old store with the full journal or the new store.
  */
 public class DataStoreFacet implements TdiPlatformDataShape {
 
@@ -46,12 +62,28 @@ public class DataStoreFacet implements TdiPlatformDataShape {
    */
   private static final String STORE_FILE_EXT = ".dat";
 
+  /**
+   * Extension of the journal file of a store.
+   */
+  private static final String JOURNAL_FILE_EXT = ".journal";
+
+  /**
+   * Extension of the file a store is compacted into before replacing it.
+   */
+  private static final String COMPACT_FILE_EXT = ".tmp";
+
   /**
    * Map of key values, for holding multiple stores.
    */
   private Map<String, Object> stores;
 
+  /**
+   * Per store locks serializing journal appends and compaction.
+   */
+  private final Map<String, Object> journalLocks = new ConcurrentHashMap<>();
+
   private TdiPlatformShape pf;
+  private Executor executor;
 
   /**
    * Base file path for storing json files.
@@ -66,6 +98,8 @@ public class DataStoreFacet implements TdiPlatformDataShape {
    */
   public DataStoreFacet(TdiPlatformShape pf) {
     this.pf = pf;
+    this.executor = pf instanceof Platform ? ((Platform) pf).getIoExecutor()
+        : ForkJoinPool.commonPool();
 
     // Create new map
     stores = new HashMap<>();
@@ -145,7 +179,7 @@ public class DataStoreFacet implements TdiPlatformDataShape {
           }
         }
       }
-    });
+    }, executor);
   }
 
   /**
@@ -227,7 +261,7 @@ public class DataStoreFacet implements TdiPlatformDataShape {
       } else {
         throw new PlatformRuntimeException("Store with name '" + storeName + "' not found");
       }
-    });
+    }, executor);
   }
 
   /**
@@ -262,6 +296,8 @@ public class DataStoreFacet implements TdiPlatformDataShape {
         stores.put(storeName, new HashMap<String, Object>());
       } else {
         stores.put(storeName, value);
+        // The journal belongs to the clobbered store.
+        journalFile(storeName).delete();
       }
 
       return storeFileCreate(storeName, value).exceptionally(err -> {
@@ -343,7 +379,7 @@ public class DataStoreFacet implements TdiPlatformDataShape {
       } catch (InvalidFormatException err) {
         throw new PlatformRuntimeException(err.getMessage());
       }
-    });
+    }, executor);
   }
 
   /**
@@ -364,6 +400,7 @@ public class DataStoreFacet implements TdiPlatformDataShape {
   public CompletableFuture<Void> deleteStore(String storeName) {
     if (this.stores.containsKey(storeName)) {
       this.stores.remove(storeName);
+      journalFile(storeName).delete();
       return storeFileDrop(storeName);
     } else {
       CompletableFuture<Void> future = new CompletableFuture<>();
@@ -399,7 +436,7 @@ public class DataStoreFacet implements TdiPlatformDataShape {
         throw new PlatformRuntimeException("Store file with name '" + storeName + "' not found ");
       }
       return null;
-    });
+    }, executor);
   }
 
   /**
@@ -441,4 +478,173 @@ public class DataStoreFacet implements TdiPlatformDataShape {
     }
     return failedFuture;
   }
+
+  /**
+   * Method to tell that stores have a journal.
+   *
+   * @see biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape#supportsJournal()
+   *
+   * @return true
+   */
+  @Override
+  public boolean supportsJournal() {
+    return true;
+  }
+
+  /**
+   * Method to append records to the journal file of a store.
+   *
+   * @param storeName
+   *          : String store name
+   * @param records
+   *          : List of records, none of them containing a line break.
+   *
+   * @see biz.neustar.tdi.fw.platform.facet.data
+   *      .TdiPlatformDataShape#appendJournal(java.lang.String, java.util.List)
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} if
+   *         the store doesn't exist, a record holds a line break or the
+   *         journal file cannot be written.
+   */
+  @Override
+  public CompletableFuture<Void> appendJournal(String storeName, List<String> records) {
+    CompletableFuture<Void> failedFuture = new CompletableFuture<>();
+    if (!stores.containsKey(storeName)) {
+      failedFuture.completeExceptionally(
+          new PlatformRuntimeException("appendJournal: Store not found '" + storeName + "'."));
+      return failedFuture;
+    }
+
+    StringBuilder lines = new StringBuilder();
+    for (String record : records) {
+      if (record.indexOf('\n') >= 0 || record.indexOf('\r') >= 0) {
+        failedFuture.completeExceptionally(
+            new PlatformRuntimeException("Journal record holds a line break: " + record));
+        return failedFuture;
+      }
+      lines.append(record).append('\n');
+    }
+    byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+    return CompletableFuture.supplyAsync(() -> {
+      synchronized (journalLock(storeName)) {
+        try {
+          Files.write(journalFile(storeName).toPath(), bytes,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException err) {
+          throw new PlatformRuntimeException(err.getMessage());
+        }
+      }
+      return null;
+    }, executor);
+  }
+
+  /**
+   * Method to read the journal file of a store. A last line without a line
+   * break was cut short by a crash: it is discarded and cut from the file, so
+   * that later appends start on a line of their own.
+   *
+   * @param storeName
+   *          : String store name
+   *
+   * @see biz.neustar.tdi.fw.platform.facet.data
+   *      .TdiPlatformDataShape#readJournal(java.lang.String)
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link List}&lt;{@link String}&gt;
+   *         records, empty if there is no journal. <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} if
+   *         the journal file cannot be read.
+   */
+  @Override
+  public CompletableFuture<List<String>> readJournal(String storeName) {
+    return CompletableFuture.supplyAsync(() -> {
+      synchronized (journalLock(storeName)) {
+        File file = journalFile(storeName);
+        List<String> records = new ArrayList<>();
+        if (!file.exists()) {
+          return records;
+        }
+
+        try {
+          byte[] bytes = Files.readAllBytes(file.toPath());
+          int start = 0;
+          for (int index = 0; index < bytes.length; index++) {
+            if (bytes[index] == '\n') {
+              if (index > start) {
+                records.add(new String(bytes, start, index - start, StandardCharsets.UTF_8));
+              }
+              start = index + 1;
+            }
+          }
+          if (start < bytes.length) {
+            LOG.debug("readJournal: discarding incomplete record of " + storeName);
+            try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+              journal.setLength(start);
+            }
+          }
+        } catch (IOException err) {
+          throw new PlatformRuntimeException(err.getMessage());
+        }
+        return records;
+      }
+    }, executor);
+  }
+
+  /**
+   * Method to set values in a store, save it and empty its journal.
+   *
+   * @param storeName
+   *          : String store name
+   * @param values
+   *          : Map of keys and values to set.
+   *
+   * @see biz.neustar.tdi.fw.platform.facet.data
+   *      .TdiPlatformDataShape#compactJournal(java.lang.String, java.util.Map)
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void <br>
+   *         <b>Completed Exceptionally</b>: {@link PlatformRuntimeException} if
+   *         the store doesn't exist or cannot be saved.
+   */
+  @Override
+  public CompletableFuture<Void> compactJournal(String storeName, Map<String, Object> values) {
+    if (!stores.containsKey(storeName)) {
+      CompletableFuture<Void> failedFuture = new CompletableFuture<>();
+      failedFuture.completeExceptionally(
+          new PlatformRuntimeException("compactJournal: Store not found '" + storeName + "'."));
+      return failedFuture;
+    }
+
+    return CompletableFuture.supplyAsync(() -> {
+      synchronized (journalLock(storeName)) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> mapValue = (Map<String, Object>) stores.get(storeName);
+        if (values != null) {
+          mapValue.putAll(values);
+        }
+
+        File compacted = new File(storeBasePath + storeName + COMPACT_FILE_EXT);
+        try {
+          Utils.objectToJsonFile(mapValue, compacted);
+          Files.move(compacted.toPath(), new File(storeBasePath + storeName + STORE_FILE_EXT)
+              .toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          Files.deleteIfExists(journalFile(storeName).toPath());
+        } catch (InvalidFormatException | IOException err) {
+          throw new PlatformRuntimeException(err.getMessage());
+        }
+      }
+      return null;
+    }, executor);
+  }
+
+  private File journalFile(String storeName) {
+    return new File(storeBasePath + storeName + JOURNAL_FILE_EXT);
+  }
+
+  private Object journalLock(String storeName) {
+    return journalLocks.computeIfAbsent(storeName, (name) -> new Object());
+  }
 }
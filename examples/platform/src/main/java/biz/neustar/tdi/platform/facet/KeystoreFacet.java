@@ -20,8 +20,10 @@ import biz.neustar.tdi.fw.keystructure.TdiKeyFlagsEnum;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructure;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 import biz.neustar.tdi.fw.platform.TdiPlatformShape;
+import biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape;
 import biz.neustar.tdi.fw.platform.facet.keys.TdiPlatformKeysShape;
 import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Platform;
 import biz.neustar.tdi.platform.Constants.JwkParams;
 import biz.neustar.tdi.platform.UtilKeyGeneration;
 import biz.neustar.tdi.platform.Utils;
@@ -56,6 +58,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Implementation of KeystoreFacet class.
@@ -68,8 +74,10 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
   private static final String SELF = "SELF";
 
   private TdiPlatformShape pf;
+  private Executor executor;
   private Map<String, TdiKeyStructureShape> kstore;
   private Map<String, TdiKeyStructureShape> rstore;
+  private final List<Consumer<String>> keyChangeListeners = new CopyOnWriteArrayList<>();
 
   /**
    * Full File path for keystore json file.
@@ -84,6 +92,8 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
    */
   public KeystoreFacet(TdiPlatformShape pf) {
     this.pf = pf;
+    this.executor = pf instanceof Platform ? ((Platform) pf).getIoExecutor()
+        : ForkJoinPool.commonPool();
     this.kstore = new HashMap<>();
     this.rstore = new HashMap<>();
 
@@ -164,7 +174,7 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
         } catch (Exception err) {
           throw new PlatformRuntimeException(err.getMessage());
         }
-      });
+      }, executor);
     }
   }
 
@@ -188,7 +198,7 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
       } catch (Exception err) {
         throw new PlatformRuntimeException(err.getMessage());
       }
-    });
+    }, executor);
   }
 
   /**
@@ -207,6 +217,11 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
       kstruct.kid, kstruct.fleet, kstruct.ref, kstruct.flags
     );
     kstore.put(kstruct.kid, newKeyStruct);
+    invalidateCachedKey(kstruct.kid);
+    if (newKeyStruct.isOurOwn()
+        || TdiKeyFlagsEnum.ROLE_F_S.equals(newKeyStruct.getRoleFlag())) {
+      prepareSigningKey(newKeyStruct);
+    }
 
     // Check if it is our own key, if it is then add as SELF
     if (newKeyStruct.isOurOwn()) {
@@ -221,6 +236,53 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
     return CompletableFuture.completedFuture(newKeyStruct);
   }
 
+  /**
+   * Drops the materialized key the crypto facet may hold for the given kid so
+   * that a replaced or forgotten key is not used for sign or verify, and tells
+   * the key change listeners.
+   *
+   * @param kid
+   *          : Key ID String
+   */
+  private void invalidateCachedKey(String kid) {
+    TdiPlatformCryptoShape crypto = pf.getCrypto();
+    if (crypto instanceof CryptFacet) {
+      ((CryptFacet) crypto).invalidateKey(kid);
+    }
+    for (Consumer<String> listener : keyChangeListeners) {
+      listener.accept(kid);
+    }
+  }
+
+  /**
+   * Registers a listener called with the kid of every key that is added,
+   * replaced or forgotten.
+   *
+   * @param listener
+   *          : Called with the kid of the changed key.
+   *
+   * @see biz.neustar.tdi.fw.platform.facet.keys.TdiPlatformKeysShape#addKeyChangeListener
+   *      (java.util.function.Consumer)
+   */
+  @Override
+  public void addKeyChangeListener(Consumer<String> listener) {
+    keyChangeListeners.add(listener);
+  }
+
+  /**
+   * Lets the crypto facet prepare a long-lived signing key ahead of its first
+   * signature.
+   *
+   * @param keyStruct
+   *          : {@link TdiKeyStructureShape} of the SELF or F_S key.
+   */
+  private void prepareSigningKey(TdiKeyStructureShape keyStruct) {
+    TdiPlatformCryptoShape crypto = pf.getCrypto();
+    if (crypto instanceof CryptFacet) {
+      ((CryptFacet) crypto).prepareSigningKey(keyStruct);
+    }
+  }
+
   /**
    * Method to add key to local key-value map and dump map to to file.
    *
@@ -286,7 +348,7 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
       List<TdiKeyStructureShape> keyStructList = new ArrayList<TdiKeyStructureShape>();
       keyStructList.addAll(kstore.values());
       return keyStructList;
-    });
+    }, executor);
   }
 
   /**
@@ -407,7 +469,11 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
       String kid,
       String fleetId) {
     try {
-      KeyPair kp = UtilKeyGeneration.generateEcKeyPair();
+      TdiPlatformCryptoShape crypto = pf.getCrypto();
+      KeyPair kp = crypto instanceof CryptFacet
+          ? UtilKeyGeneration
+              .generateEcKeyPair(((CryptFacet) crypto).getProviders().getKeygenProvider())
+          : UtilKeyGeneration.generateEcKeyPair();
       ECPrivateKey privateKey = (ECPrivateKey) kp.getPrivate();
       ECPublicKey publicKey = (ECPublicKey) kp.getPublic();
 
@@ -596,9 +662,11 @@ public class KeystoreFacet implements TdiPlatformKeysShape {
     }
     else if (kstore.containsKey(kid)) {
       kstore.remove(kid);
+      invalidateCachedKey(kid);
       LOG.debug("forgetKey: Done");
     }
     else {
+      invalidateCachedKey(kid);
       //future.completeExceptionally(new PlatformRuntimeException("forgetKey: No key present to forget"));
       LOG.error("forgetKey: No key present to forget");
     }
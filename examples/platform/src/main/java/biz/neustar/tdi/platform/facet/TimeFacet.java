@@ -21,12 +21,10 @@ import biz.neustar.tdi.fw.platform.facet.time.TdiPlatformTimeShape;
 import biz.neustar.tdi.platform.Constants;
 import org.apache.commons.lang3.StringUtils;
 
-import java.sql.Date;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.time.Instant;
-import java.util.Calendar;
-import java.util.TimeZone;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.concurrent.CompletableFuture;
 import java.lang.Math;
 
@@ -35,6 +33,8 @@ import java.lang.Math;
  *
  */
 public class TimeFacet implements TdiPlatformTimeShape {
+  private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter
+      .ofPattern(Constants.ISO_TIMESTAMP_FORMAT).withZone(ZoneOffset.UTC);
 
   private TdiPlatformShape pf;
 
@@ -105,18 +105,8 @@ public class TimeFacet implements TdiPlatformTimeShape {
   @Override
   public String isoDate(Long timestamp) {
 
-    // We are expecting int here as minutes to add to iso date
-    int minute = java.lang.Math.toIntExact(timestamp);
-
-    TimeZone tz = TimeZone.getTimeZone("UTC");
-    DateFormat df = new SimpleDateFormat(Constants.ISO_TIMESTAMP_FORMAT);
-    df.setTimeZone(tz);
-
-    Calendar cal = Calendar.getInstance();
-    cal.setTime(new Date(Instant.now().toEpochMilli()));
-    cal.add(Calendar.SECOND, minute);
-
-    String nowAsIso = df.format(cal.getTime());
-    return nowAsIso;
+    // We are expecting int here as seconds to add to iso date
+    int seconds = java.lang.Math.toIntExact(timestamp);
+    return ISO_FORMATTER.format(Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(seconds));
   }
 }
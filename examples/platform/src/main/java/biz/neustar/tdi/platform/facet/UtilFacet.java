@@ -20,6 +20,8 @@ import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.platform.facet.utils.TdiPlatformUtilsShape;
 import biz.neustar.tdi.platform.Utils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -29,6 +31,8 @@ import java.util.concurrent.CompletableFuture;
  *
  */
 public class UtilFacet implements TdiPlatformUtilsShape {
+  private static final SecureRandom RANDOM = new SecureRandom();
+
   private TdiPlatformShape pf;
 
   /**
@@ -69,9 +73,7 @@ public class UtilFacet implements TdiPlatformUtilsShape {
    */
   @Override
   public String b64UrlEncode(String toEncode) {
-    
-    byte[] encodeBytes = Utils.base64UrlEncode(toEncode);
-    return new String(encodeBytes);
+    return new String(Utils.base64UrlEncode(toEncode), StandardCharsets.US_ASCII);
   }
 
   /**
@@ -83,8 +85,73 @@ public class UtilFacet implements TdiPlatformUtilsShape {
    */
   @Override
   public String b64UrlDecode(String b64String) {
-    byte[] decodStr = Utils.base64UrlDecode(b64String);
-    return new String(decodStr);
+    return Utils.toStringData(Utils.base64UrlDecode(b64String));
+  }
+
+  /**
+   * Method to encode a range of bytes in base64url, without padding.
+   * 
+   * @param data : bytes to encode.
+   * @param offset : index of the first byte to encode.
+   * @param length : number of bytes to encode.
+   * 
+   * @return Base64url encoded ASCII bytes.
+   */
+  @Override
+  public byte[] b64UrlEncode(byte[] data, int offset, int length) {
+    return Utils.base64UrlEncode(data, offset, length);
+  }
+
+  /**
+   * Method to encode the remaining bytes of a buffer in base64url, without
+   * padding. The buffer is left untouched.
+   * 
+   * @param data : bytes to encode.
+   * 
+   * @return Base64url encoded ASCII bytes.
+   */
+  @Override
+  public byte[] b64UrlEncode(ByteBuffer data) {
+    if (data.hasArray()) {
+      return Utils.base64UrlEncode(data.array(), data.arrayOffset() + data.position(),
+          data.remaining());
+    }
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    return Utils.base64UrlEncode(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Method to decode a base64url encoded range of bytes.
+   * 
+   * @param data : base64url encoded ASCII bytes.
+   * @param offset : index of the first byte to decode.
+   * @param length : number of bytes to decode.
+   * 
+   * @return Decoded bytes.
+   */
+  @Override
+  public byte[] b64UrlDecode(byte[] data, int offset, int length) {
+    return Utils.base64UrlDecode(data, offset, length);
+  }
+
+  /**
+   * Method to decode the remaining base64url encoded bytes of a buffer. The
+   * buffer is left untouched.
+   * 
+   * @param data : base64url encoded ASCII bytes.
+   * 
+   * @return Decoded bytes.
+   */
+  @Override
+  public byte[] b64UrlDecode(ByteBuffer data) {
+    if (data.hasArray()) {
+      return Utils.base64UrlDecode(data.array(), data.arrayOffset() + data.position(),
+          data.remaining());
+    }
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    return Utils.base64UrlDecode(bytes, 0, bytes.length);
   }
 
   /**
@@ -95,9 +162,8 @@ public class UtilFacet implements TdiPlatformUtilsShape {
    */
   @Override
   public void randomFill(byte[] buffer, Integer len) {
-    SecureRandom random = new SecureRandom();
     byte[] randomBytes = new byte[len];
-    random.nextBytes(randomBytes);
+    RANDOM.nextBytes(randomBytes);
     System.arraycopy(randomBytes, 0, buffer, 0, len);
   }
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.UtilKeyGeneration;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Map;
+
+/**
+ * JCA providers used by the crypto and keystore facets for key generation,
+ * signing and verification.
+ *
+ * <p>
+ * Each operation may name its own provider, so that for instance a server
+ * can verify with the JDK's SunEC while keys keep being generated by
+ * BouncyCastle. A requested provider is checked once, when the facets are
+ * created: if it is not registered or does not support P-256 ECDSA for that
+ * operation, BouncyCastle is used instead and a warning is logged.
+ */
+public class CryptoProviders {
+  public static final String DEFAULT_PROVIDER = BouncyCastleProvider.PROVIDER_NAME;
+
+  private static final Logger LOG = LoggerFactory.getLogger(CryptoProviders.class);
+
+  private final String keygenProvider;
+  private final String signProvider;
+  private final String verifyProvider;
+
+  /**
+   * Constructor. Null or unusable providers fall back to
+   * {@link #DEFAULT_PROVIDER}.
+   *
+   * @param keygenProvider
+   *          : Provider generating key pairs.
+   * @param signProvider
+   *          : Provider signing.
+   * @param verifyProvider
+   *          : Provider verifying.
+   */
+  public CryptoProviders(String keygenProvider, String signProvider, String verifyProvider) {
+    this.keygenProvider = resolve(Constants.CRYPTO_PROVIDER_KEY_KEYGEN, keygenProvider);
+    this.signProvider = resolve(Constants.CRYPTO_PROVIDER_KEY_SIGN, signProvider);
+    this.verifyProvider = resolve(Constants.CRYPTO_PROVIDER_KEY_VERIFY, verifyProvider);
+  }
+
+  /**
+   * Builds the providers from the crypto facet configuration. The
+   * {@code providers} entry is either a provider name used for every
+   * operation, or a map with optional {@code keygen}, {@code sign} and
+   * {@code verify} entries.
+   *
+   * @param cryptoConfig
+   *          : Crypto facet configuration. May be null.
+   *
+   * @return {@link CryptoProviders} instance.
+   */
+  public static CryptoProviders fromConfig(Map<String, Object> cryptoConfig) {
+    Object providers = cryptoConfig != null
+        ? cryptoConfig.get(Constants.CRYPTO_CONFIG_KEY_PROVIDERS)
+        : null;
+    if (providers instanceof String) {
+      String provider = (String) providers;
+      return new CryptoProviders(provider, provider, provider);
+    }
+    if (providers instanceof Map) {
+      Map<?, ?> perOperation = (Map<?, ?>) providers;
+      return new CryptoProviders(stringValue(perOperation, Constants.CRYPTO_PROVIDER_KEY_KEYGEN),
+          stringValue(perOperation, Constants.CRYPTO_PROVIDER_KEY_SIGN),
+          stringValue(perOperation, Constants.CRYPTO_PROVIDER_KEY_VERIFY));
+    }
+    return defaults();
+  }
+
+  /**
+   * Returns BouncyCastle for every operation.
+   *
+   * @return {@link CryptoProviders} instance.
+   */
+  public static CryptoProviders defaults() {
+    return new CryptoProviders(DEFAULT_PROVIDER, DEFAULT_PROVIDER, DEFAULT_PROVIDER);
+  }
+
+  /**
+   * Returns the provider generating key pairs.
+   *
+   * @return Provider name.
+   */
+  public String getKeygenProvider() {
+    return keygenProvider;
+  }
+
+  /**
+   * Returns the provider signing.
+   *
+   * @return Provider name.
+   */
+  public String getSignProvider() {
+    return signProvider;
+  }
+
+  /**
+   * Returns the provider verifying.
+   *
+   * @return Provider name.
+   */
+  public String getVerifyProvider() {
+    return verifyProvider;
+  }
+
+  private static String stringValue(Map<?, ?> map, String key) {
+    Object value = map.get(key);
+    return value instanceof String ? (String) value : null;
+  }
+
+  private static String resolve(String operation, String provider) {
+    if (provider == null || provider.isEmpty() || DEFAULT_PROVIDER.equals(provider)) {
+      return DEFAULT_PROVIDER;
+    }
+
+    try {
+      if (Security.getProvider(provider) == null) {
+        throw new IllegalArgumentException("provider is not registered");
+      }
+      if (Constants.CRYPTO_PROVIDER_KEY_KEYGEN.equals(operation)) {
+        KeyPairGenerator.getInstance(UtilKeyGeneration.getKeyAlgorithm(provider), provider)
+            .initialize(UtilKeyGeneration.getEcParamSpec());
+      } else {
+        Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA, provider);
+        KeyFactory.getInstance(UtilKeyGeneration.getKeyAlgorithm(provider), provider);
+      }
+      UtilKeyGeneration.getEcParameterSpec(provider);
+      return provider;
+    } catch (Exception err) {
+      LOG.warn("Provider " + provider + " cannot be used for " + operation + " ("
+          + err.getMessage() + "), falling back to " + DEFAULT_PROVIDER);
+      return DEFAULT_PROVIDER;
+    }
+  }
+}
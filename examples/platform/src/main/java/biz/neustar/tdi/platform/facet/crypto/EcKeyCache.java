@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import biz.neustar.tdi.platform.UtilKeyGeneration;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of materialized {@link ECPrivateKey} and {@link ECPublicKey}
+ * objects.
+ *
+ * <p>
+ * Entries are keyed by kid and remember the JWK coordinates they were built
+ * from. A lookup whose {@link KeyRef} carries different material for the same
+ * kid is a miss and replaces the entry, so a re-provisioned key is never
+ * served stale. When the cache is full the least recently used entry is
+ * evicted.
+ */
+public class EcKeyCache {
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  private final int maxEntries;
+  private final String privateKeyProvider;
+  private final String publicKeyProvider;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries
+   *          : Maximum number of kids held by the cache. A value below 1
+   *          disables caching.
+   */
+  public EcKeyCache(int maxEntries) {
+    this(maxEntries, CryptoProviders.DEFAULT_PROVIDER, CryptoProviders.DEFAULT_PROVIDER);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries
+   *          : Maximum number of kids held by the cache. A value below 1
+   *          disables caching.
+   * @param privateKeyProvider
+   *          : JCA provider building private keys.
+   * @param publicKeyProvider
+   *          : JCA provider building public keys.
+   */
+  public EcKeyCache(int maxEntries, String privateKeyProvider, String publicKeyProvider) {
+    this.maxEntries = maxEntries;
+    this.privateKeyProvider = privateKeyProvider;
+    this.publicKeyProvider = publicKeyProvider;
+  }
+
+  /**
+   * Returns the private key for the given key reference, building and caching
+   * it on a miss.
+   *
+   * @param kid
+   *          : Key ID.
+   * @param keyRef
+   *          : {@link KeyRef} holding the key material.
+   *
+   * @return {@link ECPrivateKey} instance.
+   *
+   * @throws PlatformRuntimeException
+   *           if the key cannot be built.
+   */
+  public ECPrivateKey getPrivateKey(String kid, KeyRef keyRef) {
+    Entry entry = lookup(kid, keyRef);
+    ECPrivateKey privateKey = entry != null ? entry.privateKey : null;
+    if (privateKey != null) {
+      hits.incrementAndGet();
+      return privateKey;
+    }
+
+    misses.incrementAndGet();
+    privateKey = UtilKeyGeneration.generateEcPrivateKey(keyRef, privateKeyProvider);
+    if (entry != null) {
+      entry.privateKey = privateKey;
+    }
+    return privateKey;
+  }
+
+  /**
+   * Returns the public key for the given key reference, building and caching
+   * it on a miss.
+   *
+   * @param kid
+   *          : Key ID.
+   * @param keyRef
+   *          : {@link KeyRef} holding the key material.
+   *
+   * @return {@link ECPublicKey} instance.
+   *
+   * @throws PlatformRuntimeException
+   *           if the key cannot be built.
+   */
+  public ECPublicKey getPublicKey(String kid, KeyRef keyRef) {
+    Entry entry = lookup(kid, keyRef);
+    ECPublicKey publicKey = entry != null ? entry.publicKey : null;
+    if (publicKey != null) {
+      hits.incrementAndGet();
+      return publicKey;
+    }
+
+    misses.incrementAndGet();
+    publicKey = UtilKeyGeneration.generateEcpublicKey(keyRef, publicKeyProvider);
+    if (entry != null) {
+      entry.publicKey = publicKey;
+    }
+    return publicKey;
+  }
+
+  /**
+   * Drops the cached keys of the given kid.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void invalidate(String kid) {
+    if (kid != null) {
+      entries.remove(kid);
+    }
+  }
+
+  /**
+   * Drops all cached keys.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Returns the number of kids currently cached.
+   *
+   * @return Number of entries.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of lookups served from the cache.
+   *
+   * @return Hit count.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups that had to build a key.
+   *
+   * @return Miss count.
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  private Entry lookup(String kid, KeyRef keyRef) {
+    if (kid == null || keyRef == null || maxEntries < 1) {
+      return null;
+    }
+
+    Entry entry = entries.get(kid);
+    if (entry != null && entry.matches(keyRef)) {
+      entry.lastUsed = clock.incrementAndGet();
+      return entry;
+    }
+
+    if (entry == null && entries.size() >= maxEntries) {
+      evictEldest();
+    }
+    entry = new Entry(keyRef);
+    entry.lastUsed = clock.incrementAndGet();
+    entries.put(kid, entry);
+    return entry;
+  }
+
+  private void evictEldest() {
+    String eldestKid = null;
+    long eldestUse = Long.MAX_VALUE;
+    for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+      if (candidate.getValue().lastUsed < eldestUse) {
+        eldestUse = candidate.getValue().lastUsed;
+        eldestKid = candidate.getKey();
+      }
+    }
+    if (eldestKid != null) {
+      entries.remove(eldestKid);
+    }
+  }
+
+  /**
+   * Cached keys of one kid along with the material they were built from.
+   */
+  private static class Entry {
+    private final String cordX;
+    private final String cordY;
+    private final String privateD;
+    private volatile ECPrivateKey privateKey;
+    private volatile ECPublicKey publicKey;
+    private volatile long lastUsed;
+
+    Entry(KeyRef keyRef) {
+      this.cordX = keyRef.cordX;
+      this.cordY = keyRef.cordY;
+      this.privateD = keyRef.privateD;
+    }
+
+    boolean matches(KeyRef keyRef) {
+      return Objects.equals(cordX, keyRef.cordX) && Objects.equals(cordY, keyRef.cordY)
+          && Objects.equals(privateD, keyRef.privateD);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+
+/**
+ * Converts ECDSA signatures between the DER encoding produced and consumed by
+ * JCA ({@code SEQUENCE { INTEGER r, INTEGER s }}) and the fixed size R||S
+ * concatenation used by JWS (RFC 7518, section 3.4).
+ *
+ * <p>
+ * Both directions work directly on byte arrays and allocate nothing but the
+ * result.
+ */
+public final class EcdsaSignatureCodec {
+  private static final int TAG_SEQUENCE = 0x30;
+  private static final int TAG_INTEGER = 0x02;
+  private static final int LENGTH_LONG_FORM_ONE_BYTE = 0x81;
+
+  private EcdsaSignatureCodec() {
+  }
+
+  /**
+   * Converts a DER encoded signature into R||S, each left padded with zeros to
+   * {@code size} bytes.
+   *
+   * @param der
+   *          : DER encoded signature.
+   * @param size
+   *          : Size of R and S in bytes, 32 for P-256.
+   *
+   * @return R||S byte array of length {@code 2 * size}.
+   *
+   * @throws PlatformRuntimeException
+   *           if the input is not a DER sequence of two integers or an integer
+   *           does not fit in {@code size} bytes.
+   */
+  public static byte[] derToRaw(byte[] der, int size) {
+    if (der == null || der.length < 8 || (der[0] & 0xFF) != TAG_SEQUENCE) {
+      throw new PlatformRuntimeException("Error: signature is not a DER sequence");
+    }
+
+    int offset = 1;
+    int seqLength = der[offset++] & 0xFF;
+    if (seqLength == LENGTH_LONG_FORM_ONE_BYTE) {
+      seqLength = der[offset++] & 0xFF;
+      if (seqLength < 0x80) {
+        throw new PlatformRuntimeException("Error: non minimal DER length");
+      }
+    } else if (seqLength > 0x7F) {
+      throw new PlatformRuntimeException("Error: unsupported DER length");
+    }
+    if (offset + seqLength != der.length) {
+      throw new PlatformRuntimeException("Error: DER sequence length mismatch");
+    }
+
+    byte[] raw = new byte[2 * size];
+    offset = copyInteger(der, offset, raw, 0, size);
+    offset = copyInteger(der, offset, raw, size, size);
+    if (offset != der.length) {
+      throw new PlatformRuntimeException("Error: trailing data in DER sequence");
+    }
+    return raw;
+  }
+
+  /**
+   * Converts an R||S signature into its DER encoding. The first half of the
+   * input is R and the second half is S; a trailing odd byte is ignored.
+   *
+   * @param raw
+   *          : R||S byte array.
+   *
+   * @return DER encoded signature.
+   */
+  public static byte[] rawToDer(byte[] raw) {
+    int half = raw.length / 2;
+
+    int rstart = skipZeros(raw, 0, half);
+    int sstart = skipZeros(raw, half, 2 * half);
+    int rlength = integerLength(raw, rstart, half);
+    int slength = integerLength(raw, sstart, 2 * half);
+
+    int contentLength = 2 + rlength + 2 + slength;
+    boolean longForm = contentLength > 0x7F;
+    if (contentLength > 0xFF || rlength > 0x7F || slength > 0x7F) {
+      throw new PlatformRuntimeException("Error: signature too long for DER encoding");
+    }
+
+    byte[] der = new byte[(longForm ? 3 : 2) + contentLength];
+    int offset = 0;
+    der[offset++] = (byte) TAG_SEQUENCE;
+    if (longForm) {
+      der[offset++] = (byte) LENGTH_LONG_FORM_ONE_BYTE;
+    }
+    der[offset++] = (byte) contentLength;
+    offset = writeInteger(raw, rstart, half, rlength, der, offset);
+    writeInteger(raw, sstart, 2 * half, slength, der, offset);
+    return der;
+  }
+
+  /**
+   * Reads one DER INTEGER at {@code offset} and copies its magnitude right
+   * aligned into {@code out[outOffset .. outOffset + size)}.
+   *
+   * @return Offset following the INTEGER.
+   */
+  private static int copyInteger(byte[] der, int offset, byte[] out, int outOffset, int size) {
+    if (offset + 2 > der.length || (der[offset] & 0xFF) != TAG_INTEGER) {
+      throw new PlatformRuntimeException("Error: expected DER integer");
+    }
+    int length = der[offset + 1] & 0xFF;
+    int start = offset + 2;
+    int end = start + length;
+    if (length == 0 || length > 0x7F || end > der.length) {
+      throw new PlatformRuntimeException("Error: invalid DER integer length");
+    }
+    if ((der[start] & 0x80) != 0) {
+      throw new PlatformRuntimeException("Error: negative DER integer");
+    }
+
+    // Drop the sign byte and any other leading zeros.
+    while (start < end - 1 && der[start] == 0) {
+      start++;
+    }
+    int magnitude = end - start;
+    if (magnitude == 1 && der[start] == 0) {
+      magnitude = 0;
+    }
+    if (magnitude > size) {
+      throw new PlatformRuntimeException("Error: DER integer larger than key size");
+    }
+    System.arraycopy(der, end - magnitude, out, outOffset + size - magnitude, magnitude);
+    return end;
+  }
+
+  private static int skipZeros(byte[] raw, int from, int to) {
+    while (from < to && raw[from] == 0) {
+      from++;
+    }
+    return from;
+  }
+
+  /**
+   * Returns the DER content length of the unsigned integer
+   * {@code raw[start .. end)} without leading zeros: one extra sign byte if
+   * its high bit is set, and a single zero byte for the value zero.
+   */
+  private static int integerLength(byte[] raw, int start, int end) {
+    if (start == end) {
+      return 1;
+    }
+    return (end - start) + ((raw[start] & 0x80) != 0 ? 1 : 0);
+  }
+
+  private static int writeInteger(byte[] raw, int start, int end, int length, byte[] der,
+      int offset) {
+    der[offset++] = (byte) TAG_INTEGER;
+    der[offset++] = (byte) length;
+    int magnitude = end - start;
+    if (length > magnitude) {
+      der[offset++] = 0;
+    }
+    System.arraycopy(raw, start, der, offset, magnitude);
+    return offset + magnitude;
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.bouncycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ES256 signing on top of the BouncyCastle low level {@link ECDSASigner}
+ * instead of the JCA {@link java.security.Signature}.
+ *
+ * <p>
+ * Signing multiplies the curve base point G by a per-signature nonce. The
+ * signer uses a fixed point comb multiplier for this, whose table depends
+ * only on G. The JCA path rebuilds the domain parameters, and with them G and
+ * its table, from the key for every signature. This engine keeps one set of
+ * secp256r1 domain parameters for the whole process, builds the comb table
+ * for G once, and keeps the private key parameters of registered signing
+ * keys. Nonces are derived deterministically (RFC 6979), so the engine does
+ * not draw on a shared {@link java.security.SecureRandom}.
+ */
+public class FixedBaseSigningEngine {
+  /**
+   * Comb width used by {@link org.bouncycastle.math.ec.FixedPointCombMultiplier}
+   * for curves of up to 257 bits.
+   */
+  private static final int COMB_WIDTH = 5;
+
+  private final Map<String, Entry> keys = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the shared secp256r1 domain parameters. The comb table of their
+   * base point is computed on first use.
+   *
+   * @return {@link ECDomainParameters} instance.
+   */
+  public static ECDomainParameters getDomainParameters() {
+    return DomainHolder.DOMAIN;
+  }
+
+  /**
+   * Prepares the private key parameters of a signing key so later signatures
+   * with this kid skip building them.
+   *
+   * @param kid
+   *          : Key ID.
+   * @param keyRef
+   *          : {@link KeyRef} holding the private key material.
+   *
+   * @throws PlatformRuntimeException
+   *           if the key has no private part.
+   */
+  public void register(String kid, KeyRef keyRef) {
+    keys.put(kid, new Entry(keyRef));
+  }
+
+  /**
+   * Drops the prepared parameters of the given kid.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void invalidate(String kid) {
+    if (kid != null) {
+      keys.remove(kid);
+    }
+  }
+
+  /**
+   * Returns whether prepared parameters are held for the given kid.
+   *
+   * @param kid
+   *          : Key ID.
+   *
+   * @return true if the kid is registered.
+   */
+  public boolean isRegistered(String kid) {
+    return kid != null && keys.containsKey(kid);
+  }
+
+  /**
+   * Signs the given bytes with SHA256withECDSA.
+   *
+   * @param kid
+   *          : Key ID.
+   * @param keyRef
+   *          : {@link KeyRef} holding the private key material. Used directly
+   *          if the kid is not registered or was registered with different
+   *          material.
+   * @param signingInput
+   *          : Bytes to sign, between position and limit. The buffer is left
+   *          untouched.
+   *
+   * @return R||S signature, {@link Constants#KEYSIZE_BYTES} bytes each.
+   *
+   * @throws PlatformRuntimeException
+   *           if the key has no private part.
+   */
+  public byte[] sign(String kid, KeyRef keyRef, ByteBuffer signingInput) {
+    ECPrivateKeyParameters privateKey;
+    Entry entry = kid != null ? keys.get(kid) : null;
+    if (entry != null && entry.matches(keyRef)) {
+      privateKey = entry.privateKey;
+    } else {
+      privateKey = privateKeyParameters(keyRef);
+    }
+
+    SHA256Digest digest = new SHA256Digest();
+    ByteBuffer input = signingInput.duplicate();
+    if (input.hasArray()) {
+      digest.update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+    } else {
+      byte[] chunk = new byte[input.remaining()];
+      input.get(chunk);
+      digest.update(chunk, 0, chunk.length);
+    }
+    byte[] hash = new byte[digest.getDigestSize()];
+    digest.doFinal(hash, 0);
+
+    ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+    signer.init(true, privateKey);
+    BigInteger[] rs = signer.generateSignature(hash);
+
+    byte[] raw = new byte[2 * Constants.KEYSIZE_BYTES];
+    System.arraycopy(BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, rs[0]), 0, raw, 0,
+        Constants.KEYSIZE_BYTES);
+    System.arraycopy(BigIntegers.asUnsignedByteArray(Constants.KEYSIZE_BYTES, rs[1]), 0, raw,
+        Constants.KEYSIZE_BYTES, Constants.KEYSIZE_BYTES);
+    return raw;
+  }
+
+  private static ECPrivateKeyParameters privateKeyParameters(KeyRef keyRef) {
+    if (keyRef == null || keyRef.privateD == null) {
+      throw new PlatformRuntimeException("Error: key has no private part");
+    }
+    BigInteger privateD = BigIntegers.fromUnsignedByteArray(
+        Utils.base64UrlDecode(keyRef.privateD));
+    return new ECPrivateKeyParameters(privateD, DomainHolder.DOMAIN);
+  }
+
+  /**
+   * Lazily built secp256r1 domain with the comb table of G.
+   */
+  private static class DomainHolder {
+    private static final ECDomainParameters DOMAIN;
+
+    static {
+      X9ECParameters curve = CustomNamedCurves.getByName(Constants.EC_CURVE_SECP256R1);
+      DOMAIN = new ECDomainParameters(curve.getCurve(), curve.getG(), curve.getN(),
+          curve.getH(), curve.getSeed());
+      FixedPointUtil.precompute(DOMAIN.getG(), COMB_WIDTH);
+    }
+  }
+
+  /**
+   * Prepared private key of one kid along with the material it was built
+   * from.
+   */
+  private static class Entry {
+    private final String privateD;
+    private final ECPrivateKeyParameters privateKey;
+
+    Entry(KeyRef keyRef) {
+      this.privateD = keyRef != null ? keyRef.privateD : null;
+      this.privateKey = privateKeyParameters(keyRef);
+    }
+
+    boolean matches(KeyRef keyRef) {
+      return keyRef != null && Objects.equals(privateD, keyRef.privateD);
+    }
+  }
+}
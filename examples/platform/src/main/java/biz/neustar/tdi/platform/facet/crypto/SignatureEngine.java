@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Signature;
+
+/**
+ * Per-thread pool of {@link Signature} instances for one algorithm and
+ * provider.
+ *
+ * <p>
+ * Looking up a {@link Signature} through the JCA provider framework is costly
+ * compared to reinitializing an existing one, and a {@link Signature} cannot
+ * be shared between threads. Each thread therefore gets its own instance on
+ * first use and reuses it afterwards. Callers must call
+ * {@link Signature#initSign} or {@link Signature#initVerify} before every
+ * operation, which also resets any state left by a previous failed one.
+ */
+public class SignatureEngine {
+  private final String algorithm;
+  private final String provider;
+  private final ThreadLocal<Signature> engines = new ThreadLocal<>();
+
+  /**
+   * Constructor.
+   *
+   * @param algorithm
+   *          : JCA signature algorithm name.
+   * @param provider
+   *          : JCA provider name.
+   */
+  public SignatureEngine(String algorithm, String provider) {
+    this.algorithm = algorithm;
+    this.provider = provider;
+  }
+
+  /**
+   * Returns the {@link Signature} instance of the calling thread.
+   *
+   * @return {@link Signature} instance.
+   *
+   * @throws NoSuchAlgorithmException
+   *           if the algorithm is not supported by the provider.
+   * @throws NoSuchProviderException
+   *           if the provider is not registered.
+   */
+  public Signature get() throws NoSuchAlgorithmException, NoSuchProviderException {
+    Signature engine = engines.get();
+    if (engine == null) {
+      engine = Signature.getInstance(algorithm, provider);
+      engines.set(engine);
+    }
+    return engine;
+  }
+
+  /**
+   * Returns the JCA signature algorithm name.
+   *
+   * @return algorithm name.
+   */
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  /**
+   * Returns the JCA provider name.
+   *
+   * @return provider name.
+   */
+  public String getProvider() {
+    return provider;
+  }
+}
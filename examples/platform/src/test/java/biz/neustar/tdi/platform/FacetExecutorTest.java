@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test cases for {@link FacetExecutor}.
+ */
+public class FacetExecutorTest {
+
+  @Test
+  public void testRunsOnPoolThread() throws Exception {
+    FacetExecutor executor = new FacetExecutor("test-pool", 2, 4);
+    String threadName = CompletableFuture
+        .supplyAsync(() -> Thread.currentThread().getName(), executor).get();
+    assertTrue(threadName.startsWith("test-pool-"));
+    assertEquals(2, executor.getMaxThreads());
+    assertTrue(executor.shutdown(1000));
+    assertEquals(1, executor.getCompletedCount());
+  }
+
+  @Test
+  public void testRejectedTaskRunsOnCaller() throws Exception {
+    FacetExecutor executor = new FacetExecutor("test-full", 1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+
+    // Occupy the only thread and the only queue slot.
+    CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+      }
+    }, executor);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> { }, executor);
+    assertEquals(1, executor.getQueueDepth());
+    assertEquals(1, executor.getActiveCount());
+
+    String caller = Thread.currentThread().getName();
+    String threadName = CompletableFuture
+        .supplyAsync(() -> Thread.currentThread().getName(), executor).get();
+    assertEquals(caller, threadName);
+    assertEquals(1, executor.getRejectedCount());
+
+    release.countDown();
+    running.get();
+    queued.get();
+    assertTrue(executor.shutdown(1000));
+  }
+
+  @Test
+  public void testRunsOnCallerAfterShutdown() throws Exception {
+    FacetExecutor executor = new FacetExecutor("test-stopped", 1, 1);
+    assertFalse(executor.isShutdown());
+    assertTrue(executor.shutdown(1000));
+    assertTrue(executor.isShutdown());
+
+    assertEquals(Boolean.TRUE, CompletableFuture.supplyAsync(() -> true, executor).get());
+    assertEquals(1, executor.getRejectedCount());
+  }
+
+  @Test
+  public void testFromConfig() {
+    Map<String, Object> config = new HashMap<>();
+    config.put(Constants.EXECUTOR_CONFIG_KEY_THREADS, 3);
+    config.put(Constants.EXECUTOR_CONFIG_KEY_QUEUE_SIZE, 8);
+
+    FacetExecutor configured = FacetExecutor.fromConfig("test-conf", config, 1, 1);
+    assertEquals("test-conf", configured.getName());
+    assertEquals(3, configured.getMaxThreads());
+
+    FacetExecutor defaulted = FacetExecutor.fromConfig("test-default", null, 5, 1);
+    assertEquals(5, defaulted.getMaxThreads());
+
+    configured.shutdown(1000);
+    defaulted.shutdown(1000);
+  }
+}
@@ -16,7 +16,9 @@
 
 package biz.neustar.tdi.platform;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import biz.neustar.tdi.fw.platform.facet.crypto.TdiPlatformCryptoShape;
 import biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape;
@@ -29,6 +31,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -90,4 +93,39 @@ public class PlatformTest {
     CompletableFuture<Void> future = platformObject.init();
     assertNotNull(future);
   }
+
+  @Test
+  public void testExecutorsConfig() throws Exception {
+    Map<String, Object> cpu = new HashMap<>();
+    cpu.put(Constants.EXECUTOR_CONFIG_KEY_THREADS, 2);
+    Map<String, Object> io = new HashMap<>();
+    io.put(Constants.EXECUTOR_CONFIG_KEY_THREADS, 1);
+    Map<String, Object> executors = new HashMap<>();
+    executors.put(Constants.EXECUTORS_CONFIG_KEY_CPU, cpu);
+    executors.put(Constants.EXECUTORS_CONFIG_KEY_IO, io);
+    Map<String, Object> platformConfig = new HashMap<>();
+    platformConfig.put(Constants.PLATFORM_CONFIG_KEY_EXECUTORS, executors);
+    Map<String, Object> config = new HashMap<>();
+    config.put(Constants.PLATFORM_CONFIG_KEY_PLATFORM, platformConfig);
+
+    Platform platform = new Platform(config);
+    assertEquals(2, platform.getCpuExecutor().getMaxThreads());
+    assertEquals(1, platform.getIoExecutor().getMaxThreads());
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    Platform platform = (Platform) TestData.getDummyLibraryPlatform();
+    assertEquals(Runtime.getRuntime().availableProcessors(),
+        platform.getCpuExecutor().getMaxThreads());
+    assertEquals(Constants.EXECUTOR_DEFAULT_IO_THREADS, platform.getIoExecutor().getMaxThreads());
+
+    platform.shutdown().get();
+    assertTrue(platform.getCpuExecutor().isShutdown());
+    assertTrue(platform.getIoExecutor().isShutdown());
+
+    // Facets keep working on the calling thread after shutdown.
+    assertNotNull(platform.getKeystore().getKeys().get());
+    assertEquals(1, platform.getIoExecutor().getRejectedCount());
+  }
 }
@@ -16,17 +16,23 @@
 
 package biz.neustar.tdi.platform;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
 import biz.neustar.tdi.platform.facet.keystore.KeyRef;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.BigIntegers;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.interfaces.ECPrivateKey;
@@ -176,4 +182,40 @@ public class UtilKeyGenerationTest {
     KeyRef keyRef = null;
     UtilKeyGeneration.generateEcPrivateKey(keyRef);
   }
+
+  @Test
+  public void testSharedCurveParameters() throws Exception {
+    assertSame(UtilKeyGeneration.getEcParameterSpec(), UtilKeyGeneration.getEcParameterSpec());
+    assertEquals(Constants.KEYSIZE, UtilKeyGeneration.getEcParameterSpec().getOrder().bitLength());
+    assertSame(UtilKeyGeneration.getKeyFactoryInstance(),
+        UtilKeyGeneration.getKeyFactoryInstance());
+  }
+
+  @Test
+  public void testOtherProvider() throws Exception {
+    Utils.addBouncyCastleProvider();
+    KeyPair pair = UtilKeyGeneration.generateEcKeyPair("SunEC");
+    assertEquals(Constants.PKI_ALG_EC, UtilKeyGeneration.getKeyAlgorithm("SunEC"));
+    assertEquals(Constants.PKI_KEY_ALG_ECDSA,
+        UtilKeyGeneration.getKeyAlgorithm(BouncyCastleProvider.PROVIDER_NAME));
+
+    KeyRef ref = new KeyRef();
+    ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+    ECPrivateKey privateKey = (ECPrivateKey) pair.getPrivate();
+    ref.cordX = Utils.toStringData(
+        Utils.base64UrlEncode(BigIntegers.asUnsignedByteArray(publicKey.getW().getAffineX())));
+    ref.cordY = Utils.toStringData(
+        Utils.base64UrlEncode(BigIntegers.asUnsignedByteArray(publicKey.getW().getAffineY())));
+    ref.privateD = Utils.toStringData(
+        Utils.base64UrlEncode(BigIntegers.asUnsignedByteArray(privateKey.getS())));
+
+    // The same key material is accepted by both providers.
+    assertEquals(publicKey.getW(), UtilKeyGeneration.generateEcpublicKey(ref, "SunEC").getW());
+    assertEquals(publicKey.getW(), UtilKeyGeneration.generateEcpublicKey(ref).getW());
+    assertEquals(privateKey.getS(), UtilKeyGeneration.generateEcPrivateKey(ref, "SunEC").getS());
+    assertSame(UtilKeyGeneration.getEcParameterSpec("SunEC"),
+        UtilKeyGeneration.getEcParameterSpec("SunEC"));
+    assertNotSame(UtilKeyGeneration.getKeyFactoryInstance(),
+        UtilKeyGeneration.getKeyFactoryInstance("SunEC"));
+  }
 }
@@ -16,6 +16,8 @@
 
 package biz.neustar.tdi.platform;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -23,6 +25,11 @@ import biz.neustar.tdi.platform.Utils;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
 /**
  * JUnit test class for Utils class.
  *
@@ -55,5 +62,48 @@ public class UtilsTest {
     String strData = Utils.toStringData(data);
     assertNotNull(strData);
   }
-  
+
+  @Test
+  public void testBase64UrlMatchesJdk() {
+    Random random = new Random(20170901L);
+    for (int length = 0; length <= 64; length++) {
+      byte[] data = new byte[length + 7];
+      random.nextBytes(data);
+      int offset = random.nextInt(8);
+      int len = Math.min(length, data.length - offset);
+      byte[] range = Arrays.copyOfRange(data, offset, offset + len);
+
+      String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(range);
+      byte[] encoded = Utils.base64UrlEncode(data, offset, len);
+      assertEquals(expected, new String(encoded, StandardCharsets.US_ASCII));
+
+      byte[] framed = new byte[encoded.length + 4];
+      System.arraycopy(encoded, 0, framed, 2, encoded.length);
+      assertArrayEquals(range, Utils.base64UrlDecode(framed, 2, encoded.length));
+    }
+  }
+
+  @Test
+  public void testBase64UrlDecodeToleratesPadding() {
+    assertEquals("a", Utils.toStringData(Utils.base64UrlDecode("YQ")));
+    assertEquals("a", Utils.toStringData(Utils.base64UrlDecode("YQ=")));
+    assertEquals("a", Utils.toStringData(Utils.base64UrlDecode("YQ==")));
+    assertEquals("ab", Utils.toStringData(Utils.base64UrlDecode("YWI=")));
+    assertEquals(0, Utils.base64UrlDecode("").length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBase64UrlDecodeInvalidLength() {
+    Utils.base64UrlDecode("YWJjZ");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBase64UrlDecodeInvalidCharacter() {
+    Utils.base64UrlDecode("YW+j");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBase64UrlDecodeMisplacedPadding() {
+    Utils.base64UrlDecode("YW=j");
+  }
 }
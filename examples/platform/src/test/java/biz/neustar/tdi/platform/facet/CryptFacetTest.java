@@ -16,18 +16,38 @@
 
 package biz.neustar.tdi.platform.facet;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import biz.neustar.tdi.fw.keystructure.TdiKeyFlagsEnum;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructure;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 import biz.neustar.tdi.fw.platform.TdiPlatformShape;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyRequest;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyResult;
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Platform;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import biz.neustar.tdi.platform.facet.crypto.CryptoProviders;
 import biz.neustar.tdi.platform.facet.CryptFacet;
 import biz.neustar.tdi.platform.facet.keystore.KeyRef;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -47,6 +67,9 @@ public class CryptFacetTest {
   public static String fleet   = "9724baf5-0ec5-44ec-9bd7-2795d0814bdf";
   public static int flags      = 2;
   public static String payload = "Test Data For Sign";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
   
   /**
    * CrypFacetTest Junit Setup method.
@@ -308,6 +331,222 @@ public class CryptFacetTest {
     assertFalse(result);
   }
   
+  @Test
+  public void testSignAndVerifyByteBuffer() throws InterruptedException, ExecutionException {
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+
+    // Only the bytes between position and limit are signed.
+    byte[] framed = ("xx" + payload + "yy").getBytes(StandardCharsets.UTF_8);
+    ByteBuffer input = ByteBuffer.wrap(framed, 2, framed.length - 4);
+    String signature = objCryptFacet.sign(key, input).get();
+    assertEquals(2, input.position());
+    assertTrue(objCryptFacet.verify(key, payload, signature).get());
+
+    byte[] signatureBytes = signature.getBytes(StandardCharsets.US_ASCII);
+    assertTrue(objCryptFacet.verify(key, input, signatureBytes).get());
+    assertEquals(2, input.position());
+    assertFalse(objCryptFacet.verify(key, ByteBuffer.wrap(framed), signatureBytes).get());
+  }
+
+  @Test(expected = ExecutionException.class)
+  public void testSignEmptyByteBuffer() throws InterruptedException, ExecutionException {
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    objCryptFacet.sign(key, ByteBuffer.allocate(0)).get();
+  }
+
+  @Test(expected = ExecutionException.class)
+  public void testVerifyByteBufferNullSignature()
+      throws InterruptedException, ExecutionException {
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    objCryptFacet.verify(key, ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)), null)
+        .get();
+  }
+
+  @Test
+  public void testVerifyBatch() throws InterruptedException, ExecutionException {
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    String signature = objCryptFacet.sign(key, payload).get();
+
+    // Large enough to be split across several fork/join tasks.
+    int count = CryptFacet.BATCH_CHUNK_SIZE * 4 + 3;
+    List<VerifyRequest> requests = new ArrayList<>();
+    for (int index = 0; index < count; index++) {
+      switch (index % 3) {
+        case 0:
+          requests.add(new VerifyRequest(key, payload, signature));
+          break;
+        case 1:
+          requests.add(new VerifyRequest(key, payload + index, signature));
+          break;
+        default:
+          requests.add(new VerifyRequest(new TdiKeyStructure(kid, fleet, null, flags), payload,
+              signature));
+          break;
+      }
+    }
+
+    List<VerifyResult> results = objCryptFacet.verifyBatch(requests).get();
+    assertEquals(count, results.size());
+    for (int index = 0; index < count; index++) {
+      VerifyResult result = results.get(index);
+      assertTrue(result.getRequest() == requests.get(index));
+      switch (index % 3) {
+        case 0:
+          assertTrue(result.isVerified());
+          assertNull(result.getError());
+          break;
+        case 1:
+          assertFalse(result.isVerified());
+          assertNull(result.getError());
+          break;
+        default:
+          assertFalse(result.isVerified());
+          assertTrue(result.getError() instanceof PlatformRuntimeException);
+          break;
+      }
+    }
+  }
+
+  @Test
+  public void testVerifyBatchOnBytes() throws InterruptedException, ExecutionException {
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    byte[] signature = objCryptFacet.sign(key, payload).get()
+        .getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer input = ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+    ByteBuffer tampered = ByteBuffer.wrap((payload + "x").getBytes(StandardCharsets.UTF_8));
+
+    List<VerifyResult> results = objCryptFacet.verifyBatch(Arrays.asList(
+        new VerifyRequest(key, input, signature),
+        new VerifyRequest(key, tampered, signature),
+        new VerifyRequest(key, input, new byte[0]))).get();
+    assertTrue(results.get(0).isVerified());
+    assertFalse(results.get(1).isVerified());
+    assertNull(results.get(1).getError());
+    assertTrue(results.get(2).getError() instanceof PlatformRuntimeException);
+    // The request buffer is left untouched.
+    assertEquals(payload.length(), input.remaining());
+  }
+
+  @Test
+  public void testVerifyEmptyBatch() throws InterruptedException, ExecutionException {
+    assertTrue(objCryptFacet.verifyBatch(null).get().isEmpty());
+    assertTrue(objCryptFacet.verifyBatch(new ArrayList<>()).get().isEmpty());
+  }
+
+  @Test
+  public void testFixedBaseSigningEngine() throws Exception {
+    Platform platform = new Platform(
+        signingEngineConfig(Constants.CRYPTO_SIGNING_ENGINE_FIXED_BASE));
+    platform.init().get();
+    CryptFacet crypto = (CryptFacet) platform.getCrypto();
+    assertNotNull(crypto.getFixedBaseEngine());
+
+    // SELF and F_S keys are prepared when added to the keystore.
+    TdiKeyStructureShape selfKey = platform.getKeystore().generateKey(
+        TdiKeyFlagsEnum.OUR_OWN.getNumber() | TdiKeyFlagsEnum.ROLE_F_S.getNumber(), "self",
+        fleet).get();
+    assertTrue(crypto.getFixedBaseEngine().isRegistered("self"));
+
+    String signature = crypto.sign(selfKey, payload).get();
+    assertTrue(crypto.verify(selfKey, payload, signature).get());
+    assertTrue(objCryptFacet.verify(selfKey, payload, signature).get());
+
+    platform.getKeystore().forgetKey("self").get();
+    assertFalse(crypto.getFixedBaseEngine().isRegistered("self"));
+
+    // Keys that were never prepared are signed as well.
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    assertTrue(objCryptFacet.verify(key, payload, crypto.sign(key, payload).get()).get());
+    platform.shutdown().get();
+  }
+
+  @Test
+  public void testJcaSigningEngineByDefault() throws Exception {
+    assertNull(objCryptFacet.getFixedBaseEngine());
+    Platform platform = new Platform(signingEngineConfig(Constants.CRYPTO_SIGNING_ENGINE_JCA));
+    assertNull(((CryptFacet) platform.getCrypto()).getFixedBaseEngine());
+  }
+
+  @Test(expected = PlatformRuntimeException.class)
+  public void testUnknownSigningEngine() throws Exception {
+    new Platform(signingEngineConfig("unknown"));
+  }
+
+  @Test
+  public void testProvidersPerOperation() throws Exception {
+    Map<String, Object> providers = new HashMap<>();
+    providers.put(Constants.CRYPTO_PROVIDER_KEY_KEYGEN, "SunEC");
+    providers.put(Constants.CRYPTO_PROVIDER_KEY_SIGN, "SunEC");
+    providers.put(Constants.CRYPTO_PROVIDER_KEY_VERIFY, "NoSuchProvider");
+    Map<String, Object> cryptoConfig = new HashMap<>();
+    cryptoConfig.put(Constants.CRYPTO_CONFIG_KEY_PROVIDERS, providers);
+
+    Platform platform = new Platform(platformConfig(cryptoConfig));
+    platform.init().get();
+    CryptFacet crypto = (CryptFacet) platform.getCrypto();
+    assertEquals("SunEC", crypto.getProviders().getKeygenProvider());
+    assertEquals("SunEC", crypto.getProviders().getSignProvider());
+    assertEquals(CryptoProviders.DEFAULT_PROVIDER, crypto.getProviders().getVerifyProvider());
+
+    // Keys generated and signatures made by SunEC verify with BouncyCastle.
+    TdiKeyStructureShape selfKey = platform.getKeystore().generateKey(
+        TdiKeyFlagsEnum.OUR_OWN.getNumber(), "self", fleet).get();
+    String signature = crypto.sign(selfKey, payload).get();
+    assertTrue(crypto.verify(selfKey, payload, signature).get());
+    assertTrue(objCryptFacet.verify(selfKey, payload, signature).get());
+
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+    assertTrue(crypto.verify(key, payload, objCryptFacet.sign(key, payload).get()).get());
+    platform.shutdown().get();
+  }
+
+  @Test
+  public void testBouncyCastleByDefault() {
+    assertEquals(CryptoProviders.DEFAULT_PROVIDER,
+        objCryptFacet.getProviders().getKeygenProvider());
+    assertEquals(CryptoProviders.DEFAULT_PROVIDER, objCryptFacet.getProviders().getSignProvider());
+    assertEquals(CryptoProviders.DEFAULT_PROVIDER,
+        objCryptFacet.getProviders().getVerifyProvider());
+  }
+
+  private Map<String, Object> signingEngineConfig(String engine) throws Exception {
+    Map<String, Object> crypto = new HashMap<>();
+    crypto.put(Constants.CRYPTO_CONFIG_KEY_SIGNING_ENGINE, engine);
+    return platformConfig(crypto);
+  }
+
+  private Map<String, Object> platformConfig(Map<String, Object> crypto) throws Exception {
+    File dir = folder.newFolder();
+    Files.write(new File(dir, Constants.KEY_CONFIG_FILE).toPath(),
+        "{\"keys\":[]}".getBytes("UTF-8"));
+    Map<String, Object> basePath = new HashMap<>();
+    basePath.put(Constants.PLATFORM_CONFIG_KEY_BASEPATH, dir.getPath() + File.separator);
+
+    Map<String, Object> platformConfig = new HashMap<>();
+    platformConfig.put(Constants.PLATFORM_CONFIG_KEY_KEYSTORE, basePath);
+    platformConfig.put(Constants.PLATFORM_CONFIG_KEY_DATASTORE, basePath);
+    platformConfig.put(Constants.PLATFORM_CONFIG_KEY_CRYPTO, crypto);
+    Map<String, Object> config = new HashMap<>();
+    config.put(Constants.PLATFORM_CONFIG_KEY_PLATFORM, platformConfig);
+    return config;
+  }
+
+  @Test
+  public void testKeyCacheInvalidatedByKeystore() throws InterruptedException, ExecutionException {
+    TdiPlatformShape platform = TestData.getDummyLibraryPlatform();
+    CryptFacet crypto = (CryptFacet) platform.getCrypto();
+    TdiKeyStructureShape key = new TdiKeyStructure(kid, fleet, keyRef, flags);
+
+    crypto.sign(key, payload).get();
+    crypto.sign(key, payload).get();
+    assertEquals(1, crypto.getKeyCache().getMisses());
+    assertEquals(1, crypto.getKeyCache().getHits());
+    assertEquals(1, crypto.getKeyCache().size());
+
+    platform.getKeystore().forgetKey(kid).get();
+    assertEquals(0, crypto.getKeyCache().size());
+  }
+
   @Test
   public void testDecrypt() {
     CompletableFuture<Void> future = objCryptFacet.decrypt();
@@ -17,18 +17,26 @@
 package biz.neustar.tdi.platform.facet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
 import biz.neustar.tdi.platform.facet.DataStoreFacet;
 import biz.neustar.tdi.platform.facet.KeystoreFacet;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +55,9 @@ public class DataStoreFacetTest {
   public static String storeName = "testStoreFile"; // Store name used for
                                                     // testing
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   /**
    * DataStoreFacetTest JUnit Setup method.
    * 
@@ -429,4 +440,121 @@ public class DataStoreFacetTest {
     testStoreFacet = new DataStoreFacet(testPlatform);
     assertEquals(Constants.PLATFORM_DEFAULT_BASE_PATH, testStoreFacet.storeBasePath);
   }
+
+  // ----------------------------------------------------------------------------------
+  // Tests for the journal API
+  @Test
+  public void testJournalAppendAndReplay() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    assertTrue(facet.supportsJournal());
+    facet.createStore("journal", null).get();
+    assertEquals(Collections.emptyList(), facet.readJournal("journal").get());
+
+    facet.appendJournal("journal", Arrays.asList("b 1 first", "b 2 second")).get();
+    facet.appendJournal("journal", Collections.singletonList("n 1")).get();
+
+    // A new facet, as after a restart, reads the records back in order.
+    DataStoreFacet restarted = journalFacet();
+    restarted.createStore("journal", null).get();
+    assertEquals(Arrays.asList("b 1 first", "b 2 second", "n 1"),
+        restarted.readJournal("journal").get());
+  }
+
+  @Test
+  public void testJournalDiscardsTornRecord() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    facet.createStore("journal", null).get();
+    // A crash in the middle of an append leaves a record without line break.
+    Files.write(new File(folder.getRoot(), "journal.journal").toPath(),
+        "b 1 first\nb 2 sec".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(Collections.singletonList("b 1 first"), facet.readJournal("journal").get());
+    facet.appendJournal("journal", Collections.singletonList("b 3 third")).get();
+    assertEquals(Arrays.asList("b 1 first", "b 3 third"), facet.readJournal("journal").get());
+  }
+
+  @Test
+  public void testJournalRejectsLineBreaks() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    facet.createStore("journal", null).get();
+    try {
+      facet.appendJournal("journal", Collections.singletonList("b 1\nb 2")).get();
+      throw new AssertionError("Record should be rejected");
+    } catch (ExecutionException err) {
+      assertTrue(err.getCause() instanceof PlatformRuntimeException);
+    }
+    assertEquals(Collections.emptyList(), facet.readJournal("journal").get());
+  }
+
+  @Test(expected = ExecutionException.class)
+  public void testJournalUnknownStore() throws Exception {
+    journalFacet().appendJournal("unknown", Collections.singletonList("b 1 first")).get();
+  }
+
+  @Test
+  public void testJournalCompaction() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    facet.createStore("journal", null).get();
+    facet.set("journal", "kept", "value").get();
+    facet.appendJournal("journal", Arrays.asList("b 1 first", "b 2 second")).get();
+
+    Map<String, Object> values = new HashMap<>();
+    values.put("burnt", Collections.singletonMap("second", 2));
+    facet.compactJournal("journal", values).get();
+    assertEquals(Collections.emptyList(), facet.readJournal("journal").get());
+    assertFalse(new File(folder.getRoot(), "journal.tmp").exists());
+
+    DataStoreFacet restarted = journalFacet();
+    restarted.createStore("journal", null).get();
+    assertEquals("value", restarted.get("journal", "kept").get());
+    assertEquals(Collections.singletonMap("second", 2), restarted.get("journal", "burnt").get());
+    assertEquals(Collections.emptyList(), restarted.readJournal("journal").get());
+  }
+
+  @Test
+  public void testJournalSurvivesInterruptedCompaction() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    facet.createStore("journal", null).get();
+    facet.set("journal", "kept", "value").get();
+    facet.appendJournal("journal", Arrays.asList("b 1 first", "b 2 second")).get();
+    // A crash while compacting leaves a partial temporary file behind.
+    Files.write(new File(folder.getRoot(), "journal.tmp").toPath(),
+        "{\"kept\":".getBytes(StandardCharsets.UTF_8));
+
+    DataStoreFacet restarted = journalFacet();
+    restarted.createStore("journal", null).get();
+    assertEquals("value", restarted.get("journal", "kept").get());
+    assertEquals(Arrays.asList("b 1 first", "b 2 second"),
+        restarted.readJournal("journal").get());
+
+    // The next compaction replaces the leftover.
+    restarted.compactJournal("journal", null).get();
+    assertEquals("value", journalFacetStore("journal").get("kept"));
+  }
+
+  @Test
+  public void testJournalClobberedWithStore() throws Exception {
+    DataStoreFacet facet = journalFacet();
+    facet.createStore("journal", null).get();
+    facet.appendJournal("journal", Collections.singletonList("b 1 first")).get();
+
+    facet.createStore("journal", new HashMap<>()).get();
+    assertEquals(Collections.emptyList(), facet.readJournal("journal").get());
+
+    facet.appendJournal("journal", Collections.singletonList("b 1 first")).get();
+    facet.deleteStore("journal").get();
+    assertFalse(new File(folder.getRoot(), "journal.journal").exists());
+  }
+
+  private DataStoreFacet journalFacet() {
+    DataStoreFacet facet = new DataStoreFacet(pf);
+    facet.storeBasePath = folder.getRoot().getPath() + File.separator;
+    return facet;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> journalFacetStore(String name) throws Exception {
+    DataStoreFacet facet = journalFacet();
+    return (Map<String, Object>) facet.createStore(name, null).get();
+  }
 }
@@ -40,6 +40,8 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -351,6 +353,14 @@ public class KeystoreFacetTest {
     });
   }
 
+  @Test
+  public void testKeyChangeListener() throws InterruptedException, ExecutionException {
+    List<String> changed = new ArrayList<>();
+    objKeystoreFacet.addKeyChangeListener(changed::add);
+    objKeystoreFacet.forgetKey("InvalidKey").get();
+    assertEquals(Arrays.asList("InvalidKey"), changed);
+  }
+
   @Test
   public void testForgetKeyNullKey() throws InterruptedException, ExecutionException {
     String kid = null;
@@ -16,6 +16,7 @@
 
 package biz.neustar.tdi.platform.facet;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -25,7 +26,9 @@ import biz.neustar.tdi.platform.facet.UtilFacet;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -47,6 +50,35 @@ public class UtilFacetTest {
     assertEquals(originalString, decodeStr);
   }
 
+  @Test
+  public void testEncodeDecodeBytes() {
+    byte[] data = "xxTest Stringxx".getBytes(StandardCharsets.UTF_8);
+    byte[] encoded = api.b64UrlEncode(data, 2, 11);
+    assertEquals("VGVzdCBTdHJpbmc", new String(encoded, StandardCharsets.US_ASCII));
+    assertArrayEquals("Test String".getBytes(StandardCharsets.UTF_8),
+        api.b64UrlDecode(encoded, 0, encoded.length));
+  }
+
+  @Test
+  public void testEncodeDecodeByteBuffer() {
+    byte[] data = "Test String".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer heap = ByteBuffer.wrap(data, 5, 6);
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data).position(5);
+
+    byte[] encoded = api.b64UrlEncode(heap);
+    assertArrayEquals(encoded, api.b64UrlEncode(direct));
+    assertEquals(5, heap.position());
+    assertEquals(5, direct.position());
+
+    ByteBuffer encodedDirect = ByteBuffer.allocateDirect(encoded.length);
+    encodedDirect.put(encoded).flip();
+    byte[] expected = "String".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(expected, api.b64UrlDecode(ByteBuffer.wrap(encoded)));
+    assertArrayEquals(expected, api.b64UrlDecode(encodedDirect));
+    assertEquals(0, encodedDirect.position());
+  }
+
   @Test
   public void testGetUuid() {
     String uuid = api.makeUuid();
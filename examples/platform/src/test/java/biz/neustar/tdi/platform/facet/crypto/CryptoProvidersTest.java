@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import static org.junit.Assert.assertEquals;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit test cases for {@link CryptoProviders} class.
+ */
+public class CryptoProvidersTest {
+
+  @BeforeClass
+  public static void setup() {
+    Utils.addBouncyCastleProvider();
+  }
+
+  @Test
+  public void testDefaults() {
+    assertProviders(CryptoProviders.fromConfig(null), CryptoProviders.DEFAULT_PROVIDER,
+        CryptoProviders.DEFAULT_PROVIDER, CryptoProviders.DEFAULT_PROVIDER);
+    assertProviders(CryptoProviders.fromConfig(new HashMap<>()),
+        CryptoProviders.DEFAULT_PROVIDER, CryptoProviders.DEFAULT_PROVIDER,
+        CryptoProviders.DEFAULT_PROVIDER);
+  }
+
+  @Test
+  public void testSingleProvider() {
+    Map<String, Object> config = new HashMap<>();
+    config.put(Constants.CRYPTO_CONFIG_KEY_PROVIDERS, "SunEC");
+    assertProviders(CryptoProviders.fromConfig(config), "SunEC", "SunEC", "SunEC");
+  }
+
+  @Test
+  public void testPerOperation() {
+    Map<String, Object> providers = new HashMap<>();
+    providers.put(Constants.CRYPTO_PROVIDER_KEY_VERIFY, "SunEC");
+    Map<String, Object> config = new HashMap<>();
+    config.put(Constants.CRYPTO_CONFIG_KEY_PROVIDERS, providers);
+    assertProviders(CryptoProviders.fromConfig(config), CryptoProviders.DEFAULT_PROVIDER,
+        CryptoProviders.DEFAULT_PROVIDER, "SunEC");
+  }
+
+  @Test
+  public void testFallback() {
+    // Not registered.
+    assertProviders(new CryptoProviders("NoSuchProvider", "NoSuchProvider", "NoSuchProvider"),
+        CryptoProviders.DEFAULT_PROVIDER, CryptoProviders.DEFAULT_PROVIDER,
+        CryptoProviders.DEFAULT_PROVIDER);
+    // Registered, but without EC support.
+    assertProviders(new CryptoProviders("SUN", "SUN", "SUN"), CryptoProviders.DEFAULT_PROVIDER,
+        CryptoProviders.DEFAULT_PROVIDER, CryptoProviders.DEFAULT_PROVIDER);
+  }
+
+  private static void assertProviders(CryptoProviders providers, String keygen, String sign,
+      String verify) {
+    assertEquals(keygen, providers.getKeygenProvider());
+    assertEquals(sign, providers.getSignProvider());
+    assertEquals(verify, providers.getVerifyProvider());
+  }
+}
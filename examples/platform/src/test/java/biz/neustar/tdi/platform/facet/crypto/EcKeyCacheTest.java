@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Unit test cases for {@link EcKeyCache} class.
+ */
+public class EcKeyCacheTest {
+  private static final String KID = "9724baf5-0ec5-44ec-9bd7-2795d0814bdf";
+
+  private KeyRef keyRef;
+
+  /**
+   * Builds the key reference used by the tests.
+   */
+  @Before
+  public void setup() {
+    keyRef = new KeyRef();
+    keyRef.use = "sig";
+    keyRef.alg = "ES256";
+    keyRef.kty = "EC";
+    keyRef.kid = KID;
+    keyRef.crv = "P-256";
+    keyRef.cordX = "ykbxmdBGk_G2LrHJ2R2YQTUX5eBOm4zSsJF8blpE_Bw";
+    keyRef.cordY = "IwwJLBglVpBEOELjnQ0XXWrt5WPs5RO4BP-2NXN3w2M";
+    keyRef.privateD = "TxEyAp7JrLA3xyw17Qw-O-L9zM_nurjgqJG5BvLTxjY";
+  }
+
+  @Test
+  public void testHitsAndMisses() {
+    EcKeyCache cache = new EcKeyCache(4);
+
+    ECPrivateKey privateKey = cache.getPrivateKey(KID, keyRef);
+    ECPublicKey publicKey = cache.getPublicKey(KID, keyRef);
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    assertSame(privateKey, cache.getPrivateKey(KID, keyRef));
+    assertSame(publicKey, cache.getPublicKey(KID, keyRef));
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testChangedMaterialIsRebuilt() {
+    EcKeyCache cache = new EcKeyCache(4);
+    ECPublicKey publicKey = cache.getPublicKey(KID, keyRef);
+
+    KeyRef publicOnly = new KeyRef();
+    publicOnly.cordX = keyRef.cordX;
+    publicOnly.cordY = keyRef.cordY;
+
+    ECPublicKey rebuilt = cache.getPublicKey(KID, publicOnly);
+    assertNotSame(publicKey, rebuilt);
+    assertEquals(publicKey.getW(), rebuilt.getW());
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testInvalidate() {
+    EcKeyCache cache = new EcKeyCache(4);
+    ECPrivateKey privateKey = cache.getPrivateKey(KID, keyRef);
+
+    cache.invalidate(KID);
+    assertEquals(0, cache.size());
+    assertNotSame(privateKey, cache.getPrivateKey(KID, keyRef));
+    assertEquals(2, cache.getMisses());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testBounded() {
+    EcKeyCache cache = new EcKeyCache(2);
+    cache.getPublicKey("kid1", keyRef);
+    cache.getPublicKey("kid2", keyRef);
+    cache.getPublicKey("kid1", keyRef);
+    cache.getPublicKey("kid3", keyRef);
+
+    assertEquals(2, cache.size());
+
+    // kid2 was the least recently used entry and has been evicted.
+    cache.getPublicKey("kid1", keyRef);
+    cache.getPublicKey("kid2", keyRef);
+    assertEquals(2, cache.getHits());
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testDisabled() {
+    EcKeyCache cache = new EcKeyCache(0);
+    ECPublicKey publicKey = cache.getPublicKey(KID, keyRef);
+
+    assertNotSame(publicKey, cache.getPublicKey(KID, keyRef));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+}
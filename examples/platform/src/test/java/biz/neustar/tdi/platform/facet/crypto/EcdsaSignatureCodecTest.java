@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Random;
+
+/**
+ * Checks {@link EcdsaSignatureCodec} against the BouncyCastle ASN.1 encoder
+ * over randomly generated signature values.
+ */
+public class EcdsaSignatureCodecTest {
+  private static final int SIZE = Constants.KEYSIZE_BYTES;
+  private static final int ROUNDS = 5000;
+
+  @BeforeClass
+  public static void setup() {
+    Utils.addBouncyCastleProvider();
+  }
+
+  @Test
+  public void testRandomValuesMatchBouncyCastle() throws Exception {
+    Random random = new Random(20171103L);
+    for (int round = 0; round < ROUNDS; round++) {
+      BigInteger rvalue = randomValue(random);
+      BigInteger svalue = randomValue(random);
+      byte[] der = bcDer(rvalue, svalue);
+      byte[] raw = Arrays.concatenate(BigIntegers.asUnsignedByteArray(SIZE, rvalue),
+          BigIntegers.asUnsignedByteArray(SIZE, svalue));
+
+      assertArrayEquals("r=" + rvalue + " s=" + svalue, raw,
+          EcdsaSignatureCodec.derToRaw(der, SIZE));
+      assertArrayEquals("r=" + rvalue + " s=" + svalue, der,
+          EcdsaSignatureCodec.rawToDer(raw));
+    }
+  }
+
+  @Test
+  public void testEdgeValues() throws Exception {
+    BigInteger max = BigInteger.ONE.shiftLeft(SIZE * 8).subtract(BigInteger.ONE);
+    BigInteger[] values = { BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(0x7F),
+        BigInteger.valueOf(0x80), BigInteger.valueOf(0xFF), BigInteger.valueOf(0x100),
+        BigInteger.ONE.shiftLeft(SIZE * 8 - 1), BigInteger.ONE.shiftLeft(SIZE * 8 - 8), max };
+    for (BigInteger rvalue : values) {
+      for (BigInteger svalue : values) {
+        byte[] der = bcDer(rvalue, svalue);
+        byte[] raw = Arrays.concatenate(BigIntegers.asUnsignedByteArray(SIZE, rvalue),
+            BigIntegers.asUnsignedByteArray(SIZE, svalue));
+        assertArrayEquals(raw, EcdsaSignatureCodec.derToRaw(der, SIZE));
+        assertArrayEquals(der, EcdsaSignatureCodec.rawToDer(raw));
+      }
+    }
+  }
+
+  @Test
+  public void testRealSignatures() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance(Constants.PKI_KEY_ALG_ECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    generator.initialize(new ECGenParameterSpec(Constants.EC_CURVE_SECP256R1));
+    KeyPair keyPair = generator.generateKeyPair();
+    Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    byte[] data = Utils.toBytes("payload");
+
+    for (int round = 0; round < 200; round++) {
+      ecdsa.initSign(keyPair.getPrivate());
+      ecdsa.update(data);
+      byte[] der = ecdsa.sign();
+
+      byte[] raw = EcdsaSignatureCodec.derToRaw(der, SIZE);
+      assertEquals(2 * SIZE, raw.length);
+      assertArrayEquals(der, EcdsaSignatureCodec.rawToDer(raw));
+
+      ecdsa.initVerify(keyPair.getPublic());
+      ecdsa.update(data);
+      assertTrue(ecdsa.verify(EcdsaSignatureCodec.rawToDer(raw)));
+    }
+  }
+
+  @Test
+  public void testRawWithUnexpectedLength() throws Exception {
+    // Halves are taken as they are, a trailing odd byte is dropped.
+    byte[] raw = { 0x01, (byte) 0x80, 0x02 };
+    ASN1Sequence sequence = (ASN1Sequence) ASN1Primitive
+        .fromByteArray(EcdsaSignatureCodec.rawToDer(raw));
+    assertEquals(BigInteger.ONE, ((ASN1Integer) sequence.getObjectAt(0)).getValue());
+    assertEquals(BigInteger.valueOf(0x80), ((ASN1Integer) sequence.getObjectAt(1)).getValue());
+
+    assertArrayEquals(bcDer(BigInteger.ZERO, BigInteger.ZERO),
+        EcdsaSignatureCodec.rawToDer(new byte[1]));
+  }
+
+  @Test
+  public void testMalformedDer() throws Exception {
+    byte[] valid = bcDer(BigInteger.valueOf(12345), BigInteger.valueOf(67890));
+    byte[] tooLarge = bcDer(BigInteger.ONE.shiftLeft(SIZE * 8), BigInteger.ONE);
+    byte[] negative = valid.clone();
+    negative[4] = (byte) 0x80;
+
+    byte[][] malformed = { null, new byte[0], Arrays.copyOf(valid, valid.length - 1),
+        Arrays.concatenate(valid, new byte[] { 0 }), new byte[] { 0x31, 0x06, 0x02, 0x01, 0x01,
+            0x02, 0x01, 0x01 }, new byte[] { 0x30, 0x06, 0x04, 0x01, 0x01, 0x02, 0x01, 0x01 },
+        new byte[] { 0x30, 0x06, 0x02, 0x00, 0x02, 0x02, 0x01, 0x01 }, tooLarge, negative };
+    for (byte[] der : malformed) {
+      try {
+        EcdsaSignatureCodec.derToRaw(der, SIZE);
+        fail("Accepted malformed DER " + (der == null ? null : java.util.Arrays.toString(der)));
+      } catch (PlatformRuntimeException err) {
+        // Expected
+      }
+    }
+  }
+
+  private static BigInteger randomValue(Random random) {
+    // Favour short values so leading zero handling is exercised often.
+    int bits = random.nextInt(4) == 0 ? random.nextInt(SIZE * 8 + 1) : SIZE * 8;
+    BigInteger value = new BigInteger(bits, random);
+    return random.nextInt(8) == 0 ? value.setBit(Math.max(0, bits - 1)) : value;
+  }
+
+  private static byte[] bcDer(BigInteger rvalue, BigInteger svalue) throws Exception {
+    return new DERSequence(new ASN1Integer[] { new ASN1Integer(rvalue), new ASN1Integer(svalue) })
+        .getEncoded(ASN1Encoding.DER);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.UtilKeyGeneration;
+import biz.neustar.tdi.platform.Utils;
+import biz.neustar.tdi.platform.exception.PlatformRuntimeException;
+import biz.neustar.tdi.platform.facet.keystore.KeyRef;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.Signature;
+
+/**
+ * Unit test cases for {@link FixedBaseSigningEngine}.
+ */
+public class FixedBaseSigningEngineTest {
+  private static KeyRef keyRef;
+
+  /**
+   * Sets up the key material.
+   */
+  @BeforeClass
+  public static void setup() {
+    Utils.addBouncyCastleProvider();
+    keyRef = new KeyRef();
+    keyRef.kid = "fixed";
+    keyRef.cordX = "ykbxmdBGk_G2LrHJ2R2YQTUX5eBOm4zSsJF8blpE_Bw";
+    keyRef.cordY = "IwwJLBglVpBEOELjnQ0XXWrt5WPs5RO4BP-2NXN3w2M";
+    keyRef.privateD = "TxEyAp7JrLA3xyw17Qw-O-L9zM_nurjgqJG5BvLTxjY";
+  }
+
+  @Test
+  public void testSignatureVerifiesWithJca() throws Exception {
+    FixedBaseSigningEngine engine = new FixedBaseSigningEngine();
+    engine.register(keyRef.kid, keyRef);
+
+    Signature ecdsa = Signature.getInstance(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+    for (int round = 0; round < 20; round++) {
+      byte[] input = Utils.toBytes("payload " + round);
+      byte[] raw = engine.sign(keyRef.kid, keyRef, ByteBuffer.wrap(input));
+      assertEquals(2 * Constants.KEYSIZE_BYTES, raw.length);
+
+      ecdsa.initVerify(UtilKeyGeneration.generateEcpublicKey(keyRef));
+      ecdsa.update(input);
+      assertTrue(ecdsa.verify(EcdsaSignatureCodec.rawToDer(raw)));
+    }
+  }
+
+  @Test
+  public void testDeterministicNonce() {
+    FixedBaseSigningEngine engine = new FixedBaseSigningEngine();
+    byte[] framed = Utils.toBytes("xxpayloadyy");
+    ByteBuffer input = ByteBuffer.wrap(framed, 2, framed.length - 4);
+
+    byte[] first = engine.sign(keyRef.kid, keyRef, input);
+    assertEquals(2, input.position());
+    byte[] second = engine.sign(keyRef.kid, keyRef,
+        ByteBuffer.wrap(Utils.toBytes("payload")));
+    assertArrayEquals(first, second);
+  }
+
+  @Test
+  public void testRegistration() {
+    FixedBaseSigningEngine engine = new FixedBaseSigningEngine();
+    assertFalse(engine.isRegistered(keyRef.kid));
+    engine.register(keyRef.kid, keyRef);
+    assertTrue(engine.isRegistered(keyRef.kid));
+
+    // A kid whose material changed is signed with the material passed in.
+    KeyRef other = new KeyRef();
+    other.privateD = "AQ";
+    byte[] input = Utils.toBytes("payload");
+    byte[] registered = engine.sign(keyRef.kid, keyRef, ByteBuffer.wrap(input));
+    byte[] replaced = engine.sign(keyRef.kid, other, ByteBuffer.wrap(input));
+    assertFalse(java.util.Arrays.equals(registered, replaced));
+
+    engine.invalidate(keyRef.kid);
+    engine.invalidate(null);
+    assertFalse(engine.isRegistered(keyRef.kid));
+  }
+
+  @Test(expected = PlatformRuntimeException.class)
+  public void testSignWithoutPrivateKey() {
+    KeyRef publicOnly = new KeyRef();
+    publicOnly.cordX = keyRef.cordX;
+    publicOnly.cordY = keyRef.cordY;
+    new FixedBaseSigningEngine().sign("public", publicOnly,
+        ByteBuffer.wrap(Utils.toBytes("payload")));
+  }
+
+  @Test
+  public void testSharedDomain() {
+    assertTrue(FixedBaseSigningEngine.getDomainParameters() == FixedBaseSigningEngine
+        .getDomainParameters());
+  }
+}
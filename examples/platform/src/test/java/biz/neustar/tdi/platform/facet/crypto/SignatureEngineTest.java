@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.platform.facet.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import biz.neustar.tdi.platform.Constants;
+import biz.neustar.tdi.platform.Utils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Signature;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit test cases for {@link SignatureEngine} class.
+ */
+public class SignatureEngineTest {
+
+  @BeforeClass
+  public static void setup() {
+    Utils.addBouncyCastleProvider();
+  }
+
+  @Test
+  public void testReusedWithinThread() throws Exception {
+    SignatureEngine engine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+
+    Signature signature = engine.get();
+    assertSame(signature, engine.get());
+    assertEquals(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA, engine.getAlgorithm());
+    assertEquals(BouncyCastleProvider.PROVIDER_NAME, engine.getProvider());
+    assertEquals(BouncyCastleProvider.PROVIDER_NAME, signature.getProvider().getName());
+  }
+
+  @Test
+  public void testNotSharedAcrossThreads() throws Exception {
+    SignatureEngine engine = new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA,
+        BouncyCastleProvider.PROVIDER_NAME);
+
+    Signature signature = engine.get();
+    Signature other = CompletableFuture.supplyAsync(() -> {
+      try {
+        return engine.get();
+      } catch (NoSuchAlgorithmException | NoSuchProviderException err) {
+        throw new IllegalStateException(err);
+      }
+    }).get();
+
+    assertNotSame(signature, other);
+  }
+
+  @Test(expected = NoSuchProviderException.class)
+  public void testUnknownProvider() throws Exception {
+    new SignatureEngine(Constants.SIGNATURE_ALG_SCHEME_SHA256withECDSA, "NoSuchProvider").get();
+  }
+}
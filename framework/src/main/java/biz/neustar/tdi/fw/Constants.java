@@ -27,4 +27,11 @@ public class Constants {
     public static final String NBF = "nbf";
     public static final String JTI = "jti";
   }
+
+  public static class FlowConfig {
+    public static final String KEY = "flows";
+    public static final String INLINE_COMPLETED = "inlineCompleted";
+    public static final String STATS_SAMPLE_RATE = "statsSampleRate";
+    public static final int DEFAULT_STATS_SAMPLE_RATE = 100;
+  }
 }
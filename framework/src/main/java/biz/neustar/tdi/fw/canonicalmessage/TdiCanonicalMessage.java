@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 /**
  * Default implementation of {@link TdiCanonicalMessageShape} format of the
@@ -41,6 +42,7 @@ public class TdiCanonicalMessage implements TdiCanonicalMessageShape {
   String receivedMessage;
   List<Object> heldSignatures;
   List<Object> signaturesToVerify;
+  List<BiConsumer<Object, Throwable>> flowActions;
 
   /**
    * Constructor.
@@ -91,7 +93,7 @@ public class TdiCanonicalMessage implements TdiCanonicalMessageShape {
         break;
 
       case TdiClaimKeys.PAYLOAD: {
-        this.claims.payload = value;
+        this.claims.setPayload(value);
       }
         break;
 
@@ -268,4 +270,35 @@ public class TdiCanonicalMessage implements TdiCanonicalMessageShape {
   public void addSignaturesToVerify(List<Object> signatures) {
     this.signaturesToVerify.addAll(signatures);
   }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape#
+   * whenFlowComplete(java.util.function.BiConsumer)
+   */
+  @Override
+  public void whenFlowComplete(BiConsumer<Object, Throwable> action) {
+    if (this.flowActions == null) {
+      this.flowActions = new ArrayList<>(1);
+    }
+    this.flowActions.add(action);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape#
+   * completeFlow(java.lang.Object, java.lang.Throwable)
+   */
+  @Override
+  public void completeFlow(Object result, Throwable error) {
+    List<BiConsumer<Object, Throwable>> actions = this.flowActions;
+    this.flowActions = null;
+    if (actions != null) {
+      for (BiConsumer<Object, Throwable> action : actions) {
+        action.accept(result, error);
+      }
+    }
+  }
 }
@@ -20,6 +20,7 @@ import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Base format of the message that would be transferred internally in the
@@ -238,4 +239,26 @@ public interface TdiCanonicalMessageShape {
    *          : {@link String}
    */
   void setRawPayload(String rawPayload);
+
+  /**
+   * Registers an action to run once the api flow that created the message
+   * completes, whether it succeeds or fails. A step uses it to undo what it
+   * did if a later step fails.
+   *
+   * @param action
+   *          : called with the result of the flow, or with its failure.
+   */
+  public void whenFlowComplete(BiConsumer<Object, Throwable> action);
+
+  /**
+   * Runs the actions registered with
+   * {@link #whenFlowComplete(BiConsumer)}, once. Called by the api flow when
+   * it completes.
+   *
+   * @param result
+   *          : result of the flow, null if it failed.
+   * @param error
+   *          : failure of the flow, null if it succeeded.
+   */
+  public void completeFlow(Object result, Throwable error);
 }
@@ -62,13 +62,38 @@ public class TdiClaims {
 
   /**
    * Claims payload map.
+   *
+   * @deprecated Use {@link #getPayload()} and {@link #setPayload(Object)}.
+   *             Claims unpacked with lazy payload decoding enabled leave this
+   *             field null until {@link #getPayload()} is called.
    */
+  @Deprecated
   @JsonInclude(Include.NON_NULL)
   @JsonProperty(TdiClaimKeys.PAYLOAD)
   public Object payload;
 
   private Map<String, Object> claimsMap = new LinkedHashMap<>();
 
+  /**
+   * Returns the claims payload. Subclasses may decode it on first access, so
+   * readers should use this method rather than the {@link #payload} field.
+   *
+   * @return Payload object.
+   */
+  public Object getPayload() {
+    return payload;
+  }
+
+  /**
+   * Sets the claims payload.
+   *
+   * @param payload
+   *          : Payload object.
+   */
+  public void setPayload(Object payload) {
+    this.payload = payload;
+  }
+
   @JsonAnySetter
   void addToClaimsMap(String key, Object value) {
     claimsMap.put(key, value);
@@ -104,11 +129,12 @@ public class TdiClaims {
       return false;
     }
 
-    if ((this.payload == null) ? (other.payload != null) : !this.payload.equals(other.payload)) {
+    Object payload = this.getPayload();
+    if ((payload == null) ? (other.getPayload() != null) : !payload.equals(other.getPayload())) {
       return false;
     }
 
-    if (!this.claimsMap.equals(other.claimsMap)) {
+    if (!this.getClaimsMap().equals(other.getClaimsMap())) {
       return false;
     }
 
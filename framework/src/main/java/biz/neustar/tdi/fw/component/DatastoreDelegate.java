@@ -20,6 +20,7 @@ import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -93,4 +94,56 @@ public class DatastoreDelegate {
   public CompletableFuture<Void> drop(String key) {
     return this.platform.getDataStore().drop(this.storeName, key);
   }
+
+  /**
+   * Method to delegate call to {@link TdiPlatformShape}'s {@link TdiPlatformDataShape} to tell
+   * whether it keeps a journal per store.
+   * 
+   * @return true if the journal methods are supported.
+   */
+  public boolean supportsJournal() {
+    return this.platform.getDataStore().supportsJournal();
+  }
+
+  /**
+   * Method to delegate call to {@link TdiPlatformShape}'s {@link TdiPlatformDataShape} to append
+   * records to the journal of this store.
+   * 
+   * @param records
+   *          : Records to append.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<Void> appendJournal(List<String> records) {
+    return this.platform.getDataStore().appendJournal(this.storeName, records);
+  }
+
+  /**
+   * Method to delegate call to {@link TdiPlatformShape}'s {@link TdiPlatformDataShape} to read
+   * the journal of this store.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link List} of records. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<List<String>> readJournal() {
+    return this.platform.getDataStore().readJournal(this.storeName);
+  }
+
+  /**
+   * Method to delegate call to {@link TdiPlatformShape}'s {@link TdiPlatformDataShape} to fold
+   * the journal of this store into the store.
+   * 
+   * @param values
+   *          : Keys and values to be set.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<Void> compactJournal(Map<String, Object> values) {
+    return this.platform.getDataStore().compactJournal(this.storeName, values);
+  }
 }
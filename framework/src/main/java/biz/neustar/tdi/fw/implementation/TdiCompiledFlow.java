@@ -0,0 +1,429 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.fw.implementation;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats.Counters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * An api flow whose steps were resolved once, when it was built by
+ * {@link TdiImplementationShape#buildApiFlow(TdiFlowArguments, TdiFlowArguments)}.
+ *
+ * <p>
+ * For every step of the original flow, the other flow either overrides it,
+ * appends to it, or leaves it alone. The resulting plan is held in an array
+ * that {@link #apply(Object)} walks directly, so running the flow does no map
+ * or list lookup. Changes made to the {@link TdiFlowArguments} after the flow
+ * was compiled do not affect it.
+ *
+ * <p>
+ * Most steps return an already completed future. Unless disabled, such
+ * steps run back to back on the calling thread, without a composition stage
+ * per step. The flow falls back to {@link CompletableFuture#thenCompose} from
+ * the first step whose future is not yet complete or failed. Results and
+ * failures are reported exactly as with composition: a step throwing or
+ * failing completes the flow exceptionally with a
+ * {@link CompletionException}.
+ *
+ * <p>
+ * The first {@link TdiCanonicalMessageShape} a step returns, other than the
+ * input of the flow, belongs to the flow. Once the flow completes, with its
+ * result or its failure, the actions registered on that message with
+ * {@link TdiCanonicalMessageShape#whenFlowComplete} run before the future
+ * returned by {@link #apply(Object)} completes.
+ *
+ * <p>
+ * When compiled with a sample rate, the flow keeps {@link TdiFlowStats} for
+ * itself and each of its steps, see {@link #getStats()}.
+ *
+ * @param <T>
+ *          : input of the flow
+ * @param <R>
+ *          : output of the flow
+ */
+public final class TdiCompiledFlow<T, R> implements Function<T, CompletableFuture<R>> {
+
+  /**
+   * Where a step of the compiled plan comes from.
+   */
+  public enum Source {
+    /** Step of the original flow. */
+    ORIGINAL,
+    /** Step of the other flow replacing the original step of the same name. */
+    OVERRIDE,
+    /** Step of the other flow running after the original step of the same name. */
+    APPENDED
+  }
+
+  private static final Function<Object, Object> RELAY = (value) -> value;
+
+  private final Step[] steps;
+  private final boolean inlineCompleted;
+  private final TdiFlowStats stats;
+
+  private TdiCompiledFlow(Step[] steps, boolean inlineCompleted, int statsSampleRate) {
+    this.steps = steps;
+    this.inlineCompleted = inlineCompleted;
+    this.stats = statsSampleRate > 0 ? new TdiFlowStats(statsSampleRate, Arrays.asList(steps))
+        : null;
+  }
+
+  /**
+   * Resolves the steps of a flow. The flow keeps no statistics.
+   *
+   * @param <T>
+   *          : input of the flow
+   * @param <R>
+   *          : output of the flow
+   * @param originalFlow
+   *          : the predefined api flow
+   * @param otherFlow
+   *          : the overriding and additional steps. May be null.
+   *
+   * @return the compiled flow
+   */
+  public static <T, R> TdiCompiledFlow<T, R> compile(TdiFlowArguments originalFlow,
+      TdiFlowArguments otherFlow) {
+    return compile(originalFlow, otherFlow, true);
+  }
+
+  /**
+   * Resolves the steps of a flow. The flow keeps no statistics.
+   *
+   * @param <T>
+   *          : input of the flow
+   * @param <R>
+   *          : output of the flow
+   * @param originalFlow
+   *          : the predefined api flow
+   * @param otherFlow
+   *          : the overriding and additional steps. May be null.
+   * @param inlineCompleted
+   *          : whether steps returning a completed future run inline, see
+   *          {@link TdiCompiledFlow}.
+   *
+   * @return the compiled flow
+   */
+  public static <T, R> TdiCompiledFlow<T, R> compile(TdiFlowArguments originalFlow,
+      TdiFlowArguments otherFlow, boolean inlineCompleted) {
+    return compile(originalFlow, otherFlow, inlineCompleted, 0);
+  }
+
+  /**
+   * Resolves the steps of a flow.
+   *
+   * @param <T>
+   *          : input of the flow
+   * @param <R>
+   *          : output of the flow
+   * @param originalFlow
+   *          : the predefined api flow
+   * @param otherFlow
+   *          : the overriding and additional steps. May be null.
+   * @param inlineCompleted
+   *          : whether steps returning a completed future run inline, see
+   *          {@link TdiCompiledFlow}.
+   * @param statsSampleRate
+   *          : one in how many invocations is timed, see {@link TdiFlowStats}.
+   *          0 or less keeps no statistics at all.
+   *
+   * @return the compiled flow
+   */
+  public static <T, R> TdiCompiledFlow<T, R> compile(TdiFlowArguments originalFlow,
+      TdiFlowArguments otherFlow, boolean inlineCompleted, int statsSampleRate) {
+    List<Step> plan = new ArrayList<>();
+    for (Entry<String, Function<Object, CompletableFuture<? extends Object>>> entry :
+        originalFlow.getFlowMap().entrySet()) {
+
+      String name = entry.getKey();
+      Function<Object, CompletableFuture<? extends Object>> other = otherFlow != null
+          ? otherFlow.getFlowMap().get(name) : null;
+
+      if (other == null) {
+        plan.add(new Step(name, Source.ORIGINAL, entry.getValue()));
+      } else if (otherFlow.getOverrideSteps().contains(name)) {
+        plan.add(new Step(name, Source.OVERRIDE, other));
+      } else {
+        plan.add(new Step(name, Source.ORIGINAL, entry.getValue()));
+        plan.add(new Step(name, Source.APPENDED, other));
+      }
+    }
+    return new TdiCompiledFlow<>(plan.toArray(new Step[plan.size()]), inlineCompleted,
+        statsSampleRate);
+  }
+
+  /**
+   * Runs the compiled steps on the given data.
+   *
+   * @param data
+   *          : the data to be passed to the first step
+   *
+   * @return {@link CompletableFuture} completed with the result of the last
+   *         step, or exceptionally with the failure of the first failing step.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public CompletableFuture<R> apply(T data) {
+    if (stats == null) {
+      return (CompletableFuture<R>) run(data, 0L);
+    }
+
+    long start = stats.sample() ? System.nanoTime() : 0L;
+    stats.getFlow().enter();
+    return (CompletableFuture<R>) stats.getFlow().exitOn(run(data, start), start);
+  }
+
+  /**
+   * Runs the steps. A start of 0 means the invocation is not timed.
+   */
+  private CompletableFuture<Object> run(Object data, long start) {
+    if (!inlineCompleted) {
+      return compose(CompletableFuture.completedFuture(data), 0, start != 0L,
+          new Run(data, null));
+    }
+
+    Object value = data;
+    TdiCanonicalMessageShape message = null;
+    // Steps run back to back, so the end of a step is the start of the next.
+    long clock = start;
+    for (int index = 0; index < steps.length; index++) {
+      Counters counters = stats != null ? stats.step(index) : null;
+      CompletableFuture<? extends Object> next;
+      try {
+        if (counters != null) {
+          counters.enter();
+        }
+        next = steps[index].function.apply(value);
+        if (!next.isDone() || next.isCompletedExceptionally()) {
+          if (counters != null) {
+            next = counters.exitOn(next, clock);
+          }
+          // Relayed the way thenCompose would, so a failure is wrapped alike.
+          return compose(next.thenApply(RELAY), index + 1, start != 0L,
+              new Run(data, message));
+        }
+      } catch (Throwable err) {
+        if (counters != null) {
+          counters.exit(false, clock, clock != 0L ? System.nanoTime() : 0L);
+        }
+        return new Run(data, message).fail(err);
+      }
+      if (counters != null) {
+        long end = clock != 0L ? System.nanoTime() : 0L;
+        counters.exit(true, clock, end);
+        clock = end;
+      }
+      value = next.join();
+      if (message == null && value != data && value instanceof TdiCanonicalMessageShape) {
+        message = (TdiCanonicalMessageShape) value;
+      }
+    }
+    if (message != null) {
+      try {
+        message.completeFlow(value, null);
+      } catch (Throwable err) {
+        return new Run(data, null).fail(err);
+      }
+    }
+    return CompletableFuture.completedFuture(value);
+  }
+
+  private CompletableFuture<Object> compose(CompletableFuture<Object> current, int from,
+      boolean timed, Run run) {
+    for (int index = from; index < steps.length; index++) {
+      int step = index;
+      if (stats == null) {
+        current = current.thenCompose((value) -> steps[step].stage.apply(run.see(value)));
+      } else {
+        current = current.thenCompose((value) -> invoke(step, run.see(value), timed));
+      }
+    }
+    return current.whenComplete(run::complete);
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<Object> invoke(int index, Object value, boolean timed) {
+    Counters counters = stats.step(index);
+    long start = timed ? System.nanoTime() : 0L;
+    counters.enter();
+    CompletableFuture<Object> next;
+    try {
+      next = (CompletableFuture<Object>) steps[index].function.apply(value);
+    } catch (Throwable err) {
+      counters.exit(false, start, timed ? System.nanoTime() : 0L);
+      throw err;
+    }
+    if (next == null) {
+      counters.exit(false, start, timed ? System.nanoTime() : 0L);
+      throw new NullPointerException("Step " + steps[index] + " returned null");
+    }
+    return counters.exitOn(next, start);
+  }
+
+  /**
+   * Tells whether steps returning a completed future run inline.
+   *
+   * @return true if completed steps run inline.
+   */
+  public boolean isInlineCompleted() {
+    return inlineCompleted;
+  }
+
+  /**
+   * Returns the statistics of the flow.
+   *
+   * @return {@link TdiFlowStats}, or null if the flow was compiled without.
+   */
+  public TdiFlowStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Returns the statistics of a flow, if it is a compiled flow keeping any.
+   *
+   * @param flow
+   *          : flow as returned by
+   *          {@link TdiImplementationShape#buildApiFlow(TdiFlowArguments, TdiFlowArguments)}.
+   *
+   * @return {@link TdiFlowStats}, or null.
+   */
+  public static TdiFlowStats statsOf(Object flow) {
+    return flow instanceof TdiCompiledFlow ? ((TdiCompiledFlow<?, ?>) flow).getStats() : null;
+  }
+
+  /**
+   * Returns the compiled plan, in execution order.
+   *
+   * @return unmodifiable list of {@link Step}.
+   */
+  public List<Step> getSteps() {
+    return Collections.unmodifiableList(Arrays.asList(steps));
+  }
+
+  /**
+   * One invocation of the flow, tracking the message it brought in.
+   */
+  private static final class Run {
+    private final Object input;
+    private TdiCanonicalMessageShape message;
+
+    Run(Object input, TdiCanonicalMessageShape message) {
+      this.input = input;
+      this.message = message;
+    }
+
+    /**
+     * Takes note of the value passed between two steps.
+     */
+    Object see(Object value) {
+      if (message == null && value != input && value instanceof TdiCanonicalMessageShape) {
+        message = (TdiCanonicalMessageShape) value;
+      }
+      return value;
+    }
+
+    /**
+     * Runs the flow actions of the message once the flow completed.
+     */
+    void complete(Object result, Throwable error) {
+      if (error == null) {
+        see(result);
+      }
+      if (message != null) {
+        message.completeFlow(result, error);
+      }
+    }
+
+    /**
+     * Fails the flow with a failure thrown by a step.
+     */
+    CompletableFuture<Object> fail(Throwable err) {
+      CompletionException error = err instanceof CompletionException
+          ? (CompletionException) err : new CompletionException(err);
+      CompletableFuture<Object> failed = new CompletableFuture<>();
+      failed.completeExceptionally(error);
+      try {
+        complete(null, error);
+      } catch (Throwable actionError) {
+        error.addSuppressed(actionError);
+      }
+      return failed;
+    }
+  }
+
+  /**
+   * One resolved step of a compiled flow.
+   */
+  public static final class Step {
+    private final String name;
+    private final Source source;
+    private final Function<Object, CompletableFuture<? extends Object>> function;
+    private final Function<Object, CompletionStage<Object>> stage;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Step(String name, Source source,
+        Function<Object, CompletableFuture<? extends Object>> function) {
+      this.name = name;
+      this.source = source;
+      this.function = function;
+      // Same function, typed so that it can be handed to thenCompose as is.
+      this.stage = (Function) function;
+    }
+
+    /**
+     * Returns the name of the step in the original flow.
+     *
+     * @return step name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns which flow the step comes from.
+     *
+     * @return {@link Source} of the step.
+     */
+    public Source getSource() {
+      return source;
+    }
+
+    /**
+     * Returns the method reference run by the step.
+     *
+     * @return step function.
+     */
+    public Function<Object, CompletableFuture<? extends Object>> getFunction() {
+      return function;
+    }
+
+    @Override
+    public String toString() {
+      return name + "(" + source + ")";
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.fw.implementation;
+
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow.Source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running statistics of a {@link TdiCompiledFlow}, for the whole flow and for
+ * each of its steps.
+ *
+ * <p>
+ * Successes, failures and the in-flight gauge count every invocation. Only one
+ * in {@link #getSampleRate()} invocations is timed, chosen at random, which
+ * bounds the cost of reading the clock on hot flows. The duration of a step
+ * runs from its call to the completion of the future it returned, so it
+ * includes any asynchronous work of the step.
+ */
+public final class TdiFlowStats {
+  private final int sampleRate;
+  private final Counters flow;
+  private final Counters[] steps;
+
+  TdiFlowStats(int sampleRate, List<TdiCompiledFlow.Step> plan) {
+    this.sampleRate = sampleRate;
+    this.flow = new Counters(null, null);
+    this.steps = new Counters[plan.size()];
+    for (int index = 0; index < steps.length; index++) {
+      steps[index] = new Counters(plan.get(index).getName(), plan.get(index).getSource());
+    }
+  }
+
+  /**
+   * Returns how many invocations there are per timed invocation.
+   *
+   * @return sample rate, 1 if every invocation is timed.
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Returns the statistics of whole flow invocations.
+   *
+   * @return {@link Counters} of the flow. Name and source are null.
+   */
+  public Counters getFlow() {
+    return flow;
+  }
+
+  /**
+   * Returns the statistics of every step, in execution order.
+   *
+   * @return unmodifiable list of {@link Counters}.
+   */
+  public List<Counters> getSteps() {
+    return Collections.unmodifiableList(Arrays.asList(steps));
+  }
+
+  /**
+   * Clears all counters except the in-flight gauges.
+   */
+  public void reset() {
+    flow.reset();
+    for (Counters step : steps) {
+      step.reset();
+    }
+  }
+
+  boolean sample() {
+    return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+  }
+
+  Counters step(int index) {
+    return steps[index];
+  }
+
+  /**
+   * Counters of a flow or of one of its steps.
+   */
+  public static final class Counters {
+    private final String name;
+    private final Source source;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final TdiLatencyHistogram latency = new TdiLatencyHistogram();
+
+    Counters(String name, Source source) {
+      this.name = name;
+      this.source = source;
+    }
+
+    /**
+     * Returns the name of the step.
+     *
+     * @return step name, null for the whole flow.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns which flow the step comes from.
+     *
+     * @return {@link Source} of the step, null for the whole flow.
+     */
+    public Source getSource() {
+      return source;
+    }
+
+    /**
+     * Returns the number of invocations that completed normally.
+     *
+     * @return success count.
+     */
+    public long getSuccesses() {
+      return successes.sum();
+    }
+
+    /**
+     * Returns the number of invocations that threw or completed exceptionally.
+     *
+     * @return failure count.
+     */
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    /**
+     * Returns the number of invocations started but not yet completed.
+     *
+     * @return in-flight gauge.
+     */
+    public long getInFlight() {
+      return inFlight.sum();
+    }
+
+    /**
+     * Returns the durations of the timed invocations.
+     *
+     * @return {@link TdiLatencyHistogram} in nanoseconds.
+     */
+    public TdiLatencyHistogram getLatency() {
+      return latency;
+    }
+
+    @Override
+    public String toString() {
+      return (name == null ? "flow" : name + "(" + source + ")") + " ok=" + getSuccesses()
+          + " failed=" + getFailures() + " inFlight=" + getInFlight() + " p50="
+          + latency.getValueAtPercentile(50) + "ns p99=" + latency.getValueAtPercentile(99)
+          + "ns max=" + latency.getMax() + "ns";
+    }
+
+    void enter() {
+      inFlight.increment();
+    }
+
+    /**
+     * Counts one completed invocation. A start of 0 means it was not timed.
+     */
+    void exit(boolean success, long start, long end) {
+      inFlight.decrement();
+      if (success) {
+        successes.increment();
+      } else {
+        failures.increment();
+      }
+      if (start != 0L) {
+        latency.record(end - start);
+      }
+    }
+
+    /**
+     * Exits when the given future completes, right away if it already has.
+     * Returns the future to continue with, which completes only once the
+     * counters were updated.
+     */
+    <V> CompletableFuture<V> exitOn(CompletableFuture<V> future, long start) {
+      if (future.isDone()) {
+        exit(!future.isCompletedExceptionally(), start, start != 0L ? System.nanoTime() : 0L);
+        return future;
+      }
+      return future.whenComplete((value, err) ->
+          exit(err == null, start, start != 0L ? System.nanoTime() : 0L));
+    }
+
+    private void reset() {
+      successes.reset();
+      failures.reset();
+      latency.reset();
+    }
+  }
+}
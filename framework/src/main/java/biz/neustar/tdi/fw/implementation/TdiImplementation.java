@@ -16,6 +16,7 @@
 
 package biz.neustar.tdi.fw.implementation;
 
+import biz.neustar.tdi.fw.Constants.FlowConfig;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.classfactory.TdiClassFactory;
@@ -255,69 +256,40 @@ public class TdiImplementation implements TdiImplementationShape {
     });
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   * The steps are resolved once, here, and the returned function is a
+   * {@link TdiCompiledFlow} exposing the resolved plan. Steps returning a
+   * completed future run inline unless {@code inlineCompleted} is false under
+   * the top-level {@code flows} configuration key. The flow keeps
+   * {@link TdiFlowStats}, timing one in {@code statsSampleRate} invocations
+   * (one in 100 by default). A rate of 1 times every invocation and a rate of 0
+   * turns statistics off.
+   */
   @Override
   public <T, R> Function<T, CompletableFuture<R>> buildApiFlow(TdiFlowArguments originalFlow,
       TdiFlowArguments otherFlow) {
+    return TdiCompiledFlow.compile(originalFlow, otherFlow, isInlineCompleted(),
+        getStatsSampleRate());
+  }
 
-    Function<T, CompletableFuture<R>> apiFunc = new Function<T, CompletableFuture<R>>() {
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public CompletableFuture<R> apply(T data) {
-        return (CompletableFuture<R>) buildFlows(data, originalFlow, otherFlow);
-      }
-
-      /**
-       * Build the api flows.
-       *
-       * @param data
-       *          : the data to be passed to built api flows
-       * @param originalFlow
-       *          : the predefined api flows
-       * @param otherFlow
-       *          : the overriding and additional api flows
-       *
-       * @return the built api flow as a {@link CompletableFuture}
-       */
-      private CompletableFuture<? extends Object> buildFlows(T data, TdiFlowArguments originalFlow,
-          TdiFlowArguments otherFlow) {
-
-        // handle the scenario if otherFlow is null
-        TdiFlowArguments newFlow;
-        if (otherFlow == null) {
-          newFlow = new TdiFlowArguments();
-        } else {
-          newFlow = otherFlow;
-        }
-
-        CompletableFuture<? extends Object> currentFuture = CompletableFuture.completedFuture(data);
-
-        for (Entry<String, Function<Object, CompletableFuture<? extends Object>>> entry :
-            originalFlow.getFlowMap().entrySet()) {
-
-          if (newFlow.getFlowMap().containsKey(entry.getKey())
-              && newFlow.getOverrideSteps().contains(entry.getKey())) {
-
-            currentFuture = currentFuture.thenCompose((msg) -> {
-              return newFlow.getFlowMap().get(entry.getKey()).apply(msg);
-            });
+  private boolean isInlineCompleted() {
+    if (config != null && config.get(FlowConfig.KEY) instanceof Map) {
+      Object inline = ((Map<?, ?>) config.get(FlowConfig.KEY)).get(FlowConfig.INLINE_COMPLETED);
+      return !Boolean.FALSE.equals(inline);
+    }
+    return true;
+  }
 
-          } else if (newFlow.getFlowMap().containsKey(entry.getKey())
-              && (!newFlow.getOverrideSteps().contains(entry.getKey()))) {
-            currentFuture = currentFuture.thenCompose((msg) -> {
-              return entry.getValue().apply(msg);
-            }).thenCompose((msg) -> {
-              return newFlow.getFlowMap().get(entry.getKey()).apply(msg);
-            });
-          } else {
-            currentFuture = currentFuture.thenCompose((msg) -> {
-              return entry.getValue().apply(msg);
-            });
-          }
-        }
-        return currentFuture;
+  private int getStatsSampleRate() {
+    if (config != null && config.get(FlowConfig.KEY) instanceof Map) {
+      Object rate = ((Map<?, ?>) config.get(FlowConfig.KEY)).get(FlowConfig.STATS_SAMPLE_RATE);
+      if (rate instanceof Number) {
+        return ((Number) rate).intValue();
       }
-    };
-    return apiFunc;
+    }
+    return FlowConfig.DEFAULT_STATS_SAMPLE_RATE;
   }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.fw.implementation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ *
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a recorded value is known to within
+ * 1/{@value #SUB_BUCKETS} of itself. Values above {@link #MAX_TRACKABLE} are
+ * counted in the last bucket. Recording is a few atomic increments and never
+ * allocates. Reads taken while values are being recorded are not a consistent
+ * snapshot, but every count they see is exact.
+ */
+public final class TdiLatencyHistogram {
+  /** Number of buckets each power of two is split into. */
+  public static final int SUB_BUCKETS = 16;
+
+  /** Largest value told apart from larger ones, about 4.9 hours. */
+  public static final long MAX_TRACKABLE = (1L << 44) - 1;
+
+  private static final int SUB_BITS = 4;
+  private static final int MAX_EXPONENT = 43;
+
+  private final AtomicLongArray buckets =
+      new AtomicLongArray(SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records one duration.
+   *
+   * @param nanos
+   *          : duration in nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    long value = nanos < 0 ? 0 : nanos;
+    buckets.incrementAndGet(bucketOf(Math.min(value, MAX_TRACKABLE)));
+    total.add(value);
+
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded durations.
+   *
+   * @return count.
+   */
+  public long getCount() {
+    long count = 0;
+    for (int index = 0; index < buckets.length(); index++) {
+      count += buckets.get(index);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the largest recorded duration.
+   *
+   * @return maximum in nanoseconds, 0 if nothing was recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded durations.
+   *
+   * @return mean in nanoseconds, 0 if nothing was recorded.
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) total.sum() / count;
+  }
+
+  /**
+   * Returns the duration below or at which the given percentage of the
+   * recorded durations fall.
+   *
+   * @param percentile
+   *          : percentage, between 0 and 100.
+   *
+   * @return upper bound of the bucket holding the percentile, in nanoseconds,
+   *         never more than {@link #getMax()}. 0 if nothing was recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long[] counts = new long[buckets.length()];
+    long count = 0;
+    for (int index = 0; index < counts.length; index++) {
+      counts[index] = buckets.get(index);
+      count += counts[index];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    double bounded = Math.max(0, Math.min(100, percentile));
+    long rank = Math.max(1, (long) Math.ceil(bounded / 100 * count));
+    long seen = 0;
+    for (int index = 0; index < counts.length; index++) {
+      seen += counts[index];
+      if (seen >= rank) {
+        return Math.min(highestInBucket(index), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Clears all recorded durations.
+   */
+  public void reset() {
+    for (int index = 0; index < buckets.length(); index++) {
+      buckets.set(index, 0);
+    }
+    total.reset();
+    max.set(0);
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+  }
+
+  static long highestInBucket(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+    long sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    long lowest = (1L << exponent) | (sub << (exponent - SUB_BITS));
+    return lowest + (1L << (exponent - SUB_BITS)) - 1;
+  }
+}
@@ -100,4 +100,17 @@ public interface TdiPlatformShape extends TdiPlatformShapeFactory {
    *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
    */
   public CompletableFuture<Void> init();
+
+  /**
+   * Method to release the resources held by the platform, such as the threads
+   * running facet work. The platform must not be used afterwards. The default
+   * implementation holds no resources and completes immediately.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<Void> shutdown() {
+    return CompletableFuture.completedFuture(null);
+  }
 }
@@ -19,7 +19,12 @@ package biz.neustar.tdi.fw.platform.facet.crypto;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 import biz.neustar.tdi.fw.platform.facet.TdiPlatformFacetShape;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Platform facet: Abstracted Crypto.
@@ -58,6 +63,121 @@ public interface TdiPlatformCryptoShape extends TdiPlatformFacetShape {
   public CompletableFuture<Boolean> verify(TdiKeyStructureShape key, String payload,
       String signature);
 
+  /**
+   * Method to sign the bytes of a signing input with the provided
+   * {@link TdiKeyStructureShape} key. The bytes between the position and the
+   * limit of the buffer are signed; the buffer itself is left untouched and
+   * must not be modified until the returned future completes.
+   * 
+   * <p>
+   * The default implementation decodes the input as UTF-8 and delegates to
+   * {@link #sign(TdiKeyStructureShape, String)}. Platforms able to sign bytes
+   * directly should override it.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} key to be used for signing.
+   * @param signingInput
+   *          : Bytes to be signed.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Computed signature of the sign action <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<String> sign(TdiKeyStructureShape key,
+      ByteBuffer signingInput) {
+    String payload = signingInput == null ? null
+        : StandardCharsets.UTF_8.decode(signingInput.duplicate()).toString();
+    return sign(key, payload);
+  }
+
+  /**
+   * Method to verify the bytes of a signing input against a signature using
+   * {@link TdiKeyStructureShape} key. The bytes between the position and the
+   * limit of the buffer are verified; the buffer itself is left untouched and
+   * must not be modified until the returned future completes.
+   * 
+   * <p>
+   * The default implementation decodes both arguments as UTF-8 and delegates
+   * to {@link #verify(TdiKeyStructureShape, String, String)}. Platforms able to
+   * verify bytes directly should override it.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} key to be used for verifying.
+   * @param signingInput
+   *          : Bytes to be verified.
+   * @param signature
+   *          : Signature to be verified, in the encoding returned by
+   *          {@link #sign(TdiKeyStructureShape, String)}.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link Boolean} true if verified. false otherwise. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<Boolean> verify(TdiKeyStructureShape key,
+      ByteBuffer signingInput, byte[] signature) {
+    String payload = signingInput == null ? null
+        : StandardCharsets.UTF_8.decode(signingInput.duplicate()).toString();
+    return verify(key, payload,
+        signature == null ? null : new String(signature, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Method to verify a batch of signatures in one call. Every request gets its
+   * own {@link VerifyResult}, in the order of the requests; a request that
+   * fails is reported through {@link VerifyResult#getError()} and does not
+   * fail the batch.
+   * 
+   * <p>
+   * The default implementation submits every request to
+   * {@link #verify(TdiKeyStructureShape, String, String)}, or to
+   * {@link #verify(TdiKeyStructureShape, ByteBuffer, byte[])} for a request on
+   * bytes. Platforms able to
+   * spread the work over several cores should override it.
+   * 
+   * @param requests
+   *          : List of {@link VerifyRequest} to be verified.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: List of {@link VerifyResult}, one
+   *         per request. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<List<VerifyResult>> verifyBatch(
+      List<VerifyRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return CompletableFuture.completedFuture(new ArrayList<>());
+    }
+
+    List<CompletableFuture<VerifyResult>> queue = new ArrayList<>(requests.size());
+    for (VerifyRequest request : requests) {
+      CompletableFuture<Boolean> future;
+      try {
+        future = request.isBinary()
+            ? verify(request.getKey(), request.getSigningInput(), request.getSignatureBytes())
+            : verify(request.getKey(), request.getPayload(), request.getSignature());
+      } catch (Exception err) {
+        future = new CompletableFuture<>();
+        future.completeExceptionally(err);
+      }
+      queue.add(future.handle((verified, err) -> {
+        if (err != null) {
+          return VerifyResult.failed(request,
+              err instanceof CompletionException && err.getCause() != null ? err.getCause()
+                  : err);
+        }
+        return VerifyResult.of(request, Boolean.TRUE.equals(verified));
+      }));
+    }
+
+    return CompletableFuture.allOf(queue.toArray(new CompletableFuture<?>[0])).thenApply((arg) -> {
+      List<VerifyResult> results = new ArrayList<>(queue.size());
+      for (CompletableFuture<VerifyResult> future : queue) {
+        results.add(future.join());
+      }
+      return results;
+    });
+  }
+
   /**
    * Method to encrypt
    * 
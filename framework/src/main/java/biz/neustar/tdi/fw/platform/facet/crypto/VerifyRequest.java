@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.fw.platform.facet.crypto;
+
+import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single signature check submitted to
+ * {@link TdiPlatformCryptoShape#verifyBatch(java.util.List)}.
+ *
+ * <p>
+ * A request holds either a String payload and signature, or the bytes of the
+ * signing input and signature. The other form is derived on demand.
+ */
+public class VerifyRequest {
+  private final TdiKeyStructureShape key;
+  private final String payload;
+  private final String signature;
+  private final ByteBuffer signingInput;
+  private final byte[] signatureBytes;
+
+  /**
+   * Constructor.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} key to be used for verifying.
+   * @param payload
+   *          : Payload to be verified.
+   * @param signature
+   *          : Signature to be verified.
+   */
+  public VerifyRequest(TdiKeyStructureShape key, String payload, String signature) {
+    this.key = key;
+    this.payload = payload;
+    this.signature = signature;
+    this.signingInput = null;
+    this.signatureBytes = null;
+  }
+
+  /**
+   * Constructor for a request on bytes. The buffer must not be modified until
+   * the batch completes.
+   * 
+   * @param key
+   *          : {@link TdiKeyStructureShape} key to be used for verifying.
+   * @param signingInput
+   *          : Bytes to be verified, between position and limit.
+   * @param signature
+   *          : Signature to be verified, as ASCII bytes.
+   */
+  public VerifyRequest(TdiKeyStructureShape key, ByteBuffer signingInput, byte[] signature) {
+    this.key = key;
+    this.payload = null;
+    this.signature = null;
+    this.signingInput = signingInput;
+    this.signatureBytes = signature;
+  }
+
+  public TdiKeyStructureShape getKey() {
+    return key;
+  }
+
+  /**
+   * Tells whether the request was built on bytes.
+   * 
+   * @return true if built with
+   *         {@link #VerifyRequest(TdiKeyStructureShape, ByteBuffer, byte[])}.
+   */
+  public boolean isBinary() {
+    return signingInput != null;
+  }
+
+  public String getPayload() {
+    if (signingInput != null) {
+      return StandardCharsets.UTF_8.decode(signingInput.duplicate()).toString();
+    }
+    return payload;
+  }
+
+  public String getSignature() {
+    if (signatureBytes != null) {
+      return new String(signatureBytes, StandardCharsets.UTF_8);
+    }
+    return signature;
+  }
+
+  /**
+   * Returns the signing input as bytes.
+   * 
+   * @return {@link ByteBuffer} of its own, or null if there is no payload.
+   */
+  public ByteBuffer getSigningInput() {
+    if (signingInput != null) {
+      return signingInput.duplicate();
+    }
+    return payload == null ? null : ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the signature as bytes.
+   * 
+   * @return signature bytes, or null if there is no signature.
+   */
+  public byte[] getSignatureBytes() {
+    if (signatureBytes != null || signature == null) {
+      return signatureBytes;
+    }
+    return signature.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.fw.platform.facet.crypto;
+
+/**
+ * Outcome of one {@link VerifyRequest} of a batch. A request either completes
+ * with a verification result or fails with an error; a failed request does
+ * not affect the other requests of the batch.
+ */
+public class VerifyResult {
+  private final VerifyRequest request;
+  private final boolean verified;
+  private final Throwable error;
+
+  /**
+   * Constructor.
+   * 
+   * @param request
+   *          : The {@link VerifyRequest} this result belongs to.
+   * @param verified
+   *          : true if the signature is valid. false otherwise.
+   * @param error
+   *          : Error raised while verifying. null if the request completed.
+   */
+  public VerifyResult(VerifyRequest request, boolean verified, Throwable error) {
+    this.request = request;
+    this.verified = verified;
+    this.error = error;
+  }
+
+  /**
+   * Creates the result of a request that completed.
+   * 
+   * @param request
+   *          : The {@link VerifyRequest} this result belongs to.
+   * @param verified
+   *          : true if the signature is valid. false otherwise.
+   * 
+   * @return {@link VerifyResult} instance.
+   */
+  public static VerifyResult of(VerifyRequest request, boolean verified) {
+    return new VerifyResult(request, verified, null);
+  }
+
+  /**
+   * Creates the result of a request that failed.
+   * 
+   * @param request
+   *          : The {@link VerifyRequest} this result belongs to.
+   * @param error
+   *          : Error raised while verifying.
+   * 
+   * @return {@link VerifyResult} instance.
+   */
+  public static VerifyResult failed(VerifyRequest request, Throwable error) {
+    return new VerifyResult(request, false, error);
+  }
+
+  public VerifyRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Returns whether the signature was verified. Always false for a failed
+   * request.
+   * 
+   * @return true if the signature is valid. false otherwise.
+   */
+  public boolean isVerified() {
+    return verified;
+  }
+
+  /**
+   * Returns the error raised while verifying.
+   * 
+   * @return {@link Throwable} or null if the request completed.
+   */
+  public Throwable getError() {
+    return error;
+  }
+}
@@ -24,6 +24,13 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Platform facet: Abstracted Datastore.
+ *
+ * <p>
+ * Besides its keys, a store may have an append-only journal of text records,
+ * for data that changes too often to rewrite the whole store on every change.
+ * Datastores supporting it return true from {@link #supportsJournal()}. The
+ * journal methods of the others complete exceptionally with
+ * {@link UnsupportedOperationException}.
  */
 public interface TdiPlatformDataShape extends TdiPlatformFacetShape {
   /**
@@ -115,4 +122,72 @@ public interface TdiPlatformDataShape extends TdiPlatformFacetShape {
    *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
    */
   public CompletableFuture<Void> drop(String storeName, String key);
+
+  /**
+   * Tells whether this datastore keeps a journal per store.
+   * 
+   * @return true if the journal methods are supported.
+   */
+  public default boolean supportsJournal() {
+    return false;
+  }
+
+  /**
+   * Method to append records to the journal of a store. The records are
+   * written in order and together.
+   * 
+   * @param storeName
+   *          : Store whose journal is appended to.
+   * @param records
+   *          : Records to append. A record may not contain a line break.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void once the records are written. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<Void> appendJournal(String storeName, List<String> records) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    future.completeExceptionally(new UnsupportedOperationException("appendJournal"));
+    return future;
+  }
+
+  /**
+   * Method to read back the journal of a store. A record left incomplete by
+   * an interrupted append is discarded.
+   * 
+   * @param storeName
+   *          : Store whose journal is read.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link List}&lt;{@link String}&gt;
+   *         with the records in the order they were appended. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<List<String>> readJournal(String storeName) {
+    CompletableFuture<List<String>> future = new CompletableFuture<>();
+    future.completeExceptionally(new UnsupportedOperationException("readJournal"));
+    return future;
+  }
+
+  /**
+   * Method to fold the journal of a store into the store. The given values
+   * are set, the store is saved and the journal is emptied, as one step with
+   * respect to {@link #appendJournal(String, List)}.
+   * 
+   * @param storeName
+   *          : Store to be compacted.
+   * @param values
+   *          : Keys and values to be set, which should account for the
+   *          journal records.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<Void> compactJournal(String storeName,
+      Map<String, Object> values) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    future.completeExceptionally(new UnsupportedOperationException("compactJournal"));
+    return future;
+  }
 }
@@ -21,6 +21,7 @@ import biz.neustar.tdi.fw.platform.facet.TdiPlatformFacetShape;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Platform facet: Abstracted Keystore.
@@ -159,4 +160,19 @@ public interface TdiPlatformKeysShape extends TdiPlatformFacetShape {
    *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
    */
   public CompletableFuture<Void> saveStore();
+
+  /**
+   * Registers a listener called with the kid of every key that is replaced or
+   * forgotten, so that layers above the platform can drop what they derived
+   * from the key.
+   * 
+   * <p>
+   * The default implementation ignores the listener. Platforms whose keys can
+   * change at runtime should override it.
+   * 
+   * @param listener
+   *          : Called with the kid of the changed key.
+   */
+  public default void addKeyChangeListener(Consumer<String> listener) {
+  }
 }
@@ -18,6 +18,9 @@ package biz.neustar.tdi.fw.platform.facet.utils;
 
 import biz.neustar.tdi.fw.platform.facet.TdiPlatformFacetShape;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
 /**
  * Platform facet: Abstracted Utils.
  */
@@ -44,6 +47,94 @@ public interface TdiPlatformUtilsShape extends TdiPlatformFacetShape {
    */
   public String b64UrlDecode(String b64String);
 
+  /**
+   * Method to Base64 URL Safe encode a range of bytes without padding.
+   * 
+   * <p>
+   * The default implementation wraps the range and delegates to
+   * {@link #b64UrlEncode(ByteBuffer)}.
+   * 
+   * @param data
+   *          : byte[] holding the bytes to encode.
+   * @param offset
+   *          : Index of the first byte to encode.
+   * @param length
+   *          : Number of bytes to encode.
+   * 
+   * @return Base64URL Safe encoded ASCII bytes.
+   */
+  public default byte[] b64UrlEncode(byte[] data, int offset, int length) {
+    return b64UrlEncode(ByteBuffer.wrap(data, offset, length));
+  }
+
+  /**
+   * Method to Base64 URL Safe encode the bytes between the position and the
+   * limit of a buffer, without padding. The buffer itself is left untouched.
+   * 
+   * <p>
+   * The default implementation uses {@link java.util.Base64}. Platforms with
+   * their own codec should override it.
+   * 
+   * @param data
+   *          : Bytes to encode.
+   * 
+   * @return Base64URL Safe encoded ASCII bytes.
+   */
+  public default byte[] b64UrlEncode(ByteBuffer data) {
+    ByteBuffer encoded = Base64.getUrlEncoder().withoutPadding().encode(data.duplicate());
+    byte[] bytes = new byte[encoded.remaining()];
+    encoded.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Method to decode a Base64 URL Safe encoded range of bytes. Padding is not
+   * required.
+   * 
+   * <p>
+   * The default implementation wraps the range and delegates to
+   * {@link #b64UrlDecode(ByteBuffer)}.
+   * 
+   * @param data
+   *          : byte[] holding the encoded ASCII bytes.
+   * @param offset
+   *          : Index of the first byte to decode.
+   * @param length
+   *          : Number of bytes to decode.
+   * 
+   * @return Decoded bytes.
+   * 
+   * @throws IllegalArgumentException
+   *           if the range is not valid Base64URL.
+   */
+  public default byte[] b64UrlDecode(byte[] data, int offset, int length) {
+    return b64UrlDecode(ByteBuffer.wrap(data, offset, length));
+  }
+
+  /**
+   * Method to decode the Base64 URL Safe encoded bytes between the position
+   * and the limit of a buffer. Padding is not required. The buffer itself is
+   * left untouched.
+   * 
+   * <p>
+   * The default implementation uses {@link java.util.Base64}. Platforms with
+   * their own codec should override it.
+   * 
+   * @param data
+   *          : Encoded ASCII bytes.
+   * 
+   * @return Decoded bytes.
+   * 
+   * @throws IllegalArgumentException
+   *           if the buffer is not valid Base64URL.
+   */
+  public default byte[] b64UrlDecode(ByteBuffer data) {
+    ByteBuffer decoded = Base64.getUrlDecoder().decode(data.duplicate());
+    byte[] bytes = new byte[decoded.remaining()];
+    decoded.get(bytes);
+    return bytes;
+  }
+
   /**
    * Method to fill the buffer with random data of length len, based on the
    * platform implementation.
@@ -19,11 +19,15 @@ package biz.neustar.tdi.fw.plugin;
 import biz.neustar.tdi.fw.component.DatastoreDelegate;
 import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
 import biz.neustar.tdi.fw.exception.ImplementationRequiredException;
+import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.wrapper.TdiSdkWrapperShape;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -135,6 +139,19 @@ public abstract class TdiPluginBase implements TdiPluginBaseFactory {
     return this.sdkWrapper;
   }
 
+  /**
+   * Returns the running statistics of the flows the plugin built for itself
+   * with
+   * {@link TdiImplementationShape#buildApiFlow(TdiFlowArguments, TdiFlowArguments)}.
+   * They are listed by {@link TdiSdkWrapperShape#getFlowStats()} under the
+   * plugin name. The default implementation returns an empty map.
+   *
+   * @return {@link Map}&lt;String, {@link TdiFlowStats}&gt; keyed by flow name.
+   */
+  public Map<String, TdiFlowStats> getFlowStats() {
+    return Collections.emptyMap();
+  }
+
   /**
    * Dummy implementation to avoid the classes extending {@link TdiPluginBase}
    * to override or write this in their code. <br>
@@ -21,6 +21,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,28 +30,79 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utility class.
  *
+ * <p>
+ * All conversions share one {@link ObjectMapper}. The immutable, thread safe
+ * {@link ObjectReader} and {@link ObjectWriter} of each type are built on
+ * first use and cached, so classes are introspected and their serializers
+ * resolved once per process instead of once per call.
  */
 public class Utils {
+  private static final Logger LOG = LoggerFactory.getLogger(Utils.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader MAP_READER = MAPPER
+      .readerFor(new TypeReference<Map<String, Object>>() {
+      });
+  private static final ConcurrentMap<Class<?>, ObjectReader> READERS =
+      new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Class<?>, ObjectReader> LENIENT_READERS =
+      new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Class<?>, ObjectWriter> WRITERS =
+      new ConcurrentHashMap<>();
 
   static {
     init();
   }
 
-  private static final Logger LOG = LoggerFactory.getLogger(Utils.class);
-
   /**
-   * Method that initializes {@link ObjectMapper} for better performance.
+   * Method that initializes the shared {@link ObjectMapper} for better
+   * performance.
    */
   public static void init() {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getTypeFactory().constructType(new TypeReference<Map<String, Object>>() {
+    MAPPER.getTypeFactory().constructType(new TypeReference<Map<String, Object>>() {
     });
   }
 
+  /**
+   * Returns the cached {@link ObjectReader} for the given type. The reader
+   * fails on properties unknown to the type.
+   *
+   * @param clazz
+   *          : Class reference of the objects to read.
+   *
+   * @return {@link ObjectReader} instance.
+   */
+  public static ObjectReader readerFor(Class<?> clazz) {
+    return READERS.computeIfAbsent(clazz, MAPPER::readerFor);
+  }
+
+  /**
+   * Returns the cached {@link ObjectWriter} for the given type.
+   *
+   * @param clazz
+   *          : Class reference of the objects to write.
+   *
+   * @return {@link ObjectWriter} instance.
+   */
+  public static ObjectWriter writerFor(Class<?> clazz) {
+    return WRITERS.computeIfAbsent(clazz, MAPPER::writerFor);
+  }
+
+  private static ObjectReader lenientReaderFor(Class<?> clazz) {
+    return LENIENT_READERS.computeIfAbsent(clazz, (type) -> MAPPER.readerFor(type)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+  }
+
+  private static ObjectWriter writerForValue(Object value) {
+    return value != null ? writerFor(value.getClass()) : MAPPER.writer();
+  }
+
   /**
    * Method to convert Map to JSON String.
    *
@@ -63,7 +116,7 @@ public class Utils {
    */
   public static String mapToJson(Map<String, ?> map) throws InvalidFormatException {
     try {
-      return new ObjectMapper().writeValueAsString(map);
+      return writerForValue(map).writeValueAsString(map);
     } catch (JsonProcessingException e) {
       throw new InvalidFormatException(e);
     }
@@ -83,9 +136,7 @@ public class Utils {
   public static Map<String, Object> jsonToMap(String jsonString) throws InvalidFormatException {
     Map<String, Object> returnMap = null;
     try {
-      returnMap = new ObjectMapper().readValue(jsonString,
-          new TypeReference<Map<String, Object>>() {
-          });
+      returnMap = MAP_READER.readValue(jsonString);
     } catch (IOException e) {
       LOG.debug("Unable to decode JSON: " + jsonString);
       throw new InvalidFormatException(e);
@@ -108,7 +159,7 @@ public class Utils {
     String json = null;
 
     try {
-      json = new ObjectMapper().writeValueAsString(object);
+      json = writerForValue(object).writeValueAsString(object);
     } catch (JsonProcessingException e) {
       LOG.debug("Unable to encode object to JSON");
       throw new InvalidFormatException(e);
@@ -134,10 +185,8 @@ public class Utils {
   public static <T> T jsonToObject(String jsonString, Class<T> clazz)
       throws InvalidFormatException {
     if (StringUtils.isEmpty(jsonString) == false) {
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
       try {
-        return mapper.readValue(jsonString, clazz);
+        return lenientReaderFor(clazz).readValue(jsonString);
       } catch (IOException e) {
         LOG.debug("Unable to decode JSON to object: " + jsonString);
         LOG.debug(e.toString());
@@ -164,7 +213,7 @@ public class Utils {
       throws InvalidFormatException {
     if (jsonFilePath != null) {
       try {
-        new ObjectMapper().writeValue(jsonFilePath, object);
+        writerForValue(object).writeValue(jsonFilePath, object);
       } catch (IOException e) {
         LOG.debug("Unable to encode object to JSON");
         throw new InvalidFormatException(e);
@@ -194,7 +243,7 @@ public class Utils {
       throws InvalidFormatException {
     if (jsonFilePath != null && jsonFilePath.exists()) {
       try {
-        return new ObjectMapper().readValue(jsonFilePath, clazz);
+        return readerFor(clazz).readValue(jsonFilePath);
       } catch (IOException e) {
         LOG.debug("Unable to decode JSON to object");
         throw new InvalidFormatException(e);
@@ -220,7 +269,7 @@ public class Utils {
       throws InvalidFormatException {
     if (jsonFilePath != null) {
       try {
-        new ObjectMapper().writeValue(jsonFilePath, map);
+        writerForValue(map).writeValue(jsonFilePath, map);
       } catch (IOException e) {
         throw new InvalidFormatException(e);
       }
@@ -245,9 +294,7 @@ public class Utils {
     if (jsonFilePath != null && jsonFilePath.exists()) {
       Map<String, Object> returnMap = null;
       try {
-        returnMap = new ObjectMapper().readValue(jsonFilePath,
-            new TypeReference<Map<String, Object>>() {
-            });
+        returnMap = MAP_READER.readValue(jsonFilePath);
       } catch (IOException e) {
         LOG.debug("Unable to decode JSON from file.");
         throw new InvalidFormatException(e);
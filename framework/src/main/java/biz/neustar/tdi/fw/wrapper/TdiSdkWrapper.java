@@ -16,8 +16,11 @@
 
 package biz.neustar.tdi.fw.wrapper;
 
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow;
 import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
+import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.plugin.TdiPluginBase;
 import org.apache.commons.lang3.StringUtils;
 
@@ -40,6 +43,7 @@ public class TdiSdkWrapper implements TdiSdkWrapperShape {
   Map<String, Object> apis = new LinkedHashMap<>();
   Map<String, TdiPluginBase> plugins = new LinkedHashMap<>();
   TdiImplementationShape impl = null;
+  TdiPlatformShape platform = null;
 
   /* (non-Javadoc)
    * @see biz.neustar.tdi.fw.wrapper.TdiSdkWrapperShape#setDefaultFlows(java.util.Map)
@@ -70,6 +74,23 @@ public class TdiSdkWrapper implements TdiSdkWrapperShape {
     }
   }
   
+  @Override
+  public Map<String, TdiFlowStats> getFlowStats() {
+    Map<String, TdiFlowStats> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry : apis.entrySet()) {
+      TdiFlowStats flowStats = TdiCompiledFlow.statsOf(entry.getValue());
+      if (flowStats != null) {
+        stats.put(entry.getKey(), flowStats);
+      }
+    }
+    for (TdiPluginBase plugin : plugins.values()) {
+      for (Map.Entry<String, TdiFlowStats> entry : plugin.getFlowStats().entrySet()) {
+        stats.put(plugin.getName() + "." + entry.getKey(), entry.getValue());
+      }
+    }
+    return stats;
+  }
+
   @Override
   public TdiPluginBase plugin(String pluginName) {
     return plugins.get(pluginName);
@@ -98,4 +119,24 @@ public class TdiSdkWrapper implements TdiSdkWrapperShape {
   public void setImpl(TdiImplementationShape impl) {
     this.impl = impl;
   }
+
+  /**
+   * Sets the platform shut down by {@link #shutdown()}. Unlike
+   * {@link #setImpl(TdiImplementationShape)} this does not expose anything
+   * to the wrapper users.
+   * 
+   * @param platform
+   *          : {@link TdiPlatformShape}
+   */
+  public void setPlatform(TdiPlatformShape platform) {
+    this.platform = platform;
+  }
+
+  @Override
+  public CompletableFuture<Void> shutdown() {
+    if (platform == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return platform.shutdown();
+  }
 }
@@ -17,9 +17,11 @@
 package biz.neustar.tdi.fw.wrapper;
 
 import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.plugin.TdiPluginBase;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
@@ -72,6 +74,20 @@ public interface TdiSdkWrapperShape {
    */
   public <T, R> void api(String apiName, Function<T, CompletableFuture<R>> api);
 
+  /**
+   * Returns the running statistics of the APIs built with
+   * {@link TdiImplementationShape#buildApiFlow(TdiFlowArguments, TdiFlowArguments)},
+   * along with those of the flows of the plugins, see
+   * {@link TdiPluginBase#getFlowStats()}. APIs keeping no statistics are left
+   * out.
+   * 
+   * @return {@link Map}&lt;String, {@link TdiFlowStats}&gt; keyed by API name,
+   *         or by plugin name and flow name joined by a dot.
+   */
+  public default Map<String, TdiFlowStats> getFlowStats() {
+    return Collections.emptyMap();
+  }
+
   /**
    * Returns the instance of {@link TdiPluginBase} associated with plugin name.
    * 
@@ -112,4 +128,16 @@ public interface TdiSdkWrapperShape {
    *          : {@link TdiImplementationShape}
    */
   void setImpl(TdiImplementationShape impl);
+
+  /**
+   * Shuts down the platform backing this wrapper. None of the APIs may be
+   * called afterwards.
+   * 
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public default CompletableFuture<Void> shutdown() {
+    return CompletableFuture.completedFuture(null);
+  }
 }
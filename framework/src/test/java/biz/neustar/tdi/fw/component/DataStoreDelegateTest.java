@@ -16,15 +16,20 @@
 
 package biz.neustar.tdi.fw.component;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import biz.neustar.tdi.fw.TestData;
 import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class DataStoreDelegateTest {
   static TdiPlatformShape platform;
@@ -45,4 +50,24 @@ public class DataStoreDelegateTest {
     assertNotNull(delegate.keys());
     assertNotNull(delegate.drop("key1"));
   }
+
+  @Test
+  public void testJournalUnsupportedByDefault() throws Exception {
+    DatastoreDelegate delegate = new DatastoreDelegate("store", platform);
+
+    assertFalse(delegate.supportsJournal());
+    assertUnsupported(delegate.appendJournal(Collections.singletonList("record")));
+    assertUnsupported(delegate.readJournal());
+    assertUnsupported(delegate.compactJournal(new HashMap<>()));
+  }
+
+  private static void assertUnsupported(CompletableFuture<?> future) throws Exception {
+    try {
+      future.get();
+    } catch (ExecutionException err) {
+      assertTrue(err.getCause() instanceof UnsupportedOperationException);
+      return;
+    }
+    throw new AssertionError("Journal should be unsupported");
+  }
 }
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.fw.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import biz.neustar.tdi.fw.Constants.FlowConfig;
+import biz.neustar.tdi.fw.TestData;
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow.Source;
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow.Step;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats.Counters;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unit test cases for {@link TdiCompiledFlow}.
+ */
+public class TdiCompiledFlowTest {
+
+  private static String plan(TdiCompiledFlow<?, ?> flow) {
+    return flow.getSteps().stream().map(Step::toString).collect(Collectors.joining(" "));
+  }
+
+  @Test
+  public void testPlanOriginalOnly() throws Exception {
+    TdiFlowArguments original = TdiImplementationTestData.getOriginalFlow();
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow.compile(original, null);
+
+    assertEquals("First(ORIGINAL) Second(ORIGINAL) Third(ORIGINAL) Final(ORIGINAL)", plan(flow));
+    assertSame(original.getFlowMap().get("Second"), flow.getSteps().get(1).getFunction());
+    assertEquals("Hello#FirstStep#SecondStep#ThirdStep#FourthStep", flow.apply("Hello").get());
+  }
+
+  @Test
+  public void testPlanWithOtherFlow() throws Exception {
+    TdiFlowArguments other = TdiImplementationTestData.getOtherFlow();
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow
+        .compile(TdiImplementationTestData.getOriginalFlow(), other);
+
+    assertEquals("First(ORIGINAL) Second(ORIGINAL) Second(APPENDED) Third(OVERRIDE) "
+        + "Final(ORIGINAL)", plan(flow));
+    assertSame(other.getFlowMap().get("Third"), flow.getSteps().get(3).getFunction());
+    assertEquals(Source.APPENDED, flow.getSteps().get(2).getSource());
+
+    // Steps of the other flow unknown to the original flow are ignored, as
+    // are override steps without a method.
+    other.addMethod("Unknown", (data) -> CompletableFuture.completedFuture(data));
+    other.addOverrideStep("First");
+    assertEquals(plan(flow), plan(TdiCompiledFlow
+        .compile(TdiImplementationTestData.getOriginalFlow(), other)));
+  }
+
+  @Test
+  public void testCompiledOnce() throws Exception {
+    TdiFlowArguments original = TdiImplementationTestData.getOriginalFlow();
+    TdiFlowArguments other = new TdiFlowArguments();
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow.compile(original, other);
+
+    original.getFlowMap().remove("Third");
+    other.addMethod("Final", (data) -> CompletableFuture.completedFuture("replaced"));
+    other.addOverrideStep("Final");
+
+    assertEquals(4, flow.getSteps().size());
+    assertEquals("Hello#FirstStep#SecondStep#ThirdStep#FourthStep", flow.apply("Hello").get());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testStepsUnmodifiable() {
+    List<Step> steps = TdiCompiledFlow
+        .compile(TdiImplementationTestData.getOriginalFlow(), null).getSteps();
+    steps.clear();
+  }
+
+  @Test
+  public void testFailingStepStopsFlow() throws Exception {
+    TdiFlowArguments other = new TdiFlowArguments();
+    other.addOverrideStep("Second");
+    other.addMethod("Second", (data) -> {
+      throw new IllegalStateException("failed");
+    });
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow
+        .compile(TdiImplementationTestData.getOriginalFlow(), other);
+
+    try {
+      flow.apply("Hello").get();
+    } catch (ExecutionException err) {
+      assertTrue(err.getCause() instanceof IllegalStateException);
+      return;
+    }
+    throw new AssertionError("Flow should have failed");
+  }
+
+  @Test
+  public void testInlineCompletedSteps() throws Exception {
+    TdiFlowArguments original = new TdiFlowArguments();
+    original.addMethod("First", (data) -> CompletableFuture.completedFuture(data + "#1"));
+    original.addMethod("Second", (data) -> CompletableFuture.completedFuture(data + "#2"));
+
+    TdiCompiledFlow<String, String> inline = TdiCompiledFlow.compile(original, null);
+    assertTrue(inline.isInlineCompleted());
+    CompletableFuture<String> result = inline.apply("Hello");
+    assertTrue(result.isDone());
+    assertEquals("Hello#1#2", result.get());
+
+    TdiCompiledFlow<String, String> composed = TdiCompiledFlow.compile(original, null, false);
+    assertFalse(composed.isInlineCompleted());
+    assertEquals("Hello#1#2", composed.apply("Hello").get());
+  }
+
+  @Test
+  public void testInlineFallsBackOnIncompleteStep() throws Exception {
+    CompletableFuture<Object> pending = new CompletableFuture<>();
+    List<String> ran = new ArrayList<>();
+    TdiFlowArguments original = new TdiFlowArguments();
+    original.addMethod("First", (data) -> {
+      ran.add("First");
+      return CompletableFuture.completedFuture(data + "#1");
+    });
+    original.addMethod("Second", (data) -> {
+      ran.add("Second");
+      return pending;
+    });
+    original.addMethod("Third", (data) -> {
+      ran.add("Third");
+      return CompletableFuture.completedFuture(data + "#3");
+    });
+
+    CompletableFuture<String> result = TdiCompiledFlow.<String, String>compile(original, null)
+        .apply("Hello");
+    assertFalse(result.isDone());
+    assertEquals(Arrays.asList("First", "Second"), ran);
+
+    pending.complete("Hello#1#2");
+    assertEquals("Hello#1#2#3", result.get());
+    assertEquals(Arrays.asList("First", "Second", "Third"), ran);
+  }
+
+  @Test
+  public void testInlineReportsFailuresLikeComposition() throws Exception {
+    IllegalStateException thrown = new IllegalStateException("thrown");
+    IllegalStateException failed = new IllegalStateException("failed");
+    TdiFlowArguments throwing = new TdiFlowArguments();
+    throwing.addMethod("First", (data) -> {
+      throw thrown;
+    });
+    TdiFlowArguments failing = new TdiFlowArguments();
+    failing.addMethod("First", (data) -> {
+      CompletableFuture<Object> future = new CompletableFuture<>();
+      future.completeExceptionally(failed);
+      return future;
+    });
+    failing.addMethod("Second", (data) -> CompletableFuture.completedFuture(data));
+
+    for (TdiFlowArguments flow : Arrays.asList(throwing, failing)) {
+      Throwable inline = failure(TdiCompiledFlow.compile(flow, null, true));
+      Throwable composed = failure(TdiCompiledFlow.compile(flow, null, false));
+      assertTrue(inline instanceof CompletionException);
+      assertEquals(composed.getClass(), inline.getClass());
+      assertSame(composed.getCause(), inline.getCause());
+    }
+  }
+
+  @Test
+  public void testFlowActions() throws Exception {
+    for (boolean inlineCompleted : new boolean[] { true, false }) {
+      List<String> outcomes = new ArrayList<>();
+      CompletableFuture<Object> pending = new CompletableFuture<>();
+      TdiFlowArguments flow = new TdiFlowArguments();
+      flow.addMethod("Init", (data) -> {
+        TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+        message.setRawPayload((String) data);
+        message.whenFlowComplete((result, err) -> {
+          outcomes.add(err == null ? "done " + result : "failed " + err.getCause().getMessage());
+        });
+        return CompletableFuture.completedFuture(message);
+      });
+      flow.addMethod("Check", (data) -> {
+        String payload = ((TdiCanonicalMessageShape) data).getRawPayload();
+        if ("thrown".equals(payload)) {
+          throw new IllegalStateException(payload);
+        }
+        return "pending".equals(payload) ? pending : CompletableFuture.completedFuture(data);
+      });
+      flow.addMethod("Return", (data) -> {
+        return CompletableFuture.completedFuture(((TdiCanonicalMessageShape) data).getRawPayload());
+      });
+      TdiCompiledFlow<String, String> compiled = TdiCompiledFlow.compile(flow, null,
+          inlineCompleted);
+
+      assertEquals("good", compiled.apply("good").get());
+      assertEquals(Arrays.asList("done good"), outcomes);
+
+      try {
+        compiled.apply("thrown").get();
+        fail("Flow should have failed");
+      } catch (ExecutionException err) {
+        assertEquals(Arrays.asList("done good", "failed thrown"), outcomes);
+      }
+
+      // The actions run before the flow reports the failure of a later step.
+      CompletableFuture<String> result = compiled.apply("pending");
+      assertEquals(2, outcomes.size());
+      pending.completeExceptionally(new IllegalStateException("pending"));
+      try {
+        result.get();
+        fail("Flow should have failed");
+      } catch (ExecutionException err) {
+        assertEquals(Arrays.asList("done good", "failed thrown", "failed pending"), outcomes);
+      }
+    }
+  }
+
+  @Test
+  public void testFlowActionsOfInputLeftAlone() throws Exception {
+    List<Throwable> outcomes = new ArrayList<>();
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.whenFlowComplete((result, err) -> outcomes.add(err));
+    TdiFlowArguments flow = new TdiFlowArguments();
+    flow.addMethod("First", (data) -> CompletableFuture.completedFuture(data));
+    flow.addMethod("Second", (data) -> {
+      throw new IllegalStateException("failed");
+    });
+
+    // The message belongs to the caller, who completes it.
+    for (boolean inlineCompleted : new boolean[] { true, false }) {
+      assertTrue(TdiCompiledFlow.compile(flow, null, inlineCompleted).apply(message)
+          .isCompletedExceptionally());
+      assertTrue(outcomes.isEmpty());
+    }
+    message.completeFlow(null, null);
+    assertEquals(1, outcomes.size());
+    message.completeFlow(null, null);
+    assertEquals(1, outcomes.size());
+  }
+
+  @Test
+  public void testInlineConfig() {
+    Map<String, Object> flows = new HashMap<>();
+    flows.put(FlowConfig.INLINE_COMPLETED, false);
+    Map<String, Object> config = new HashMap<>();
+    config.put(FlowConfig.KEY, flows);
+    TdiImplementation impl = new TdiImplementation(config, TestData.DummyPlatform::new);
+
+    Function<String, CompletableFuture<String>> api = impl
+        .buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertFalse(((TdiCompiledFlow<String, String>) api).isInlineCompleted());
+
+    flows.put(FlowConfig.INLINE_COMPLETED, true);
+    api = impl.buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertTrue(((TdiCompiledFlow<String, String>) api).isInlineCompleted());
+  }
+
+  @Test
+  public void testStatsDisabledByDefault() {
+    assertNull(TdiCompiledFlow.compile(TdiImplementationTestData.getOriginalFlow(), null)
+        .getStats());
+    assertNull(TdiCompiledFlow.compile(TdiImplementationTestData.getOriginalFlow(), null, true, 0)
+        .getStats());
+  }
+
+  @Test
+  public void testStatsCountSteps() throws Exception {
+    TdiFlowArguments other = new TdiFlowArguments();
+    other.addMethod("Second", (data) -> CompletableFuture.completedFuture(data));
+
+    for (boolean inline : Arrays.asList(true, false)) {
+      TdiCompiledFlow<String, String> flow = TdiCompiledFlow
+          .compile(stringFlow(), other, inline, 1);
+      flow.apply("Hello").get();
+      flow.apply("Hello").get();
+
+      TdiFlowStats stats = flow.getStats();
+      assertEquals(1, stats.getSampleRate());
+      assertEquals(2, stats.getFlow().getSuccesses());
+      assertEquals(2, stats.getFlow().getLatency().getCount());
+      assertEquals(4, stats.getSteps().size());
+      assertEquals("Second", stats.getSteps().get(2).getName());
+      assertEquals(Source.APPENDED, stats.getSteps().get(2).getSource());
+      for (Counters step : stats.getSteps()) {
+        assertEquals(2, step.getSuccesses());
+        assertEquals(0, step.getFailures());
+        assertEquals(0, step.getInFlight());
+        assertEquals(2, step.getLatency().getCount());
+      }
+
+      stats.reset();
+      assertEquals(0, stats.getFlow().getSuccesses());
+      assertEquals(0, stats.getSteps().get(0).getLatency().getCount());
+    }
+  }
+
+  @Test
+  public void testStatsTrackPendingSteps() throws Exception {
+    CompletableFuture<Object> pending = new CompletableFuture<>();
+    TdiFlowArguments original = new TdiFlowArguments();
+    original.addMethod("First", (data) -> CompletableFuture.completedFuture(data));
+    original.addMethod("Second", (data) -> pending);
+    original.addMethod("Third", (data) -> CompletableFuture.completedFuture(data));
+
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow.compile(original, null, true, 1);
+    CompletableFuture<String> result = flow.apply("Hello");
+    TdiFlowStats stats = flow.getStats();
+    assertEquals(1, stats.getFlow().getInFlight());
+    assertEquals(1, stats.getSteps().get(0).getSuccesses());
+    assertEquals(1, stats.getSteps().get(1).getInFlight());
+    assertEquals(0, stats.getSteps().get(2).getInFlight());
+
+    Thread.sleep(5);
+    pending.complete("World");
+    assertEquals("World", result.get());
+    assertEquals(0, stats.getFlow().getInFlight());
+    assertEquals(1, stats.getFlow().getSuccesses());
+    assertEquals(0, stats.getSteps().get(1).getInFlight());
+    assertEquals(1, stats.getSteps().get(2).getSuccesses());
+    assertTrue(stats.getSteps().get(1).getLatency().getMax() >= 5_000_000L);
+  }
+
+  @Test
+  public void testStatsCountFailures() throws Exception {
+    TdiFlowArguments throwing = new TdiFlowArguments();
+    throwing.addMethod("First", (data) -> CompletableFuture.completedFuture(data));
+    throwing.addMethod("Second", (data) -> {
+      throw new IllegalStateException("thrown");
+    });
+    throwing.addMethod("Third", (data) -> CompletableFuture.completedFuture(data));
+
+    for (boolean inline : Arrays.asList(true, false)) {
+      TdiCompiledFlow<String, String> flow = TdiCompiledFlow.compile(throwing, null, inline, 1);
+      Throwable err = failure(flow);
+      assertEquals("thrown", err.getCause().getMessage());
+
+      TdiFlowStats stats = flow.getStats();
+      assertEquals(1, stats.getFlow().getFailures());
+      assertEquals(0, stats.getFlow().getInFlight());
+      assertEquals(1, stats.getSteps().get(0).getSuccesses());
+      assertEquals(1, stats.getSteps().get(1).getFailures());
+      assertEquals(0, stats.getSteps().get(1).getInFlight());
+      assertEquals(0, stats.getSteps().get(2).getSuccesses() + stats.getSteps().get(2)
+          .getFailures());
+    }
+  }
+
+  @Test
+  public void testStatsSampling() throws Exception {
+    TdiCompiledFlow<String, String> flow = TdiCompiledFlow
+        .compile(stringFlow(), null, true, 10);
+    for (int index = 0; index < 1000; index++) {
+      flow.apply("Hello").get();
+    }
+
+    Counters counters = flow.getStats().getFlow();
+    assertEquals(1000, counters.getSuccesses());
+    assertTrue(counters.getLatency().getCount() > 0);
+    assertTrue(counters.getLatency().getCount() < 500);
+  }
+
+  @Test
+  public void testStatsConfig() {
+    Map<String, Object> config = new HashMap<>();
+    TdiImplementation impl = new TdiImplementation(config, TestData.DummyPlatform::new);
+
+    Function<String, CompletableFuture<String>> api = impl
+        .buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertEquals(FlowConfig.DEFAULT_STATS_SAMPLE_RATE,
+        ((TdiCompiledFlow<String, String>) api).getStats().getSampleRate());
+
+    Map<String, Object> flows = new HashMap<>();
+    flows.put(FlowConfig.STATS_SAMPLE_RATE, 10);
+    config.put(FlowConfig.KEY, flows);
+    api = impl.buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertEquals(10, ((TdiCompiledFlow<String, String>) api).getStats().getSampleRate());
+
+    // Timing every call is an explicit opt-in.
+    flows.put(FlowConfig.STATS_SAMPLE_RATE, 1);
+    api = impl.buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertEquals(1, ((TdiCompiledFlow<String, String>) api).getStats().getSampleRate());
+
+    flows.put(FlowConfig.STATS_SAMPLE_RATE, 0);
+    api = impl.buildApiFlow(TdiImplementationTestData.getOriginalFlow(), null);
+    assertNull(((TdiCompiledFlow<String, String>) api).getStats());
+  }
+
+  private static TdiFlowArguments stringFlow() {
+    TdiFlowArguments flow = new TdiFlowArguments();
+    flow.addMethod("First", (data) -> CompletableFuture.completedFuture(data + "#1"));
+    flow.addMethod("Second", (data) -> CompletableFuture.completedFuture(data + "#2"));
+    flow.addMethod("Third", (data) -> CompletableFuture.completedFuture(data + "#3"));
+    return flow;
+  }
+
+  private static Throwable failure(TdiCompiledFlow<String, String> flow) {
+    try {
+      flow.apply("Hello").exceptionally((err) -> {
+        throw new AssertionError(err);
+      }).join();
+    } catch (CompletionException err) {
+      return err.getCause().getCause();
+    }
+    throw new AssertionError("Flow should have failed");
+  }
+}
@@ -124,6 +124,7 @@ public class TdiImplementationTest {
     CompletableFuture<String> returnedFuture = api.apply("Hello");
 
     assertEquals("Hello#FirstStep#SecondStep#ThirdStep#FourthStep", returnedFuture.get());
+    assertEquals(4, ((TdiCompiledFlow<String, String>) api).getSteps().size());
   }
 
   @Test
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.fw.implementation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test cases for {@link TdiLatencyHistogram}.
+ */
+public class TdiLatencyHistogramTest {
+
+  @Test
+  public void testEmpty() {
+    TdiLatencyHistogram histogram = new TdiLatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    long previous = -1;
+    for (int index = 0; index <= TdiLatencyHistogram.bucketOf(TdiLatencyHistogram.MAX_TRACKABLE);
+        index++) {
+      long highest = TdiLatencyHistogram.highestInBucket(index);
+      assertEquals(index, TdiLatencyHistogram.bucketOf(previous + 1));
+      assertEquals(index, TdiLatencyHistogram.bucketOf(highest));
+      assertTrue(highest - previous <= Math.max(1, highest / TdiLatencyHistogram.SUB_BUCKETS));
+      previous = highest;
+    }
+    assertEquals(TdiLatencyHistogram.MAX_TRACKABLE, previous);
+  }
+
+  @Test
+  public void testPercentiles() {
+    TdiLatencyHistogram histogram = new TdiLatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1_000_000, histogram.getMax());
+    assertEquals(500_500, histogram.getMean(), 0.001);
+    assertWithin(500_000, histogram.getValueAtPercentile(50));
+    assertWithin(990_000, histogram.getValueAtPercentile(99));
+    assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    assertWithin(1000, histogram.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void testOutOfRangeValues() {
+    TdiLatencyHistogram histogram = new TdiLatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    assertEquals(2, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+    assertEquals(TdiLatencyHistogram.MAX_TRACKABLE, histogram.getValueAtPercentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    TdiLatencyHistogram histogram = new TdiLatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int thread = 0; thread < 4; thread++) {
+      threads.add(new Thread(() -> {
+        for (int value = 0; value < 10000; value++) {
+          histogram.record(value);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(40000, histogram.getCount());
+    assertEquals(9999, histogram.getMax());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual + " not within range of " + expected,
+        actual >= expected && actual <= expected + expected / TdiLatencyHistogram.SUB_BUCKETS);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.fw.platform.facet.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import biz.neustar.tdi.fw.keystructure.TdiKeyStructure;
+import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
+import biz.neustar.tdi.fw.platform.TdiPlatformShape;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit test cases for the default methods of {@link TdiPlatformCryptoShape}.
+ */
+public class TdiPlatformCryptoShapeTest {
+  private static TdiPlatformCryptoShape crypto;
+  private static TdiKeyStructureShape key;
+
+  /**
+   * Builds a crypto facet accepting a signature equal to its payload. A null
+   * key fails asynchronously and an empty payload fails synchronously.
+   */
+  @BeforeClass
+  public static void setup() {
+    key = new TdiKeyStructure("id1", "id1", null, 0);
+    crypto = new TdiPlatformCryptoShape() {
+      @Override
+      public CompletableFuture<Void> init() {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      @Override
+      public TdiPlatformShape getPlatform() {
+        return null;
+      }
+
+      @Override
+      public CompletableFuture<Boolean> verify(TdiKeyStructureShape key, String payload,
+          String signature) {
+        if (payload.isEmpty()) {
+          throw new FrameworkRuntimeException("Empty payload");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+          if (key == null) {
+            throw new FrameworkRuntimeException("Null key");
+          }
+          return payload.equals(signature);
+        });
+      }
+
+      @Override
+      public CompletableFuture<String> sign(TdiKeyStructureShape key, String payload) {
+        return CompletableFuture.completedFuture(payload);
+      }
+
+      @Override
+      public CompletableFuture<Void> encrypt() {
+        return null;
+      }
+
+      @Override
+      public CompletableFuture<Void> decrypt() {
+        return null;
+      }
+    };
+  }
+
+  @Test
+  public void testVerifyBatch() throws Exception {
+    List<VerifyRequest> requests = Arrays.asList(
+        new VerifyRequest(key, "payload1", "payload1"),
+        new VerifyRequest(key, "payload2", "tampered"),
+        new VerifyRequest(null, "payload3", "payload3"),
+        new VerifyRequest(key, "", "payload4"),
+        new VerifyRequest(key, ByteBuffer.wrap("payload5".getBytes(StandardCharsets.UTF_8)),
+            "payload5".getBytes(StandardCharsets.UTF_8)));
+
+    List<VerifyResult> results = crypto.verifyBatch(requests).get();
+    assertEquals(requests.size(), results.size());
+    for (int index = 0; index < requests.size(); index++) {
+      assertSame(requests.get(index), results.get(index).getRequest());
+    }
+
+    assertTrue(results.get(0).isVerified());
+    assertNull(results.get(0).getError());
+
+    assertFalse(results.get(1).isVerified());
+    assertNull(results.get(1).getError());
+
+    assertFalse(results.get(2).isVerified());
+    assertTrue(results.get(2).getError() instanceof FrameworkRuntimeException);
+
+    assertFalse(results.get(3).isVerified());
+    assertTrue(results.get(3).getError() instanceof FrameworkRuntimeException);
+
+    assertTrue(results.get(4).isVerified());
+    assertEquals("payload5", results.get(4).getRequest().getPayload());
+  }
+
+  @Test
+  public void testVerifyEmptyBatch() throws Exception {
+    assertTrue(crypto.verifyBatch(null).get().isEmpty());
+    assertTrue(crypto.verifyBatch(Arrays.asList()).get().isEmpty());
+  }
+
+  @Test
+  public void testByteBufferDefaults() throws Exception {
+    ByteBuffer input = ByteBuffer.wrap("header.payload".getBytes(StandardCharsets.UTF_8));
+    assertEquals("header.payload", crypto.sign(key, input).get());
+    assertEquals(0, input.position());
+
+    assertTrue(crypto.verify(key, input, "header.payload".getBytes(StandardCharsets.UTF_8))
+        .get());
+    assertFalse(crypto.verify(key, input, "tampered".getBytes(StandardCharsets.UTF_8)).get());
+    assertEquals(0, input.position());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package biz.neustar.tdi.fw.platform.facet.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import biz.neustar.tdi.fw.platform.TdiPlatformShape;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit test cases for the default methods of {@link TdiPlatformUtilsShape}.
+ */
+public class TdiPlatformUtilsShapeTest {
+  private static TdiPlatformUtilsShape utils;
+
+  /**
+   * Builds a utils facet implementing only the abstract methods.
+   */
+  @BeforeClass
+  public static void setup() {
+    utils = new TdiPlatformUtilsShape() {
+      @Override
+      public CompletableFuture<Void> init() {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      @Override
+      public TdiPlatformShape getPlatform() {
+        return null;
+      }
+
+      @Override
+      public String b64UrlEncode(String toEncode) {
+        return null;
+      }
+
+      @Override
+      public String b64UrlDecode(String b64String) {
+        return null;
+      }
+
+      @Override
+      public void randomFill(byte[] buffer, Integer len) {
+      }
+
+      @Override
+      public String makeUuid() {
+        return null;
+      }
+    };
+  }
+
+  @Test
+  public void testEncodeRangeWithoutPadding() {
+    byte[] data = "[ab>?]".getBytes(StandardCharsets.US_ASCII);
+    byte[] encoded = utils.b64UrlEncode(data, 1, 4);
+    assertEquals("YWI-Pw", new String(encoded, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testDecodeRange() {
+    byte[] data = "..YWI-Pw..".getBytes(StandardCharsets.US_ASCII);
+    assertArrayEquals("ab>?".getBytes(StandardCharsets.US_ASCII),
+        utils.b64UrlDecode(data, 2, 6));
+  }
+
+  @Test
+  public void testByteBufferLeftUntouched() {
+    ByteBuffer data = ByteBuffer.wrap("ab>?".getBytes(StandardCharsets.US_ASCII));
+    ByteBuffer encoded = ByteBuffer.wrap(utils.b64UrlEncode(data));
+    assertEquals(0, data.position());
+
+    byte[] decoded = utils.b64UrlDecode(encoded);
+    assertEquals(0, encoded.position());
+    assertArrayEquals(data.array(), decoded);
+  }
+}
@@ -17,6 +17,7 @@
 package biz.neustar.tdi.fw.utils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
 import biz.neustar.tdi.fw.exception.InvalidFormatException;
@@ -27,8 +28,11 @@ import org.junit.Test;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Unit test cases for {@link Utils} class.
@@ -103,6 +107,33 @@ public class UtilsTest {
     assertEquals("Hello",object.prop);
   }
 
+  @Test
+  public void testJsonToObjectIgnoresUnknownProperties() throws Exception {
+    String json = "{\"prop\":\"Hello\",\"other\":1}";
+    assertEquals("Hello", Utils.jsonToObject(json, UnitTestObject.class).prop);
+  }
+
+  @Test
+  public void testCachedReadersAndWriters() throws Exception {
+    assertSame(Utils.readerFor(UnitTestObject.class), Utils.readerFor(UnitTestObject.class));
+    assertSame(Utils.writerFor(UnitTestObject.class), Utils.writerFor(UnitTestObject.class));
+    assertEquals("null", Utils.objectToJson(null));
+
+    // Readers and writers are shared between threads.
+    List<String> results = IntStream.range(0, 1000).parallel().mapToObj((index) -> {
+      try {
+        UnitTestObject object = new UnitTestObject();
+        object.prop = "Hello" + index;
+        return Utils.jsonToObject(Utils.objectToJson(object), UnitTestObject.class).prop;
+      } catch (InvalidFormatException err) {
+        throw new IllegalStateException(err);
+      }
+    }).collect(Collectors.toList());
+    for (int index = 0; index < results.size(); index++) {
+      assertEquals("Hello" + index, results.get(index));
+    }
+  }
+
   @Test
   public void testObjectToJsonFileAndViceVersa() throws Exception {
     TdiClaims claims = new TdiClaims();
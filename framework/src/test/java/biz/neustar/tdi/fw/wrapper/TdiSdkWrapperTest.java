@@ -17,18 +17,25 @@
 package biz.neustar.tdi.fw.wrapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import biz.neustar.tdi.fw.TestData;
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow;
 import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
 import biz.neustar.tdi.fw.implementation.TdiImplementation;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
+import biz.neustar.tdi.fw.platform.TdiPlatformShape;
 import biz.neustar.tdi.fw.plugin.TdiPluginBase;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 public class TdiSdkWrapperTest {
@@ -113,4 +120,65 @@ public class TdiSdkWrapperTest {
     sdkWrapper.plugin(nullPlugin);
     assertEquals(pluginsSize, sdkWrapper.plugins().size());
   }
+
+  @Test
+  public void testFlowStats() throws Exception {
+    TdiSdkWrapper wrapper = new TdiSdkWrapper();
+    TdiImplementationShape impl = new TdiImplementation(new HashMap<>(),
+        TestData.DummyPlatform::new);
+    TdiFlowArguments flow = new TdiFlowArguments();
+    flow.addMethod("Echo", CompletableFuture::completedFuture);
+
+    wrapper.api("Compiled", impl.buildApiFlow(flow, null));
+    wrapper.api("Plain", (Object data) -> CompletableFuture.completedFuture(data));
+    wrapper.<String, String>api("Compiled").apply("Hello").get();
+
+    Map<String, TdiFlowStats> stats = wrapper.getFlowStats();
+    assertEquals(1, stats.size());
+    assertEquals(1, stats.get("Compiled").getFlow().getSuccesses());
+    assertEquals("Echo", stats.get("Compiled").getSteps().get(0).getName());
+    assertEquals(1, stats.get("Compiled").getSteps().get(0).getSuccesses());
+
+    // Plugin flows are listed under the plugin name.
+    Function<String, CompletableFuture<String>> pluginFlow = impl.buildApiFlow(flow, null);
+    wrapper.plugin(new TdiPluginBase("pluginName", impl, wrapper) {
+      @Override
+      public CompletableFuture<Boolean> init() {
+        return CompletableFuture.completedFuture(true);
+      }
+
+      @Override
+      public Map<String, TdiFlowStats> getFlowStats() {
+        return Collections.singletonMap("Flow", TdiCompiledFlow.statsOf(pluginFlow));
+      }
+    });
+    pluginFlow.apply("Hello").get();
+    pluginFlow.apply("Hello").get();
+
+    stats = wrapper.getFlowStats();
+    assertEquals(2, stats.size());
+    assertEquals(1, stats.get("Compiled").getFlow().getSuccesses());
+    assertEquals(2, stats.get("pluginName.Flow").getFlow().getSuccesses());
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    TdiSdkWrapper wrapper = new TdiSdkWrapper();
+    assertNull(wrapper.shutdown().get());
+
+    AtomicBoolean shutdown = new AtomicBoolean();
+    TdiPlatformShape platform = new TestData.DummyPlatform(new HashMap<>()) {
+      @Override
+      public CompletableFuture<Void> shutdown() {
+        shutdown.set(true);
+        return CompletableFuture.completedFuture(null);
+      }
+    };
+    wrapper.setPlatform(platform);
+    assertNull(wrapper.shutdown().get());
+    assertTrue(shutdown.get());
+
+    // Platforms holding no resources complete immediately.
+    assertNull(new TestData.DummyPlatform(new HashMap<>()).shutdown().get());
+  }
 }
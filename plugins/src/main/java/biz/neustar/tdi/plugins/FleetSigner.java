@@ -24,9 +24,11 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
@@ -39,13 +41,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import biz.neustar.tdi.fw.implementation.TdiCompiledFlow;
 import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
+import biz.neustar.tdi.fw.implementation.TdiFlowStats;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.keystructure.TdiKeyFlagsEnum;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
 import biz.neustar.tdi.fw.plugin.TdiPluginBase;
 import biz.neustar.tdi.fw.wrapper.TdiSdkWrapperShape;
 import biz.neustar.tdi.sdk.Constants;
+import biz.neustar.tdi.sdk.api.Verify;
+import biz.neustar.tdi.sdk.component.TdiSdkNonceComponent;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
 
 /**
@@ -97,9 +103,21 @@ public class FleetSigner extends TdiPluginBase {
    */
   private Function<String, CompletableFuture<TdiCanonicalMessageShape>> fleetVerify = null;
 
+  /**
+   * Nonces of device messages whose reservation is handed over to fleetVerify,
+   * mapped to the raw payload the cosigned message must carry.
+   */
+  private final Map<String, String> handedOver = new ConcurrentHashMap<>();
+
+  /**
+   * Default verify steps, for the claim checks of a handed over message.
+   */
+  private final Verify verify;
+
   public FleetSigner(TdiImplementationShape impl, TdiSdkWrapperShape sdkWrapper) {
     super("FleetSigner", impl, sdkWrapper);
     LOG.trace("FleetSigner:constructor()");
+    this.verify = new Verify(impl);
 
     // private flows
     this.cosign = this.impl.buildApiFlow(
@@ -128,6 +146,29 @@ public class FleetSigner extends TdiPluginBase {
     );
   }
 
+  /**
+   * Returns the statistics of the cosign, fleetCosign, fleetVerify,
+   * fleetToDevice and fleetFromDevice flows.
+   */
+  @Override
+  public Map<String, TdiFlowStats> getFlowStats() {
+    Map<String, Object> flows = new LinkedHashMap<>();
+    flows.put("cosign", this.cosign);
+    flows.put("fleetCosign", this.fleetCosign);
+    flows.put("fleetVerify", this.fleetVerify);
+    flows.put("fleetToDevice", this.fleetToDevice);
+    flows.put("fleetFromDevice", this.fleetFromDevice);
+
+    Map<String, TdiFlowStats> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> flow : flows.entrySet()) {
+      TdiFlowStats flowStats = TdiCompiledFlow.statsOf(flow.getValue());
+      if (flowStats != null) {
+        stats.put(flow.getKey(), flowStats);
+      }
+    }
+    return stats;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public CompletableFuture<Boolean> init() {
@@ -195,7 +236,23 @@ public class FleetSigner extends TdiPluginBase {
   private TdiFlowArguments buildFlowFleetVerify() {
     TdiFlowArguments flow = new TdiFlowArguments();
     // Prevent the default behavior from taking place for these phases.
-    flow.addOverrideSteps(Arrays.asList("prepSignatures", "handleReturn"));
+    flow.addOverrideSteps(Arrays.asList(Constants.FlowMethods.Verifying.validateClaims,
+        "prepSignatures", "handleReturn"));
+    Function<Object, CompletableFuture<? extends Object>> validateClaims = this.sdkWrapper
+        .getDefaultFlows().get(Constants.Api.VerifyFlow).getFlowMap()
+        .get(Constants.FlowMethods.Verifying.validateClaims);
+    flow.addMethod(Constants.FlowMethods.Verifying.validateClaims, (data) -> {
+      TdiCanonicalMessageShape msgObj = (TdiCanonicalMessageShape) data;
+      String jti = msgObj.getClaims().jti;
+      // The cosigned copy of a device message takes over the reservation of
+      // its nonce, once, and only skips reserving it. afterVerify then
+      // commits it.
+      if (jti != null && msgObj.getRawPayload() != null
+          && handedOver.remove(jti, msgObj.getRawPayload())) {
+        return this.verify.checkClaims(msgObj);
+      }
+      return validateClaims.apply(data);
+    });
     flow.addMethod("prepSignatures", (data) -> {
       TdiCanonicalMessageShape msgObj = (TdiCanonicalMessageShape) data;
       List<CompletableFuture<TdiKeyStructureShape>> promise_queue = new ArrayList<>();
@@ -316,6 +373,20 @@ public class FleetSigner extends TdiPluginBase {
     flow.addOverrideSteps(Arrays.asList(Constants.FlowMethods.Verifying.afterVerify, Constants.FlowMethods.handleReturn));
     flow.addMethod(Constants.FlowMethods.Verifying.afterVerify, (m) -> {
       TdiCanonicalMessageShape validatedMsg = (TdiCanonicalMessageShape) m;
+      TdiSdkNonceComponent nonce =
+          (TdiSdkNonceComponent) this.impl.getModule(Constants.Components.NONCE);
+      // The nonce stays reserved while the message is cosigned, so no copy of
+      // it gets through in the meantime. The cosigned message carries the same
+      // nonce and payload, and fleetVerify takes the reservation over. If the
+      // flow fails, the reservation is released with it.
+      String jti = validatedMsg.getClaims().jti;
+      String rawPayload = validatedMsg.getRawPayload();
+      if (handedOver.putIfAbsent(jti, rawPayload) != null) {
+        CompletableFuture<TdiCanonicalMessageShape> future = new CompletableFuture<>();
+        future.completeExceptionally(new FrameworkRuntimeException(
+            "FleetFromDev() failed in afterVerify: Nonce already handed over: " + jti));
+        return future;
+      }
       return this.cosign.apply(validatedMsg.getReceivedMessage())
         .thenCompose(sm -> {
           TdiCanonicalMessageShape signedMsg = (TdiCanonicalMessageShape)sm;
@@ -332,6 +403,18 @@ public class FleetSigner extends TdiPluginBase {
               }
             });
         })
+        .thenCompose((verified) -> {
+          // fleetVerify did not take the reservation over; settle it here.
+          if (handedOver.remove(jti, rawPayload)) {
+            return nonce.commit(jti).thenApply((arg) -> verified);
+          }
+          return CompletableFuture.completedFuture(verified);
+        })
+        .whenComplete((verified, throwable) -> {
+          if (throwable != null) {
+            handedOver.remove(jti, rawPayload);
+          }
+        })
         .exceptionally(throwable -> {
           String errMsg = "FleetFromDev() failed in afterVerify: " + throwable.getMessage();
           LOG.error(errMsg);
@@ -341,7 +424,7 @@ public class FleetSigner extends TdiPluginBase {
     flow.addMethod(Constants.FlowMethods.handleReturn, (msg) -> {
       LOG.trace("handleReturn, msg={}", msg);
       TdiCanonicalMessageShape tdiMsg = (TdiCanonicalMessageShape) msg;
-      String payload = (String) tdiMsg.getClaims().payload;  // TODO: This API will change very soon.
+      String payload = (String) tdiMsg.getClaims().getPayload();  // TODO: This API will change very soon.
       return CompletableFuture.completedFuture(payload);
     });
     return flow;
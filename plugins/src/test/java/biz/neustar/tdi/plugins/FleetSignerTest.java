@@ -1,9 +1,15 @@
 package biz.neustar.tdi.plugins;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -80,6 +86,30 @@ public class FleetSignerTest {
     PowerMockito.when(mockURL.toString()).thenReturn("mocked-url-" + responseCode);
   }
 
+  /**
+   * Mocks a cosigner that cosigns the message it receives, after waiting for
+   * the test to let it go on.
+   */
+  private void mockPendingCosigner(CountDownLatch pending, CountDownLatch resume)
+      throws Exception {
+    NTDIHelper cosignerSDK = new NTDIHelper(null, "cosigner/config.json");
+    HttpURLConnection mockConn = mock(HttpURLConnection.class);
+    PowerMockito.when(mockConn.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+
+    ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    PowerMockito.when(mockConn.getOutputStream()).thenReturn(outStream);
+    PowerMockito.when(mockConn.getInputStream()).thenAnswer((invocation) -> {
+      pending.countDown();
+      assertTrue(resume.await(30, TimeUnit.SECONDS));
+      String cosignedMsg = cosignerSDK.cosign(outStream.toString("UTF-8"));
+      return new ByteArrayInputStream(cosignedMsg.getBytes());
+    });
+
+    URL mockURL = mock(URL.class);
+    PowerMockito.whenNew(URL.class).withArguments(matches("https?://mocked.example.com/(fleet|project)s/.*?/cosign/?")).thenReturn(mockURL);
+    PowerMockito.when(mockURL.openConnection()).thenReturn(mockConn);
+  }
+
   @Before
   public void setup() throws Exception {
     deviceSdk = new NTDIHelper(null, "device/config.json");
@@ -147,6 +177,63 @@ public class FleetSignerTest {
     assertNotNull(fleetFromDeviceMsg);
   }
 
+  @Test
+  public void testFleetFromDeviceReplayWhileCosigning() throws Exception {
+    CountDownLatch pending = new CountDownLatch(1);
+    CountDownLatch resume = new CountDownLatch(1);
+    mockPendingCosigner(pending, resume);
+
+    String deviceMsg = deviceSdk.sign("message from device");
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> {
+      try {
+        return serverSdk.fleetFromDevice(deviceMsg);
+      }
+      catch (ExecutionException | InterruptedException e) {
+        throw new FrameworkRuntimeException(e.toString());
+      }
+    });
+    assertTrue(pending.await(30, TimeUnit.SECONDS));
+
+    // The nonce is still reserved while the cosigner has the message.
+    try {
+      serverSdk.fleetFromDevice(deviceMsg);
+      fail("Replayed device message accepted while cosigning");
+    }
+    catch (ExecutionException e) {
+      log.info("Replay rejected: " + e.getMessage());
+    }
+
+    resume.countDown();
+    assertEquals("message from device", first.get(30, TimeUnit.SECONDS));
+
+    // The cosigned message committed the nonce.
+    try {
+      serverSdk.fleetFromDevice(deviceMsg);
+      fail("Replayed device message accepted after cosigning");
+    }
+    catch (ExecutionException e) {
+      log.info("Replay rejected: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testFleetFromDeviceRetryAfterCosignerFailure() throws Exception {
+    mockCosigner(HttpURLConnection.HTTP_INTERNAL_ERROR);
+
+    String deviceMsg = deviceSdk.sign("message from device");
+    try {
+      serverSdk.fleetFromDevice(deviceMsg);
+      fail("Device message accepted without a cosignature");
+    }
+    catch (ExecutionException e) {
+      log.info("Cosigner failed: " + e.getMessage());
+    }
+
+    // The failed flow released its nonce, so the device message can be retried.
+    mockCosigner();
+    assertNotNull(serverSdk.fleetFromDevice(deviceMsg));
+  }
+
   @Test(expected = ExecutionException.class)
   public void testFleetToDeviceException() throws Exception {
     mockCosigner();
@@ -71,6 +71,9 @@ public class Constants {
   public static class DefaultJws {
     public static final String type = "JOSE+JSON";
     public static final String alg = "ES256";
+
+    /** Signature type of messages whose claims use the binary encoding. */
+    public static final String binaryType = "JOSE+TDIB";
   }
 
   public static class JwsKeys {
@@ -91,5 +94,28 @@ public class Constants {
     public static final String NBF_MINIMUM = "nbfMinimum";
     public static final String BURNT = "burnt";
     public static final String VERSION = "002";
+    public static final String PERSISTENCE = "persistence";
+    public static final String PERSISTENCE_SNAPSHOT = "snapshot";
+    public static final String PERSISTENCE_JOURNAL = "journal";
+    public static final String COMPACT_EVERY = "compactEvery";
+    public static final int DEFAULT_COMPACT_EVERY = 10000;
+  }
+
+  public static class VerifyCacheConfig {
+    public static final String KEY = "verifyCache";
+    public static final String MAX_ENTRIES = "maxEntries";
+  }
+
+  public static class HeaderCacheConfig {
+    public static final String KEY = "headerCache";
+    public static final String MAX_ENTRIES = "maxEntries";
+  }
+
+  public static class ClaimsConfig {
+    public static final String KEY = "claims";
+    public static final String ENCODING = "encoding";
+    public static final String ENCODING_JSON = "json";
+    public static final String ENCODING_BINARY = "binary";
+    public static final String LAZY_PAYLOAD = "lazyPayload";
   }
 }
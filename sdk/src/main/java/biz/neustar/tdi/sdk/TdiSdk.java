@@ -75,6 +75,7 @@ public class TdiSdk {
         return impl.loadModules(ComponentUtils.getModules())
           .thenApply(arg -> {
             TdiSdkWrapperShape sdkWrapper = new TdiSdkWrapper();
+            ((TdiSdkWrapper) sdkWrapper).setPlatform(impl.getPlatform());
             if (this.sdkOptions.exposeImpl) {
               ((TdiSdkWrapper) sdkWrapper).setImpl(impl);
             }
@@ -16,7 +16,12 @@
 
 package biz.neustar.tdi.sdk.api;
 
+import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
+import biz.neustar.tdi.sdk.Constants.Components;
+import biz.neustar.tdi.sdk.component.TdiSdkNonceComponent;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Base class for container classes for default work-flows.
@@ -36,4 +41,32 @@ public class BaseApi {
     impl = imp;
   }
 
+  /**
+   * Checks and reserves the nonce of a message. If the flow carrying the
+   * message fails after the reservation, whichever step fails, the nonce is
+   * released, so that a rejected message, for instance a forged copy of a
+   * genuine one, does not use it up. Only the flow that reserved the nonce
+   * releases it.
+   *
+   * @param msg
+   *          : received message.
+   *
+   * @return future of true if the nonce is valid and now reserved by this
+   *         flow, false otherwise.
+   */
+  CompletableFuture<Boolean> reserveNonce(TdiCanonicalMessageShape msg) {
+    TdiSdkNonceComponent nonce = (TdiSdkNonceComponent) impl.getModule(Components.NONCE);
+    String jti = msg.getClaims().jti;
+    return nonce.checkAndReserve(jti).thenApply((Boolean reserved) -> {
+      if (reserved) {
+        msg.whenFlowComplete((result, throwable) -> {
+          if (throwable != null) {
+            nonce.release(jti);
+          }
+        });
+      }
+      return reserved;
+    });
+  }
+
 }
@@ -22,9 +22,9 @@ import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
 import biz.neustar.tdi.fw.exception.InvalidFormatException;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
-import biz.neustar.tdi.fw.utils.Utils;
 import biz.neustar.tdi.sdk.Constants.Components;
 import biz.neustar.tdi.sdk.component.TdiSdkJsonWebSignature;
+import biz.neustar.tdi.sdk.component.jws.JwsJsonCodec;
 import biz.neustar.tdi.sdk.component.jws.TdiJws;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
 import biz.neustar.tdi.sdk.exception.ApiException;
@@ -71,7 +71,7 @@ public class CoSign extends BaseApi {
       TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
       CompletableFuture<TdiCanonicalMessageShape> future = new CompletableFuture<>();
       try {
-        TdiJws jwsMessage = Utils.jsonToObject((String) clientJwsString, TdiJws.class);
+        TdiJws jwsMessage = JwsJsonCodec.readJws((String) clientJwsString);
         tdiMsg.setRawPayload(jwsMessage.payload);
 
         for (TdiJwsSignature signature : jwsMessage.signatures) {
@@ -147,14 +147,14 @@ public class CoSign extends BaseApi {
 
     if (StringUtils.isNotBlank(tdiMsg.getBuiltMessage())) {
       try {
-        TdiJws jwsMessage = Utils.jsonToObject(tdiMsg.getBuiltMessage(), TdiJws.class);
+        TdiJws jwsMessage = JwsJsonCodec.readJws(tdiMsg.getBuiltMessage());
         List<Object> heldSignatures = tdiMsg.getHeldSignatures();
         Iterator<Object> iter = heldSignatures.iterator();
         while (iter.hasNext()) {
           jwsMessage.signatures.add((TdiJwsSignature) iter.next());
         }
 
-        tdiMsg.setBuiltMessage(Utils.objectToJson(jwsMessage));
+        tdiMsg.setBuiltMessage(JwsJsonCodec.writeJws(jwsMessage));
         result.complete(tdiMsg);
       } catch (InvalidFormatException exp) {
         result.completeExceptionally(exp);
@@ -64,7 +64,7 @@ public class Sign extends BaseApi {
   public CompletableFuture<TdiCanonicalMessageShape> handleInit(Object clientData) {
     LOG.trace("Invoking Sign:handleInit");
     return impl.generateMsg(null).thenApply((TdiCanonicalMessageShape msg) -> {
-      msg.getClaims().payload = clientData;
+      msg.getClaims().setPayload(clientData);
       return msg;
     });
   }
@@ -112,7 +112,9 @@ public class Verify extends BaseApi {
   }
 
   /**
-   * Verify that the claims are correct.
+   * Verify that the claims are correct. The nonce is reserved here, so that
+   * only one of several concurrent copies of a message gets past this step.
+   * It is released if the flow fails later on.
    *
    * @param msg
    *          : received {@link TdiCanonicalMessageShape} instance
@@ -124,6 +126,32 @@ public class Verify extends BaseApi {
   public CompletableFuture<TdiCanonicalMessageShape> validateClaims(Object msg) {
     LOG.trace("Invoking Verify:validateClaims");
     TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
+    return checkClaims(tdiMsg).thenCompose((arg) -> reserveNonce(tdiMsg))
+      .thenCompose((Boolean check) -> {
+        CompletableFuture<TdiCanonicalMessageShape> future = new CompletableFuture<>();
+        if (check) {
+          future.complete(tdiMsg);
+        }
+        else {
+          future.completeExceptionally(new ApiException("Bad Nonce"));
+        }
+        return future;
+      });
+  }
+
+  /**
+   * Runs the checks of {@link #validateClaims(Object)} other than the nonce
+   * check: issuer, expiry and not-before.
+   *
+   * @param msg
+   *          : received {@link TdiCanonicalMessageShape} instance
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link TdiCanonicalMessageShape}. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<TdiCanonicalMessageShape> checkClaims(Object msg) {
+    TdiCanonicalMessageShape tdiMsg = (TdiCanonicalMessageShape) msg;
     CompletableFuture<TdiCanonicalMessageShape> future = new CompletableFuture<>();
 
     if (tdiMsg.getClaims().iss == null) {
@@ -140,17 +168,8 @@ public class Verify extends BaseApi {
       future.completeExceptionally(new ApiException("Token is not yet valid (nbf)"));
       return future;
     }
-    return ((TdiSdkNonceComponent) impl.getModule(Components.NONCE))
-      .check((String) tdiMsg.getClaims().jti)
-      .thenCompose((Boolean check) -> {
-        if (check) {
-          future.complete(tdiMsg);
-        }
-        else {
-          future.completeExceptionally(new ApiException("Bad Nonce"));
-        }
-        return future;
-      });
+    future.complete(tdiMsg);
+    return future;
   }
 
 
@@ -255,7 +274,7 @@ public class Verify extends BaseApi {
     LOG.trace("Invoking Verify:afterVerify");
     TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
     return ((TdiSdkNonceComponent) impl.getModule(Components.NONCE))
-      .burn(tdiMsg.getClaims().jti)
+      .commit(tdiMsg.getClaims().jti)
       .thenApply(arg -> {
         LOG.trace("Nonce successfully burned");
         return tdiMsg;
@@ -275,7 +294,7 @@ public class Verify extends BaseApi {
   public CompletableFuture<String> handleReturn(Object msg) {
     LOG.trace("Invoking Verify:handleReturn");
     TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
-    return CompletableFuture.completedFuture((String)tdiMsg.getClaims().payload);
+    return CompletableFuture.completedFuture((String)tdiMsg.getClaims().getPayload());
   }
 
 }
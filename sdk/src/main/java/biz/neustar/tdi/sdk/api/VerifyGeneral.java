@@ -91,7 +91,9 @@ public class VerifyGeneral extends BaseApi {
   }
 
   /**
-   * Verify that the claims are correct.
+   * Verify that the claims are correct. The nonce is reserved here, so that
+   * only one of several concurrent copies of a message gets past this step.
+   * It is released if the flow fails later on.
    *
    * @param msg
    *          : received {@link TdiCanonicalMessageShape} instance
@@ -119,8 +121,7 @@ public class VerifyGeneral extends BaseApi {
       future.completeExceptionally(new ApiException("Token is not yet valid (nbf)"));
       return future;
     }
-    return ((TdiSdkNonceComponent) impl.getModule(Components.NONCE))
-      .check((String) tdiMsg.getClaims().jti).thenApply((Boolean check) -> {
+    return reserveNonce(tdiMsg).thenApply((Boolean check) -> {
         if (check) {
           future.complete(tdiMsg);
         }
@@ -226,7 +227,7 @@ public class VerifyGeneral extends BaseApi {
     LOG.trace("Invoking VerifyGeneral:afterVerify");
     TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
     return ((TdiSdkNonceComponent) impl.getModule(Components.NONCE))
-      .burn(tdiMsg.getClaims().jti)
+      .commit(tdiMsg.getClaims().jti)
       .thenApply(arg -> {
         LOG.trace("Nonce successfully burned");
         return tdiMsg;
@@ -246,7 +247,7 @@ public class VerifyGeneral extends BaseApi {
   public CompletableFuture<String> handleReturn(Object msg) {
     LOG.trace("Invoking VerifyGeneral:handleReturn");
     TdiCanonicalMessage tdiMsg = (TdiCanonicalMessage) msg;
-    return CompletableFuture.completedFuture((String)tdiMsg.getClaims().payload);
+    return CompletableFuture.completedFuture((String)tdiMsg.getClaims().getPayload());
   }
 
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.sdk.component;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Burnt nonces, grouped into buckets by the expiry second embedded in them.
+ *
+ * <p>
+ * A nonce is only looked up in the bucket of its own expiry, and nonces
+ * expiring in the same second expire together: {@link #expire(long)} drops
+ * whole buckets without visiting the nonces they hold, so its cost depends on
+ * the number of seconds that passed, not on the number of live nonces.
+ *
+ * <p>
+ * A nonce can also be reserved while the message carrying it is verified.
+ * {@link #reserve(long, String)} succeeds for exactly one caller, and the
+ * reservation is then either turned into a burn by {@link #add(long, String)}
+ * or dropped by {@link #release(long, String)}. Reserved nonces count as
+ * burnt for {@link #contains(long, String)}, but are left out of
+ * {@link #asMap()}, so that only burnt nonces get persisted.
+ *
+ * <p>
+ * Once {@link #expire(long)} has passed a second, nonces expiring at or
+ * before it are no longer taken in, and a bucket created for one by a racing
+ * call is dropped again. Each bucket
+ * is a {@link ConcurrentHashMap}, so updates to different nonces only
+ * contend when they land in the same bin of the same bucket. All methods may
+ * be called from several threads.
+ */
+public class NonceBurnList {
+  private static final Boolean RESERVED = Boolean.FALSE;
+  private static final Boolean BURNT = Boolean.TRUE;
+
+  private final ConcurrentNavigableMap<Long, ConcurrentMap<String, Boolean>> buckets =
+      new ConcurrentSkipListMap<>();
+  private final AtomicLong floor = new AtomicLong(Long.MIN_VALUE);
+  private final Map<String, Long> view = new MapView();
+
+  /**
+   * Tells whether the given nonce was burnt.
+   *
+   * @param expiry
+   *          : expiry embedded in the nonce, in epoch seconds.
+   * @param nonce
+   *          : nonce string.
+   *
+   * @return true if the nonce is burnt or reserved.
+   */
+  public boolean contains(long expiry, String nonce) {
+    ConcurrentMap<String, Boolean> bucket = buckets.get(expiry);
+    return bucket != null && bucket.containsKey(nonce);
+  }
+
+  /**
+   * Burns a nonce, whether or not it was reserved.
+   *
+   * @param expiry
+   *          : expiry embedded in the nonce, in epoch seconds.
+   * @param nonce
+   *          : nonce string.
+   *
+   * @return true if the nonce was neither burnt nor reserved yet, false as
+   *         well if it already expired.
+   */
+  public boolean add(long expiry, String nonce) {
+    ConcurrentMap<String, Boolean> bucket = bucket(expiry);
+    return bucket != null && bucket.put(nonce, BURNT) == null;
+  }
+
+  /**
+   * Reserves a nonce that is neither burnt nor reserved.
+   *
+   * @param expiry
+   *          : expiry embedded in the nonce, in epoch seconds.
+   * @param nonce
+   *          : nonce string.
+   *
+   * @return true if this call reserved the nonce, false if it was already
+   *         burnt, reserved or expired.
+   */
+  public boolean reserve(long expiry, String nonce) {
+    ConcurrentMap<String, Boolean> bucket = bucket(expiry);
+    return bucket != null && bucket.putIfAbsent(nonce, RESERVED) == null;
+  }
+
+  /**
+   * Drops the reservation of a nonce. A burnt nonce stays burnt.
+   *
+   * @param expiry
+   *          : expiry embedded in the nonce, in epoch seconds.
+   * @param nonce
+   *          : nonce string.
+   *
+   * @return true if the nonce was reserved.
+   */
+  public boolean release(long expiry, String nonce) {
+    ConcurrentMap<String, Boolean> bucket = buckets.get(expiry);
+    return bucket != null && bucket.remove(nonce, RESERVED);
+  }
+
+  /**
+   * Burns all nonces of the given map, as stored by {@link #asMap()}.
+   *
+   * @param burnt
+   *          : map of nonce strings to their expiry in epoch seconds.
+   */
+  public void addAll(Map<String, ? extends Number> burnt) {
+    for (Map.Entry<String, ? extends Number> entry : burnt.entrySet()) {
+      add(entry.getValue().longValue(), entry.getKey());
+    }
+  }
+
+  /**
+   * Drops every bucket expiring at or before the given time, or at or before
+   * the latest time passed so far.
+   *
+   * @param now
+   *          : current time in epoch seconds.
+   *
+   * @return latest expiry of the dropped buckets, or null if none was dropped.
+   */
+  public Long expire(long now) {
+    long limit = floor.accumulateAndGet(now, Math::max);
+    Long latest = null;
+    Map.Entry<Long, ConcurrentMap<String, Boolean>> bucket;
+    while ((bucket = buckets.firstEntry()) != null && bucket.getKey() <= limit) {
+      if (buckets.remove(bucket.getKey(), bucket.getValue())) {
+        latest = bucket.getKey();
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Returns the number of burnt nonces.
+   *
+   * @return count of burnt and reserved nonces.
+   */
+  public int size() {
+    int size = 0;
+    for (ConcurrentMap<String, Boolean> bucket : buckets.values()) {
+      size += bucket.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of expiry seconds holding burnt nonces.
+   *
+   * @return bucket count.
+   */
+  public int bucketCount() {
+    return buckets.size();
+  }
+
+  /**
+   * Returns a read-only live view of the list, mapping each nonce to its
+   * expiry. This is the format the list is persisted in.
+   *
+   * @return {@link Map}&lt;String, Long&gt;
+   */
+  public Map<String, Long> asMap() {
+    return view;
+  }
+
+  /**
+   * Returns the bucket of the given expiry, or null if that second already
+   * expired.
+   */
+  private ConcurrentMap<String, Boolean> bucket(long expiry) {
+    if (expiry <= floor.get()) {
+      return null;
+    }
+    ConcurrentMap<String, Boolean> bucket =
+        buckets.computeIfAbsent(expiry, (key) -> new ConcurrentHashMap<>());
+    // An expire that ran meanwhile may have missed the bucket created here.
+    if (expiry <= floor.get()) {
+      buckets.remove(expiry, bucket);
+      return null;
+    }
+    return bucket;
+  }
+
+  private class MapView extends AbstractMap<String, Long> {
+    @Override
+    public Set<Map.Entry<String, Long>> entrySet() {
+      return new AbstractSet<Map.Entry<String, Long>>() {
+        @Override
+        public Iterator<Map.Entry<String, Long>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          int size = 0;
+          for (Iterator<Map.Entry<String, Long>> entries = iterator(); entries.hasNext(); ) {
+            entries.next();
+            size++;
+          }
+          return size;
+        }
+      };
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<String, Long>> {
+    private final Iterator<Map.Entry<Long, ConcurrentMap<String, Boolean>>> bucketIterator =
+        buckets.entrySet().iterator();
+    private Long expiry;
+    private Iterator<Map.Entry<String, Boolean>> nonceIterator = Collections.emptyIterator();
+    private Map.Entry<String, Long> next;
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        while (!nonceIterator.hasNext()) {
+          if (!bucketIterator.hasNext()) {
+            return false;
+          }
+          Map.Entry<Long, ConcurrentMap<String, Boolean>> bucket = bucketIterator.next();
+          expiry = bucket.getKey();
+          nonceIterator = bucket.getValue().entrySet().iterator();
+        }
+        Map.Entry<String, Boolean> nonce = nonceIterator.next();
+        if (BURNT.equals(nonce.getValue())) {
+          next = new AbstractMap.SimpleImmutableEntry<>(nonce.getKey(), expiry);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Map.Entry<String, Long> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, Long> entry = next;
+      next = null;
+      return entry;
+    }
+  }
+}
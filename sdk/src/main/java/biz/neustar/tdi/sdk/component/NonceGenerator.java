@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.sdk.component;
+
+import biz.neustar.tdi.fw.platform.facet.time.TdiPlatformTimeShape;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Builds nonce strings: a version, the ISO date of the expiry and a random
+ * alphanumeric suffix.
+ *
+ * <p>
+ * The clock of the time facet is read once per nonce, and the expiry date is
+ * formatted from that same reading. The version and date prefix only changes
+ * once a second, so it is formatted on the first nonce of each second and
+ * reused for the others. The suffix characters are drawn from a per-thread buffer of
+ * {@link SecureRandom} bytes refilled in bulk. Each byte is reduced to 6 bits
+ * and values past the end of the alphabet are skipped, so all characters are
+ * equally likely. Instances may be used from several threads.
+ */
+public class NonceGenerator {
+  static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+      + "abcdefghijklmnopqrstuvwxyz";
+  private static final int BUFFER_SIZE = 256;
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter
+      .ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
+  private final TdiPlatformTimeShape time;
+  private final String version;
+  private final long expDuration;
+  private final int randomLength;
+  private final ThreadLocal<RandomBuffer> buffers = ThreadLocal.withInitial(RandomBuffer::new);
+  private volatile Prefix prefix;
+
+  /**
+   * Constructor.
+   *
+   * @param time
+   *          : Time facet providing the current time.
+   * @param version
+   *          : Version the nonces start with.
+   * @param expDuration
+   *          : Seconds from now until the nonces expire.
+   * @param randomLength
+   *          : Number of random characters ending the nonces.
+   */
+  public NonceGenerator(TdiPlatformTimeShape time, String version, long expDuration,
+      int randomLength) {
+    this.time = time;
+    this.version = version;
+    this.expDuration = expDuration;
+    this.randomLength = randomLength;
+  }
+
+  /**
+   * Creates a new nonce string.
+   *
+   * @return nonce string.
+   */
+  public String next() {
+    long now = time.timestamp(null);
+    Prefix current = prefix;
+    if (current == null || current.second != now) {
+      current = new Prefix(now,
+          version + ISO_FORMATTER.format(Instant.ofEpochSecond(now + expDuration)));
+      prefix = current;
+    }
+
+    int prefixLength = current.value.length();
+    char[] nonce = new char[prefixLength + randomLength];
+    current.value.getChars(0, prefixLength, nonce, 0);
+    RandomBuffer buffer = buffers.get();
+    for (int index = prefixLength; index < nonce.length; index++) {
+      nonce[index] = buffer.nextChar();
+    }
+    return new String(nonce);
+  }
+
+  /**
+   * Version and ISO date shared by the nonces created within one second.
+   */
+  private static class Prefix {
+    private final long second;
+    private final String value;
+
+    Prefix(long second, String value) {
+      this.second = second;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Random bytes of one thread.
+   */
+  private static class RandomBuffer {
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private int position = BUFFER_SIZE;
+
+    char nextChar() {
+      while (true) {
+        if (position == BUFFER_SIZE) {
+          RANDOM.nextBytes(bytes);
+          position = 0;
+        }
+        int value = bytes[position++] & 0x3F;
+        if (value < ALPHABET.length()) {
+          return ALPHABET.charAt(value);
+        }
+      }
+    }
+  }
+}
@@ -23,19 +23,33 @@ import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
 import biz.neustar.tdi.fw.exception.InvalidFormatException;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructureShape;
-import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyRequest;
+import biz.neustar.tdi.fw.platform.facet.crypto.VerifyResult;
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
 import biz.neustar.tdi.sdk.Constants.DefaultJws;
+import biz.neustar.tdi.sdk.Constants.HeaderCacheConfig;
+import biz.neustar.tdi.sdk.Constants.VerifyCacheConfig;
+import biz.neustar.tdi.sdk.component.jws.JwsEnvelopeScanner;
+import biz.neustar.tdi.sdk.component.jws.JwsJsonCodec;
+import biz.neustar.tdi.sdk.component.jws.ProtectedHeaderCache;
+import biz.neustar.tdi.sdk.component.jws.ProtectedHeaderCache.ProtectedHeader;
 import biz.neustar.tdi.sdk.component.jws.TdiJws;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsHeader;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
+import biz.neustar.tdi.sdk.component.jws.VerifiedSignatureCache;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Pattern;
 
 /**
  * This component is the parser/packer layer for messages with the JWS wire
@@ -43,7 +57,9 @@ import java.util.regex.Pattern;
  */
 public class TdiSdkJsonWebSignature extends TdiComponent {
   private static final Logger LOG = LoggerFactory.getLogger(TdiSdkJsonWebSignature.class);
-  private static String jwsPatternExpr = "^[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+$";
+
+  private final VerifiedSignatureCache verifiedCache;
+  private final ProtectedHeaderCache headerCache;
 
   /**
    * Constructor.
@@ -55,6 +71,64 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
    */
   public TdiSdkJsonWebSignature(String componentName, TdiImplementationShape impl) {
     super(componentName, impl);
+
+    this.verifiedCache = new VerifiedSignatureCache(cacheSize(VerifyCacheConfig.KEY,
+        VerifyCacheConfig.MAX_ENTRIES, VerifiedSignatureCache.DEFAULT_MAX_ENTRIES));
+    this.headerCache = new ProtectedHeaderCache(cacheSize(HeaderCacheConfig.KEY,
+        HeaderCacheConfig.MAX_ENTRIES, ProtectedHeaderCache.DEFAULT_MAX_ENTRIES));
+  }
+
+  private int cacheSize(String cacheKey, String sizeKey, int defaultSize) {
+    Map<String, Object> config = this.getConfig();
+    if (config != null && config.get(cacheKey) instanceof Map) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> cacheConfig = (Map<String, Object>) config.get(cacheKey);
+      if (cacheConfig.get(sizeKey) instanceof Number) {
+        return ((Number) cacheConfig.get(sizeKey)).intValue();
+      }
+    }
+    return defaultSize;
+  }
+
+  /**
+   * Returns the cache of signatures that already passed verification.
+   *
+   * @return {@link VerifiedSignatureCache} instance.
+   */
+  public VerifiedSignatureCache getVerifiedCache() {
+    return verifiedCache;
+  }
+
+  /**
+   * Forgets every cached verification made with the given key. Called by the
+   * keystore when the key is replaced or forgotten, so that messages it signed
+   * are verified again.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void purgeVerified(String kid) {
+    verifiedCache.purge(kid);
+  }
+
+  /**
+   * Returns the cache of encoded protected headers used when signing.
+   *
+   * @return {@link ProtectedHeaderCache} instance.
+   */
+  public ProtectedHeaderCache getHeaderCache() {
+    return headerCache;
+  }
+
+  /**
+   * Forgets the protected headers built for the given key. Called by the
+   * keystore when the key is replaced or forgotten.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void purgeHeaders(String kid) {
+    headerCache.purge(kid);
   }
 
   /*
@@ -64,6 +138,10 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
    */
   @Override
   public CompletableFuture<Void> init() {
+    this.getPlatform().getKeystore().addKeyChangeListener((kid) -> {
+      purgeVerified(kid);
+      purgeHeaders(kid);
+    });
     return CompletableFuture.completedFuture(null);
   }
 
@@ -71,6 +149,11 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
    * Calls the cryptography layer to sign a serialized payload and places the
    * resulting signatures in the JWS envelope.
    *
+   * <p>
+   * The encoded protected header of each signer is taken from the
+   * {@link ProtectedHeaderCache} when it was built before for the same kid,
+   * signature type and key data.
+   *
    * @param message
    *          : The {@link TdiCanonicalMessage} containing the payload to
    *          verify.
@@ -82,40 +165,52 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
   public CompletableFuture<TdiCanonicalMessageShape> sign(TdiCanonicalMessageShape message) {
     try {
       TdiJws jwsMessage = new TdiJws();
-      List<CompletableFuture<?>> queue = new ArrayList<>();
+      List<CompletableFuture<TdiJwsSignature>> queue = new ArrayList<>();
 
       jwsMessage.payload = message.getRawPayload();
 
+      String typ = !StringUtils.isEmpty(message.getSignatureType()) ? message.getSignatureType()
+          : DefaultJws.type;
+
       for (TdiKeyStructureShape keyStruct : message.getSigners()) {
         TdiJwsHeader header = new TdiJwsHeader();
-        header.typ = !StringUtils.isEmpty(message.getSignatureType()) ? message.getSignatureType()
-            : DefaultJws.type;
+        header.typ = typ;
         header.alg = DefaultJws.alg;
         header.kid = keyStruct.getKeyId();
 
+        ProtectedHeader encoded = headerCache.get(header.kid, typ, keyStruct.getKeyData());
+        if (encoded == null) {
+          encoded = headerCache.put(header.kid, typ, keyStruct.getKeyData(),
+              encodeSegment(JwsJsonCodec.writeHeaderUtf8(header)));
+        }
+
         TdiJwsSignature signature = new TdiJwsSignature();
 
         signature.parsedHeader = header;
-        signature.protectedHeader = this.getPlatform().getUtils()
-            .b64UrlEncode(Utils.objectToJson(header));
+        signature.protectedHeader = encoded.getEncoded();
 
-        String toSign = signature.protectedHeader.concat(".").concat(message.getRawPayload());
+        ByteBuffer toSign = signingInput(encoded.getSigningInputPrefix(),
+            message.getRawPayload());
 
         queue.add(
             this.getPlatform().getCrypto().sign(keyStruct, toSign).thenApply((finalSignature) -> {
               signature.signature = finalSignature;
-              jwsMessage.signatures.add(signature);
-
-              return true;
+              return signature;
             }));
       }
 
+      // The crypto callbacks may run on several threads at once, so the
+      // signatures are only collected here, once all of them are done, in
+      // the order of the signers.
       return CompletableFuture.allOf(queue.toArray(new CompletableFuture<?>[0]))
           .thenCompose((arg) -> {
             CompletableFuture<TdiCanonicalMessageShape> result = new CompletableFuture<>();
 
             try {
-              message.setBuiltMessage(Utils.objectToJson(jwsMessage));
+              for (CompletableFuture<TdiJwsSignature> signature : queue) {
+                jwsMessage.signatures.add(signature.join());
+              }
+              message.setBuiltMessage(JwsJsonCodec.writeJws(jwsMessage));
               result.complete(message);
             } catch (InvalidFormatException e) {
               result.completeExceptionally(e);
@@ -154,28 +249,26 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
     }
 
     try {
-      if (Pattern.matches(jwsPatternExpr, receivedMessage)) {
+      String[] splits = JwsEnvelopeScanner.splitCompact(receivedMessage);
+      if (splits != null) {
         // Is a compact JWS message.
-        String[] splits = receivedMessage.split("\\.");
         TdiJwsSignature signature = new TdiJwsSignature();
 
-        signature.parsedHeader = Utils.jsonToObject(
-            this.getPlatform().getUtils().b64UrlDecode(splits[0]), TdiJwsHeader.class);
+        signature.parsedHeader = JwsJsonCodec.readHeader(decodeSegment(splits[0]));
         signature.protectedHeader = splits[0];
         signature.signature = splits[2];
 
         message.addSignatureToVerify(signature);
         message.setRawPayload(splits[1]);
       } else {
-        TdiJws jwsMessage = Utils.jsonToObject(receivedMessage, TdiJws.class);
+        TdiJws jwsMessage = JwsJsonCodec.readJws(receivedMessage);
         if (!StringUtils.isEmpty(jwsMessage.payload) && jwsMessage.signatures != null
             && !jwsMessage.signatures.isEmpty()) {
           // A normal JWS message.
           message.setRawPayload(jwsMessage.payload);
           for (TdiJwsSignature signature : jwsMessage.signatures) {
-            String headerJson = this.getPlatform().getUtils()
-                .b64UrlDecode(signature.protectedHeader);
-            signature.parsedHeader = Utils.jsonToObject(headerJson, TdiJwsHeader.class);
+            signature.parsedHeader = JwsJsonCodec
+                .readHeader(decodeSegment(signature.protectedHeader));
             message.addSignatureToVerify(signature);
           }
         } else {
@@ -190,15 +283,37 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
     return result;
   }
 
+  /**
+   * Base64url encodes a serialized JWS segment straight from its UTF-8 bytes.
+   */
+  private String encodeSegment(byte[] utf8) {
+    byte[] encoded = this.getPlatform().getUtils().b64UrlEncode(utf8, 0, utf8.length);
+    return new String(encoded, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Decodes a base64url encoded JWS segment to the UTF-8 bytes of its JSON.
+   */
+  private byte[] decodeSegment(String segment) {
+    byte[] ascii = segment.getBytes(StandardCharsets.US_ASCII);
+    return this.getPlatform().getUtils().b64UrlDecode(ascii, 0, ascii.length);
+  }
+
   /**
    * Calls the cryptography layer to verify that the JWS is authentic.
    *
+   * <p>
+   * A signature that already passed verification for the same kid, key data
+   * and signing input is not verified again until the exp claim of the
+   * message is reached. See {@link VerifiedSignatureCache}.
+   *
    * @param message
    *          : The TdiCanonicalMessage containing the payload to verify.
    *
    * @return {@link CompletableFuture} with either of the following states: <br>
    *         <b>Completed Successfully</b>: {@link TdiCanonicalMessageShape}. <br>
-   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure,
+   *         including a signature that does not verify.
    */
   public CompletableFuture<TdiCanonicalMessageShape> verify(TdiCanonicalMessageShape message) {
     List<CompletableFuture<?>> queue = new ArrayList<>();
@@ -206,14 +321,183 @@ public class TdiSdkJsonWebSignature extends TdiComponent {
       TdiJwsSignature signature = (TdiJwsSignature) message.getSignaturesToVerify().get(loopIndex);
       queue.add(this.getPlatform().getKeystore().getKey(signature.parsedHeader.kid)
           .thenCompose((TdiKeyStructureShape key) -> {
-            String toVerifyPayload = (signature.protectedHeader)
-              .concat(".")
-              .concat(message.getRawPayload());
-            return this.getPlatform().getCrypto().verify(key, toVerifyPayload, signature.signature);
+            ByteBuffer toVerify = signingInput(signature.protectedHeader,
+                message.getRawPayload());
+
+            // Messages without an expiry are never cached.
+            TdiClaims claims = message.getClaims();
+            Long exp = claims != null ? claims.exp : null;
+            String cacheKey = verifiedCache.isEnabled() && exp != null
+                ? VerifiedSignatureCache.cacheKey(signature.parsedHeader.kid, toVerify,
+                    signature.signature)
+                : null;
+            if (cacheKey != null && verifiedCache.isVerified(cacheKey, key.getKeyData(),
+                this.getPlatform().getTime().timestamp(null))) {
+              return CompletableFuture.completedFuture(true);
+            }
+
+            return this.getPlatform().getCrypto().verify(key, toVerify,
+                signature.signature.getBytes(StandardCharsets.US_ASCII))
+                .thenApply((Boolean verified) -> {
+                  if (!Boolean.TRUE.equals(verified)) {
+                    throw new FrameworkRuntimeException("Invalid signature");
+                  }
+                  if (cacheKey != null) {
+                    verifiedCache.put(cacheKey, signature.parsedHeader.kid, key.getKeyData(),
+                        exp);
+                  }
+                  return verified;
+                });
           }));
     }
     return CompletableFuture.allOf(queue.toArray(new CompletableFuture<?>[0])).thenApply((arg) -> {
       return message;
     });
   }
+
+  /**
+   * Verifies the signatures of several unpacked messages with a single call to
+   * the batch verification of the cryptography layer.
+   *
+   * <p>
+   * A message is reported as verified only if it carries at least one
+   * signature and every one of its signatures was verified. A message whose
+   * key cannot be found or whose signature cannot be checked is reported as
+   * not verified without affecting the other messages.
+   *
+   * @param messages
+   *          : List of {@link TdiCanonicalMessageShape} already passed through
+   *          {@link #unpack(TdiCanonicalMessageShape)}.
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: List of {@link Boolean}, one per
+   *         message in the order of the messages. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<List<Boolean>> verifyBatch(List<TdiCanonicalMessageShape> messages) {
+    if (messages == null || messages.isEmpty()) {
+      return CompletableFuture.completedFuture(new ArrayList<>());
+    }
+
+    Boolean[] verified = new Boolean[messages.size()];
+    List<Integer> owners = new ArrayList<>();
+    List<CompletableFuture<VerifyRequest>> lookups = new ArrayList<>();
+
+    for (int msgIndex = 0; msgIndex < messages.size(); msgIndex++) {
+      TdiCanonicalMessageShape message = messages.get(msgIndex);
+      List<Object> signatures = message.getSignaturesToVerify();
+      verified[msgIndex] = signatures != null && !signatures.isEmpty();
+      if (!verified[msgIndex]) {
+        continue;
+      }
+
+      for (Object sigObject : signatures) {
+        TdiJwsSignature signature = (TdiJwsSignature) sigObject;
+        CompletableFuture<VerifyRequest> lookup;
+        try {
+          lookup = this.getPlatform().getKeystore().getKey(signature.parsedHeader.kid)
+              .thenApply((TdiKeyStructureShape key) -> new VerifyRequest(key,
+                  signingInput(signature.protectedHeader, message.getRawPayload()),
+                  signature.signature.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception err) {
+          lookup = new CompletableFuture<>();
+          lookup.completeExceptionally(err);
+        }
+        owners.add(msgIndex);
+        lookups.add(lookup.exceptionally((err) -> {
+          LOG.error("Unable to resolve key for batch verification: " + err.getMessage());
+          return null;
+        }));
+      }
+    }
+
+    return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+        .thenCompose((arg) -> {
+          List<VerifyRequest> requests = new ArrayList<>(lookups.size());
+          List<Integer> requestOwners = new ArrayList<>(lookups.size());
+          for (int index = 0; index < lookups.size(); index++) {
+            VerifyRequest request = lookups.get(index).join();
+            if (request == null || request.getKey() == null) {
+              verified[owners.get(index)] = false;
+            } else {
+              requests.add(request);
+              requestOwners.add(owners.get(index));
+            }
+          }
+
+          return this.getPlatform().getCrypto().verifyBatch(requests)
+              .thenApply((List<VerifyResult> results) -> {
+                for (int index = 0; index < results.size(); index++) {
+                  if (!results.get(index).isVerified()) {
+                    verified[requestOwners.get(index)] = false;
+                  }
+                }
+                return Arrays.asList(verified);
+              });
+        });
+  }
+
+  /**
+   * Builds the JWS signing input {@code ASCII(protected header || '.' ||
+   * payload)} in a buffer of exactly its size. Both parts are base64url text,
+   * so every char becomes one byte and the payload is encoded straight into
+   * the buffer without an intermediate copy. Input that is not ASCII falls
+   * back to a UTF-8 encoded copy.
+   *
+   * <p>
+   * Each signature gets its own buffer: the crypto layer reads it
+   * asynchronously, so a buffer cannot be reused before its future completes.
+   *
+   * @param protectedHeader
+   *          : Encoded protected header.
+   * @param payload
+   *          : Encoded payload.
+   *
+   * @return {@link ByteBuffer} positioned at the start of the signing input.
+   */
+  static ByteBuffer signingInput(String protectedHeader, String payload) {
+    ByteBuffer buffer = ByteBuffer.allocate(protectedHeader.length() + 1 + payload.length());
+    CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    if (encoder.encode(CharBuffer.wrap(protectedHeader), buffer, false).isUnderflow()
+        && buffer.hasRemaining()) {
+      buffer.put((byte) '.');
+      if (encoder.encode(CharBuffer.wrap(payload), buffer, true).isUnderflow()) {
+        buffer.flip();
+        return buffer;
+      }
+    }
+
+    // Not plain ASCII, let the String encoder size the buffer.
+    return ByteBuffer.wrap(protectedHeader.concat(".").concat(payload)
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Builds the JWS signing input from an already encoded
+   * {@code ASCII(protected header || '.')} prefix, as held by the
+   * {@link ProtectedHeaderCache}.
+   *
+   * @param prefix
+   *          : Signing input prefix. Its position is left unchanged.
+   * @param payload
+   *          : Encoded payload.
+   *
+   * @return {@link ByteBuffer} positioned at the start of the signing input.
+   */
+  static ByteBuffer signingInput(ByteBuffer prefix, String payload) {
+    ByteBuffer buffer = ByteBuffer.allocate(prefix.remaining() + payload.length());
+    buffer.put(prefix.duplicate());
+    if (StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(payload), buffer, true)
+        .isUnderflow()) {
+      buffer.flip();
+      return buffer;
+    }
+
+    // Not plain ASCII, let the String encoder size the payload.
+    byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+    buffer = ByteBuffer.allocate(prefix.remaining() + payloadBytes.length);
+    buffer.put(prefix.duplicate()).put(payloadBytes);
+    buffer.flip();
+    return buffer;
+  }
 }
@@ -20,21 +20,46 @@ import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
 import biz.neustar.tdi.fw.component.TdiComponent;
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
 import biz.neustar.tdi.fw.exception.InvalidFormatException;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
-import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.sdk.Constants.ClaimsConfig;
+import biz.neustar.tdi.sdk.Constants.DefaultJws;
+import biz.neustar.tdi.sdk.component.jws.BinaryClaimsCodec;
+import biz.neustar.tdi.sdk.component.jws.JwsJsonCodec;
+import biz.neustar.tdi.sdk.component.jws.LazyTdiClaims;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * This component is the parser/packer layer for messages with the JWT wire
  * format.
+ *
+ * <p>
+ * Claims are JSON unless the signature type of the message is
+ * {@link DefaultJws#binaryType}, in which case they use the compact
+ * {@link BinaryClaimsCodec} encoding. Setting the {@code encoding} of the
+ * top-level {@code claims} configuration to {@code binary} gives that
+ * signature type to every message that has none. Received claims are decoded
+ * according to their content, whatever the signature type.
+ *
+ * <p>
+ * Setting {@code lazyPayload} of the same configuration to {@code true} leaves
+ * the payload claim of received messages undecoded until
+ * {@link TdiClaims#getPayload()} is called. It is off by default, as the
+ * deprecated {@link TdiClaims#payload} field stays null until then.
  */
 public class TdiSdkJsonWebTokenComponent extends TdiComponent {
   private static final Logger LOG = LoggerFactory.getLogger(TdiSdkJsonWebTokenComponent.class);
 
+  private final boolean binaryClaims;
+  private final boolean lazyPayload;
+
   /**
    * Constructor.
    *
@@ -45,6 +70,17 @@ public class TdiSdkJsonWebTokenComponent extends TdiComponent {
    */
   public TdiSdkJsonWebTokenComponent(String componentName, TdiImplementationShape impl) {
     super(componentName, impl);
+
+    this.binaryClaims = ClaimsConfig.ENCODING_BINARY.equals(claimsSetting(ClaimsConfig.ENCODING));
+    this.lazyPayload = Boolean.TRUE.equals(claimsSetting(ClaimsConfig.LAZY_PAYLOAD));
+  }
+
+  private Object claimsSetting(String key) {
+    Map<String, Object> config = this.getConfig();
+    if (config != null && config.get(ClaimsConfig.KEY) instanceof Map) {
+      return ((Map<?, ?>) config.get(ClaimsConfig.KEY)).get(key);
+    }
+    return null;
   }
 
   /*
@@ -69,12 +105,16 @@ public class TdiSdkJsonWebTokenComponent extends TdiComponent {
    */
   public CompletableFuture<TdiCanonicalMessageShape> packClaims(TdiCanonicalMessageShape message) {
     CompletableFuture<TdiCanonicalMessageShape> result = new CompletableFuture<>();
-    String jsonClaims = null;
-
     try {
-      jsonClaims = Utils.objectToJson(message.getClaims());
+      if (binaryClaims && StringUtils.isEmpty(message.getSignatureType())) {
+        message.setSignatureType(DefaultJws.binaryType);
+      }
+      byte[] claims = DefaultJws.binaryType.equals(message.getSignatureType())
+          ? BinaryClaimsCodec.writeClaims(message.getClaims())
+          : JwsJsonCodec.writeClaimsUtf8(message.getClaims());
+      byte[] encoded = this.getPlatform().getUtils().b64UrlEncode(claims, 0, claims.length);
       ((TdiCanonicalMessage) message)
-          .setRawPayload(this.getPlatform().getUtils().b64UrlEncode(jsonClaims));
+          .setRawPayload(new String(encoded, StandardCharsets.US_ASCII));
       result.complete(message);
     } catch (InvalidFormatException e) {
       result.completeExceptionally(e);
@@ -85,6 +125,12 @@ public class TdiSdkJsonWebTokenComponent extends TdiComponent {
   /**
    * Unpacks the claims from a verified payload.
    * 
+   * <p>
+   * With {@code lazyPayload} enabled only the registered claims are decoded
+   * here. The payload claim is decoded when {@link TdiClaims#getPayload()} is
+   * first called, so messages rejected on their claims never pay for it. See
+   * {@link LazyTdiClaims}. Otherwise the payload is decoded right away.
+   * 
    * @param message
    *          : The TdiCanonicalMessage containing the serialized claims.
    * 
@@ -96,13 +142,20 @@ public class TdiSdkJsonWebTokenComponent extends TdiComponent {
       TdiCanonicalMessageShape message) {
     CompletableFuture<TdiCanonicalMessageShape> result = new CompletableFuture<>();
     try {
-      String jsonClaims = this.getPlatform().getUtils().b64UrlDecode(message.getRawPayload());
+      byte[] rawPayload = message.getRawPayload().getBytes(StandardCharsets.US_ASCII);
+      byte[] decoded = this.getPlatform().getUtils().b64UrlDecode(rawPayload, 0,
+          rawPayload.length);
 
-      TdiClaims claims = Utils.jsonToObject(jsonClaims, TdiClaims.class);
+      TdiClaims claims = BinaryClaimsCodec.isBinary(decoded)
+          ? BinaryClaimsCodec.readLazyClaims(decoded)
+          : JwsJsonCodec.readLazyClaims(decoded);
+      if (!lazyPayload) {
+        claims.getPayload();
+      }
       message.setClaims(claims);
 
       result.complete(message);
-    } catch (InvalidFormatException exp) {
+    } catch (InvalidFormatException | FrameworkRuntimeException exp) {
       LOG.error("Failed in parsing JSON");
       result.completeExceptionally(exp);
     }
@@ -17,6 +17,7 @@
 package biz.neustar.tdi.sdk.component;
 
 import biz.neustar.tdi.fw.component.TdiComponent;
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
 import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.sdk.Constants.NonceConfig;
 import biz.neustar.tdi.sdk.Utils;
@@ -27,8 +28,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -38,16 +39,38 @@ import java.util.regex.Pattern;
  * <p>The usage of the datastore in this class is somewhat non-standard. It is
  * structured like this: { 'burnt': { '&lt;ISO String&gt;': epochtimestamp },
  * 'nbfMinimum': 0, 'expDuration': 0 }
+ *
+ * <p>Burnt nonces are held in a {@link NonceBurnList}, bucketed by their
+ * expiry second, so that forgetting expired nonces on every burn does not
+ * scan the nonces that are still live.
+ *
+ * <p>With the {@code journal} persistence mode, and a datastore supporting
+ * journals, a burn appends a {@code b <expiry> <nonce>} record, plus an
+ * {@code n <nbfMinimum>} record when nbfMinimum moved, instead of rewriting
+ * the store. The journal is replayed on {@link #init()} and folded into the
+ * store every {@code compactEvery} records, which also drops the nonces that
+ * expired since.
+ *
+ * <p>Verification uses {@link #checkAndReserve(String)}, which marks the
+ * nonce as taken in the same atomic step that finds it unused, so only one of
+ * several concurrent copies of a message can proceed. The nonce is then
+ * {@link #commit(String) committed} once the message is verified, or
+ * {@link #release(String) released} if verification fails.
  */
 public class TdiSdkNonceComponent extends TdiComponent {
   private Long localExpDuration;
-  private Long localNbfMinimum;
-  private Map<String, Long> burnList;
-  private static final String validCharacters = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ"
-      + "abcdefghijklmnopqrstuvwxyz";
-  private static final String NONCE_REGEX = "^00[12][2-9][0-9]{3}-(0[1-9]|1[0-2])-"
-      + "(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3])(:[0-5][0-9]){2}Z[A-Za-z0-9]{6}$";
+  private volatile Long localNbfMinimum;
+  private NonceBurnList burnList;
+  private volatile NonceGenerator generator;
+  private static final Pattern NONCE_PATTERN = Pattern.compile(
+      "^00[12][2-9][0-9]{3}-(0[1-9]|1[0-2])-"
+      + "(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3])(:[0-5][0-9]){2}Z[A-Za-z0-9]{6}$");
   private int randomLength = 6;
+  private static final String BURN_RECORD = "b";
+  private static final String NBF_RECORD = "n";
+  private boolean journal;
+  private int compactEvery = NonceConfig.DEFAULT_COMPACT_EVERY;
+  private final AtomicInteger journalRecords = new AtomicInteger();
 
   private static final Logger LOG = LoggerFactory.getLogger(TdiSdkNonceComponent.class);
 
@@ -61,7 +84,7 @@ public class TdiSdkNonceComponent extends TdiComponent {
    */
   public TdiSdkNonceComponent(String componentName, TdiImplementationShape impl) {
     super(componentName, impl);
-    burnList = new HashMap<>();
+    burnList = new NonceBurnList();
   }
 
   /*
@@ -95,32 +118,82 @@ public class TdiSdkNonceComponent extends TdiComponent {
             queue.add(this.getDataStore().set(NonceConfig.NBF_MINIMUM, this.localNbfMinimum));
           }
 
+          this.generator = new NonceGenerator(this.getPlatform().getTime(), NonceConfig.VERSION,
+              this.localExpDuration, randomLength);
+
           return CompletableFuture.allOf(queue.toArray(new CompletableFuture<?>[0]))
-              .thenApply((arg) -> {
-                if (storeMap.containsKey(NonceConfig.BURNT)) {
-                  burnList.putAll(
-                      (Map<? extends String, ? extends Long>) storeMap.get(NonceConfig.BURNT));
+              .thenCompose((arg) -> {
+                if (storeMap.get(NonceConfig.BURNT) instanceof Map) {
+                  burnList.addAll((Map<String, ? extends Number>) storeMap.get(NonceConfig.BURNT));
                 }
-                return null;
+                return replayJournal();
               });
         });
   }
 
+  /**
+   * Reads the persistence settings and replays the journal left by a
+   * previous run, if the datastore keeps one. Outside of the journal mode a
+   * replayed journal is folded into the store right away.
+   */
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<Void> replayJournal() {
+    Object config = this.getConfig().get(NonceConfig.STORE);
+    if (config instanceof Map) {
+      Map<String, Object> nonceConfig = (Map<String, Object>) config;
+      journal = NonceConfig.PERSISTENCE_JOURNAL.equals(nonceConfig.get(NonceConfig.PERSISTENCE));
+      if (nonceConfig.get(NonceConfig.COMPACT_EVERY) instanceof Number) {
+        compactEvery = ((Number) nonceConfig.get(NonceConfig.COMPACT_EVERY)).intValue();
+      }
+    }
+
+    if (!this.getDataStore().supportsJournal()) {
+      if (journal) {
+        LOG.warn("Nonce: Datastore keeps no journal, persisting the whole burn list instead.");
+        journal = false;
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return this.getDataStore().readJournal().thenCompose((records) -> {
+      for (String record : records) {
+        String[] fields = record.split(" ");
+        try {
+          if (fields.length == 3 && BURN_RECORD.equals(fields[0])) {
+            burnList.add(Long.parseLong(fields[1]), fields[2]);
+          } else if (fields.length == 2 && NBF_RECORD.equals(fields[0])) {
+            this.localNbfMinimum = Math.max(this.localNbfMinimum, Long.parseLong(fields[1]));
+          } else {
+            LOG.debug("Nonce: Skipping journal record: " + record);
+          }
+        } catch (NumberFormatException err) {
+          LOG.debug("Nonce: Skipping journal record: " + record);
+        }
+      }
+      cleanCache();
+      journalRecords.set(records.size());
+
+      if (records.isEmpty() || (journal && records.size() < compactEvery)) {
+        return CompletableFuture.completedFuture(null);
+      }
+      return compactJournal();
+    });
+  }
+
   /**
    * Creates a new nonce string for inclusion in an outbound claim.
    *
    * @return String
+   *
+   * @throws FrameworkRuntimeException
+   *           if the component was not initialized yet.
    */
   public String create() {
-    StringBuilder randomString = new StringBuilder();
-    randomString.append(NonceConfig.VERSION);
-    randomString.append(this.getPlatform().getTime().isoDate(localExpDuration));
-    for (int loopIndex = 0; loopIndex < randomLength; loopIndex++) {
-      randomString.append(
-        validCharacters.charAt(new Random().nextInt(validCharacters.length()-1))
-      );
+    NonceGenerator current = generator;
+    if (current == null) {
+      throw new FrameworkRuntimeException("Nonce: Component not initialized");
     }
-    return randomString.toString();
+    return current.next();
   }
 
   /**
@@ -139,34 +212,110 @@ public class TdiSdkNonceComponent extends TdiComponent {
    *         failure.
    */
   public CompletableFuture<Boolean> check(String nonceStr) {
+    return validate(nonceStr).thenApply((expiration) -> {
+      if (expiration == null) {
+        return false;
+      }
+      return !burnList.contains(expiration, nonceStr);
+    });
+  }
 
-    return this.getDataStore().get(NonceConfig.NBF_MINIMUM).thenApply((minimum) -> {
-      if (Pattern.matches(NONCE_REGEX, nonceStr) == true) {
+  /**
+   * Runs the same checks as {@link #check(String)} and, if they pass, reserves
+   * the nonce. Of several concurrent calls for the same nonce only one gets
+   * true. The caller must then either {@link #commit(String)} or
+   * {@link #release(String)} the nonce. Until then the nonce counts as burnt.
+   *
+   * @param nonceStr
+   *          : The JTI claim from an incoming message.
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: {@link Boolean} with true if valid
+   *         and reserved by this call. false otherwise. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of
+   *         failure.
+   */
+  public CompletableFuture<Boolean> checkAndReserve(String nonceStr) {
+    return validate(nonceStr).thenApply((expiration) -> {
+      if (expiration == null) {
+        return false;
+      }
+      if (!burnList.reserve(expiration, nonceStr)) {
+        LOG.debug("Nonce: Already used: " + nonceStr);
+        return false;
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Burns a nonce reserved by {@link #checkAndReserve(String)}.
+   *
+   * @param nonceStr
+   *          : nonce of a message that passed verification.
+   *
+   * @return {@link CompletableFuture} with either of the following states: <br>
+   *         <b>Completed Successfully</b>: Void. <br>
+   *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
+   */
+  public CompletableFuture<Void> commit(String nonceStr) {
+    return burn(nonceStr);
+  }
+
+  /**
+   * Drops a reservation made by {@link #checkAndReserve(String)}, so that the
+   * nonce can be presented again. Burnt nonces are left alone.
+   *
+   * @param nonceStr
+   *          : nonce of a message that failed verification.
+   *
+   * @return true if the nonce was reserved.
+   */
+  public boolean release(String nonceStr) {
+    if (nonceStr == null || !NONCE_PATTERN.matcher(nonceStr).matches()) {
+      return false;
+    }
+    long expiry = this.getPlatform().getTime()
+        .timestamp(nonceStr.substring(3, nonceStr.length() - randomLength));
+    return burnList.release(expiry, nonceStr);
+  }
+
+  /**
+   * Checks the format and time window of a nonce. The window starts at the
+   * local nbfMinimum, which the journal mode does not write back to the store
+   * until the next compaction.
+   *
+   * @return future of the expiry embedded in the nonce, or of null if the
+   *         nonce is not acceptable.
+   */
+  private CompletableFuture<Long> validate(String nonceStr) {
+    return CompletableFuture.completedFuture(this.localNbfMinimum).thenApply((minimum) -> {
+      if (NONCE_PATTERN.matcher(nonceStr).matches()) {
         String version = nonceStr.substring(0, 3);
         String timeStr = nonceStr.substring(3, nonceStr.length() - randomLength);
         Long expiration = this.getPlatform().getTime().timestamp(timeStr);
 
         if (!NonceConfig.VERSION.equals(version)) {
           LOG.debug("Nonce: Bad nonce version: " + nonceStr);
-          return false;
+          return null;
         }
 
-        if (expiration < Utils.getLong(minimum)) {
+        if (expiration < minimum) {
           LOG.debug("Nonce: Exp (" + expiration + ") > Minimum (" + minimum + ")");
-          return false;
+          return null;
         }
 
         if (expiration <= this.getPlatform().getTime().timestamp(null)) {
           LOG.debug("Nonce: Bad nonce: " + nonceStr);
-          return false;
+          return null;
         }
 
-        return !burnList.containsKey(nonceStr);
+        return expiration;
       } else {
         LOG.debug("Nonce: Invalid Nonce:" + nonceStr);
       }
 
-      return false;
+      return null;
     });
   }
 
@@ -182,36 +331,58 @@ public class TdiSdkNonceComponent extends TdiComponent {
    *         <b>Completed Exceptionally</b>: {@link Exception} in case of failure.
    */
   public CompletableFuture<Void> burn(String nonceStr) {
+    Long previousMinimum = this.localNbfMinimum;
     cleanCache();
 
-    this.burnList.put(nonceStr, this.getPlatform().getTime()
-        .timestamp(nonceStr.substring(3, nonceStr.length() - randomLength)));
+    long expiry = this.getPlatform().getTime()
+        .timestamp(nonceStr.substring(3, nonceStr.length() - randomLength));
+    burnList.add(expiry, nonceStr);
 
-    return this.getDataStore().set(NonceConfig.BURNT, this.burnList).thenCompose((arg) -> {
-      return this.getDataStore().set(NonceConfig.NBF_MINIMUM, this.localNbfMinimum);
-    });
+    if (journal) {
+      List<String> records = new ArrayList<>(2);
+      records.add(BURN_RECORD + " " + expiry + " " + nonceStr);
+      if (!previousMinimum.equals(this.localNbfMinimum)) {
+        records.add(NBF_RECORD + " " + this.localNbfMinimum);
+      }
+      CompletableFuture<Void> appended = this.getDataStore().appendJournal(records);
+      // Only the burn that takes the count past the threshold compacts.
+      int count = journalRecords.addAndGet(records.size());
+      if (count < compactEvery || count - records.size() >= compactEvery) {
+        return appended;
+      }
+      return appended.thenCompose((arg) -> compactJournal());
+    }
+
+    return this.getDataStore().set(NonceConfig.BURNT, this.burnList.asMap())
+        .thenCompose((arg) -> {
+          return this.getDataStore().set(NonceConfig.NBF_MINIMUM, this.localNbfMinimum);
+        });
   }
 
   /**
-   * Called to update the burn list.
+   * Folds the journal into the store, which then holds the live burn list and
+   * nbfMinimum.
+   */
+  private CompletableFuture<Void> compactJournal() {
+    journalRecords.set(0);
+    Map<String, Object> values = new HashMap<>();
+    values.put(NonceConfig.BURNT, this.burnList.asMap());
+    values.put(NonceConfig.NBF_MINIMUM, this.localNbfMinimum);
+    return this.getDataStore().compactJournal(values);
+  }
+
+  /**
+   * Called to update the burn list. Drops the buckets of the nonces that
+   * expired and raises nbfMinimum to the latest of them.
    */
   private void cleanCache() {
-    Map<String, Long> newList = new HashMap<>();
-    Long currentTimestamp = this.getPlatform().getTime().timestamp(null);
-    Long newNbfMinimum = this.localNbfMinimum;
-    Long nonce = null;
-
-    for (String key : burnList.keySet()) {
-      nonce = Utils.getLong(burnList.get(key));
-      if (nonce > currentTimestamp) {
-        newList.put(key, nonce);
-      } else if (nonce > newNbfMinimum) {
-        newNbfMinimum = nonce;
+    Long expired = burnList.expire(this.getPlatform().getTime().timestamp(null));
+    if (expired != null) {
+      synchronized (this) {
+        if (expired > this.localNbfMinimum) {
+          this.localNbfMinimum = expired;
+        }
       }
     }
-
-    this.localNbfMinimum = newNbfMinimum;
-    burnList.clear();
-    burnList.putAll(newList);
   }
 }
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the claims, an alternative to
+ * {@link JwsJsonCodec} for constrained uplinks.
+ *
+ * <p>
+ * An encoded claims set starts with the {@link #MAGIC} byte, which can never
+ * start a UTF-8 encoded JSON document, followed by a {@link #VERSION} byte
+ * and one record per claim that is set. A record is a tag byte followed by
+ * its value:
+ *
+ * <table summary="Binary claims records">
+ * <tr><th>Tag</th><th>Claim</th><th>Value</th></tr>
+ * <tr><td>1</td><td>iss</td><td>string</td></tr>
+ * <tr><td>2</td><td>exp</td><td>zigzag varint</td></tr>
+ * <tr><td>3</td><td>nbf</td><td>zigzag varint</td></tr>
+ * <tr><td>4</td><td>jti</td><td>string</td></tr>
+ * <tr><td>5</td><td>payload, when it is a String</td><td>string</td></tr>
+ * <tr><td>6</td><td>payload, any other value</td><td>string holding its JSON</td></tr>
+ * <tr><td>7</td><td>any other claim</td><td>string name, string holding its JSON</td></tr>
+ * </table>
+ *
+ * <p>
+ * A string is a varint byte length followed by its UTF-8 bytes. Varints are
+ * unsigned LEB128, as used by Protocol Buffers.
+ */
+public final class BinaryClaimsCodec {
+  /** First byte of every encoded claims set. */
+  public static final int MAGIC = 0xB7;
+
+  /** Version of the encoding written by this codec. */
+  public static final int VERSION = 1;
+
+  private static final int ISS = 1;
+  private static final int EXP = 2;
+  private static final int NBF = 3;
+  private static final int JTI = 4;
+  private static final int PAYLOAD_STRING = 5;
+  private static final int PAYLOAD_JSON = 6;
+  private static final int CLAIM = 7;
+
+  private BinaryClaimsCodec() {
+  }
+
+  /**
+   * Tells whether the given bytes hold binary claims rather than JSON.
+   *
+   * @param data
+   *          : Decoded claims bytes.
+   *
+   * @return true if the bytes start with {@link #MAGIC}.
+   */
+  public static boolean isBinary(byte[] data) {
+    return data != null && data.length > 0 && (data[0] & 0xff) == MAGIC;
+  }
+
+  /**
+   * Encodes a claims set.
+   *
+   * @param claims
+   *          : {@link TdiClaims} instance.
+   *
+   * @return Encoded claims.
+   *
+   * @throws InvalidFormatException
+   *           if the payload or another claim cannot be serialized to JSON.
+   */
+  public static byte[] writeClaims(TdiClaims claims) throws InvalidFormatException {
+    // JSON values are serialized first so the output can be sized exactly.
+    // Strings are sized and then encoded straight into the output.
+    Object payload = claims.getPayload();
+    byte[] payloadJson = payload != null && !(payload instanceof String)
+        ? JwsJsonCodec.writeValueUtf8(payload) : null;
+    byte[][] values = new byte[claims.getClaimsMap().size()][];
+    int index = 0;
+    for (Object value : claims.getClaimsMap().values()) {
+      values[index++] = JwsJsonCodec.writeValueUtf8(value);
+    }
+
+    int size = 2 + recordSize(claims.iss) + recordSize(claims.jti)
+        + (claims.exp != null ? 1 + varintSize(zigzag(claims.exp)) : 0)
+        + (claims.nbf != null ? 1 + varintSize(zigzag(claims.nbf)) : 0)
+        + (payload instanceof String ? recordSize((String) payload) : 0)
+        + (payloadJson != null ? 1 + varintSize(payloadJson.length) + payloadJson.length : 0);
+    index = 0;
+    for (String name : claims.getClaimsMap().keySet()) {
+      size += recordSize(name) + varintSize(values[index].length) + values[index++].length;
+    }
+
+    Output out = new Output(size);
+    out.data[out.position++] = (byte) MAGIC;
+    out.data[out.position++] = VERSION;
+    out.writeString(ISS, claims.iss);
+    if (claims.exp != null) {
+      out.data[out.position++] = EXP;
+      out.writeVarint(zigzag(claims.exp));
+    }
+    if (claims.nbf != null) {
+      out.data[out.position++] = NBF;
+      out.writeVarint(zigzag(claims.nbf));
+    }
+    out.writeString(JTI, claims.jti);
+    if (payload instanceof String) {
+      out.writeString(PAYLOAD_STRING, (String) payload);
+    } else if (payloadJson != null) {
+      out.data[out.position++] = PAYLOAD_JSON;
+      out.writeBytes(payloadJson);
+    }
+    index = 0;
+    for (String name : claims.getClaimsMap().keySet()) {
+      out.writeString(CLAIM, name);
+      out.writeBytes(values[index++]);
+    }
+    return out.data;
+  }
+
+  /**
+   * Decodes a claims set without decoding a structured payload, which stays
+   * a JSON slice of the given array until {@link LazyTdiClaims#getPayload()}
+   * is called. The array must not be modified afterwards.
+   *
+   * @param data
+   *          : Encoded claims.
+   *
+   * @return {@link LazyTdiClaims} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the bytes are not binary claims of a known version, are
+   *           truncated, or hold an unknown record or an invalid claim value.
+   */
+  public static LazyTdiClaims readLazyClaims(byte[] data) throws InvalidFormatException {
+    if (!isBinary(data)) {
+      throw new InvalidFormatException("Binary claims expected");
+    }
+    if (data.length < 2 || data[1] != VERSION) {
+      throw new InvalidFormatException("Unsupported binary claims version");
+    }
+
+    LazyTdiClaims claims = new LazyTdiClaims();
+    Input in = new Input(data, 2);
+    while (in.position < data.length) {
+      int tag = data[in.position++];
+      int length;
+      switch (tag) {
+        case ISS:
+          claims.iss = in.readString();
+          break;
+        case EXP:
+          claims.exp = in.readLong();
+          break;
+        case NBF:
+          claims.nbf = in.readLong();
+          break;
+        case JTI:
+          claims.jti = in.readString();
+          break;
+        case PAYLOAD_STRING:
+          claims.setPayload(in.readString());
+          break;
+        case PAYLOAD_JSON:
+          length = in.readLength();
+          claims.setPayloadJson(data, in.position, length);
+          in.position += length;
+          break;
+        case CLAIM:
+          String name = in.readString();
+          length = in.readLength();
+          claims.getClaimsMap().put(name, JwsJsonCodec.readPayload(data, in.position, length));
+          in.position += length;
+          break;
+        default:
+          throw new InvalidFormatException("Unknown binary claims record " + tag);
+      }
+    }
+    return claims;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static int recordSize(String value) {
+    if (value == null) {
+      return 0;
+    }
+    int length = utf8Length(value);
+    return 1 + varintSize(length) + length;
+  }
+
+  private static int varintSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the length of the UTF-8 encoding {@link String#getBytes} would
+   * produce, which replaces unpaired surrogates with '?'.
+   */
+  private static int utf8Length(String value) {
+    int length = value.length();
+    for (int index = 0; index < value.length(); index++) {
+      char next = value.charAt(index);
+      if (next >= 0x80) {
+        length += next < 0x800 ? 1 : 2;
+        if (Character.isSurrogate(next)) {
+          if (Character.isHighSurrogate(next) && index + 1 < value.length()
+              && Character.isLowSurrogate(value.charAt(index + 1))) {
+            // Two chars, four bytes.
+            index++;
+          } else {
+            length -= 2;
+          }
+        }
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Write cursor over an output array of the exact encoded size.
+   */
+  private static class Output {
+    private final byte[] data;
+    private int position;
+
+    Output(int size) {
+      this.data = new byte[size];
+    }
+
+    void writeString(int tag, String value) {
+      if (value == null) {
+        return;
+      }
+      data[position++] = (byte) tag;
+      writeVarint(utf8Length(value));
+      for (int index = 0; index < value.length(); index++) {
+        char next = value.charAt(index);
+        if (next < 0x80) {
+          data[position++] = (byte) next;
+        } else if (next < 0x800) {
+          data[position++] = (byte) (0xC0 | next >> 6);
+          data[position++] = (byte) (0x80 | next & 0x3F);
+        } else if (!Character.isSurrogate(next)) {
+          data[position++] = (byte) (0xE0 | next >> 12);
+          data[position++] = (byte) (0x80 | next >> 6 & 0x3F);
+          data[position++] = (byte) (0x80 | next & 0x3F);
+        } else if (Character.isHighSurrogate(next) && index + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(index + 1))) {
+          int codePoint = Character.toCodePoint(next, value.charAt(++index));
+          data[position++] = (byte) (0xF0 | codePoint >> 18);
+          data[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+          data[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+          data[position++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+          data[position++] = '?';
+        }
+      }
+    }
+
+    /**
+     * Writes a length prefixed byte string.
+     */
+    void writeBytes(byte[] value) {
+      writeVarint(value.length);
+      System.arraycopy(value, 0, data, position, value.length);
+      position += value.length;
+    }
+
+    void writeVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        data[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      data[position++] = (byte) value;
+    }
+  }
+
+  /**
+   * Read cursor over an encoded claims set.
+   */
+  private static class Input {
+    private final byte[] data;
+    private int position;
+
+    Input(byte[] data, int position) {
+      this.data = data;
+      this.position = position;
+    }
+
+    String readString() throws InvalidFormatException {
+      int length = readLength();
+      String value = new String(data, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+
+    long readLong() throws InvalidFormatException {
+      long value = readVarint();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readLength() throws InvalidFormatException {
+      long length = readVarint();
+      if (length < 0 || length > data.length - position) {
+        throw new InvalidFormatException("Truncated binary claims");
+      }
+      return (int) length;
+    }
+
+    private long readVarint() throws InvalidFormatException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        if (position >= data.length) {
+          throw new InvalidFormatException("Truncated binary claims");
+        }
+        int next = data[position++];
+        value |= (long) (next & 0x7F) << shift;
+        if ((next & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new InvalidFormatException("Malformed binary claims varint");
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Bounded least recently used cache, split into stripes.
+ *
+ * <p>
+ * Each key belongs to one stripe, picked from its hash, and each stripe is an
+ * access-ordered {@link LinkedHashMap} guarded by its own lock, so lookups of
+ * different keys rarely wait for each other. A stripe evicts its own least
+ * recently used entry when full, and the stripe sizes add up to the maximum
+ * number of entries. Small caches use a single stripe.
+ *
+ * @param <K>
+ *          : key type
+ * @param <V>
+ *          : value type
+ */
+public class BoundedCache<K, V> {
+  static final int MAX_STRIPES = 16;
+  static final int MIN_ENTRIES_PER_STRIPE = 16;
+
+  private final int maxEntries;
+  private final Stripe<K, V>[] stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries
+   *          : Maximum number of entries held by the cache. A value below 1
+   *          disables caching.
+   */
+  @SuppressWarnings("unchecked")
+  public BoundedCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+    int count = Integer.highestOneBit(Math.max(1,
+        Math.min(MAX_STRIPES, maxEntries / MIN_ENTRIES_PER_STRIPE)));
+    this.stripes = new Stripe[count];
+    for (int index = 0; index < count; index++) {
+      int capacity = Math.max(0, maxEntries) / count
+          + (index < Math.max(0, maxEntries) % count ? 1 : 0);
+      stripes[index] = new Stripe<>(capacity);
+    }
+  }
+
+  /**
+   * Returns true if the cache holds any entries at all.
+   *
+   * @return true unless caching is disabled.
+   */
+  public boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * Returns the value cached under the given key if it is still valid. A value
+   * failing the check is dropped.
+   *
+   * @param key
+   *          : Cache key.
+   * @param valid
+   *          : Check of the cached value.
+   *
+   * @return Cached value, or null on a miss.
+   */
+  public V get(K key, Predicate<? super V> valid) {
+    if (!isEnabled()) {
+      return null;
+    }
+
+    Stripe<K, V> stripe = stripe(key);
+    V value;
+    synchronized (stripe) {
+      value = stripe.get(key);
+      if (value != null && !valid.test(value)) {
+        stripe.remove(key);
+        value = null;
+      }
+    }
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Caches a value, evicting the least recently used entry of its stripe if
+   * the stripe is full.
+   *
+   * @param key
+   *          : Cache key.
+   * @param value
+   *          : Value to cache.
+   */
+  public void put(K key, V value) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    Stripe<K, V> stripe = stripe(key);
+    synchronized (stripe) {
+      stripe.put(key, value);
+    }
+  }
+
+  /**
+   * Drops every entry matching the given condition.
+   *
+   * @param condition
+   *          : Condition on the key and value of an entry.
+   */
+  public void removeIf(BiPredicate<? super K, ? super V> condition) {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        Iterator<Map.Entry<K, V>> iterator = stripe.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Map.Entry<K, V> entry = iterator.next();
+          if (condition.test(entry.getKey(), entry.getValue())) {
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops all entries.
+   */
+  public void clear() {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries currently cached.
+   *
+   * @return Number of entries.
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups served from the cache.
+   *
+   * @return Hit count.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that missed.
+   *
+   * @return Miss count.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  int stripeCount() {
+    return stripes.length;
+  }
+
+  private Stripe<K, V> stripe(K key) {
+    int hash = key.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  /**
+   * One stripe of the cache.
+   */
+  private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    Stripe(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > capacity;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+/**
+ * Tells compact serialized JWS apart from JSON serialized ones and splits the
+ * compact ones into their segments.
+ *
+ * <p>
+ * A single pass over the message finds the two segment separators and checks
+ * every other char against the base64url alphabet. It accepts exactly the
+ * messages matching {@code ^[a-zA-Z0-9-_]+\.[a-zA-Z0-9-_]+\.[a-zA-Z0-9-_]+$}
+ * and splits them the way {@code split("\\.")} does. A message starting with
+ * {@code '{'} is a JSON serialization and is not scanned at all.
+ */
+public final class JwsEnvelopeScanner {
+  private static final boolean[] BASE64URL = new boolean[128];
+
+  static {
+    for (char value = 'A'; value <= 'Z'; value++) {
+      BASE64URL[value] = true;
+      BASE64URL[value + ('a' - 'A')] = true;
+    }
+    for (char value = '0'; value <= '9'; value++) {
+      BASE64URL[value] = true;
+    }
+    BASE64URL['-'] = true;
+    BASE64URL['_'] = true;
+  }
+
+  private JwsEnvelopeScanner() {
+  }
+
+  /**
+   * Splits a compact serialized JWS into its protected header, payload and
+   * signature.
+   *
+   * @param message
+   *          : Received message.
+   *
+   * @return Array of the three segments, or null if the message is not a
+   *         compact serialized JWS.
+   */
+  public static String[] splitCompact(String message) {
+    int length = message != null ? message.length() : 0;
+    if (length == 0 || message.charAt(0) == '{') {
+      return null;
+    }
+
+    int first = -1;
+    int second = -1;
+    for (int index = 0; index < length; index++) {
+      char value = message.charAt(index);
+      if (value == '.') {
+        if (second >= 0) {
+          return null;
+        }
+        if (first < 0) {
+          first = index;
+        } else {
+          second = index;
+        }
+      } else if (value >= BASE64URL.length || !BASE64URL[value]) {
+        return null;
+      }
+    }
+
+    // All three segments must be non-empty.
+    if (first < 1 || second < first + 2 || second == length - 1) {
+      return null;
+    }
+    return new String[] { message.substring(0, first), message.substring(first + 1, second),
+        message.substring(second + 1) };
+  }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import biz.neustar.tdi.fw.Constants.TdiClaimKeys;
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.sdk.Constants.JwsKeys;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Streaming JSON codec for the JWS envelope, the protected header and the
+ * claims.
+ *
+ * <p>
+ * These are written and read on every sign and verify, so they bypass
+ * databind and go straight through {@link JsonGenerator} and
+ * {@link JsonParser}. The output is identical to what
+ * {@link Utils#objectToJson(Object)} produces for the same objects, and
+ * reading is as lenient as {@link Utils#jsonToObject(String, Class)}: unknown
+ * members of the envelope and header are skipped. Values that are not plain
+ * strings or numbers, such as a structured {@code payload} claim, unknown
+ * claims kept in {@link TdiClaims#getClaimsMap()}, or a string given where a
+ * number is expected, are handed to databind.
+ */
+public final class JwsJsonCodec {
+  private static final JsonFactory FACTORY = new JsonFactory();
+  // Output buffers are only used on the thread that writes, so each thread
+  // recycles its own segments.
+  private static final ThreadLocal<BufferRecycler> RECYCLERS =
+      ThreadLocal.withInitial(BufferRecycler::new);
+
+  private JwsJsonCodec() {
+  }
+
+  /**
+   * Serializes a JWS envelope.
+   *
+   * @param jws
+   *          : {@link TdiJws} instance.
+   *
+   * @return JSON string.
+   *
+   * @throws InvalidFormatException
+   *           if the envelope cannot be serialized.
+   */
+  public static String writeJws(TdiJws jws) throws InvalidFormatException {
+    return toJson((gen) -> writeJws(gen, jws));
+  }
+
+  /**
+   * Parses a JSON serialized JWS envelope.
+   *
+   * @param json
+   *          : JSON string.
+   *
+   * @return {@link TdiJws} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the string is empty or not a JSON object.
+   */
+  public static TdiJws readJws(String json) throws InvalidFormatException {
+    TdiJws jws = new TdiJws();
+    try (JsonParser parser = startObject(json)) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if (JwsKeys.PAYLOAD.equals(name)) {
+          jws.payload = readString(parser);
+        } else if (JwsKeys.SIGNATURES.equals(name)) {
+          jws.signatures = readSignatures(parser);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+    return jws;
+  }
+
+  /**
+   * Serializes a protected header.
+   *
+   * @param header
+   *          : {@link TdiJwsHeader} instance.
+   *
+   * @return JSON string.
+   *
+   * @throws InvalidFormatException
+   *           if the header cannot be serialized.
+   */
+  public static String writeHeader(TdiJwsHeader header) throws InvalidFormatException {
+    return toJson((gen) -> writeHeader(gen, header));
+  }
+
+  /**
+   * Serializes a protected header to UTF-8 bytes, ready to be base64url
+   * encoded.
+   *
+   * @param header
+   *          : {@link TdiJwsHeader} instance.
+   *
+   * @return UTF-8 encoded JSON.
+   *
+   * @throws InvalidFormatException
+   *           if the header cannot be serialized.
+   */
+  public static byte[] writeHeaderUtf8(TdiJwsHeader header) throws InvalidFormatException {
+    return toUtf8((gen) -> writeHeader(gen, header));
+  }
+
+  /**
+   * Parses a decoded protected header.
+   *
+   * @param json
+   *          : JSON string.
+   *
+   * @return {@link TdiJwsHeader} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the string is empty or not a JSON object.
+   */
+  public static TdiJwsHeader readHeader(String json) throws InvalidFormatException {
+    try (JsonParser parser = startObject(json)) {
+      return readHeader(parser);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  /**
+   * Parses a decoded protected header from its UTF-8 bytes.
+   *
+   * @param json
+   *          : UTF-8 encoded JSON.
+   *
+   * @return {@link TdiJwsHeader} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the bytes are empty or not a JSON object.
+   */
+  public static TdiJwsHeader readHeader(byte[] json) throws InvalidFormatException {
+    try (JsonParser parser = startObject(json)) {
+      return readHeader(parser);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  private static TdiJwsHeader readHeader(JsonParser parser) throws IOException {
+    TdiJwsHeader header = new TdiJwsHeader();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if (JwsKeys.TYPE.equals(name)) {
+        header.typ = readString(parser);
+      } else if (JwsKeys.ALG.equals(name)) {
+        header.alg = readString(parser);
+      } else if (JwsKeys.KID.equals(name)) {
+        header.kid = readString(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return header;
+  }
+
+  /**
+   * Serializes a claims set, followed by the claims of
+   * {@link TdiClaims#getClaimsMap()}.
+   *
+   * @param claims
+   *          : {@link TdiClaims} instance.
+   *
+   * @return JSON string.
+   *
+   * @throws InvalidFormatException
+   *           if a claim cannot be serialized.
+   */
+  public static String writeClaims(TdiClaims claims) throws InvalidFormatException {
+    return toJson((gen) -> writeClaims(gen, claims));
+  }
+
+  /**
+   * Serializes a claims set to UTF-8 bytes, ready to be base64url encoded.
+   *
+   * @param claims
+   *          : {@link TdiClaims} instance.
+   *
+   * @return UTF-8 encoded JSON.
+   *
+   * @throws InvalidFormatException
+   *           if a claim cannot be serialized.
+   */
+  public static byte[] writeClaimsUtf8(TdiClaims claims) throws InvalidFormatException {
+    return toUtf8((gen) -> writeClaims(gen, claims));
+  }
+
+  /**
+   * Parses a decoded claims set. Claims other than the registered ones are
+   * collected in {@link TdiClaims#getClaimsMap()}.
+   *
+   * @param json
+   *          : JSON string.
+   *
+   * @return {@link TdiClaims} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the string is empty or not a JSON object, or a registered
+   *           claim has the wrong type.
+   */
+  public static TdiClaims readClaims(String json) throws InvalidFormatException {
+    TdiClaims claims = new TdiClaims();
+    try (JsonParser parser = startObject(json)) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        switch (name) {
+          case TdiClaimKeys.ISS:
+            claims.iss = readString(parser);
+            break;
+          case TdiClaimKeys.EXP:
+            claims.exp = readLong(parser);
+            break;
+          case TdiClaimKeys.NBF:
+            claims.nbf = readLong(parser);
+            break;
+          case TdiClaimKeys.JTI:
+            claims.jti = readString(parser);
+            break;
+          case TdiClaimKeys.PAYLOAD:
+            claims.setPayload(readValue(parser));
+            break;
+          default:
+            claims.getClaimsMap().put(name, readValue(parser));
+            break;
+        }
+      }
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+    return claims;
+  }
+
+  /**
+   * Parses a decoded claims set without decoding its payload. The registered
+   * claims and any unknown claims are read as by {@link #readClaims(String)},
+   * but the {@code payload} claim is only scanned for well-formedness and kept
+   * as a JSON slice that {@link LazyTdiClaims#getPayload()} decodes on first
+   * access.
+   *
+   * @param json
+   *          : JSON string.
+   *
+   * @return {@link LazyTdiClaims} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the string is empty or not a JSON object, or a registered
+   *           claim has the wrong type.
+   */
+  public static LazyTdiClaims readLazyClaims(String json) throws InvalidFormatException {
+    try (JsonParser parser = startObject(json)) {
+      return readLazyClaims(parser, json, null);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  /**
+   * Parses a decoded claims set from its UTF-8 bytes without decoding its
+   * payload. See {@link #readLazyClaims(String)}. The payload slice refers to
+   * the given array, which must not be modified afterwards.
+   *
+   * @param json
+   *          : UTF-8 encoded JSON.
+   *
+   * @return {@link LazyTdiClaims} instance.
+   *
+   * @throws InvalidFormatException
+   *           if the bytes are empty or not a JSON object, or a registered
+   *           claim has the wrong type.
+   */
+  public static LazyTdiClaims readLazyClaims(byte[] json) throws InvalidFormatException {
+    try (JsonParser parser = startObject(json)) {
+      return readLazyClaims(parser, null, json);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  private static LazyTdiClaims readLazyClaims(JsonParser parser, String text, byte[] utf8)
+      throws IOException {
+    LazyTdiClaims claims = new LazyTdiClaims();
+    JsonToken token = parser.nextToken();
+    while (token == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      switch (name) {
+        case TdiClaimKeys.ISS:
+          claims.iss = readString(parser);
+          break;
+        case TdiClaimKeys.EXP:
+          claims.exp = readLong(parser);
+          break;
+        case TdiClaimKeys.NBF:
+          claims.nbf = readLong(parser);
+          break;
+        case TdiClaimKeys.JTI:
+          claims.jti = readString(parser);
+          break;
+        case TdiClaimKeys.PAYLOAD:
+          // The value ends where the next member or the closing brace
+          // starts, less the separator in between.
+          int start = offset(parser.getTokenLocation(), utf8);
+          parser.skipChildren();
+          token = parser.nextToken();
+          int end = offset(parser.getTokenLocation(), utf8);
+          while (end > start && isSeparator(utf8 != null ? utf8[end - 1] : text.charAt(end - 1))) {
+            end--;
+          }
+          if (utf8 != null) {
+            claims.setPayloadJson(utf8, start, end - start);
+          } else {
+            claims.setPayloadJson(text.substring(start, end));
+          }
+          continue;
+        default:
+          claims.getClaimsMap().put(name, readValue(parser));
+          break;
+      }
+      token = parser.nextToken();
+    }
+    return claims;
+  }
+
+  /**
+   * Serializes a single value the same way {@link #writeClaims(TdiClaims)}
+   * serializes the payload claim.
+   *
+   * @param value
+   *          : Value to serialize.
+   *
+   * @return UTF-8 encoded JSON.
+   *
+   * @throws InvalidFormatException
+   *           if the value cannot be serialized.
+   */
+  static byte[] writeValueUtf8(Object value) throws InvalidFormatException {
+    return toUtf8((gen) -> writeValue(gen, value));
+  }
+
+  /**
+   * Decodes a single JSON value the same way {@link #readClaims(String)}
+   * decodes the payload claim.
+   *
+   * @param json
+   *          : JSON value.
+   *
+   * @return Decoded value.
+   *
+   * @throws InvalidFormatException
+   *           if the value is not valid JSON.
+   */
+  static Object readPayload(String json) throws InvalidFormatException {
+    try (JsonParser parser = FACTORY.createParser(json)) {
+      return readPayload(parser);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  /**
+   * Decodes a single UTF-8 encoded JSON value the same way
+   * {@link #readClaims(String)} decodes the payload claim.
+   *
+   * @param json
+   *          : byte[] holding the UTF-8 encoded JSON value.
+   * @param offset
+   *          : Index of the first byte of the value.
+   * @param length
+   *          : Number of bytes of the value.
+   *
+   * @return Decoded value.
+   *
+   * @throws InvalidFormatException
+   *           if the value is not valid JSON.
+   */
+  static Object readPayload(byte[] json, int offset, int length) throws InvalidFormatException {
+    try (JsonParser parser = FACTORY.createParser(json, offset, length)) {
+      return readPayload(parser);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  private static Object readPayload(JsonParser parser)
+      throws IOException, InvalidFormatException {
+    if (parser.nextToken() == null) {
+      throw new InvalidFormatException("JSON String cannot be empty");
+    }
+    return readValue(parser);
+  }
+
+  private static int offset(JsonLocation location, byte[] utf8) {
+    return (int) (utf8 != null ? location.getByteOffset() : location.getCharOffset());
+  }
+
+  private static boolean isSeparator(int value) {
+    return value == ',' || value == ' ' || value == '\t' || value == '\n' || value == '\r';
+  }
+
+  private static JsonParser startObject(String json) throws InvalidFormatException {
+    if (StringUtils.isEmpty(json)) {
+      throw new InvalidFormatException("JSON String cannot be empty");
+    }
+    try {
+      return startObject(FACTORY.createParser(json));
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  private static JsonParser startObject(byte[] json) throws InvalidFormatException {
+    if (json == null || json.length == 0) {
+      throw new InvalidFormatException("JSON String cannot be empty");
+    }
+    try {
+      return startObject(FACTORY.createParser(json));
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+  }
+
+  private static JsonParser startObject(JsonParser parser)
+      throws IOException, InvalidFormatException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      parser.close();
+      throw new InvalidFormatException("JSON object expected");
+    }
+    return parser;
+  }
+
+  private static ArrayList<TdiJwsSignature> readSignatures(JsonParser parser)
+      throws IOException {
+    if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+      throw new IOException("Array expected for " + JwsKeys.SIGNATURES);
+    }
+
+    ArrayList<TdiJwsSignature> signatures = new ArrayList<>(2);
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.VALUE_NULL) {
+        signatures.add(null);
+        continue;
+      }
+      if (token != JsonToken.START_OBJECT) {
+        throw new IOException("Object expected in " + JwsKeys.SIGNATURES);
+      }
+      TdiJwsSignature signature = new TdiJwsSignature();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        if (JwsKeys.PROTECTED.equals(name)) {
+          signature.protectedHeader = readString(parser);
+        } else if (JwsKeys.SIGNATURE.equals(name)) {
+          signature.signature = readString(parser);
+        } else {
+          parser.skipChildren();
+        }
+      }
+      signatures.add(signature);
+    }
+    return signatures;
+  }
+
+  /**
+   * Writes a document into a buffer drawing its segments from the buffer
+   * recycler of the current thread, the same way
+   * {@code ObjectMapper#writeValueAsString} does.
+   */
+  private static String toJson(Body body) throws InvalidFormatException {
+    SegmentedStringWriter out = new SegmentedStringWriter(RECYCLERS.get());
+    try (JsonGenerator gen = FACTORY.createGenerator(out)) {
+      body.write(gen);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+    return out.getAndClear();
+  }
+
+  /**
+   * Writes a document as UTF-8 bytes, the same way
+   * {@code ObjectMapper#writeValueAsBytes} does.
+   */
+  private static byte[] toUtf8(Body body) throws InvalidFormatException {
+    ByteArrayBuilder out = new ByteArrayBuilder(RECYCLERS.get());
+    try (JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+      body.write(gen);
+    } catch (IOException err) {
+      throw new InvalidFormatException(err);
+    }
+    byte[] bytes = out.toByteArray();
+    out.release();
+    return bytes;
+  }
+
+  private static void writeJws(JsonGenerator gen, TdiJws jws) throws IOException {
+    gen.writeStartObject();
+    writeStringField(gen, JwsKeys.PAYLOAD, jws.payload);
+    if (jws.signatures != null) {
+      gen.writeArrayFieldStart(JwsKeys.SIGNATURES);
+      for (TdiJwsSignature signature : jws.signatures) {
+        if (signature == null) {
+          gen.writeNull();
+          continue;
+        }
+        gen.writeStartObject();
+        writeStringField(gen, JwsKeys.PROTECTED, signature.protectedHeader);
+        writeStringField(gen, JwsKeys.SIGNATURE, signature.signature);
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeHeader(JsonGenerator gen, TdiJwsHeader header) throws IOException {
+    gen.writeStartObject();
+    writeStringField(gen, JwsKeys.TYPE, header.typ);
+    writeStringField(gen, JwsKeys.ALG, header.alg);
+    writeStringField(gen, JwsKeys.KID, header.kid);
+    gen.writeEndObject();
+  }
+
+  private static void writeClaims(JsonGenerator gen, TdiClaims claims) throws IOException {
+    gen.writeStartObject();
+    writeStringField(gen, TdiClaimKeys.ISS, claims.iss);
+    if (claims.exp != null) {
+      gen.writeNumberField(TdiClaimKeys.EXP, claims.exp);
+    }
+    if (claims.nbf != null) {
+      gen.writeNumberField(TdiClaimKeys.NBF, claims.nbf);
+    }
+    writeStringField(gen, TdiClaimKeys.JTI, claims.jti);
+    Object payload = claims.getPayload();
+    if (payload != null) {
+      gen.writeFieldName(TdiClaimKeys.PAYLOAD);
+      writeValue(gen, payload);
+    }
+    for (Map.Entry<String, Object> claim : claims.getClaimsMap().entrySet()) {
+      gen.writeFieldName(claim.getKey());
+      writeValue(gen, claim.getValue());
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeStringField(JsonGenerator gen, String name, String value)
+      throws IOException {
+    if (value != null) {
+      gen.writeStringField(name, value);
+    }
+  }
+
+  private static void writeValue(JsonGenerator gen, Object value) throws IOException {
+    if (value == null) {
+      gen.writeNull();
+    } else if (value instanceof String) {
+      gen.writeString((String) value);
+    } else {
+      Utils.writerFor(value.getClass()).writeValue(gen, value);
+    }
+  }
+
+  private static String readString(JsonParser parser) throws IOException {
+    switch (parser.getCurrentToken()) {
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NULL:
+        return null;
+      default:
+        return Utils.readerFor(String.class).readValue(parser);
+    }
+  }
+
+  private static Long readLong(JsonParser parser) throws IOException {
+    switch (parser.getCurrentToken()) {
+      case VALUE_NUMBER_INT:
+        return parser.getLongValue();
+      case VALUE_NULL:
+        return null;
+      default:
+        return Utils.readerFor(Long.class).readValue(parser);
+    }
+  }
+
+  private static Object readValue(JsonParser parser) throws IOException {
+    switch (parser.getCurrentToken()) {
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NULL:
+        return null;
+      default:
+        return Utils.readerFor(Object.class).readValue(parser);
+    }
+  }
+
+  /**
+   * Writes one document to a generator.
+   */
+  private interface Body {
+    void write(JsonGenerator gen) throws IOException;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Claims whose payload is decoded on first access.
+ *
+ * <p>
+ * The verify flows reject expired, not yet valid and replayed messages from
+ * the registered claims alone, so {@link JwsJsonCodec#readLazyClaims(String)}
+ * keeps the payload claim as a JSON slice and only {@link #getPayload()}
+ * decodes it. Until then the deprecated public {@link #payload} field is
+ * null, which is why the JWT component only hands out these claims when the
+ * {@code lazyPayload} claims setting is enabled. A payload assigned before the slice is decoded,
+ * through the field or {@link #setPayload(Object)}, takes precedence over the
+ * slice.
+ *
+ * <p>
+ * Claims are handed between the threads of the verify flow, so the slice is
+ * decoded under the lock of the instance and only dropped once the decoded
+ * payload has been published. A concurrent reader therefore either decodes
+ * the payload itself or sees the decoded one, never an empty payload. A slice
+ * that fails to decode is kept, so every later read fails the same way.
+ */
+public class LazyTdiClaims extends TdiClaims {
+  private String payloadJson;
+  private byte[] payloadUtf8;
+  private int payloadOffset;
+  private int payloadLength;
+  private volatile boolean pending;
+
+  /**
+   * Returns the payload, decoding it on first access.
+   *
+   * @return Payload object.
+   *
+   * @throws FrameworkRuntimeException
+   *           if the payload slice cannot be decoded.
+   */
+  @Override
+  public Object getPayload() {
+    if (pending) {
+      decodePayload();
+    }
+    return super.getPayload();
+  }
+
+  private synchronized void decodePayload() {
+    if (!pending) {
+      return;
+    }
+    if (super.getPayload() == null) {
+      Object decoded;
+      try {
+        decoded = payloadJson != null ? JwsJsonCodec.readPayload(payloadJson)
+            : JwsJsonCodec.readPayload(payloadUtf8, payloadOffset, payloadLength);
+      } catch (InvalidFormatException err) {
+        throw new FrameworkRuntimeException("Invalid claims payload: " + err.getMessage());
+      }
+      super.setPayload(decoded);
+    }
+    clearSlice();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see biz.neustar.tdi.fw.canonicalmessage.TdiClaims#setPayload(java.lang.Object)
+   */
+  @Override
+  public synchronized void setPayload(Object payload) {
+    super.setPayload(payload);
+    clearSlice();
+  }
+
+  /**
+   * Returns true once the payload slice has been decoded or replaced.
+   *
+   * @return true if {@link #getPayload()} will not parse anything.
+   */
+  @JsonIgnore
+  public boolean isPayloadDecoded() {
+    return !pending;
+  }
+
+  private void clearSlice() {
+    payloadJson = null;
+    payloadUtf8 = null;
+    pending = false;
+  }
+
+  synchronized void setPayloadJson(String payloadJson) {
+    this.payloadJson = payloadJson;
+    this.payloadUtf8 = null;
+    this.pending = payloadJson != null;
+  }
+
+  synchronized void setPayloadJson(byte[] payloadUtf8, int offset, int length) {
+    this.payloadJson = null;
+    this.payloadUtf8 = payloadUtf8;
+    this.payloadOffset = offset;
+    this.payloadLength = length;
+    this.pending = payloadUtf8 != null;
+  }
+}
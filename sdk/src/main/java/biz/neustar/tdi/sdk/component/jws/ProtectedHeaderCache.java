@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Bounded cache of encoded JWS protected headers.
+ *
+ * <p>
+ * The protected header of a signature only depends on the signature type, the
+ * algorithm and the kid of the signer, so its JSON and base64url forms are
+ * built once per kid and type instead of on every message. Each entry also
+ * remembers the key data of the signer it was built for: a lookup made with
+ * different key data for the same kid is a miss and replaces the entry, so a
+ * key that was replaced in the keystore starts afresh.
+ */
+public class ProtectedHeaderCache extends
+    BoundedCache<ProtectedHeaderCache.HeaderKey, ProtectedHeaderCache.ProtectedHeader> {
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries
+   *          : Maximum number of headers held by the cache. A value below 1
+   *          disables caching.
+   */
+  public ProtectedHeaderCache(int maxEntries) {
+    super(maxEntries);
+  }
+
+  /**
+   * Returns the cached header of the given signer and type.
+   *
+   * @param kid
+   *          : Key ID of the signer.
+   * @param typ
+   *          : Signature type.
+   * @param keyData
+   *          : Key data of the signer.
+   *
+   * @return {@link ProtectedHeader} instance, or null on a miss.
+   */
+  public ProtectedHeader get(String kid, String typ, Object keyData) {
+    return get(new HeaderKey(kid, typ),
+        (header) -> Objects.equals(header.keyData, keyData));
+  }
+
+  /**
+   * Records the encoded header of the given signer and type.
+   *
+   * @param kid
+   *          : Key ID of the signer.
+   * @param typ
+   *          : Signature type.
+   * @param keyData
+   *          : Key data of the signer.
+   * @param encoded
+   *          : Base64url encoded protected header.
+   *
+   * @return {@link ProtectedHeader} instance, returned even when caching is
+   *         disabled.
+   */
+  public ProtectedHeader put(String kid, String typ, Object keyData, String encoded) {
+    ProtectedHeader header = new ProtectedHeader(kid, keyData, encoded);
+    put(new HeaderKey(kid, typ), header);
+    return header;
+  }
+
+  /**
+   * Drops the headers of the given kid. Must be called when the key changes.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void purge(String kid) {
+    if (kid != null) {
+      removeIf((key, header) -> kid.equals(key.kid));
+    }
+  }
+
+  /**
+   * Encoded protected header of one signer along with the start of its JWS
+   * signing input.
+   */
+  public static final class ProtectedHeader {
+    private final String kid;
+    private final Object keyData;
+    private final String encoded;
+    private final ByteBuffer prefix;
+
+    ProtectedHeader(String kid, Object keyData, String encoded) {
+      this.kid = kid;
+      this.keyData = keyData;
+      this.encoded = encoded;
+      this.prefix = ByteBuffer.wrap(encoded.concat(".").getBytes(StandardCharsets.US_ASCII))
+          .asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the key ID of the signer.
+     *
+     * @return Key ID.
+     */
+    public String getKid() {
+      return kid;
+    }
+
+    /**
+     * Returns the base64url encoded protected header.
+     *
+     * @return Encoded header.
+     */
+    public String getEncoded() {
+      return encoded;
+    }
+
+    /**
+     * Returns the bytes of {@code ASCII(encoded header || '.')} that start the
+     * JWS signing input.
+     *
+     * @return Read-only {@link ByteBuffer} positioned at the first byte.
+     */
+    public ByteBuffer getSigningInputPrefix() {
+      return prefix.duplicate();
+    }
+  }
+
+  /**
+   * Cache key made of the kid of the signer and the signature type.
+   */
+  static final class HeaderKey {
+    private final String kid;
+    private final String typ;
+
+    HeaderKey(String kid, String typ) {
+      this.kid = kid;
+      this.typ = typ;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof HeaderKey)) {
+        return false;
+      }
+      HeaderKey key = (HeaderKey) other;
+      return Objects.equals(kid, key.kid) && Objects.equals(typ, key.typ);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(kid) * 31 + Objects.hashCode(typ);
+    }
+  }
+}
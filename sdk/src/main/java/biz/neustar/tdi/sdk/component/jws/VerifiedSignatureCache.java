@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Bounded cache of JWS signatures that already passed verification.
+ *
+ * <p>
+ * Entries are keyed by kid, the SHA-256 digest of the signing input and the
+ * encoded signature, and expire with the exp claim of the message they were
+ * verified for. Each entry also remembers the key data it was verified
+ * against: a lookup made with different key data for the same kid is a miss,
+ * so a key that was replaced in the keystore never vouches for a signature it
+ * did not check. The entries of a kid are also dropped by {@link #purge(String)}
+ * when the keystore reports the key as replaced or forgotten.
+ */
+public class VerifiedSignatureCache extends BoundedCache<String, VerifiedSignatureCache.Entry> {
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  private static final String DIGEST_ALG = "SHA-256";
+  private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALG);
+    } catch (NoSuchAlgorithmException err) {
+      throw new IllegalStateException(err);
+    }
+  });
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries
+   *          : Maximum number of verified signatures held by the cache. A
+   *          value below 1 disables caching.
+   */
+  public VerifiedSignatureCache(int maxEntries) {
+    super(maxEntries);
+  }
+
+  /**
+   * Builds the cache key of a signature.
+   *
+   * @param kid
+   *          : Key ID of the signature.
+   * @param signingInput
+   *          : JWS signing input. Its position is left unchanged.
+   * @param signature
+   *          : Encoded signature.
+   *
+   * @return Cache key.
+   */
+  public static String cacheKey(String kid, ByteBuffer signingInput, String signature) {
+    MessageDigest digest = digests.get();
+    digest.update(signingInput.duplicate());
+    return kid + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest())
+        + "." + signature;
+  }
+
+  /**
+   * Returns true if the signature under the given cache key was verified
+   * against the given key data and has not expired yet.
+   *
+   * @param cacheKey
+   *          : Key from {@link #cacheKey(String, ByteBuffer, String)}.
+   * @param keyData
+   *          : Key data of the key the signature would be verified with.
+   * @param now
+   *          : Current time in seconds.
+   *
+   * @return true on a cache hit.
+   */
+  public boolean isVerified(String cacheKey, Object keyData, long now) {
+    return get(cacheKey,
+        (entry) -> entry.exp > now && Objects.equals(entry.keyData, keyData)) != null;
+  }
+
+  /**
+   * Records a signature that passed verification.
+   *
+   * @param cacheKey
+   *          : Key from {@link #cacheKey(String, ByteBuffer, String)}.
+   * @param kid
+   *          : Key ID the signature was verified with.
+   * @param keyData
+   *          : Key data the signature was verified with.
+   * @param exp
+   *          : Expiry of the message in seconds. Nothing is recorded without
+   *          one.
+   */
+  public void put(String cacheKey, String kid, Object keyData, Long exp) {
+    if (exp != null) {
+      put(cacheKey, new Entry(kid, keyData, exp));
+    }
+  }
+
+  /**
+   * Drops every verified signature of the given kid. Must be called when the
+   * key is revoked.
+   *
+   * @param kid
+   *          : Key ID.
+   */
+  public void purge(String kid) {
+    if (kid != null) {
+      removeIf((cacheKey, entry) -> kid.equals(entry.kid));
+    }
+  }
+
+  /**
+   * Verified signature along with the key data it was checked against.
+   */
+  static final class Entry {
+    private final String kid;
+    private final Object keyData;
+    private final long exp;
+
+    Entry(String kid, Object keyData, long exp) {
+      this.kid = kid;
+      this.keyData = keyData;
+      this.exp = exp;
+    }
+  }
+}
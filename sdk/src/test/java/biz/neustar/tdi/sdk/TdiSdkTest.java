@@ -19,6 +19,7 @@ package biz.neustar.tdi.sdk;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
@@ -28,6 +29,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
 /**
@@ -113,6 +115,27 @@ public class TdiSdkTest {
     assertEquals(TestData.PAYLOAD_VALUE, result.get());
   }
 
+  @Test
+  public void testTamperedCopyBeforeGenuine() throws Exception {
+    TdiCanonicalMessage signedMsg = signSdkWrapper.get().<String, TdiCanonicalMessage>api(
+        Api.SignFlow).apply(TestData.PAYLOAD_VALUE).get();
+    String built = cosignSdkWrapper.get().<String, TdiCanonicalMessage>api(Api.CosignFlow)
+        .apply(signedMsg.getBuiltMessage()).get().getBuiltMessage();
+    String tampered = built.replaceFirst("\"signature\":\"[^\"]*\"",
+        "\"signature\":\"" + TestData.getDummyUtils().b64UrlEncode("tampered") + "\"");
+    Function<String, CompletableFuture<String>> verifyApi = verifySdkWrapper.get()
+        .api(Api.VerifyFlow);
+
+    // A copy with a forged signature, carrying the same nonce, gets there first.
+    try {
+      verifyApi.apply(tampered).get();
+      fail("Tampered message was accepted");
+    } catch (ExecutionException err) {
+      // expected
+    }
+    assertEquals(TestData.PAYLOAD_VALUE, verifyApi.apply(built).get());
+  }
+
   @Test(expected = FrameworkRuntimeException.class)
   public void testValidateConfig() throws Exception {
     TdiSdkOptions sdkOptions = new TdiSdkOptions();
@@ -148,4 +171,9 @@ public class TdiSdkTest {
 
   }
 
+  @Test
+  public void testShutdown() throws Exception {
+    TdiSdkWrapperShape wrapper = new TdiSdk(TestData.getDummyPlatformOptions()).init().get();
+    assertNull(wrapper.shutdown().get());
+  }
 }
@@ -50,6 +50,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -218,6 +219,88 @@ public class TestData {
     };
   }
 
+  /**
+   * Creates a dummy datastore keeping an in-memory journal per store.
+   *
+   * @return TdiPlatformDataShape instance.
+   */
+  public static TdiPlatformDataShape getJournalDataStore() {
+    TdiPlatformDataShape store = getDummyDataStore();
+    return new TdiPlatformDataShape() {
+      Map<String, List<String>> journals = new HashMap<>();
+
+      @Override
+      public CompletableFuture<Void> init() {
+        return store.init();
+      }
+
+      @Override
+      public TdiPlatformShape getPlatform() {
+        return store.getPlatform();
+      }
+
+      @Override
+      public CompletableFuture<Void> set(String storeName, String key, Object value) {
+        return store.set(storeName, key, value);
+      }
+
+      @Override
+      public CompletableFuture<List<String>> keys(String storeName) {
+        return store.keys(storeName);
+      }
+
+      @Override
+      public CompletableFuture<?> get(String storeName, String key) {
+        return store.get(storeName, key);
+      }
+
+      @Override
+      public CompletableFuture<Void> drop(String storeName, String key) {
+        return store.drop(storeName, key);
+      }
+
+      @Override
+      public CompletableFuture<Void> deleteStore(String storeName) {
+        return store.deleteStore(storeName);
+      }
+
+      @Override
+      public CompletableFuture<?> createStore(String storeName, Map<String, Object> value) {
+        return store.createStore(storeName, value);
+      }
+
+      @Override
+      public boolean supportsJournal() {
+        return true;
+      }
+
+      @Override
+      public CompletableFuture<Void> appendJournal(String storeName, List<String> records) {
+        journals.computeIfAbsent(storeName, (name) -> new ArrayList<>()).addAll(records);
+        return CompletableFuture.completedFuture(null);
+      }
+
+      @Override
+      public CompletableFuture<List<String>> readJournal(String storeName) {
+        return CompletableFuture.completedFuture(
+            new ArrayList<>(journals.getOrDefault(storeName, new ArrayList<>())));
+      }
+
+      @Override
+      public CompletableFuture<Void> compactJournal(String storeName,
+          Map<String, Object> values) {
+        // Copies maps, as saving the store would.
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+          Object value = entry.getValue();
+          store.set(storeName, entry.getKey(),
+              value instanceof Map ? new HashMap<>((Map<?, ?>) value) : value);
+        }
+        journals.remove(storeName);
+        return CompletableFuture.completedFuture(null);
+      }
+    };
+  }
+
   /**
    * Creates a dummy keystore.
    *
@@ -240,6 +323,22 @@ public class TestData {
   }
 
   public static class DummyKeyStore implements TdiPlatformKeysShape {
+    private final List<Consumer<String>> keyChangeListeners = new ArrayList<>();
+
+    /**
+     * Reports a key as replaced or forgotten to the key change listeners.
+     *
+     * @param kid
+     *          : Key ID.
+     */
+    public void changeKey(String kid) {
+      keyChangeListeners.forEach((listener) -> listener.accept(kid));
+    }
+
+    @Override
+    public void addKeyChangeListener(Consumer<String> listener) {
+      keyChangeListeners.add(listener);
+    }
 
     @Override
     public CompletableFuture<Void> init() {
@@ -520,6 +619,72 @@ public class TestData {
 
   }
 
+  public static class JournalPlatform extends DummyPlatform {
+
+    public JournalPlatform(Map<String, Object> conf) {
+      super(conf);
+      dataStore = TestData.getJournalDataStore();
+    }
+  }
+
+  /**
+   * Platform whose crypto facet leaves every signature pending until the test
+   * completes it, so that the order and the threads the signatures complete on
+   * can be controlled.
+   */
+  public static class DeferredCryptoPlatform extends DummyPlatform {
+    public final List<CompletableFuture<String>> pendingSignatures = new ArrayList<>();
+    public final List<String> pendingPayloads = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param conf
+     *          : Configuration object.
+     */
+    public DeferredCryptoPlatform(Map<String, Object> conf) {
+      super(conf);
+      TdiPlatformCryptoShape signer = crypto;
+      crypto = new TdiPlatformCryptoShape() {
+
+        @Override
+        public CompletableFuture<Void> init() {
+          return signer.init();
+        }
+
+        @Override
+        public TdiPlatformShape getPlatform() {
+          return DeferredCryptoPlatform.this;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> verify(TdiKeyStructureShape key, String payload,
+            String signature) {
+          return signer.verify(key, payload, signature);
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> sign(TdiKeyStructureShape key,
+            String payload) {
+          CompletableFuture<String> signature = new CompletableFuture<>();
+          pendingSignatures.add(signature);
+          pendingPayloads.add(payload);
+          return signature;
+        }
+
+        @Override
+        public CompletableFuture<Void> encrypt() {
+          return signer.encrypt();
+        }
+
+        @Override
+        public CompletableFuture<Void> decrypt() {
+          return signer.decrypt();
+        }
+      };
+    }
+  }
+
   public static class SignPlatform extends DummyPlatform {
 
     public SignPlatform(Map<String, Object> conf) {
@@ -16,15 +16,25 @@
 
 package biz.neustar.tdi.sdk.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
+import biz.neustar.tdi.fw.implementation.TdiFlowArguments;
 import biz.neustar.tdi.fw.wrapper.TdiSdkWrapperShape;
 import biz.neustar.tdi.sdk.Constants.Api;
+import biz.neustar.tdi.sdk.Constants.Components;
+import biz.neustar.tdi.sdk.Constants.FlowMethods.Verifying;
 import biz.neustar.tdi.sdk.TdiSdk;
 import biz.neustar.tdi.sdk.TestData;
+import biz.neustar.tdi.sdk.component.TdiSdkNonceComponent;
+import biz.neustar.tdi.sdk.exception.ApiException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
@@ -87,6 +97,80 @@ public class VerifyTest {
     verify.validateClaims(tdiMsg).get();
   }
 
+  @Test
+  public void testValidateClaims_reservesNonce() throws Exception {
+    TdiSdkNonceComponent nonce = (TdiSdkNonceComponent) defaultSdkWrapper.get().getImpl()
+        .getModule(Components.NONCE);
+    TdiCanonicalMessage tdiMsg = new TdiCanonicalMessage(1);
+    tdiMsg.getClaims().iss = "iss";
+    tdiMsg.getClaims().exp = System.currentTimeMillis();
+    tdiMsg.getClaims().nbf = (System.currentTimeMillis() / 1000) - 10;
+    tdiMsg.getClaims().jti = nonce.create();
+    verify.validateClaims(tdiMsg).get();
+
+    // A copy of the message is turned down while the first one is verified.
+    try {
+      verify.validateClaims(tdiMsg).get();
+      fail("Nonce was accepted twice");
+    } catch (ExecutionException err) {
+      assertEquals("Bad Nonce", err.getCause().getMessage());
+    }
+
+    // The copy failed, which leaves the reservation of the first one alone.
+    TdiCanonicalMessage copy = new TdiCanonicalMessage(1);
+    copy.setClaims(tdiMsg.getClaims());
+    try {
+      verify.validateClaims(copy).get();
+      fail("Nonce was accepted twice");
+    } catch (ExecutionException err) {
+      copy.completeFlow(null, err.getCause());
+    }
+    assertFalse(nonce.check(tdiMsg.getClaims().jti).get());
+
+    // The flow of the first one fails a later step, which releases the nonce.
+    tdiMsg.completeFlow(null, new ApiException("Rejected"));
+    verify.validateClaims(tdiMsg).get();
+    verify.afterVerify(tdiMsg).get();
+    tdiMsg.completeFlow(null, new ApiException("Rejected"));
+    assertFalse(nonce.check(tdiMsg.getClaims().jti).get());
+  }
+
+  @Test
+  public void testFailingFlowReleasesNonce() throws Exception {
+    TdiSdkWrapperShape wrapper = defaultSdkWrapper.get();
+    TdiFlowArguments verifyFlow = wrapper.getDefaultFlows().get(Api.VerifyFlow);
+    String built = TestData.getCosignedMsg(TestData.getSignedMsg().getBuiltMessage())
+        .getBuiltMessage();
+
+    // A step added after the signatures are verified fails, then afterVerify.
+    for (String step : Arrays.asList(Verifying.verifySignatures, Verifying.afterVerify)) {
+      TdiFlowArguments failing = new TdiFlowArguments();
+      failing.addMethod(step, (data) -> {
+        CompletableFuture<Object> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new ApiException("Rejected in " + step));
+        return rejected;
+      });
+      if (Verifying.afterVerify.equals(step)) {
+        failing.addOverrideStep(step);
+      }
+      try {
+        wrapper.getImpl().<String, String>buildApiFlow(verifyFlow, failing).apply(built).get();
+        fail("Message was accepted");
+      } catch (ExecutionException err) {
+        assertEquals("Rejected in " + step, err.getCause().getMessage());
+      }
+    }
+
+    Function<String, CompletableFuture<String>> verifyApi = wrapper.api(Api.VerifyFlow);
+    assertEquals(TestData.PAYLOAD_VALUE, verifyApi.apply(built).get());
+    try {
+      verifyApi.apply(built).get();
+      fail("Message was accepted twice");
+    } catch (ExecutionException err) {
+      assertEquals("Bad Nonce", err.getCause().getMessage());
+    }
+  }
+
   @Test
   public void testPrepSignatures1() throws Exception {
     TdiCanonicalMessage msg = TestData.getSignedMsg();
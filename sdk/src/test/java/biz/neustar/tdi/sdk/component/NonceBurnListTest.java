@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.sdk.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import biz.neustar.tdi.fw.utils.Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test cases for {@link NonceBurnList}.
+ */
+public class NonceBurnListTest {
+
+  @Test
+  public void testAddAndContains() {
+    NonceBurnList list = new NonceBurnList();
+    assertTrue(list.add(100, "a"));
+    assertTrue(list.add(100, "b"));
+    assertTrue(list.add(101, "c"));
+    assertFalse(list.add(100, "a"));
+
+    assertTrue(list.contains(100, "a"));
+    assertTrue(list.contains(101, "c"));
+    assertFalse(list.contains(101, "a"));
+    assertFalse(list.contains(102, "d"));
+    assertEquals(3, list.size());
+    assertEquals(2, list.bucketCount());
+  }
+
+  @Test
+  public void testExpireDropsWholeBuckets() {
+    NonceBurnList list = new NonceBurnList();
+    list.add(100, "a");
+    list.add(100, "b");
+    list.add(101, "c");
+    list.add(105, "d");
+
+    assertNull(list.expire(99));
+    assertEquals(Long.valueOf(100), list.expire(100));
+    assertFalse(list.contains(100, "a"));
+    assertTrue(list.contains(101, "c"));
+    assertEquals(2, list.size());
+
+    assertEquals(Long.valueOf(101), list.expire(104));
+    assertEquals(1, list.size());
+    assertEquals(1, list.bucketCount());
+    assertTrue(list.contains(105, "d"));
+  }
+
+  @Test
+  public void testReserveCommitRelease() {
+    NonceBurnList list = new NonceBurnList();
+    assertTrue(list.reserve(100, "a"));
+    assertFalse(list.reserve(100, "a"));
+    assertTrue(list.contains(100, "a"));
+    assertEquals(1, list.size());
+
+    // Only burnt nonces get persisted.
+    assertTrue(list.asMap().isEmpty());
+    assertEquals(0, list.asMap().size());
+
+    assertTrue(list.release(100, "a"));
+    assertFalse(list.release(100, "a"));
+    assertFalse(list.contains(100, "a"));
+    assertEquals(0, list.size());
+
+    // A committed reservation is burnt for good.
+    assertTrue(list.reserve(100, "b"));
+    assertFalse(list.add(100, "b"));
+    assertFalse(list.release(100, "b"));
+    assertFalse(list.reserve(100, "b"));
+    assertTrue(list.contains(100, "b"));
+    assertEquals(1, list.size());
+    assertFalse(list.release(101, "b"));
+    assertEquals(Collections.singletonMap("b", 100L), list.asMap());
+  }
+
+  @Test
+  public void testMapViewSkipsReserved() {
+    NonceBurnList list = new NonceBurnList();
+    list.reserve(100, "a");
+    list.add(100, "b");
+    list.reserve(101, "c");
+    list.reserve(102, "d");
+    list.add(102, "d");
+
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("b", 100L);
+    expected.put("d", 102L);
+    assertEquals(expected, list.asMap());
+    assertEquals(2, list.asMap().size());
+    assertEquals(4, list.size());
+
+    Iterator<Map.Entry<String, Long>> entries = list.asMap().entrySet().iterator();
+    entries.next();
+    entries.next();
+    assertFalse(entries.hasNext());
+    try {
+      entries.next();
+      fail("Iterated past the burnt nonces");
+    }
+    catch (NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testExpiredSecondsRejected() {
+    NonceBurnList list = new NonceBurnList();
+    list.add(100, "a");
+    list.reserve(101, "b");
+
+    assertEquals(Long.valueOf(101), list.expire(101));
+    assertFalse(list.add(100, "c"));
+    assertFalse(list.reserve(101, "d"));
+    assertFalse(list.contains(101, "d"));
+    assertEquals(0, list.size());
+    assertEquals(0, list.bucketCount());
+
+    // An earlier time does not lower the floor.
+    assertNull(list.expire(50));
+    assertFalse(list.add(101, "e"));
+    assertTrue(list.add(102, "e"));
+    assertEquals(1, list.size());
+  }
+
+  @Test
+  public void testConcurrentExpireKeepsCount() throws Exception {
+    NonceBurnList list = new NonceBurnList();
+    int threads = 4;
+    int seconds = 2000;
+    ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int thread = 0; thread < threads; thread++) {
+        String prefix = "t" + thread + "-";
+        tasks.add(pool.submit(() -> {
+          for (long second = 1; second <= seconds; second++) {
+            list.add(second, prefix + second);
+          }
+        }));
+      }
+      tasks.add(pool.submit(() -> {
+        for (long second = 1; second <= seconds; second++) {
+          list.expire(second);
+        }
+      }));
+      for (Future<?> task : tasks) {
+        task.get(30, TimeUnit.SECONDS);
+      }
+    }
+    finally {
+      pool.shutdownNow();
+    }
+
+    // No bucket outlived the expiry of its second.
+    assertEquals(0, list.size());
+    assertEquals(0, list.bucketCount());
+    assertTrue(list.asMap().isEmpty());
+    assertFalse(list.add(seconds, "late"));
+  }
+
+  @Test
+  public void testMapViewRoundTrip() throws Exception {
+    NonceBurnList list = new NonceBurnList();
+    list.add(100, "a");
+    list.add(101, "b");
+
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("a", 100L);
+    expected.put("b", 101L);
+    assertEquals(expected, list.asMap());
+    assertEquals(2, list.asMap().size());
+
+    // Persisted through JSON, small expiries come back as integers.
+    Map<String, Object> stored = Utils.jsonToMap(Utils.objectToJson(list.asMap()));
+    NonceBurnList reloaded = new NonceBurnList();
+    @SuppressWarnings("unchecked")
+    Map<String, ? extends Number> burnt = (Map<String, ? extends Number>) (Map<?, ?>) stored;
+    reloaded.addAll(burnt);
+    assertEquals(expected, reloaded.asMap());
+
+    list.add(102, "c");
+    assertTrue(list.asMap().containsKey("c"));
+  }
+}
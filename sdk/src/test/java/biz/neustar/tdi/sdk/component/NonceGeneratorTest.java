@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.sdk.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import biz.neustar.tdi.fw.platform.TdiPlatformShape;
+import biz.neustar.tdi.fw.platform.facet.time.TdiPlatformTimeShape;
+import biz.neustar.tdi.sdk.Constants.NonceConfig;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Unit test cases for {@link NonceGenerator}.
+ */
+public class NonceGeneratorTest {
+
+  /**
+   * Time facet with a settable clock that counts its reads.
+   */
+  static class CountingTime implements TdiPlatformTimeShape {
+    long now = 1500000000L;
+    int timestamps;
+    int isoDates;
+
+    @Override
+    public TdiPlatformShape getPlatform() {
+      return null;
+    }
+
+    @Override
+    public CompletableFuture<Void> init() {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Long timestamp(String timeDateStr) {
+      timestamps++;
+      return now;
+    }
+
+    @Override
+    public String isoDate(Long timestamp) {
+      isoDates++;
+      return java.time.Instant.ofEpochSecond(now + timestamp).toString();
+    }
+  }
+
+  @Test
+  public void testFormat() {
+    CountingTime time = new CountingTime();
+    NonceGenerator generator = new NonceGenerator(time, NonceConfig.VERSION, 10, 6);
+    for (int index = 0; index < 1000; index++) {
+      String nonce = generator.next();
+      assertTrue(nonce, Pattern.matches(TdiSdkNonceComponentTest.NONCE_REGEX, nonce));
+      assertTrue(nonce, nonce.startsWith("0022017-07-14T02:40:10Z"));
+    }
+  }
+
+  @Test
+  public void testClockReadOncePerNonce() {
+    CountingTime time = new CountingTime();
+    NonceGenerator generator = new NonceGenerator(time, NonceConfig.VERSION, 10, 6);
+    for (int index = 0; index < 100; index++) {
+      generator.next();
+    }
+    assertEquals(100, time.timestamps);
+    // The expiry is formatted from the same reading, not from a second one.
+    assertEquals(0, time.isoDates);
+
+    time.now++;
+    String nonce = generator.next();
+    assertEquals(101, time.timestamps);
+    assertTrue(nonce, nonce.startsWith("0022017-07-14T02:40:11Z"));
+  }
+
+  @Test
+  public void testSuffixUniform() {
+    NonceGenerator generator = new NonceGenerator(new CountingTime(), NonceConfig.VERSION, 10,
+        6);
+    int[] counts = new int[128];
+    Set<String> nonces = new HashSet<>();
+    for (int index = 0; index < 62000; index++) {
+      String nonce = generator.next();
+      nonces.add(nonce);
+      for (int position = nonce.length() - 6; position < nonce.length(); position++) {
+        counts[nonce.charAt(position)]++;
+      }
+    }
+    assertEquals(62000, nonces.size());
+
+    // 6000 draws expected per character, with a standard deviation of 77.
+    for (char character : NonceGenerator.ALPHABET.toCharArray()) {
+      assertTrue(character + ": " + counts[character],
+          Math.abs(counts[character] - 6000) < 600);
+    }
+  }
+}
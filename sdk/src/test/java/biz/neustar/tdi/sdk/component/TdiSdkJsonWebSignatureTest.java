@@ -17,26 +17,41 @@
 package biz.neustar.tdi.sdk.component;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
 import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import biz.neustar.tdi.fw.implementation.TdiImplementation;
+import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
 import biz.neustar.tdi.fw.keystructure.TdiKeyStructure;
 import biz.neustar.tdi.fw.utils.Utils;
 import biz.neustar.tdi.sdk.Constants.DefaultJws;
 import biz.neustar.tdi.sdk.TestData;
+import biz.neustar.tdi.sdk.TestData.DummyKeyStore;
 import biz.neustar.tdi.sdk.component.jws.TdiJws;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsHeader;
 import biz.neustar.tdi.sdk.component.jws.TdiJwsSignature;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Unit test cases for {@link TdiSdkJsonWebSignature} class.
@@ -296,4 +311,217 @@ public class TdiSdkJsonWebSignatureTest {
     // Check the claims:
     assertEquals(claims, verifyMessage.getClaims());
   }
+
+  @Test
+  public void testVerifyCache() throws Exception {
+    TdiImplementationShape impl = TestData.getDummyImplementation();
+    TdiSdkJsonWebSignature jws = new TdiSdkJsonWebSignature("jws", impl);
+    jws.init().get();
+    TdiSdkJsonWebTokenComponent jwtComponent = new TdiSdkJsonWebTokenComponent("jwt",
+        TestData.getDummyImplementation());
+
+    TdiClaims claims = new TdiClaims();
+    claims.exp = System.currentTimeMillis() / 1000 + 60;
+    claims.payload = "Payload";
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setClaims(claims);
+    message = jwtComponent.packClaims(message).get();
+    message.addSigner(new TdiKeyStructure("id1", "id1", null, 0));
+    message.addSigner(new TdiKeyStructure("id2", "id2", null, 0));
+    String built = jws.sign(message).get().getBuiltMessage();
+
+    // First verification goes to the crypto layer and is remembered.
+    jws.verify(unpackWithClaims(jws, jwtComponent, built)).get();
+    assertEquals(0, jws.getVerifiedCache().getHits());
+    assertEquals(2, jws.getVerifiedCache().size());
+
+    // The same message verified again, e.g. after cosigning, is a hit.
+    jws.verify(unpackWithClaims(jws, jwtComponent, built)).get();
+    assertEquals(2, jws.getVerifiedCache().getHits());
+
+    // Replacing or forgetting a key in the keystore forgets its signatures.
+    ((DummyKeyStore) impl.getPlatform().getKeystore()).changeKey("id1");
+    assertEquals(1, jws.getVerifiedCache().size());
+    jws.verify(unpackWithClaims(jws, jwtComponent, built)).get();
+    assertEquals(3, jws.getVerifiedCache().getHits());
+    assertEquals(2, jws.getVerifiedCache().size());
+
+    // Tampered signatures fail and are never cached.
+    TdiCanonicalMessageShape tampered = unpackWithClaims(jws, jwtComponent, built);
+    ((TdiJwsSignature) tampered.getSignaturesToVerify().get(0)).signature = TestData
+        .getDummyUtils().b64UrlEncode("tampered");
+    try {
+      jws.verify(tampered).get();
+      fail("Tampered signature was verified");
+    } catch (ExecutionException err) {
+      assertEquals("Invalid signature", err.getCause().getMessage());
+    }
+    assertEquals(2, jws.getVerifiedCache().size());
+
+    // Without claims there is no expiry to tie an entry to.
+    TdiCanonicalMessageShape noClaims = new TdiCanonicalMessage(1);
+    noClaims.setReceivedMessage(built);
+    jws.getVerifiedCache().clear();
+    jws.verify(jws.unpack(noClaims).get()).get();
+    assertEquals(0, jws.getVerifiedCache().size());
+  }
+
+  @Test
+  public void testHeaderCache() throws Exception {
+    TdiImplementationShape impl = TestData.getDummyImplementation();
+    TdiSdkJsonWebSignature jws = new TdiSdkJsonWebSignature("jws", impl);
+    jws.init().get();
+    TdiKeyStructure signer = new TdiKeyStructure("id1", "id1", null, 0);
+
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setRawPayload("cGF5bG9hZA");
+    message.addSigner(signer);
+    String first = jws.sign(message).get().getBuiltMessage();
+    assertEquals(0, jws.getHeaderCache().getHits());
+    assertEquals(1, jws.getHeaderCache().getMisses());
+
+    // A second message of the same signer reuses the encoded header.
+    message = new TdiCanonicalMessage(1);
+    message.setRawPayload("cGF5bG9hZA");
+    message.addSigner(signer);
+    assertEquals(first, jws.sign(message).get().getBuiltMessage());
+    assertEquals(1, jws.getHeaderCache().getHits());
+    TdiJwsSignature signature = Utils.jsonToObject(first, TdiJws.class).signatures.get(0);
+    TdiJwsHeader header = Utils.jsonToObject(
+        TestData.getDummyUtils().b64UrlDecode(signature.protectedHeader), TdiJwsHeader.class);
+    assertEquals("id1", header.kid);
+    assertEquals(DefaultJws.type, header.typ);
+
+    // Another signature type gets its own header.
+    message = new TdiCanonicalMessage(1);
+    message.setRawPayload("cGF5bG9hZA");
+    message.setSignatureType("other");
+    message.addSigner(signer);
+    jws.sign(message).get();
+    assertEquals(2, jws.getHeaderCache().size());
+
+    ((DummyKeyStore) impl.getPlatform().getKeystore()).changeKey("id1");
+    assertEquals(0, jws.getHeaderCache().size());
+  }
+
+  private static TdiCanonicalMessageShape unpackWithClaims(TdiSdkJsonWebSignature jws,
+      TdiSdkJsonWebTokenComponent jwtComponent, String built) throws Exception {
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setReceivedMessage(built);
+    return jwtComponent.unpackClaims(jws.unpack(message).get()).get();
+  }
+
+  @Test
+  public void testVerifyBatch() throws Exception {
+    TdiSdkJsonWebTokenComponent jwtComponent = new TdiSdkJsonWebTokenComponent("jwt",
+        TestData.getDummyImplementation());
+
+    TdiCanonicalMessageShape[] messages = new TdiCanonicalMessageShape[3];
+    for (int index = 0; index < messages.length; index++) {
+      TdiClaims claims = new TdiClaims();
+      claims.exp = System.currentTimeMillis();
+      claims.payload = "Payload" + index;
+
+      TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+      message.setClaims(claims);
+      message = jwtComponent.packClaims(message).get();
+      message.addSigner(new TdiKeyStructure("id1", "id1", null, 0));
+      message.addSigner(new TdiKeyStructure("id2", "id2", null, 0));
+      message = component.sign(message).get();
+
+      TdiCanonicalMessageShape verifyMessage = new TdiCanonicalMessage(1);
+      verifyMessage.setReceivedMessage(message.getBuiltMessage());
+      messages[index] = component.unpack(verifyMessage).get();
+    }
+
+    // Tamper with one signature of the second message.
+    TdiJwsSignature tampered = (TdiJwsSignature) messages[1].getSignaturesToVerify().get(1);
+    tampered.signature = TestData.getDummyUtils().b64UrlEncode("tampered");
+
+    // A message without signatures is never verified.
+    TdiCanonicalMessageShape unsigned = new TdiCanonicalMessage(1);
+    unsigned.setRawPayload(messages[0].getRawPayload());
+
+    List<Boolean> results = component
+        .verifyBatch(Arrays.asList(messages[0], messages[1], messages[2], unsigned)).get();
+    assertEquals(4, results.size());
+    assertTrue(results.get(0));
+    assertFalse(results.get(1));
+    assertTrue(results.get(2));
+    assertFalse(results.get(3));
+
+    assertTrue(component.verifyBatch(null).get().isEmpty());
+  }
+
+  @Test
+  public void testSigningInput() throws Exception {
+    ByteBuffer input = TdiSdkJsonWebSignature.signingInput("aGVhZGVy", "cGF5bG9hZA");
+    assertEquals(0, input.position());
+    assertEquals(input.capacity(), input.limit());
+    assertEquals(ByteBuffer.wrap("aGVhZGVy.cGF5bG9hZA".getBytes(StandardCharsets.US_ASCII)),
+        input);
+
+    // Non ASCII input still produces the UTF-8 bytes of the concatenation.
+    input = TdiSdkJsonWebSignature.signingInput("h\u00e9ader", "p\u00e4yload");
+    assertEquals(ByteBuffer.wrap("h\u00e9ader.p\u00e4yload".getBytes(StandardCharsets.UTF_8)),
+        input);
+
+    // Built from a cached prefix, the signing input is the same.
+    ByteBuffer prefix = ByteBuffer.wrap("aGVhZGVy.".getBytes(StandardCharsets.US_ASCII));
+    assertEquals(TdiSdkJsonWebSignature.signingInput("aGVhZGVy", "cGF5bG9hZA"),
+        TdiSdkJsonWebSignature.signingInput(prefix, "cGF5bG9hZA"));
+    assertEquals(0, prefix.position());
+    assertEquals(TdiSdkJsonWebSignature.signingInput("aGVhZGVy", "p\u00e4yload"),
+        TdiSdkJsonWebSignature.signingInput(prefix, "p\u00e4yload"));
+  }
+
+  @Test
+  public void testSignCollectsConcurrentSignaturesInOrder() throws Exception {
+    TdiImplementationShape impl = new TdiImplementation(TestData.getTestConfig(),
+        TestData.DeferredCryptoPlatform::new);
+    TestData.DeferredCryptoPlatform platform = (TestData.DeferredCryptoPlatform) impl
+        .getPlatform();
+    TdiSdkJsonWebSignature signer = new TdiSdkJsonWebSignature("jws", impl);
+
+    int signers = 32;
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setRawPayload("cGF5bG9hZA");
+    for (int index = 0; index < signers; index++) {
+      message.addSigner(new TdiKeyStructure("id" + index, "fleet", null, 0));
+    }
+    CompletableFuture<TdiCanonicalMessageShape> signed = signer.sign(message);
+    assertEquals(signers, platform.pendingSignatures.size());
+    assertFalse(signed.isDone());
+
+    // Complete the signatures from several threads, last signer first.
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> completions = new ArrayList<>();
+      for (int index = signers - 1; index >= 0; index--) {
+        CompletableFuture<String> pending = platform.pendingSignatures.get(index);
+        String value = "sig" + index;
+        completions.add(pool.submit(() -> {
+          start.await();
+          return pending.complete(value);
+        }));
+      }
+      start.countDown();
+      for (Future<?> completion : completions) {
+        completion.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    TdiJws jwsMessage = Utils.jsonToObject(signed.get().getBuiltMessage(), TdiJws.class);
+    assertEquals(signers, jwsMessage.signatures.size());
+    for (int index = 0; index < signers; index++) {
+      TdiJwsSignature signature = jwsMessage.signatures.get(index);
+      String protectedHeader = TestData.getDummyUtils().b64UrlDecode(signature.protectedHeader);
+      assertEquals("id" + index,
+          Utils.jsonToObject(protectedHeader, TdiJwsHeader.class).kid);
+      assertEquals("sig" + index, signature.signature);
+    }
+  }
 }
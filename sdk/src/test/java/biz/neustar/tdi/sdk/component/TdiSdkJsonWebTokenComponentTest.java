@@ -17,16 +17,27 @@
 package biz.neustar.tdi.sdk.component;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessage;
 import biz.neustar.tdi.fw.canonicalmessage.TdiCanonicalMessageShape;
 import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.implementation.TdiImplementation;
 import biz.neustar.tdi.fw.utils.Utils;
+import biz.neustar.tdi.sdk.Constants.ClaimsConfig;
+import biz.neustar.tdi.sdk.Constants.DefaultJws;
 import biz.neustar.tdi.sdk.TestData;
+import biz.neustar.tdi.sdk.TestData.DummyPlatform;
+import biz.neustar.tdi.sdk.component.jws.BinaryClaimsCodec;
+import biz.neustar.tdi.sdk.component.jws.LazyTdiClaims;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -59,8 +70,9 @@ public class TdiSdkJsonWebTokenComponentTest {
     TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
     message.setClaims(claims);
 
-    String expectedJson = TestData.getDummyUtils()
-        .b64UrlEncode(Utils.objectToJson(claims));
+    byte[] json = Utils.objectToJson(claims).getBytes(StandardCharsets.UTF_8);
+    String expectedJson = new String(
+        TestData.getDummyUtils().b64UrlEncode(json, 0, json.length), StandardCharsets.US_ASCII);
     assertEquals(expectedJson, component.packClaims(message).get().getRawPayload());
   }
 
@@ -74,6 +86,88 @@ public class TdiSdkJsonWebTokenComponentTest {
     assertEquals(claims, unpackedMessage.getClaims());
   }
 
+  @Test
+  public void testUnpackClaimsEagerlyByDefault() throws Exception {
+    TdiCanonicalMessage message = new TdiCanonicalMessage(1);
+    message.setRawPayload(TestData.getDummyUtils().b64UrlEncode(
+        "{\"iss\":\"Issuer\",\"payload\":{\"temp\":[21.5]},\"exp\":10}"));
+
+    // Code still reading the public payload field sees the payload.
+    TdiClaims unpacked = component.unpackClaims(message).get().getClaims();
+    assertEquals(Utils.jsonToMap("{\"temp\":[21.5]}"), unpacked.payload);
+    assertEquals(unpacked.payload, unpacked.getPayload());
+  }
+
+  @Test
+  public void testUnpackClaimsLazily() throws Exception {
+    Map<String, Object> lazy = new HashMap<>();
+    lazy.put(ClaimsConfig.LAZY_PAYLOAD, true);
+    Map<String, Object> config = TestData.getTestConfig();
+    config.put(ClaimsConfig.KEY, lazy);
+    TdiSdkJsonWebTokenComponent lazyComponent = new TdiSdkJsonWebTokenComponent("jwt",
+        new TdiImplementation(config, DummyPlatform::new));
+
+    TdiCanonicalMessage message = new TdiCanonicalMessage(1);
+    message.setRawPayload(TestData.getDummyUtils().b64UrlEncode(
+        "{\"iss\":\"Issuer\",\"payload\":{\"temp\":[21.5]},\"exp\":10}"));
+
+    LazyTdiClaims unpacked = (LazyTdiClaims) lazyComponent.unpackClaims(message).get()
+        .getClaims();
+    assertEquals("Issuer", unpacked.iss);
+    assertEquals(Long.valueOf(10), unpacked.exp);
+    assertFalse(unpacked.isPayloadDecoded());
+    assertNull(unpacked.payload);
+
+    assertEquals(Utils.jsonToMap("{\"temp\":[21.5]}"), unpacked.getPayload());
+    assertTrue(unpacked.isPayloadDecoded());
+  }
+
+  @Test
+  public void testBinaryClaims() throws Exception {
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setClaims(claims);
+    message.setSignatureType(DefaultJws.binaryType);
+    String rawPayload = component.packClaims(message).get().getRawPayload();
+
+    byte[] encoded = rawPayload.getBytes(StandardCharsets.US_ASCII);
+    byte[] decoded = TestData.getDummyUtils().b64UrlDecode(encoded, 0, encoded.length);
+    assertTrue(BinaryClaimsCodec.isBinary(decoded));
+
+    // Received claims are recognized whatever the signature type.
+    TdiCanonicalMessage received = new TdiCanonicalMessage(1);
+    received.setRawPayload(rawPayload);
+    assertEquals(claims, component.unpackClaims(received).get().getClaims());
+  }
+
+  @Test
+  public void testBinaryClaimsConfig() throws Exception {
+    Map<String, Object> encoding = new HashMap<>();
+    encoding.put(ClaimsConfig.ENCODING, ClaimsConfig.ENCODING_BINARY);
+    Map<String, Object> config = TestData.getTestConfig();
+    config.put(ClaimsConfig.KEY, encoding);
+    TdiSdkJsonWebTokenComponent binary = new TdiSdkJsonWebTokenComponent("jwt",
+        new TdiImplementation(config, DummyPlatform::new));
+
+    TdiCanonicalMessageShape message = new TdiCanonicalMessage(1);
+    message.setClaims(claims);
+    binary.packClaims(message).get();
+    assertEquals(DefaultJws.binaryType, message.getSignatureType());
+    byte[] encoded = message.getRawPayload().getBytes(StandardCharsets.US_ASCII);
+    byte[] decoded = TestData.getDummyUtils().b64UrlDecode(encoded, 0, encoded.length);
+    assertTrue(BinaryClaimsCodec.isBinary(decoded));
+    assertEquals(claims, component.unpackClaims(message).get().getClaims());
+
+    // An explicit signature type still selects JSON.
+    message = new TdiCanonicalMessage(1);
+    message.setClaims(claims);
+    message.setSignatureType(DefaultJws.type);
+    binary.packClaims(message).get();
+    assertEquals(DefaultJws.type, message.getSignatureType());
+    encoded = message.getRawPayload().getBytes(StandardCharsets.US_ASCII);
+    decoded = TestData.getDummyUtils().b64UrlDecode(encoded, 0, encoded.length);
+    assertFalse(BinaryClaimsCodec.isBinary(decoded));
+  }
+
   @Test(expected = ExecutionException.class)
   public void testUnpackClaimsWithException() throws Exception {
     String badJsonBase64Encoded = TestData.getDummyUtils()
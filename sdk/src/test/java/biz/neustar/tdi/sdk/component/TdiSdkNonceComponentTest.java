@@ -18,14 +18,32 @@ package biz.neustar.tdi.sdk.component;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import biz.neustar.tdi.fw.implementation.TdiImplementation;
+import biz.neustar.tdi.fw.implementation.TdiImplementationShape;
+import biz.neustar.tdi.fw.platform.facet.data.TdiPlatformDataShape;
+import biz.neustar.tdi.sdk.Constants.NonceConfig;
 import biz.neustar.tdi.sdk.TestData;
 import biz.neustar.tdi.sdk.component.TdiSdkNonceComponent;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.regex.Pattern;
 
 /**
@@ -65,6 +83,11 @@ public class TdiSdkNonceComponentTest {
     assertTrue(Pattern.matches(NONCE_REGEX, nonce));
   }
 
+  @Test(expected = FrameworkRuntimeException.class)
+  public void testCreateBeforeInit() {
+    new TdiSdkNonceComponent("nonce", TestData.getDummyImplementation()).create();
+  }
+
   @Test
   public void testCheck() throws Exception {
     String nonce = component.create();
@@ -123,4 +146,270 @@ public class TdiSdkNonceComponentTest {
     nonce = component.create();
     component.burn(nonce);
   }
+
+  @Test
+  public void testBurnListPersisted() throws Exception {
+    TdiImplementationShape impl = TestData.getDummyImplementation();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+    String nonce = burning.create();
+    burning.burn(nonce).get();
+
+    // A component reading the same store sees the burnt nonce.
+    TdiSdkNonceComponent reloaded = new TdiSdkNonceComponent("nonce", impl);
+    reloaded.init().get();
+    assertFalse(reloaded.check(nonce).get());
+    assertTrue(reloaded.check(reloaded.create()).get());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testReservedNotPersisted() throws Exception {
+    TdiImplementationShape impl = TestData.getDummyImplementation();
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+
+    String reserved = burning.create();
+    String burnt = burning.create();
+    assertTrue(burning.checkAndReserve(reserved).get());
+    burning.burn(burnt).get();
+    Map<String, Object> stored = (Map<String, Object>) store.get("nonce", NonceConfig.BURNT).get();
+    assertTrue(stored.containsKey(burnt));
+    assertFalse(stored.containsKey(reserved));
+
+    // A restart forgets the reservation, which was never committed.
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    assertFalse(restarted.check(burnt).get());
+    assertTrue(restarted.check(reserved).get());
+  }
+
+  @Test
+  public void testJournalBurn() throws Exception {
+    TdiImplementationShape impl = journalImplementation(NonceConfig.PERSISTENCE_JOURNAL, 100);
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+
+    String nonce = burning.create();
+    burning.burn(nonce).get();
+    List<String> records = store.readJournal("nonce").get();
+    assertEquals(1, records.size());
+    assertTrue(records.get(0).startsWith("b ") && records.get(0).endsWith(" " + nonce));
+    // The burn list itself is not rewritten.
+    assertNull(store.get("nonce", NonceConfig.BURNT).get());
+    assertFalse(burning.check(nonce).get());
+
+    // A restarted component replays the journal.
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    assertFalse(restarted.check(nonce).get());
+    assertTrue(restarted.check(restarted.create()).get());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testJournalCompaction() throws Exception {
+    TdiImplementationShape impl = journalImplementation(NonceConfig.PERSISTENCE_JOURNAL, 3);
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+
+    String[] nonces = { burning.create(), burning.create(), burning.create() };
+    burning.burn(nonces[0]).get();
+    burning.burn(nonces[1]).get();
+    assertEquals(2, store.readJournal("nonce").get().size());
+
+    burning.burn(nonces[2]).get();
+    assertEquals(Collections.emptyList(), store.readJournal("nonce").get());
+    Map<String, Object> burnt = (Map<String, Object>) store.get("nonce", NonceConfig.BURNT).get();
+    assertTrue(burnt.keySet().containsAll(Arrays.asList(nonces)));
+
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    for (String nonce : nonces) {
+      assertFalse(restarted.check(nonce).get());
+    }
+  }
+
+  @Test
+  public void testJournalRecovery() throws Exception {
+    TdiImplementationShape impl = journalImplementation(NonceConfig.PERSISTENCE_JOURNAL, 100);
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+    String nonce = burning.create();
+    String expiry = String.valueOf(burning.getPlatform().getTime().timestamp(
+        nonce.substring(3, nonce.length() - 6)));
+
+    // Records of a crashed run, some of them damaged or long expired.
+    store.appendJournal("nonce", Arrays.asList("b " + expiry, "b x " + nonce, "junk",
+        "b 1 0022017-02-11T10:12:00ZfBBfgf", "b " + expiry + " " + nonce, "n 5")).get();
+
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    assertFalse(restarted.check(nonce).get());
+    assertTrue(restarted.check(restarted.create()).get());
+  }
+
+  @Test
+  public void testJournalNbfMinimum() throws Exception {
+    TdiImplementationShape impl = journalImplementation(NonceConfig.PERSISTENCE_JOURNAL, 100);
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+    String nonce = burning.create();
+    long expiry = burning.getPlatform().getTime().timestamp(
+        nonce.substring(3, nonce.length() - 6));
+    Object storedMinimum = store.get("nonce", NonceConfig.NBF_MINIMUM).get();
+
+    // The journaled nbfMinimum applies before it is compacted into the store.
+    store.appendJournal("nonce", Collections.singletonList("n " + (expiry + 1))).get();
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    assertEquals(storedMinimum, store.get("nonce", NonceConfig.NBF_MINIMUM).get());
+    assertFalse(restarted.check(nonce).get());
+    assertFalse(restarted.checkAndReserve(nonce).get());
+  }
+
+  @Test
+  public void testJournalFoldedOutsideJournalMode() throws Exception {
+    TdiImplementationShape impl = journalImplementation(NonceConfig.PERSISTENCE_SNAPSHOT, 100);
+    TdiPlatformDataShape store = impl.getPlatform().getDataStore();
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+    String nonce = burning.create();
+    String expiry = String.valueOf(burning.getPlatform().getTime().timestamp(
+        nonce.substring(3, nonce.length() - 6)));
+    store.appendJournal("nonce", Collections.singletonList("b " + expiry + " " + nonce)).get();
+
+    // Switching back to snapshots keeps the journaled nonces and empties the journal.
+    TdiSdkNonceComponent restarted = new TdiSdkNonceComponent("nonce", impl);
+    restarted.init().get();
+    assertFalse(restarted.check(nonce).get());
+    assertEquals(Collections.emptyList(), store.readJournal("nonce").get());
+
+    String next = restarted.create();
+    restarted.burn(next).get();
+    assertEquals(Collections.emptyList(), store.readJournal("nonce").get());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testJournalUnsupported() throws Exception {
+    Map<String, Object> config = TestData.getTestConfig();
+    ((Map<String, Object>) config.get(NonceConfig.STORE)).put(NonceConfig.PERSISTENCE,
+        NonceConfig.PERSISTENCE_JOURNAL);
+    TdiImplementationShape impl = new TdiImplementation(config, TestData.DummyPlatform::new);
+    TdiSdkNonceComponent burning = new TdiSdkNonceComponent("nonce", impl);
+    burning.init().get();
+
+    // Falls back to persisting the whole burn list.
+    String nonce = burning.create();
+    burning.burn(nonce).get();
+    assertTrue(((Map<?, ?>) impl.getPlatform().getDataStore().get("nonce", NonceConfig.BURNT)
+        .get()).containsKey(nonce));
+  }
+
+  @Test
+  public void testCheckAndReserve() throws Exception {
+    TdiSdkNonceComponent reserving = new TdiSdkNonceComponent("nonce",
+        TestData.getDummyImplementation());
+    reserving.init().get();
+
+    String nonce = reserving.create();
+    assertTrue(reserving.checkAndReserve(nonce).get());
+    assertFalse(reserving.checkAndReserve(nonce).get());
+    assertFalse(reserving.check(nonce).get());
+
+    // A released nonce can be presented again.
+    assertTrue(reserving.release(nonce));
+    assertTrue(reserving.check(nonce).get());
+    assertTrue(reserving.checkAndReserve(nonce).get());
+
+    // A committed one cannot.
+    reserving.commit(nonce).get();
+    assertFalse(reserving.release(nonce));
+    assertFalse(reserving.checkAndReserve(nonce).get());
+    assertFalse(reserving.release("bad nonce"));
+    assertFalse(reserving.release(null));
+    assertFalse(reserving.checkAndReserve("bad nonce").get());
+  }
+
+  @Test
+  public void testConcurrentCheckAndReserve() throws Exception {
+    final int threads = 8;
+    final int nonceCount = 2000;
+    TdiSdkNonceComponent reserving = new TdiSdkNonceComponent("nonce",
+        TestData.getDummyImplementation());
+    reserving.init().get();
+    // Creates the burnt entry of the store before the threads rewrite it.
+    reserving.burn(reserving.create()).get();
+
+    List<String> nonces = new ArrayList<>();
+    while (nonces.size() < nonceCount) {
+      String nonce = reserving.create();
+      if (!nonces.contains(nonce)) {
+        nonces.add(nonce);
+      }
+    }
+
+    // Every thread presents every nonce, in its own order. Winners whose
+    // message "fails" release the nonce for the others, the rest commit it.
+    AtomicIntegerArray accepted = new AtomicIntegerArray(nonceCount);
+    AtomicIntegerArray released = new AtomicIntegerArray(nonceCount);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<Future<?>> workers = new ArrayList<>();
+    for (int thread = 0; thread < threads; thread++) {
+      final long seed = thread;
+      workers.add(pool.submit(() -> {
+        List<Integer> order = new ArrayList<>();
+        for (int index = 0; index < nonceCount; index++) {
+          order.add(index);
+        }
+        Collections.shuffle(order, new Random(seed));
+        start.await();
+        for (int index : order) {
+          String nonce = nonces.get(index);
+          if (reserving.checkAndReserve(nonce).get()) {
+            if (index % 4 == 0 && released.compareAndSet(index, 0, 1)) {
+              assertTrue(reserving.release(nonce));
+            } else {
+              reserving.commit(nonce).get();
+              accepted.incrementAndGet(index);
+            }
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> worker : workers) {
+      worker.get(60, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    for (int index = 0; index < nonceCount; index++) {
+      String nonce = nonces.get(index);
+      if (released.get(index) == 1 && accepted.get(index) == 0) {
+        // Released after every other thread had tried it.
+        assertTrue(reserving.check(nonce).get());
+      } else {
+        assertEquals("Nonce " + nonce, 1, accepted.get(index));
+        assertFalse(reserving.check(nonce).get());
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static TdiImplementationShape journalImplementation(String persistence,
+      int compactEvery) {
+    Map<String, Object> config = TestData.getTestConfig();
+    Map<String, Object> nonceConfig = (Map<String, Object>) config.get(NonceConfig.STORE);
+    nonceConfig.put(NonceConfig.PERSISTENCE, persistence);
+    nonceConfig.put(NonceConfig.COMPACT_EVERY, compactEvery);
+    return new TdiImplementation(config, TestData.JournalPlatform::new);
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+import biz.neustar.tdi.fw.utils.Utils;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unit test cases for {@link BinaryClaimsCodec}.
+ */
+public class BinaryClaimsCodecTest {
+
+  private static TdiClaims claims() {
+    TdiClaims claims = new TdiClaims();
+    claims.iss = "fleet-device-0001";
+    claims.exp = 1504224000123L;
+    claims.nbf = -5L;
+    claims.jti = "0022017-09-01T00:00:00.000Zq3Yv8kNw";
+    claims.payload = "{\"temp\":21.5,\"unit\":\"C\"}";
+    return claims;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    TdiClaims claims = claims();
+    byte[] encoded = BinaryClaimsCodec.writeClaims(claims);
+    assertTrue(BinaryClaimsCodec.isBinary(encoded));
+    LazyTdiClaims decoded = BinaryClaimsCodec.readLazyClaims(encoded);
+    assertEquals(claims, decoded);
+
+    // Structured payloads and other claims go through JSON, the payload
+    // lazily.
+    claims.payload = Utils.jsonToMap("{\"temp\":[21.5],\"ok\":true}");
+    claims.getClaimsMap().put("aud", Arrays.asList("a", "b"));
+    claims.getClaimsMap().put("none", null);
+    decoded = BinaryClaimsCodec.readLazyClaims(BinaryClaimsCodec.writeClaims(claims));
+    assertFalse(decoded.isPayloadDecoded());
+    assertEquals(claims.getClaimsMap(), decoded.getClaimsMap());
+    assertEquals(claims, decoded);
+
+    decoded = BinaryClaimsCodec.readLazyClaims(BinaryClaimsCodec.writeClaims(new TdiClaims()));
+    assertEquals(new TdiClaims(), decoded);
+    assertNull(decoded.getPayload());
+  }
+
+  @Test
+  public void testStringsMatchGetBytes() throws Exception {
+    String[] samples = { "", "ascii", "caf\u00e9", "\u2713\u20ac", "\ud83d\ude00 pair",
+        "lone \ud83d", "\ude00 lone", "end \ud83d" };
+    for (String sample : samples) {
+      TdiClaims claims = new TdiClaims();
+      claims.iss = sample;
+      byte[] encoded = BinaryClaimsCodec.writeClaims(claims);
+      byte[] expected = sample.getBytes(StandardCharsets.UTF_8);
+      assertEquals(4 + expected.length, encoded.length);
+      assertArrayEquals(expected, Arrays.copyOfRange(encoded, 4, encoded.length));
+      assertEquals(new String(expected, StandardCharsets.UTF_8),
+          BinaryClaimsCodec.readLazyClaims(encoded).iss);
+    }
+  }
+
+  @Test
+  public void testSmallerThanJson() throws Exception {
+    TdiClaims claims = claims();
+    byte[] json = JwsJsonCodec.writeClaimsUtf8(claims);
+    byte[] binary = BinaryClaimsCodec.writeClaims(claims);
+    assertFalse(BinaryClaimsCodec.isBinary(json));
+    assertTrue(binary.length + 40 < json.length);
+  }
+
+  @Test
+  public void testVarintBoundaries() throws Exception {
+    for (long value : new long[] { 0, 63, 64, -64, -65, Integer.MAX_VALUE, Long.MAX_VALUE,
+        Long.MIN_VALUE }) {
+      TdiClaims claims = new TdiClaims();
+      claims.exp = value;
+      assertEquals(Long.valueOf(value),
+          BinaryClaimsCodec.readLazyClaims(BinaryClaimsCodec.writeClaims(claims)).exp);
+    }
+    TdiClaims claims = new TdiClaims();
+    claims.exp = 63L;
+    assertArrayEquals(new byte[] { (byte) 0xB7, 1, 2, 126 }, BinaryClaimsCodec.writeClaims(claims));
+  }
+
+  @Test
+  public void testTruncated() throws Exception {
+    byte[] encoded = BinaryClaimsCodec.writeClaims(claims());
+    for (int length = 2; length < encoded.length; length++) {
+      try {
+        BinaryClaimsCodec.readLazyClaims(Arrays.copyOf(encoded, length));
+        // Cutting right after a record leaves a shorter, valid claims set.
+      } catch (InvalidFormatException err) {
+        assertTrue(err.getMessage().contains("Truncated"));
+      }
+    }
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testUnknownRecord() throws Exception {
+    BinaryClaimsCodec.readLazyClaims(new byte[] { (byte) 0xB7, 1, 9, 0 });
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testUnknownVersion() throws Exception {
+    BinaryClaimsCodec.readLazyClaims(new byte[] { (byte) 0xB7, 2 });
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testNotBinary() throws Exception {
+    BinaryClaimsCodec.readLazyClaims("{}".getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit test cases for {@link BoundedCache} class.
+ */
+public class BoundedCacheTest {
+
+  @Test
+  public void testStripes() {
+    assertEquals(1, new BoundedCache<String, String>(0).stripeCount());
+    assertEquals(1, new BoundedCache<String, String>(31).stripeCount());
+    assertEquals(2, new BoundedCache<String, String>(32).stripeCount());
+    assertEquals(BoundedCache.MAX_STRIPES,
+        new BoundedCache<String, String>(1024).stripeCount());
+  }
+
+  @Test
+  public void testGetDropsInvalidValue() {
+    BoundedCache<String, String> cache = new BoundedCache<>(4);
+    cache.put("a", "1");
+    assertEquals("1", cache.get("a", (value) -> true));
+    assertNull(cache.get("a", (value) -> false));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testBoundedAcrossStripes() {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+    for (int index = 0; index < 1000; index++) {
+      cache.put(index, index);
+    }
+    assertTrue(cache.size() <= 100);
+
+    cache.removeIf((key, value) -> value % 2 == 0);
+    for (int index = 0; index < 1000; index += 2) {
+      assertNull(cache.get(index, (value) -> true));
+    }
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testDisabled() {
+    BoundedCache<String, String> cache = new BoundedCache<>(0);
+    assertFalse(cache.isEnabled());
+    cache.put("a", "1");
+    assertNull(cache.get("a", (value) -> true));
+    assertEquals(0, cache.getMisses());
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(256);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        int offset = thread * 1000;
+        tasks.add(pool.submit(() -> {
+          for (int index = 0; index < 1000; index++) {
+            cache.put(offset + index, offset + index);
+            Integer value = cache.get(offset + index / 2, (cached) -> true);
+            if (value != null) {
+              assertEquals(offset + index / 2, value.intValue());
+            }
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertTrue(cache.size() <= 256);
+    assertEquals(8000, cache.getHits() + cache.getMisses());
+  }
+}
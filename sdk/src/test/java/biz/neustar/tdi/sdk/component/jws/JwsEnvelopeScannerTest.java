@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Unit test cases for {@link JwsEnvelopeScanner} class.
+ *
+ * <p>
+ * The scanner replaced a regular expression match followed by a split. Both
+ * the corpus and the generated messages are checked against that reference.
+ */
+public class JwsEnvelopeScannerTest {
+  private static final Pattern COMPACT = Pattern
+      .compile("^[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+\\.[a-zA-Z0-9-_]+$");
+  private static final String ALPHABET = "aZ09-_.{}=+/ \né\"";
+
+  private static void assertSameAsRegex(String message) {
+    String[] expected = COMPACT.matcher(message).matches() ? message.split("\\.") : null;
+    assertArrayEquals(message, expected, JwsEnvelopeScanner.splitCompact(message));
+  }
+
+  @Test
+  public void testCorpus() throws Exception {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        JwsEnvelopeScannerTest.class.getResourceAsStream("/scanner/corpus.txt"),
+        StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.startsWith("#")) {
+          assertSameAsRegex(line.replace("\\n", "\n"));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFuzz() {
+    Random random = new Random(20170901L);
+    for (int round = 0; round < 20000; round++) {
+      char[] message = new char[random.nextInt(12)];
+      for (int index = 0; index < message.length; index++) {
+        // Mostly valid chars, so that a fair share of messages is compact.
+        message[index] = random.nextInt(4) > 0 ? ALPHABET.charAt(random.nextInt(7))
+            : ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+      }
+      assertSameAsRegex(new String(message));
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    assertNull(JwsEnvelopeScanner.splitCompact(null));
+    assertNull(JwsEnvelopeScanner.splitCompact(""));
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import biz.neustar.tdi.fw.canonicalmessage.TdiClaims;
+import biz.neustar.tdi.fw.exception.InvalidFormatException;
+import biz.neustar.tdi.fw.utils.Utils;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Unit test cases for {@link JwsJsonCodec} class.
+ *
+ * <p>
+ * The golden files hold what databind wrote for the same objects. The codec
+ * output must match them byte for byte.
+ */
+public class JwsJsonCodecTest {
+
+  private static String golden(String name) {
+    try (InputStream in = JwsJsonCodecTest.class.getResourceAsStream("/golden/" + name);
+        Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+      return scanner.useDelimiter("\\A").next();
+    } catch (Exception err) {
+      throw new IllegalStateException(err);
+    }
+  }
+
+  private static TdiJwsHeader header() {
+    TdiJwsHeader header = new TdiJwsHeader();
+    header.typ = "JOSE+JSON";
+    header.alg = "ES256";
+    header.kid = "device-1";
+    return header;
+  }
+
+  private static TdiJws jws() {
+    TdiJws jws = new TdiJws();
+    jws.payload = "eyJpc3MiOiJmbGVldCJ9";
+    TdiJwsSignature first = new TdiJwsSignature();
+    first.protectedHeader = "eyJhbGciOiJFUzI1NiJ9";
+    first.signature = "c2lnMQ";
+    first.parsedHeader = header();
+    TdiJwsSignature second = new TdiJwsSignature();
+    second.protectedHeader = "eyJraWQiOiJ4In0";
+    second.signature = "c2lnMg";
+    jws.signatures.addAll(Arrays.asList(first, second));
+    return jws;
+  }
+
+  private static TdiClaims claims() {
+    TdiClaims claims = new TdiClaims();
+    claims.iss = "fleet";
+    claims.exp = 1504258110L;
+    claims.nbf = 1504254510L;
+    claims.jti = "0022017-09-01T08:28:30ZAbCdEf";
+    claims.payload = "Payload \"quoted\"\té";
+    return claims;
+  }
+
+  private static TdiClaims claimsWithExtras() {
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("temp", 21.5);
+    payload.put("tags", Arrays.asList("a", "b"));
+
+    TdiClaims claims = new TdiClaims();
+    claims.iss = "fleet";
+    claims.exp = 1504258110L;
+    claims.payload = payload;
+    claims.getClaimsMap().put("aud", "fleet");
+    claims.getClaimsMap().put("n", 7);
+    claims.getClaimsMap().put("x", null);
+    return claims;
+  }
+
+  @Test
+  public void testWriteMatchesGolden() throws Exception {
+    assertEquals(golden("header.json"), JwsJsonCodec.writeHeader(header()));
+    assertEquals(golden("jws.json"), JwsJsonCodec.writeJws(jws()));
+    assertEquals(golden("claims.json"), JwsJsonCodec.writeClaims(claims()));
+    assertEquals(golden("claims-extra.json"), JwsJsonCodec.writeClaims(claimsWithExtras()));
+  }
+
+  @Test
+  public void testWriteMatchesDatabind() throws Exception {
+    assertEquals(Utils.objectToJson(header()), JwsJsonCodec.writeHeader(header()));
+    assertEquals(Utils.objectToJson(jws()), JwsJsonCodec.writeJws(jws()));
+    assertEquals(Utils.objectToJson(claims()), JwsJsonCodec.writeClaims(claims()));
+    assertEquals(Utils.objectToJson(claimsWithExtras()),
+        JwsJsonCodec.writeClaims(claimsWithExtras()));
+
+    TdiJwsHeader partial = new TdiJwsHeader();
+    partial.kid = "kid";
+    assertEquals(Utils.objectToJson(partial), JwsJsonCodec.writeHeader(partial));
+    TdiJws empty = new TdiJws();
+    assertEquals(Utils.objectToJson(empty), JwsJsonCodec.writeJws(empty));
+    empty.signatures = null;
+    assertEquals(Utils.objectToJson(empty), JwsJsonCodec.writeJws(empty));
+    assertEquals(Utils.objectToJson(new TdiClaims()), JwsJsonCodec.writeClaims(new TdiClaims()));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    assertEquals(golden("header.json"),
+        JwsJsonCodec.writeHeader(JwsJsonCodec.readHeader(golden("header.json"))));
+    assertEquals(golden("jws.json"),
+        JwsJsonCodec.writeJws(JwsJsonCodec.readJws(golden("jws.json"))));
+    assertEquals(claims(), JwsJsonCodec.readClaims(golden("claims.json")));
+    assertEquals(golden("claims-extra.json"),
+        JwsJsonCodec.writeClaims(JwsJsonCodec.readClaims(golden("claims-extra.json"))));
+    assertEquals(Utils.jsonToObject(golden("claims-extra.json"), TdiClaims.class),
+        JwsJsonCodec.readClaims(golden("claims-extra.json")));
+  }
+
+  @Test
+  public void testReadIsLenient() throws Exception {
+    TdiJwsHeader header = JwsJsonCodec
+        .readHeader("{\"kid\":\"k\",\"x5c\":[\"a\",{\"b\":1}],\"alg\":null}");
+    assertEquals("k", header.kid);
+    assertNull(header.alg);
+
+    TdiJws jws = JwsJsonCodec.readJws(
+        "{\"extra\":{\"a\":[1,2]},\"payload\":\"p\",\"signatures\":[{\"protected\":\"h\","
+            + "\"header\":{\"kid\":\"k\"},\"signature\":\"s\"}]}");
+    assertEquals("p", jws.payload);
+    assertEquals("h", jws.signatures.get(0).protectedHeader);
+    assertEquals("s", jws.signatures.get(0).signature);
+
+    // Values databind coerces are coerced the same way.
+    TdiClaims claims = JwsJsonCodec.readClaims("{\"exp\":\"42\",\"iss\":7}");
+    assertEquals(Long.valueOf(42), claims.exp);
+    assertEquals("7", claims.iss);
+  }
+
+  @Test
+  public void testReadLazyClaims() throws Exception {
+    for (String name : Arrays.asList("claims.json", "claims-extra.json")) {
+      LazyTdiClaims claims = JwsJsonCodec.readLazyClaims(golden(name));
+      assertFalse(claims.isPayloadDecoded());
+      assertEquals(JwsJsonCodec.readClaims(golden(name)), claims);
+      assertTrue(claims.isPayloadDecoded());
+      assertEquals(golden(name), JwsJsonCodec.writeClaims(claims));
+    }
+
+    // Whitespace around the payload is not part of the slice, whether the
+    // payload is followed by another member or closes the object.
+    String spaced = "{ \"payload\" :\t[1, {\"a\": \"}\"}] ,\n\"iss\":\"fleet\" }";
+    LazyTdiClaims claims = JwsJsonCodec.readLazyClaims(spaced);
+    assertEquals("fleet", claims.iss);
+    assertEquals(Utils.jsonToObject(spaced, TdiClaims.class).payload, claims.getPayload());
+    claims = JwsJsonCodec.readLazyClaims("{\"iss\":\"fleet\",\"payload\":\"p, \" \r\n}");
+    assertEquals("p, ", claims.getPayload());
+    claims = JwsJsonCodec.readLazyClaims("{\"payload\":null}");
+    assertNull(claims.getPayload());
+
+    // A payload assigned before decoding wins over the slice.
+    claims = JwsJsonCodec.readLazyClaims(golden("claims.json"));
+    claims.payload = "replaced";
+    assertEquals("replaced", claims.getPayload());
+    claims = JwsJsonCodec.readLazyClaims(golden("claims.json"));
+    claims.setPayload(null);
+    assertTrue(claims.isPayloadDecoded());
+    assertNull(claims.getPayload());
+  }
+
+  @Test
+  public void testUtf8() throws Exception {
+    byte[] header = JwsJsonCodec.writeHeaderUtf8(header());
+    assertEquals(golden("header.json"), new String(header, StandardCharsets.UTF_8));
+    assertEquals(golden("header.json"), JwsJsonCodec.writeHeader(JwsJsonCodec.readHeader(header)));
+
+    for (String name : Arrays.asList("claims.json", "claims-extra.json")) {
+      byte[] json = JwsJsonCodec.writeClaimsUtf8(JwsJsonCodec.readClaims(golden(name)));
+      assertEquals(golden(name), new String(json, StandardCharsets.UTF_8));
+      LazyTdiClaims claims = JwsJsonCodec.readLazyClaims(json);
+      assertFalse(claims.isPayloadDecoded());
+      assertEquals(JwsJsonCodec.readClaims(golden(name)), claims);
+    }
+
+    // Slices are byte offsets, so multi-byte characters ahead of the payload
+    // must not shift it.
+    String spaced = "{\"iss\":\"fl\u00e9et \u2713\", \"payload\" : {\"r\":\"\u00fc\"} ,\n\"k\":1}";
+    LazyTdiClaims claims = JwsJsonCodec.readLazyClaims(spaced.getBytes(StandardCharsets.UTF_8));
+    assertEquals("fl\u00e9et \u2713", claims.iss);
+    assertEquals(JwsJsonCodec.readClaims(spaced), claims);
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadEmptyBytes() throws Exception {
+    JwsJsonCodec.readLazyClaims(new byte[0]);
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadLazyClaimsMalformedPayload() throws Exception {
+    JwsJsonCodec.readLazyClaims("{\"payload\":{\"a\":}}");
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadEmpty() throws Exception {
+    JwsJsonCodec.readJws("");
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadNotAnObject() throws Exception {
+    JwsJsonCodec.readHeader("[\"kid\"]");
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadMalformed() throws Exception {
+    JwsJsonCodec.readClaims("{\"iss\"\"fleet\"}");
+  }
+
+  @Test(expected = InvalidFormatException.class)
+  public void testReadWrongSignatures() throws Exception {
+    JwsJsonCodec.readJws("{\"payload\":\"p\",\"signatures\":\"s\"}");
+  }
+}
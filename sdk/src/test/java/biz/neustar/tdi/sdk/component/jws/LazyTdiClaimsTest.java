@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import biz.neustar.tdi.fw.exception.FrameworkRuntimeException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit test cases for {@link LazyTdiClaims} class.
+ */
+public class LazyTdiClaimsTest {
+  private static final String CLAIMS = "{\"iss\":\"fleet\",\"payload\":{\"reading\":42}}";
+
+  @Test
+  public void testConcurrentGetPayload() throws Exception {
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("reading", 42);
+
+    int threads = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      for (int round = 0; round < 200; round++) {
+        LazyTdiClaims claims = round % 2 == 0 ? JwsJsonCodec.readLazyClaims(CLAIMS)
+            : JwsJsonCodec.readLazyClaims(CLAIMS.getBytes(StandardCharsets.UTF_8));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> readers = new ArrayList<>();
+        for (int index = 0; index < threads; index++) {
+          readers.add(pool.submit(() -> {
+            start.await();
+            return claims.getPayload();
+          }));
+        }
+        start.countDown();
+        for (Future<Object> reader : readers) {
+          assertEquals(expected, reader.get());
+        }
+        assertTrue(claims.isPayloadDecoded());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testInvalidSliceKeepsFailing() {
+    LazyTdiClaims claims = new LazyTdiClaims();
+    claims.setPayloadJson("{\"reading\":");
+    for (int attempt = 0; attempt < 2; attempt++) {
+      try {
+        claims.getPayload();
+        fail("Invalid payload slice was decoded");
+      } catch (FrameworkRuntimeException err) {
+        assertFalse(claims.isPayloadDecoded());
+      }
+    }
+
+    // Replacing the payload drops the slice.
+    claims.setPayload("replaced");
+    assertTrue(claims.isPayloadDecoded());
+    assertEquals("replaced", claims.getPayload());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import biz.neustar.tdi.sdk.component.jws.ProtectedHeaderCache.ProtectedHeader;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit test cases for {@link ProtectedHeaderCache} class.
+ */
+public class ProtectedHeaderCacheTest {
+  private static final Object KEY_DATA = new Object();
+
+  @Test
+  public void testGetAndPut() {
+    ProtectedHeaderCache cache = new ProtectedHeaderCache(4);
+    assertNull(cache.get("kid", "typ", KEY_DATA));
+
+    ProtectedHeader header = cache.put("kid", "typ", KEY_DATA, "aGVhZGVy");
+    assertSame(header, cache.get("kid", "typ", KEY_DATA));
+    assertNull(cache.get("kid", "typ2", KEY_DATA));
+    assertNull(cache.get("kid2", "typ", KEY_DATA));
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+
+    assertEquals("kid", header.getKid());
+    assertEquals("aGVhZGVy", header.getEncoded());
+    ByteBuffer prefix = header.getSigningInputPrefix();
+    assertEquals(ByteBuffer.wrap("aGVhZGVy.".getBytes(StandardCharsets.US_ASCII)), prefix);
+    prefix.position(prefix.limit());
+    assertEquals(0, header.getSigningInputPrefix().position());
+  }
+
+  @Test
+  public void testReplacedKeyMisses() {
+    ProtectedHeaderCache cache = new ProtectedHeaderCache(4);
+    cache.put("kid", "typ", KEY_DATA, "aGVhZGVy");
+    assertNull(cache.get("kid", "typ", new Object()));
+    assertNull(cache.get("kid", "typ", KEY_DATA));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testPurge() {
+    ProtectedHeaderCache cache = new ProtectedHeaderCache(4);
+    cache.put("kid1", "typ1", KEY_DATA, "a");
+    cache.put("kid1", "typ2", KEY_DATA, "b");
+    cache.put("kid2", "typ1", KEY_DATA, "c");
+    cache.purge("kid1");
+    cache.purge(null);
+    assertEquals(1, cache.size());
+    assertNull(cache.get("kid1", "typ1", KEY_DATA));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ProtectedHeaderCache cache = new ProtectedHeaderCache(2);
+    cache.put("kid1", "typ", KEY_DATA, "a");
+    cache.put("kid2", "typ", KEY_DATA, "b");
+    cache.get("kid1", "typ", KEY_DATA);
+    cache.put("kid3", "typ", KEY_DATA, "c");
+    assertEquals(2, cache.size());
+    assertNull(cache.get("kid2", "typ", KEY_DATA));
+    assertEquals("a", cache.get("kid1", "typ", KEY_DATA).getEncoded());
+  }
+
+  @Test
+  public void testDisabled() {
+    ProtectedHeaderCache cache = new ProtectedHeaderCache(0);
+    ProtectedHeader header = cache.put("kid", "typ", KEY_DATA, "aGVhZGVy");
+    assertEquals("aGVhZGVy", header.getEncoded());
+    assertNull(cache.get("kid", "typ", KEY_DATA));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getMisses());
+  }
+}
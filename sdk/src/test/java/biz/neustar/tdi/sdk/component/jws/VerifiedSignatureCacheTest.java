@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Neustar, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package biz.neustar.tdi.sdk.component.jws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit test cases for {@link VerifiedSignatureCache} class.
+ */
+public class VerifiedSignatureCacheTest {
+  private static final Object KEY_DATA = new Object();
+
+  private static String key(String kid, String input, String signature) {
+    return VerifiedSignatureCache.cacheKey(kid,
+        ByteBuffer.wrap(input.getBytes(StandardCharsets.US_ASCII)), signature);
+  }
+
+  @Test
+  public void testCacheKey() {
+    ByteBuffer input = ByteBuffer.wrap("header.payload".getBytes(StandardCharsets.US_ASCII));
+    String cacheKey = VerifiedSignatureCache.cacheKey("kid", input, "sig");
+    assertEquals(0, input.position());
+    assertEquals(cacheKey, key("kid", "header.payload", "sig"));
+    assertNotEquals(cacheKey, key("kid2", "header.payload", "sig"));
+    assertNotEquals(cacheKey, key("kid", "header.payload2", "sig"));
+    assertNotEquals(cacheKey, key("kid", "header.payload", "sig2"));
+  }
+
+  @Test
+  public void testVerifiedUntilExpiry() {
+    VerifiedSignatureCache cache = new VerifiedSignatureCache(4);
+    String cacheKey = key("kid", "input", "sig");
+    assertFalse(cache.isVerified(cacheKey, KEY_DATA, 100));
+
+    cache.put(cacheKey, "kid", KEY_DATA, 200L);
+    assertTrue(cache.isVerified(cacheKey, KEY_DATA, 199));
+    assertFalse(cache.isVerified(cacheKey, KEY_DATA, 200));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    cache.put(cacheKey, "kid", KEY_DATA, null);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testReplacedKeyMisses() {
+    VerifiedSignatureCache cache = new VerifiedSignatureCache(4);
+    String cacheKey = key("kid", "input", "sig");
+    cache.put(cacheKey, "kid", KEY_DATA, 200L);
+    assertFalse(cache.isVerified(cacheKey, new Object(), 100));
+    assertFalse(cache.isVerified(cacheKey, KEY_DATA, 100));
+  }
+
+  @Test
+  public void testPurge() {
+    VerifiedSignatureCache cache = new VerifiedSignatureCache(4);
+    cache.put(key("kid1", "a", "sig"), "kid1", KEY_DATA, 200L);
+    cache.put(key("kid1", "b", "sig"), "kid1", KEY_DATA, 200L);
+    cache.put(key("kid2", "a", "sig"), "kid2", KEY_DATA, 200L);
+
+    cache.purge("kid1");
+    cache.purge(null);
+    assertEquals(1, cache.size());
+    assertTrue(cache.isVerified(key("kid2", "a", "sig"), KEY_DATA, 100));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testBounded() {
+    VerifiedSignatureCache cache = new VerifiedSignatureCache(2);
+    cache.put(key("kid", "a", "sig"), "kid", KEY_DATA, 200L);
+    cache.put(key("kid", "b", "sig"), "kid", KEY_DATA, 200L);
+    assertTrue(cache.isVerified(key("kid", "a", "sig"), KEY_DATA, 100));
+
+    cache.put(key("kid", "c", "sig"), "kid", KEY_DATA, 200L);
+    assertEquals(2, cache.size());
+    assertTrue(cache.isVerified(key("kid", "a", "sig"), KEY_DATA, 100));
+    assertFalse(cache.isVerified(key("kid", "b", "sig"), KEY_DATA, 100));
+  }
+
+  @Test
+  public void testDisabled() {
+    VerifiedSignatureCache cache = new VerifiedSignatureCache(0);
+    assertFalse(cache.isEnabled());
+    cache.put(key("kid", "a", "sig"), "kid", KEY_DATA, 200L);
+    assertEquals(0, cache.size());
+    assertFalse(cache.isVerified(key("kid", "a", "sig"), KEY_DATA, 100));
+  }
+}